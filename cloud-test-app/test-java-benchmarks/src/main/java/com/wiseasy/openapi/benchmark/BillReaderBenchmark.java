@@ -0,0 +1,79 @@
+package com.wiseasy.openapi.benchmark;
+
+import com.wiseasy.openapi.bill.BillReader;
+import com.wiseasy.openapi.bill.BillRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * @Description: One full pass of BillReader over a synthetic gzip statement of several million rows,
+ * the time to read and tokenize every record and convert its typed columns. Heap is capped so that
+ * a reader holding rows in memory fails here instead of in production
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx256m")
+@State(Scope.Benchmark)
+public class BillReaderBenchmark {
+
+    @Param({"3000000"})
+    public int rows;
+
+    private File file;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = File.createTempFile("statement-", ".csv.gz");
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(new FileOutputStream(file), 64 * 1024), StandardCharsets.UTF_8))) {
+            out.write("Merchant No,Store No,Terminal SN,trans_no,Merchant-Order-No,trans_type,trans_status,"
+                    + "trans_amount,trans_end_time,attach\n");
+            for (int i = 0; i < rows; i++) {
+                out.write("M1000" + (i % 50) + ",S" + (i % 500) + ",WPOS" + (i % 5000) + ",T" + (100000000L + i)
+                        + ",ORD" + i + ",1,2," + (i % 100000) / 100 + "." + (i % 100)
+                        + ",2024-01-01 12:00:00,\"note, with comma\"\n");
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Benchmark
+    public long read() throws IOException {
+        long count = 0;
+        try (BillReader reader = BillReader.open(file)) {
+            BillRecord record;
+            while ((record = reader.next()) != null) {
+                if (record.getTrans_amount() != null && record.getTrans_status() != null) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,72 @@
+package com.wiseasy.openapi.benchmark;
+
+import com.wiseasy.openapi.OpenApiClient;
+import com.wiseasy.openapi.OpenApiException;
+import com.wiseasy.openapi.request.OrderQueryRequest;
+import com.wiseasy.openapi.response.OrderQueryResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Description: A whole order query through OpenApiClient against an in-process gateway over loopback HTTP:
+ * serialization, signing, the HTTP exchange on pooled connections, decoding and verification.
+ * Logging is off (-Dorg.apache.commons.logging.Log), the request lines would otherwise dominate, and the stub
+ * writes with TCP_NODELAY, without it Nagle and delayed ACKs add ~40ms to every call
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Dorg.apache.commons.logging.Log=org.apache.commons.logging.impl.NoOpLog",
+        "-Dsun.net.httpserver.nodelay=true"})
+@State(Scope.Benchmark)
+public class ExecuteBenchmark {
+
+    private StubGateway gateway;
+
+    private OpenApiClient client;
+
+    private OrderQueryRequest request;
+
+    @Setup
+    public void setUp() throws IOException {
+        gateway = new StubGateway(Fixtures.orderQueryResponse());
+        client = new OpenApiClient(Fixtures.APP_ID, gateway.getUrl(), Fixtures.APP_PRIVATE_KEY, Fixtures.GATEWAY_PUBLIC_KEY);
+        request = Fixtures.orderQuery();
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.close();
+        gateway.close();
+    }
+
+    @Benchmark
+    public OrderQueryResponse execute() throws OpenApiException {
+        return client.execute(request);
+    }
+
+    @Benchmark
+    public OrderQueryResponse executeAsync() {
+        return client.executeAsync(request).join();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public OrderQueryResponse executeConcurrent() throws OpenApiException {
+        return client.execute(request);
+    }
+}
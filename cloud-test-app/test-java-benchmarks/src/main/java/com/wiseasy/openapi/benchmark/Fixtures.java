@@ -0,0 +1,132 @@
+package com.wiseasy.openapi.benchmark;
+
+import com.alibaba.fastjson.JSONObject;
+import com.wiseasy.openapi.OpenApiException;
+import com.wiseasy.openapi.request.OrderQueryRequest;
+import com.wiseasy.openapi.request.WisehubCloudPayOrderRequest;
+import com.wiseasy.openapi.sign.Base64;
+import com.wiseasy.openapi.sign.SignHandler;
+import com.wiseasy.openapi.utils.Constants;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * @Description: Keys, requests and responses shared by the benchmarks. The keys are generated once per JVM,
+ * 2048-bit RSA as issued by the gateway
+ */
+final class Fixtures {
+
+    static final String APP_ID = "wz6012822ca2f1as78";
+
+    static final String APP_PRIVATE_KEY;
+
+    static final String APP_PUBLIC_KEY;
+
+    static final String GATEWAY_PRIVATE_KEY;
+
+    static final String GATEWAY_PUBLIC_KEY;
+
+    static {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+            KeyPair app = generator.generateKeyPair();
+            KeyPair gateway = generator.generateKeyPair();
+            APP_PRIVATE_KEY = Base64.encode(app.getPrivate().getEncoded());
+            APP_PUBLIC_KEY = Base64.encode(app.getPublic().getEncoded());
+            GATEWAY_PRIVATE_KEY = Base64.encode(gateway.getPrivate().getEncoded());
+            GATEWAY_PUBLIC_KEY = Base64.encode(gateway.getPublic().getEncoded());
+        } catch (NoSuchAlgorithmException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private Fixtures() {
+    }
+
+    /**
+     * A typical payment order
+     */
+    static WisehubCloudPayOrderRequest payOrder() {
+        WisehubCloudPayOrderRequest request = new WisehubCloudPayOrderRequest();
+        request.setMerchant_no("302100085224");
+        request.setTerminal_sn("WPYB002248000312");
+        request.setPay_method_category("BANKCARD");
+        request.setPay_method_id("Visa");
+        request.setMerchant_order_no("20230905104535000001");
+        request.setPrice_currency("USD");
+        request.setOrder_amount(12.34);
+        request.setTrans_type(1);
+        request.setDescription("Coffee x2, croissant");
+        request.setStore_no("4010038502");
+        request.setAttach("{\"table\":\"12\",\"staff\":\"Ana\"}");
+        request.setNotify_url("https://merchant.example.com/paycloud/notify");
+        return request;
+    }
+
+    /**
+     * The parameters of a payment order as signed by the client: request fields and common parameters
+     */
+    static JSONObject payOrderParams() {
+        JSONObject params = JSONObject.parseObject(JSONObject.toJSONString(payOrder()));
+        params.remove("responseClass");
+        params.remove("requestMethod");
+        params.put(Constants.APP_ID, APP_ID);
+        params.put(Constants.METHOD, "wisehub.cloud.pay.order");
+        params.put(Constants.FORMAT, Constants.FORMAT_JSON);
+        params.put(Constants.CHARSET, Constants.CHARSET_UTF8);
+        params.put(Constants.SIGN_TYPE, Constants.SIGN_TYPE_RSA2);
+        params.put(Constants.VERSION, Constants.VERSION_VALUE);
+        params.put(Constants.TIMESTAMP, String.valueOf(System.currentTimeMillis()));
+        return params;
+    }
+
+    static OrderQueryRequest orderQuery() {
+        OrderQueryRequest request = new OrderQueryRequest();
+        request.setMerchant_no("302100085224");
+        request.setMerchant_order_no("20230905104535000001");
+        return request;
+    }
+
+    /**
+     * Gateway response of an order query, signed with the gateway key
+     */
+    static String orderQueryResponse() {
+        JSONObject data = new JSONObject(true);
+        data.put("trans_no", "1010038502230905104535921");
+        data.put("trans_type", 1);
+        data.put("trans_status", 2);
+        data.put("merchant_order_no", "20230905104535000001");
+        data.put("price_currency", "USD");
+        data.put("trans_amount", 12.34);
+        data.put("store_no", "4010038502");
+        data.put("terminal_sn", "WPYB002248000312");
+        data.put("pay_scenario", "SWIPE_CARD");
+        data.put("pay_channel_trans_no", "T230905104536118");
+        data.put("paid_amount", 12.34);
+        data.put("trans_end_time", "2023-09-05 10:45:38");
+        data.put("pay_method_id", "Visa");
+        return signed(data);
+    }
+
+    /**
+     * Response envelope with the given data, signed with the gateway key
+     */
+    static String signed(JSONObject data) {
+        JSONObject body = new JSONObject(true);
+        body.put("code", "0");
+        body.put("msg", "success");
+        body.put("psn", "PSN20230905104535000001");
+        body.put(Constants.DATA, data);
+        // Sign what the client will parse: nested objects are signed by their string form, which depends on the key order
+        JSONObject parsed = JSONObject.parseObject(body.toJSONString());
+        try {
+            parsed.put(Constants.SIGN, SignHandler.sign(GATEWAY_PRIVATE_KEY, parsed));
+        } catch (OpenApiException e) {
+            throw new IllegalStateException(e);
+        }
+        return parsed.toJSONString();
+    }
+}
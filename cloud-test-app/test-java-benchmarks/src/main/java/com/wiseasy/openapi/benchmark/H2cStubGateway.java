@@ -0,0 +1,75 @@
+package com.wiseasy.openapi.benchmark;
+
+import com.wiseasy.openapi.utils.Constants;
+import org.eclipse.jetty.http2.server.HTTP2CServerConnectionFactory;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @Description: Same as {@link StubGateway} on Jetty, which speaks both HTTP/1.1 and cleartext HTTP/2 (h2c) on the
+ * same port, for comparing the transports against one server
+ */
+final class H2cStubGateway implements AutoCloseable {
+
+    private final Server server;
+
+    private final ServerConnector connector;
+
+    H2cStubGateway(String responseBody) throws Exception {
+        final byte[] body = responseBody.getBytes(StandardCharsets.UTF_8);
+        server = new Server(new QueuedThreadPool(32));
+        HttpConfiguration config = new HttpConfiguration();
+        connector = new ServerConnector(server, new HttpConnectionFactory(config), new HTTP2CServerConnectionFactory(config));
+        connector.setHost("127.0.0.1");
+        connector.setAcceptQueueSize(1024);
+        server.addConnector(connector);
+        server.setHandler(new AbstractHandler() {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException {
+                if (!Constants.API_ENTRY_URL.equals(target)) {
+                    // The OPTIONS request of the h2c upgrade
+                    baseRequest.setHandled(true);
+                    return;
+                }
+                try (InputStream in = request.getInputStream()) {
+                    byte[] buffer = new byte[8192];
+                    while (in.read(buffer) >= 0) {
+                        // drain the request
+                    }
+                }
+                response.setContentType("application/json;charset=UTF-8");
+                response.setContentLength(body.length);
+                response.getOutputStream().write(body);
+                baseRequest.setHandled(true);
+            }
+        });
+        server.start();
+    }
+
+    String getUrl() {
+        return "http://127.0.0.1:" + connector.getLocalPort();
+    }
+
+    /**
+     * Number of TCP connections currently open to the server
+     */
+    int getConnectionCount() {
+        return connector.getConnectedEndPoints().size();
+    }
+
+    @Override
+    public void close() throws Exception {
+        server.stop();
+    }
+}
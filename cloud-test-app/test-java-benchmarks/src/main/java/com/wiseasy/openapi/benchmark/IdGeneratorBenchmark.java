@@ -0,0 +1,69 @@
+package com.wiseasy.openapi.benchmark;
+
+import com.wiseasy.openapi.id.TimeSequenceIdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Description: Http-Request-Psn generation, alone and with 8 threads drawing from the same generator,
+ * against the original SimpleDateFormat + Math.random
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IdGeneratorBenchmark {
+
+    private final TimeSequenceIdGenerator generator = new TimeSequenceIdGenerator(1);
+
+    @Benchmark
+    public String nextId() {
+        return generator.nextId();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String nextIdContended() {
+        return generator.nextId();
+    }
+
+    @Benchmark
+    public String legacyGenHttpRequestId() {
+        return legacyGenHttpRequestId0();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String legacyGenHttpRequestIdContended() {
+        return legacyGenHttpRequestId0();
+    }
+
+    /**
+     * The original OpenApiClient.genHttpRequestId
+     */
+    private static String legacyGenHttpRequestId0() {
+        SimpleDateFormat format = new SimpleDateFormat("MMddHHmmss");
+        String timeStr = format.format(new Date());
+        int randomNum = (int) (Math.random() * Integer.MAX_VALUE);
+        String str = timeStr + randomNum;
+        int len = str.length();
+        if (len < 20) {
+            str += "00000000000000000000".substring(len);
+        }
+        return str;
+    }
+}
@@ -0,0 +1,95 @@
+package com.wiseasy.openapi.benchmark;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.wiseasy.openapi.request.OpenApiRequest;
+import com.wiseasy.openapi.request.RequestSerializer;
+import com.wiseasy.openapi.request.WisehubCloudPayOrderRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.ParameterizedType;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Description: Request serialization and request metadata. The legacy* variants reproduce the original code:
+ * a JSON write and parse per request, and the method name and response type rebuilt on every call
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestBenchmark {
+
+    private WisehubCloudPayOrderRequest request;
+
+    @Setup
+    public void setUp() {
+        request = Fixtures.payOrder();
+    }
+
+    @Benchmark
+    public JSONObject serialize() {
+        return RequestSerializer.toParams(request);
+    }
+
+    @Benchmark
+    public JSONObject legacySerialize() {
+        JSONObject params = JSONObject.parseObject(JSON.toJSONString(request));
+        params.remove("responseClass");
+        params.remove("requestMethod");
+        return params;
+    }
+
+    @Benchmark
+    public String getRequestMethod() {
+        return request.getRequestMethod();
+    }
+
+    @Benchmark
+    public String legacyGetRequestMethod() {
+        return legacyRequestMethod(request);
+    }
+
+    @Benchmark
+    public Class<?> getResponseClass() {
+        return request.getResponseClass();
+    }
+
+    @Benchmark
+    public Class<?> legacyGetResponseClass() {
+        return (Class<?>) ((ParameterizedType) request.getClass().getGenericSuperclass()).getActualTypeArguments()[0];
+    }
+
+    /**
+     * The original OpenApiRequest.getRequestMethod
+     */
+    static String legacyRequestMethod(OpenApiRequest<?> request) {
+        String className = request.getClass().getSimpleName();
+        className = className.replace("Request", "");
+        char[] chars = className.toCharArray();
+        String method = "";
+        for (char c : chars) {
+            if ("".equals(method)) {
+                method += (String.valueOf(c)).toLowerCase();
+            } else {
+                if (c >= 'A' && c <= 'Z') {
+                    method += "." + (String.valueOf(c)).toLowerCase();
+                } else {
+                    method += String.valueOf(c);
+                }
+            }
+        }
+        return method;
+    }
+}
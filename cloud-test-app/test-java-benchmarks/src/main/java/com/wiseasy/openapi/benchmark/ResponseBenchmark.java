@@ -0,0 +1,79 @@
+package com.wiseasy.openapi.benchmark;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.wiseasy.openapi.OpenApiException;
+import com.wiseasy.openapi.response.OrderQueryResponse;
+import com.wiseasy.openapi.response.ResponseDecoder;
+import com.wiseasy.openapi.sign.RSAKeyHolder;
+import com.wiseasy.openapi.sign.SignHandler;
+import com.wiseasy.openapi.utils.Constants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Description: Response decoding. decode and legacyDecode include the signature verification, bind and legacyBind
+ * only the conversion to the response object; the legacy* variants reproduce the original code of OpenApiClient.execute
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseBenchmark {
+
+    private String body;
+
+    private RSAKeyHolder keys;
+
+    @Setup
+    public void setUp() {
+        body = Fixtures.orderQueryResponse();
+        keys = new RSAKeyHolder(null, Fixtures.GATEWAY_PUBLIC_KEY);
+    }
+
+    @Benchmark
+    public OrderQueryResponse decode() throws OpenApiException {
+        return ResponseDecoder.decode(body, OrderQueryResponse.class, keys);
+    }
+
+    @Benchmark
+    public OrderQueryResponse legacyDecode() throws OpenApiException {
+        JSONObject resultJson = JSONObject.parseObject(body);
+        if (!SignHandler.verifySign(Fixtures.GATEWAY_PUBLIC_KEY, resultJson)) {
+            throw new OpenApiException(Constants.VERIFY_SIGNATURE_FAILED, "Response data signature error");
+        }
+        return legacyBind(resultJson);
+    }
+
+    @Benchmark
+    public OrderQueryResponse bind() {
+        return ResponseDecoder.bind(JSON.parseObject(body), OrderQueryResponse.class);
+    }
+
+    @Benchmark
+    public OrderQueryResponse legacyBind() {
+        return legacyBind(JSONObject.parseObject(body));
+    }
+
+    private static OrderQueryResponse legacyBind(JSONObject resultJson) {
+        Object data = resultJson.get(Constants.DATA);
+        if (data != null) {
+            String dataStr = resultJson.getString(Constants.DATA);
+            resultJson.putAll(JSONObject.parseObject(dataStr));
+        }
+        resultJson.remove(Constants.DATA);
+        return JSON.toJavaObject(resultJson, OrderQueryResponse.class);
+    }
+}
@@ -0,0 +1,108 @@
+package com.wiseasy.openapi.benchmark;
+
+import com.alibaba.fastjson.JSONObject;
+import com.wiseasy.openapi.OpenApiException;
+import com.wiseasy.openapi.sign.Base64;
+import com.wiseasy.openapi.sign.CanonicalContent;
+import com.wiseasy.openapi.sign.RSA;
+import com.wiseasy.openapi.sign.RSAKeyHolder;
+import com.wiseasy.openapi.sign.SignHandler;
+import com.wiseasy.openapi.utils.Constants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Description: Request signing and response verification. The *WithKeyString variants are the original path that
+ * parses the key and creates the Signature on every call, the *WithKeyHolder variants the one OpenApiClient uses
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SignBenchmark {
+
+    private RSAKeyHolder keys;
+
+    private JSONObject params;
+
+    private JSONObject signedParams;
+
+    private String content;
+
+    private String contentSign;
+
+    private byte[] signature;
+
+    private String encodedSignature;
+
+    @Setup
+    public void setUp() throws OpenApiException {
+        keys = new RSAKeyHolder(Fixtures.APP_PRIVATE_KEY, Fixtures.APP_PUBLIC_KEY);
+        params = Fixtures.payOrderParams();
+        signedParams = Fixtures.payOrderParams();
+        signedParams.put(Constants.SIGN, SignHandler.sign(keys, signedParams));
+        content = CanonicalContent.of(params).toString();
+        contentSign = RSA.sign(content, Fixtures.APP_PRIVATE_KEY, "UTF-8");
+        signature = Base64.decode(contentSign);
+        encodedSignature = contentSign;
+    }
+
+    @Benchmark
+    public String signWithKeyHolder() throws OpenApiException {
+        return SignHandler.sign(keys, params);
+    }
+
+    @Benchmark
+    public String signWithKeyString() throws OpenApiException {
+        return SignHandler.sign(Fixtures.APP_PRIVATE_KEY, params);
+    }
+
+    @Benchmark
+    public boolean verifyWithKeyHolder() {
+        return SignHandler.verifySign(keys, signedParams);
+    }
+
+    @Benchmark
+    public boolean verifyWithKeyString() {
+        return SignHandler.verifySign(Fixtures.APP_PUBLIC_KEY, signedParams);
+    }
+
+    @Benchmark
+    public String canonicalString() {
+        return CanonicalContent.of(params).toString();
+    }
+
+    @Benchmark
+    public String rsaSign() {
+        return RSA.sign(content, Fixtures.APP_PRIVATE_KEY, "UTF-8");
+    }
+
+    @Benchmark
+    public boolean rsaVerify() {
+        return RSA.verify(content, contentSign, Fixtures.APP_PUBLIC_KEY, "UTF-8");
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public String base64Encode() {
+        return Base64.encode(signature);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public byte[] base64Decode() {
+        return Base64.decode(encodedSignature);
+    }
+}
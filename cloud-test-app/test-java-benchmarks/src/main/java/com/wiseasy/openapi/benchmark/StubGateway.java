@@ -0,0 +1,79 @@
+package com.wiseasy.openapi.benchmark;
+
+import com.sun.net.httpserver.HttpServer;
+import com.wiseasy.openapi.utils.Constants;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Description: Minimal in-process gateway for the end-to-end benchmarks: answers every call of /api/entry with
+ * the same response, signed once in advance so that the gateway side costs next to nothing. A delay stands in for
+ * the gateway processing time without holding a server thread
+ */
+final class StubGateway implements AutoCloseable {
+
+    private final HttpServer server;
+
+    private final ExecutorService executor;
+
+    private final ScheduledExecutorService scheduler;
+
+    StubGateway(String responseBody) throws IOException {
+        this(responseBody, 0);
+    }
+
+    /**
+     * @param delayMillis Time between reading a request and answering it
+     */
+    StubGateway(String responseBody, final long delayMillis) throws IOException {
+        final byte[] body = responseBody.getBytes(StandardCharsets.UTF_8);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        executor = Executors.newFixedThreadPool(16);
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        server.setExecutor(executor);
+        server.createContext(Constants.API_ENTRY_URL, exchange -> {
+            try (InputStream in = exchange.getRequestBody()) {
+                byte[] buffer = new byte[8192];
+                while (in.read(buffer) >= 0) {
+                    // drain the request
+                }
+            }
+            Runnable respond = () -> {
+                try {
+                    exchange.getResponseHeaders().set("Content-Type", "application/json;charset=UTF-8");
+                    exchange.sendResponseHeaders(200, body.length);
+                    try (OutputStream out = exchange.getResponseBody()) {
+                        out.write(body);
+                    }
+                } catch (IOException e) {
+                    exchange.close();
+                }
+            };
+            if (delayMillis > 0) {
+                scheduler.schedule(respond, delayMillis, TimeUnit.MILLISECONDS);
+            } else {
+                respond.run();
+            }
+        });
+        server.start();
+    }
+
+    String getUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+        scheduler.shutdownNow();
+    }
+}
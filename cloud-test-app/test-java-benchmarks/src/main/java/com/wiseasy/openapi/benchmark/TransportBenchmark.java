@@ -0,0 +1,147 @@
+package com.wiseasy.openapi.benchmark;
+
+import com.alibaba.fastjson.JSONObject;
+import com.wiseasy.openapi.OpenApiClient;
+import com.wiseasy.openapi.OpenApiException;
+import com.wiseasy.openapi.request.OrderQueryRequest;
+import com.wiseasy.openapi.response.OrderQueryResponse;
+import com.wiseasy.openapi.sign.SignHandler;
+import com.wiseasy.openapi.transport.ApacheTransport;
+import com.wiseasy.openapi.transport.Transport;
+import com.wiseasy.openapi.transport.http2.JdkHttpTransport;
+import com.wiseasy.openapi.transport.http2.JdkTransportConfig;
+import com.wiseasy.openapi.utils.AsyncHttpConnectionPool;
+import com.wiseasy.openapi.utils.Constants;
+import com.wiseasy.openapi.utils.HttpConnectionPool;
+import com.wiseasy.openapi.utils.HttpPoolConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Description: The Apache HttpClient transport against the java.net.http one, in HTTP/1.1 and in HTTP/2 (h2c),
+ * posting a signed payment order to the same in-process Jetty server. The transport benchmarks send pre-signed
+ * parameters so that RSA does not hide the HTTP costs; {@code execute} is the whole client call for scale.
+ * {@code postBurst} sends {@value #BURST} requests at once: one connection each on HTTP/1.1, one shared connection
+ * on HTTP/2. The number of connections opened is printed at the end of each trial
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Dorg.apache.commons.logging.Log=org.apache.commons.logging.impl.NoOpLog",
+        "-Dorg.eclipse.jetty.LEVEL=WARN"})
+@State(Scope.Benchmark)
+public class TransportBenchmark {
+
+    static final int BURST = 64;
+
+    @Param({"apache", "jdk-http1", "jdk-http2"})
+    private String transportName;
+
+    private H2cStubGateway gateway;
+
+    private HttpConnectionPool pool;
+
+    private AsyncHttpConnectionPool asyncPool;
+
+    private Transport transport;
+
+    private OpenApiClient client;
+
+    private String url;
+
+    private Map<String, Object> headers;
+
+    private Map<String, Object> params;
+
+    private OrderQueryRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        gateway = new H2cStubGateway(Fixtures.orderQueryResponse());
+        url = gateway.getUrl() + Constants.API_ENTRY_URL;
+        switch (transportName) {
+            case "apache":
+                HttpPoolConfig poolConfig = new HttpPoolConfig();
+                pool = new HttpConnectionPool(poolConfig);
+                asyncPool = new AsyncHttpConnectionPool(poolConfig);
+                transport = new ApacheTransport(pool, () -> asyncPool);
+                break;
+            case "jdk-http1":
+            case "jdk-http2":
+                JdkTransportConfig config = new JdkTransportConfig();
+                config.setHttp2("jdk-http2".equals(transportName));
+                transport = new JdkHttpTransport(config);
+                break;
+            default:
+                throw new IllegalArgumentException(transportName);
+        }
+        client = new OpenApiClient(Fixtures.APP_ID, gateway.getUrl(), Fixtures.APP_PRIVATE_KEY, Fixtures.GATEWAY_PUBLIC_KEY);
+        client.setTransport(transport);
+        request = Fixtures.orderQuery();
+
+        JSONObject signed = Fixtures.payOrderParams();
+        signed.put(Constants.SIGN, SignHandler.sign(Fixtures.APP_PRIVATE_KEY, signed));
+        params = new HashMap<>(signed);
+        headers = new HashMap<>();
+        headers.put(Constants.HTTP_REQUEST_HEADER_PSN, "20230905104535000001");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        System.out.println();
+        System.out.println(transportName + ": " + gateway.getConnectionCount() + " connections open");
+        client.close();
+        transport.close();
+        if (pool != null) {
+            pool.close();
+            asyncPool.close();
+        }
+        gateway.close();
+    }
+
+    @Benchmark
+    public String post() throws Exception {
+        return transport.post(url, headers, params);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String postConcurrent() throws Exception {
+        return transport.post(url, headers, params);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public int postBurst() {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[BURST];
+        for (int i = 0; i < BURST; i++) {
+            futures[i] = transport.postAsync(url, headers, params);
+        }
+        CompletableFuture.allOf(futures).join();
+        return futures.length;
+    }
+
+    @Benchmark
+    public OrderQueryResponse execute() throws OpenApiException {
+        return client.execute(request);
+    }
+}
@@ -0,0 +1,68 @@
+package com.wiseasy.openapi.benchmark;
+
+import com.wiseasy.openapi.utils.FileUtil;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Description: MD5 of an upload file: the streaming FileUtil.md5Hex against the original read-everything-then-hash,
+ * which needs a heap of twice the file size (run the large sizes with the fork's -Xmx, or expect an OutOfMemoryError)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class UploadHashBenchmark {
+
+    @Param({"1", "16", "128", "500"})
+    public int sizeMb;
+
+    private File file;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = File.createTempFile("upload-hash-", ".bin");
+        byte[] block = new byte[1024 * 1024];
+        new Random(sizeMb).nextBytes(block);
+        try (OutputStream out = new FileOutputStream(file)) {
+            for (int i = 0; i < sizeMb; i++) {
+                out.write(block);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Benchmark
+    public String md5Hex() throws IOException {
+        return FileUtil.md5Hex(file);
+    }
+
+    @Benchmark
+    public String legacyMd5Hex() {
+        return DigestUtils.md5Hex(FileUtil.file2Byte(file));
+    }
+}
@@ -0,0 +1,140 @@
+package com.wiseasy.openapi.benchmark;
+
+import com.alibaba.fastjson.JSONObject;
+import com.wiseasy.openapi.OpenApiClient;
+import com.wiseasy.openapi.request.OrderQueryRequest;
+import com.wiseasy.openapi.sign.SignHandler;
+import com.wiseasy.openapi.utils.Constants;
+import com.wiseasy.openapi.utils.ExecutorFactory;
+import com.wiseasy.openapi.utils.HttpClientUtil;
+import com.wiseasy.openapi.utils.HttpConnectionPool;
+import com.wiseasy.openapi.utils.HttpPoolConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Description: A nightly-batch style fan-out of {@value #FAN_OUT} blocking calls submitted at once, run on a pool of
+ * 200 platform threads, on one platform thread per call, or on one virtual thread per call (Java 21 or later).
+ * The gateway answers after {@value #GATEWAY_DELAY_MILLIS} ms and the connection pool allows 100 calls in flight,
+ * so the pool is the limit in every mode. {@code post} sends pre-signed parameters, {@code execute} is the whole
+ * client call with RSA signing and verification
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Dorg.apache.commons.logging.Log=org.apache.commons.logging.impl.NoOpLog",
+        "-Dsun.net.httpserver.nodelay=true"})
+@State(Scope.Benchmark)
+public class VirtualThreadBenchmark {
+
+    static final int FAN_OUT = 2000;
+
+    static final long GATEWAY_DELAY_MILLIS = 20;
+
+    @Param({"platform-200", "platform-2000", "virtual"})
+    private String threads;
+
+    private StubGateway gateway;
+
+    private HttpConnectionPool pool;
+
+    private OpenApiClient client;
+
+    private ExecutorService executor;
+
+    private String url;
+
+    private Map<String, Object> headers;
+
+    private Map<String, Object> params;
+
+    private OrderQueryRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        gateway = new StubGateway(Fixtures.orderQueryResponse(), GATEWAY_DELAY_MILLIS);
+        url = gateway.getUrl() + Constants.API_ENTRY_URL;
+        HttpPoolConfig poolConfig = new HttpPoolConfig();
+        poolConfig.setMaxPerRoute(100);
+        // The whole fan-out queues on the pool
+        poolConfig.setLeaseTimeoutMillis(0);
+        pool = new HttpConnectionPool(poolConfig);
+        client = new OpenApiClient(Fixtures.APP_ID, gateway.getUrl(), Fixtures.APP_PRIVATE_KEY, Fixtures.GATEWAY_PUBLIC_KEY, poolConfig);
+        request = Fixtures.orderQuery();
+
+        switch (threads) {
+            case "platform-200":
+                executor = ExecutorFactory.newPlatformThreadExecutor(200, "fan-out");
+                break;
+            case "platform-2000":
+                executor = ExecutorFactory.newPlatformThreadExecutor(FAN_OUT, "fan-out");
+                break;
+            case "virtual":
+                executor = ExecutorFactory.newVirtualThreadExecutor("fan-out");
+                break;
+            default:
+                throw new IllegalArgumentException(threads);
+        }
+
+        JSONObject signed = Fixtures.payOrderParams();
+        signed.put(Constants.SIGN, SignHandler.sign(Fixtures.APP_PRIVATE_KEY, signed));
+        params = new HashMap<>(signed);
+        headers = new HashMap<>();
+        headers.put(Constants.HTTP_REQUEST_HEADER_PSN, "20230905104535000001");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        client.close();
+        pool.close();
+        gateway.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FAN_OUT)
+    public int post() throws Exception {
+        Future<?>[] calls = new Future<?>[FAN_OUT];
+        for (int i = 0; i < FAN_OUT; i++) {
+            calls[i] = executor.submit(() -> HttpClientUtil.doPost(pool, url, headers, params));
+        }
+        return join(calls);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FAN_OUT)
+    public int execute() throws Exception {
+        Future<?>[] calls = new Future<?>[FAN_OUT];
+        for (int i = 0; i < FAN_OUT; i++) {
+            calls[i] = executor.submit(() -> client.execute(request));
+        }
+        return join(calls);
+    }
+
+    private static int join(Future<?>[] calls) throws Exception {
+        for (Future<?> call : calls) {
+            call.get();
+        }
+        return calls.length;
+    }
+}
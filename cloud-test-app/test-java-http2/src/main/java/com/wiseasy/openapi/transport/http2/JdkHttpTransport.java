@@ -0,0 +1,289 @@
+package com.wiseasy.openapi.transport.http2;
+
+import com.wiseasy.openapi.transport.Transport;
+import com.wiseasy.openapi.utils.HttpClientUtil;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.mime.content.ContentBody;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * @Description: Transport on the JDK {@link HttpClient}. With HTTP/2 all the concurrent requests to the gateway are
+ * multiplexed as streams of a single connection instead of holding one pooled connection each, and TLS 1.3 is offered.
+ * Servers that do not speak HTTP/2 are used in HTTP/1.1 with a connection per request in flight.
+ * Over plain http:// the JDK upgrades a connection to h2c only with a request without a body, so the first request
+ * to a plain-HTTP host is preceded by an OPTIONS request. Create one transport per application and close it at shutdown
+ *
+ * <pre>
+ * JdkHttpTransport transport = new JdkHttpTransport();
+ * client.setTransport(transport);
+ * </pre>
+ */
+public class JdkHttpTransport implements Transport {
+
+    private static final Log log = LogFactory.getLog(JdkHttpTransport.class);
+
+    private static final CompletableFuture<Void> UPGRADED = CompletableFuture.completedFuture(null);
+
+    private static final String FORM_CONTENT_TYPE = "application/x-www-form-urlencoded; charset=UTF-8";
+
+    // Headers set by the JDK client itself, it refuses requests that set them
+    private static final Set<String> RESTRICTED_HEADERS = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+
+    static {
+        RESTRICTED_HEADERS.addAll(Arrays.asList("Connection", "Content-Length", "Expect", "Host", "Upgrade"));
+    }
+
+    private final JdkTransportConfig config;
+
+    private final HttpClient httpClient;
+
+    // OPTIONS request of each plain-HTTP host (scheme://host:port), sent once
+    private final ConcurrentMap<String, CompletableFuture<Void>> upgrades = new ConcurrentHashMap<>();
+
+    public JdkHttpTransport() {
+        this(new JdkTransportConfig());
+    }
+
+    public JdkHttpTransport(JdkTransportConfig config) {
+        this.config = config;
+
+        SSLParameters sslParameters = new SSLParameters();
+        sslParameters.setProtocols(config.getTlsProtocols());
+
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .version(config.isHttp2() ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(config.getConnectTimeoutMillis()))
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .sslParameters(sslParameters);
+        try {
+            builder.sslContext(config.getSslContext() != null ? config.getSslContext() : SSLContext.getDefault());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("No default TLS context", e);
+        }
+        if (config.getExecutor() != null) {
+            builder.executor(config.getExecutor());
+        }
+        this.httpClient = builder.build();
+    }
+
+    @Override
+    public String post(String url, Map<String, Object> headers, Map<String, Object> params) throws Exception {
+        HttpRequest request = formRequest(url, headers, params);
+        upgrade(request.uri());
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8)).body();
+    }
+
+    @Override
+    public CompletableFuture<String> postAsync(String url, Map<String, Object> headers, Map<String, Object> params) {
+        final CompletableFuture<String> result = new CompletableFuture<>();
+        final HttpRequest request;
+        try {
+            request = formRequest(url, headers, params);
+        } catch (Exception e) {
+            result.completeExceptionally(e);
+            return result;
+        }
+
+        final CompletableFuture<HttpResponse<String>> httpFuture = upgradeAsync(request.uri())
+                .thenCompose(v -> httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8)));
+        httpFuture.whenComplete((response, e) -> {
+            if (e != null) {
+                result.completeExceptionally(e);
+            } else {
+                result.complete(response.body());
+            }
+        });
+        result.whenComplete((resp, e) -> {
+            if (result.isCancelled()) {
+                httpFuture.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public String postMultipart(String url, Map<String, Object> headers, Map<String, Object> params, Map<String, ContentBody> parts) throws Exception {
+        final HttpEntity entity = HttpClientUtil.multipartEntity(params, parts);
+        final PipedInputStream[] body = new PipedInputStream[1];
+
+        // The JDK pulls the body from a stream, the entity is written into a pipe by another thread
+        HttpRequest.BodyPublisher publisher = HttpRequest.BodyPublishers.ofInputStream(() -> {
+            body[0] = pipe(entity);
+            return body[0];
+        });
+        if (entity.getContentLength() >= 0) {
+            publisher = HttpRequest.BodyPublishers.fromPublisher(publisher, entity.getContentLength());
+        }
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofMillis(config.getUploadTimeoutMillis()))
+                .header(HttpClientUtil.CONTENT_TYPE, entity.getContentType().getValue())
+                .POST(publisher);
+        setHeaders(builder, headers);
+        HttpRequest request = builder.build();
+
+        upgrade(request.uri());
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8)).body();
+        } finally {
+            // Stops the writer thread if the request failed before the whole body was read
+            if (body[0] != null) {
+                body[0].close();
+            }
+        }
+    }
+
+    /**
+     * The HTTP version of the connection to the url, after a request was sent to it
+     * @param url
+     * @return
+     * @throws Exception
+     */
+    public HttpClient.Version probe(String url) throws Exception {
+        URI uri = URI.create(url);
+        upgrade(uri);
+        return httpClient.send(optionsRequest(uri), HttpResponse.BodyHandlers.discarding()).version();
+    }
+
+    private HttpRequest formRequest(String url, Map<String, Object> headers, Map<String, Object> params) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofMillis(config.getRequestTimeoutMillis()))
+                .header(HttpClientUtil.CONTENT_TYPE, FORM_CONTENT_TYPE)
+                .POST(HttpRequest.BodyPublishers.ofString(formBody(params), StandardCharsets.UTF_8));
+        setHeaders(builder, headers);
+        return builder.build();
+    }
+
+    private static void setHeaders(HttpRequest.Builder builder, Map<String, Object> headers) {
+        if (headers != null) {
+            for (Map.Entry<String, Object> header : headers.entrySet()) {
+                Object v = header.getValue();
+                if (v != null && !RESTRICTED_HEADERS.contains(header.getKey())) {
+                    builder.setHeader(header.getKey(), v.toString());
+                }
+            }
+        }
+    }
+
+    /**
+     * The form body of the Apache transport: UTF-8, space as '+', null values skipped
+     */
+    static String formBody(Map<String, Object> params) {
+        StringBuilder body = new StringBuilder();
+        if (params != null) {
+            for (Map.Entry<String, Object> param : params.entrySet()) {
+                Object v = param.getValue();
+                if (v != null) {
+                    if (body.length() > 0) {
+                        body.append('&');
+                    }
+                    body.append(URLEncoder.encode(param.getKey(), StandardCharsets.UTF_8)).append('=')
+                            .append(URLEncoder.encode(v.toString(), StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return body.toString();
+    }
+
+    private static PipedInputStream pipe(final HttpEntity entity) {
+        final PipedInputStream in = new PipedInputStream(64 * 1024);
+        final OutputStream out;
+        try {
+            out = new PipedOutputStream(in);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        Thread writer = new Thread(() -> {
+            try (OutputStream o = out) {
+                entity.writeTo(o);
+            } catch (IOException e) {
+                // The request failed or was cancelled, the reading side is closed
+                log.debug("Upload body not fully written: " + e.getMessage());
+            }
+        }, "openapi-http2-upload");
+        writer.setDaemon(true);
+        writer.start();
+        return in;
+    }
+
+    /**
+     * Before the first request with a body to a plain-HTTP host, send an OPTIONS request on which the JDK upgrades the
+     * connection to h2c: later requests to the host are multiplexed on it. The requests sent meanwhile wait for the
+     * upgrade instead of opening HTTP/1.1 connections. TLS hosts negotiate HTTP/2 with ALPN instead
+     */
+    private void upgrade(URI uri) throws InterruptedException {
+        try {
+            upgradeAsync(uri).get();
+        } catch (ExecutionException e) {
+            // Never completes exceptionally
+        }
+    }
+
+    private CompletableFuture<Void> upgradeAsync(final URI uri) {
+        if (!config.isHttp2() || !"http".equalsIgnoreCase(uri.getScheme())) {
+            return UPGRADED;
+        }
+        final String host = uri.getScheme() + "://" + uri.getHost() + ":" + uri.getPort();
+        CompletableFuture<Void> upgrade = upgrades.get(host);
+        if (upgrade != null) {
+            return upgrade;
+        }
+        CompletableFuture<Void> created = new CompletableFuture<>();
+        upgrade = upgrades.putIfAbsent(host, created);
+        if (upgrade != null) {
+            return upgrade;
+        }
+        httpClient.sendAsync(optionsRequest(uri), HttpResponse.BodyHandlers.discarding()).whenComplete((response, e) -> {
+            if (e != null) {
+                // Tried again by the next request, this one goes on without waiting
+                log.debug("OPTIONS " + host + " fail: " + e.getMessage());
+                upgrades.remove(host, created);
+            }
+            created.complete(null);
+        });
+        return created;
+    }
+
+    private HttpRequest optionsRequest(URI uri) {
+        return HttpRequest.newBuilder(uri).method("OPTIONS", HttpRequest.BodyPublishers.noBody())
+                .timeout(Duration.ofMillis(config.getRequestTimeoutMillis())).build();
+    }
+
+    /**
+     * Nothing to release before Java 21: the connections of the JDK client are closed when it is garbage collected
+     * or when they are idle for longer than jdk.httpclient.keepalive.timeout
+     */
+    @Override
+    public void close() {
+        if (httpClient instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) httpClient).close();
+            } catch (Exception e) {
+                log.warn("Close HTTP client fail: " + e.getMessage());
+            }
+        }
+    }
+}
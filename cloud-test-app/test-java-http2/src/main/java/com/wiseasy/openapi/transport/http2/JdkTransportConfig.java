@@ -0,0 +1,41 @@
+package com.wiseasy.openapi.transport.http2;
+
+import com.wiseasy.openapi.utils.HttpClientUtil;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import javax.net.ssl.SSLContext;
+import java.util.concurrent.Executor;
+
+/**
+ * @Description: Settings of the {@link JdkHttpTransport}. The defaults negotiate HTTP/2 with TLS 1.3 or 1.2 and keep
+ * the timeouts of the Apache transport
+ */
+@Getter
+@Setter
+@ToString
+public class JdkTransportConfig {
+
+    // Ask for HTTP/2 (ALPN over TLS, Upgrade: h2c over plain HTTP), servers without it are spoken to in HTTP/1.1. false forces HTTP/1.1
+    private boolean http2 = true;
+
+    // TLS protocol versions offered to the gateway, in order of preference
+    private String[] tlsProtocols = new String[]{"TLSv1.3", "TLSv1.2"};
+
+    // TLS context, null for the default one of the JVM (default trust store)
+    @ToString.Exclude
+    private SSLContext sslContext;
+
+    // Connection establishment timeout, in milliseconds
+    private long connectTimeoutMillis = HttpClientUtil.DEFAULT_TIMEOUT;
+
+    // Time to wait for the response headers of an API call, in milliseconds
+    private long requestTimeoutMillis = HttpClientUtil.DEFAULT_TIMEOUT;
+
+    // Time to wait for the response headers of an upload, the whole file is sent first, in milliseconds
+    private long uploadTimeoutMillis = HttpClientUtil.DEFAULT_TIMEOUT * 2;
+
+    // Threads running the response handling and the asynchronous completions, null for a cached pool created by the JDK
+    private Executor executor;
+}
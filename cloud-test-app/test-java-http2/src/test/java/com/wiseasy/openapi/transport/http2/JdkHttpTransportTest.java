@@ -0,0 +1,169 @@
+package com.wiseasy.openapi.transport.http2;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.mime.content.ContentBody;
+import org.apache.http.entity.mime.content.StringBody;
+import org.eclipse.jetty.http2.server.HTTP2CServerConnectionFactory;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The JDK transport against an HTTP/2 (h2c) server and an HTTP/1.1-only server
+ */
+public class JdkHttpTransportTest {
+
+    private Server server;
+
+    private ServerConnector connector;
+
+    private JdkHttpTransport transport;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new Server();
+        HttpConfiguration httpConfig = new HttpConfiguration();
+        connector = new ServerConnector(server, new HttpConnectionFactory(httpConfig), new HTTP2CServerConnectionFactory(httpConfig));
+        connector.setHost("127.0.0.1");
+        server.addConnector(connector);
+        server.setHandler(new AbstractHandler() {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException {
+                JSONObject echo = new JSONObject();
+                echo.put("protocol", request.getProtocol());
+                echo.put("method", request.getMethod());
+                echo.put("contentType", request.getContentType());
+                echo.put("psn", request.getHeader("Http-Request-Psn"));
+                echo.put("body", new String(request.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+                byte[] body = echo.toJSONString().getBytes(StandardCharsets.UTF_8);
+                response.setContentType("application/json");
+                response.setContentLength(body.length);
+                response.getOutputStream().write(body);
+                baseRequest.setHandled(true);
+            }
+        });
+        server.start();
+        transport = new JdkHttpTransport();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        transport.close();
+        server.stop();
+    }
+
+    @Test
+    public void multiplexesOnOneHttp2Connection() throws Exception {
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            futures.add(transport.postAsync(url(), headers("P" + i), params("i", i)));
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            JSONObject echo = JSON.parseObject(futures.get(i).get());
+            Assert.assertEquals("HTTP/2.0", echo.getString("protocol"));
+            Assert.assertEquals("P" + i, echo.getString("psn"));
+            Assert.assertEquals("i=" + i, echo.getString("body"));
+        }
+        JSONObject echo = JSON.parseObject(transport.post(url(), headers("S"), params("i", 0)));
+        Assert.assertEquals("HTTP/2.0", echo.getString("protocol"));
+        Assert.assertEquals(1, connector.getConnectedEndPoints().size());
+    }
+
+    @Test
+    public void sendsTheFormOfTheApacheTransport() throws Exception {
+        Map<String, Object> params = params("biz_data", "{\"a\":\"b c&d=é\"}");
+        params.put("skipped", null);
+        params.put("sign", "x+/=");
+        JSONObject echo = JSON.parseObject(transport.post(url(), headers("P1"), params));
+        Assert.assertEquals("POST", echo.getString("method"));
+        Assert.assertEquals("application/x-www-form-urlencoded; charset=UTF-8", echo.getString("contentType"));
+        Assert.assertEquals("biz_data=%7B%22a%22%3A%22b+c%26d%3D%C3%A9%22%7D&sign=x%2B%2F%3D", echo.getString("body"));
+    }
+
+    @Test
+    public void uploadsMultipart() throws Exception {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            content.append("line ").append(i).append('\n');
+        }
+        Map<String, ContentBody> parts = new LinkedHashMap<>();
+        parts.put("file", new StringBody(content.toString(), ContentType.TEXT_PLAIN));
+        JSONObject echo = JSON.parseObject(transport.postMultipart(url(), headers("U1"), params("file_name", "a.txt"), parts));
+        Assert.assertTrue(echo.getString("contentType").startsWith("multipart/form-data; boundary="));
+        Assert.assertEquals("U1", echo.getString("psn"));
+        String body = echo.getString("body");
+        Assert.assertTrue(body.contains("name=\"file_name\"\r\n\r\na.txt\r\n"));
+        Assert.assertTrue(body.contains(content.toString()));
+    }
+
+    @Test
+    public void fallsBackToHttp11() throws Exception {
+        HttpServer http11 = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        http11.createContext("/", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            byte[] body = exchange.getProtocol().getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        http11.start();
+        try {
+            String url = "http://127.0.0.1:" + http11.getAddress().getPort() + "/v1";
+            Assert.assertEquals(HttpClient.Version.HTTP_1_1, transport.probe(url));
+            Assert.assertEquals("HTTP/1.1", transport.post(url, headers("P1"), params("a", 1)));
+            Assert.assertEquals("HTTP/1.1", transport.postAsync(url, headers("P2"), params("a", 2)).get());
+        } finally {
+            http11.stop(0);
+        }
+    }
+
+    @Test
+    public void forcesHttp11() throws Exception {
+        JdkTransportConfig config = new JdkTransportConfig();
+        config.setHttp2(false);
+        try (JdkHttpTransport http11 = new JdkHttpTransport(config)) {
+            Assert.assertEquals("HTTP/1.1", JSON.parseObject(http11.post(url(), headers("P1"), params("a", 1))).getString("protocol"));
+        }
+    }
+
+    private String url() {
+        return "http://127.0.0.1:" + connector.getLocalPort() + "/v1";
+    }
+
+    private static Map<String, Object> headers(String psn) {
+        Map<String, Object> headers = new HashMap<>();
+        headers.put("Http-Request-Psn", psn);
+        return headers;
+    }
+
+    private static Map<String, Object> params(String name, Object value) {
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put(name, value);
+        return params;
+    }
+}
@@ -0,0 +1,68 @@
+package com.wiseasy.openapi.loadtest;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @Description: Settings of {@link LoadGenerator}
+ */
+@Getter
+@Setter
+@ToString
+public class LoadConfig {
+
+    // Gateway address, e.g. http://127.0.0.1:8080
+    private String url;
+
+    private String appId = "loadtest";
+
+    // Keys of the client, a key pair is generated when missing (fine against a simulator that does not check them)
+    @ToString.Exclude
+    private String appPrivateKey;
+
+    private String gatewayPublicKey;
+
+    private String merchantNo = "M1000000001";
+
+    private String terminalSn = "WPOS0000001";
+
+    // Requests started per second, on schedule whatever the response times (open loop)
+    private double rate = 100;
+
+    // Length of the measurement, after the warmup, in seconds
+    private int durationSeconds = 30;
+
+    // Requests of the warmup are sent but not reported, in seconds
+    private int warmupSeconds = 5;
+
+    // Relative weights of the request kinds: pay, query, refund, message
+    private Map<String, Integer> mix = defaultMix();
+
+    // Send with executeAsync (true) or with execute on the worker threads (false)
+    private boolean async = true;
+
+    // Threads that prepare and, in sync mode, wait for the requests
+    private int threads = 64;
+
+    // Requests in flight above which new ones fail with LoadGenerator.OVERLOADED instead of being sent
+    private int maxInFlight = 10000;
+
+    // Size of the connection pool
+    private int connections = 200;
+
+    // How long to wait for the requests still in flight at the end, in seconds
+    private int drainSeconds = 30;
+
+    private static Map<String, Integer> defaultMix() {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        mix.put(RequestMix.PAY, 2);
+        mix.put(RequestMix.QUERY, 5);
+        mix.put(RequestMix.REFUND, 1);
+        mix.put(RequestMix.MESSAGE, 2);
+        return mix;
+    }
+}
@@ -0,0 +1,287 @@
+package com.wiseasy.openapi.loadtest;
+
+import com.wiseasy.openapi.OpenApiClient;
+import com.wiseasy.openapi.OpenApiException;
+import com.wiseasy.openapi.logging.RequestLogConfig;
+import com.wiseasy.openapi.request.OpenApiRequest;
+import com.wiseasy.openapi.response.OpenApiResponse;
+import com.wiseasy.openapi.sign.Base64;
+import com.wiseasy.openapi.simulator.CommandLineOptions;
+import com.wiseasy.openapi.simulator.GatewaySimulator;
+import com.wiseasy.openapi.simulator.LatencyDistribution;
+import com.wiseasy.openapi.simulator.SimulatorConfig;
+import com.wiseasy.openapi.utils.Constants;
+import com.wiseasy.openapi.utils.HttpPoolConfig;
+import org.apache.commons.lang.StringUtils;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * @Description: Drives an OpenApiClient at a fixed request rate with a mix of payments, queries, refunds and terminal messages.
+ * Requests are started on schedule whatever the response times (open loop), and latency is measured from the scheduled
+ * start, so a slow gateway shows up as latency instead of silently lowering the load (coordinated omission).
+ * <p>
+ * From the command line: java -cp loadtest.jar com.wiseasy.openapi.loadtest.LoadGenerator --url http://127.0.0.1:8080 --rate 200
+ */
+public class LoadGenerator {
+
+    // Code reported for requests not sent because maxInFlight requests were already waiting
+    public static final String OVERLOADED = "LOAD_OVERLOADED";
+
+    // Code reported for requests still without a response when the drain time is over
+    public static final String TIMEOUT = "LOAD_TIMEOUT";
+
+    private final LoadConfig config;
+
+    private final OpenApiClient client;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    // Measured requests in flight by their index, removed by whoever reports them first
+    private final Map<Long, Pending> pending = new ConcurrentHashMap<>();
+
+    public LoadGenerator(LoadConfig config, OpenApiClient client) {
+        this.config = config;
+        this.client = client;
+    }
+
+    /**
+     * Run the warmup and the measurement, then wait for the requests in flight
+     * @return Results of the measurement
+     * @throws InterruptedException
+     */
+    public LoadReport run() throws InterruptedException {
+        final RequestMix mix = new RequestMix(config.getMix(), config.getMerchantNo(), config.getTerminalSn());
+        final LoadReport report = new LoadReport();
+        final AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor workers = new ThreadPoolExecutor(config.getThreads(), config.getThreads(), 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), r -> {
+                    Thread t = new Thread(r, "openapi-load-" + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        Random random = new Random();
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / config.getRate());
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(config.getWarmupSeconds());
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(config.getDurationSeconds());
+        try {
+            for (long i = 0; ; i++) {
+                final long scheduled = start + i * interval;
+                if (scheduled >= end) {
+                    break;
+                }
+                long wait;
+                while ((wait = scheduled - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                final OpenApiRequest<?> request = mix.next(random);
+                final boolean measured = scheduled >= measureFrom;
+                if (inFlight.incrementAndGet() > config.getMaxInFlight()) {
+                    inFlight.decrementAndGet();
+                    if (measured) {
+                        report.overloaded(request.getRequestMethod());
+                    }
+                    continue;
+                }
+                final long index = i;
+                if (measured) {
+                    pending.put(index, new Pending(request, scheduled));
+                }
+                workers.execute(() -> send(mix, report, request, index, scheduled));
+            }
+            long drainUntil = System.nanoTime() + TimeUnit.SECONDS.toNanos(config.getDrainSeconds());
+            while (inFlight.get() > 0 && System.nanoTime() < drainUntil) {
+                Thread.sleep(10);
+            }
+            // The requests not answered by now are reported as timed out, a late response is ignored
+            long now = System.nanoTime();
+            for (Long index : pending.keySet()) {
+                Pending timedOut = pending.remove(index);
+                if (timedOut != null) {
+                    report.record(timedOut.request.getRequestMethod(), TIMEOUT, now - timedOut.scheduled);
+                }
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+        return report;
+    }
+
+    private void send(final RequestMix mix, final LoadReport report, final OpenApiRequest<?> request, final long index, final long scheduled) {
+        if (config.isAsync()) {
+            CompletableFuture<? extends OpenApiResponse> future;
+            try {
+                future = client.executeAsync(request);
+            } catch (RuntimeException e) {
+                completed(mix, report, request, index, scheduled, null, e);
+                return;
+            }
+            future.whenComplete((resp, e) -> completed(mix, report, request, index, scheduled, resp, e));
+        } else {
+            OpenApiResponse resp = null;
+            Throwable failure = null;
+            try {
+                resp = client.execute(request);
+            } catch (Exception e) {
+                failure = e;
+            }
+            completed(mix, report, request, index, scheduled, resp, failure);
+        }
+    }
+
+    private void completed(RequestMix mix, LoadReport report, OpenApiRequest<?> request, long index, long scheduled,
+                           OpenApiResponse resp, Throwable failure) {
+        long latency = System.nanoTime() - scheduled;
+        inFlight.decrementAndGet();
+        if (resp != null) {
+            mix.completed(request, resp);
+        }
+        if (pending.remove(index) != null) {
+            report.record(request.getRequestMethod(), code(resp, failure), latency);
+        }
+    }
+
+    private static String code(OpenApiResponse resp, Throwable failure) {
+        if (failure == null) {
+            if (resp.isSuccess()) {
+                return Constants.CODE_SUCCESS;
+            }
+            return StringUtils.isBlank(resp.getCode()) ? "NO_CODE" : resp.getCode();
+        }
+        while ((failure instanceof CompletionException || failure instanceof ExecutionException) && failure.getCause() != null) {
+            failure = failure.getCause();
+        }
+        if (failure instanceof OpenApiException) {
+            return ((OpenApiException) failure).getErrCode();
+        }
+        return failure.getClass().getSimpleName();
+    }
+
+    /**
+     * Options, all but --url optional:
+     * <pre>
+     * --url                 Gateway address, or "embedded" to start a GatewaySimulator in the same process
+     * --app-id, --app-private-key, --gateway-public-key
+     *                       Keys are Base64, or @path of a file holding it; a key pair is generated when missing
+     * --merchant-no, --terminal-sn
+     * --rate                Requests started per second (default 100)
+     * --duration, --warmup  Seconds (default 30 and 5)
+     * --mix                 Relative weights, e.g. pay=2,query=5,refund=1,message=2
+     * --mode                async (executeAsync, default) or sync (execute on --threads threads)
+     * --threads, --max-in-flight, --connections, --drain
+     * --sim-latency-median, --sim-latency-p99, --sim-error-rate
+     *                       Latency (ms, log-normal) and error rate of the embedded simulator
+     * </pre>
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = CommandLineOptions.parse(args);
+        if (!options.containsKey("url")) {
+            System.err.println("Usage: LoadGenerator --url <gateway url|embedded> [--rate 100] [--duration 30] [--mix pay=2,query=5,refund=1,message=2]");
+            System.exit(2);
+        }
+        LoadConfig config = new LoadConfig();
+        config.setUrl(options.get("url"));
+        config.setAppId(options.getOrDefault("app-id", config.getAppId()));
+        config.setAppPrivateKey(CommandLineOptions.key(options.get("app-private-key")));
+        config.setGatewayPublicKey(CommandLineOptions.key(options.get("gateway-public-key")));
+        config.setMerchantNo(options.getOrDefault("merchant-no", config.getMerchantNo()));
+        config.setTerminalSn(options.getOrDefault("terminal-sn", config.getTerminalSn()));
+        config.setRate(Double.parseDouble(options.getOrDefault("rate", String.valueOf(config.getRate()))));
+        config.setDurationSeconds(Integer.parseInt(options.getOrDefault("duration", String.valueOf(config.getDurationSeconds()))));
+        config.setWarmupSeconds(Integer.parseInt(options.getOrDefault("warmup", String.valueOf(config.getWarmupSeconds()))));
+        if (options.containsKey("mix")) {
+            Map<String, Integer> mix = new LinkedHashMap<>();
+            for (String entry : options.get("mix").split(",")) {
+                String[] pair = entry.split("=");
+                mix.put(pair[0].trim(), Integer.parseInt(pair[1].trim()));
+            }
+            config.setMix(mix);
+        }
+        config.setAsync(!"sync".equals(options.get("mode")));
+        config.setThreads(Integer.parseInt(options.getOrDefault("threads", String.valueOf(config.getThreads()))));
+        config.setMaxInFlight(Integer.parseInt(options.getOrDefault("max-in-flight", String.valueOf(config.getMaxInFlight()))));
+        config.setConnections(Integer.parseInt(options.getOrDefault("connections", String.valueOf(config.getConnections()))));
+        config.setDrainSeconds(Integer.parseInt(options.getOrDefault("drain", String.valueOf(config.getDrainSeconds()))));
+
+        GatewaySimulator simulator = null;
+        if ("embedded".equals(config.getUrl())) {
+            KeyPair app = generateKeyPair();
+            KeyPair gateway = generateKeyPair();
+            config.setAppPrivateKey(Base64.encode(app.getPrivate().getEncoded()));
+            config.setGatewayPublicKey(Base64.encode(gateway.getPublic().getEncoded()));
+
+            SimulatorConfig simulatorConfig = new SimulatorConfig();
+            simulatorConfig.getAppPublicKeys().put(config.getAppId(), Base64.encode(app.getPublic().getEncoded()));
+            simulatorConfig.setGatewayPrivateKey(Base64.encode(gateway.getPrivate().getEncoded()));
+            double median = Double.parseDouble(options.getOrDefault("sim-latency-median", "20"));
+            simulatorConfig.setLatency(LatencyDistribution.logNormal(median, Double.parseDouble(options.getOrDefault("sim-latency-p99", String.valueOf(median * 10)))));
+            simulatorConfig.setErrorRate(Double.parseDouble(options.getOrDefault("sim-error-rate", "0")));
+            simulator = new GatewaySimulator(simulatorConfig).start();
+            config.setUrl(simulator.getUrl());
+        }
+        if (StringUtils.isBlank(config.getAppPrivateKey())) {
+            config.setAppPrivateKey(Base64.encode(generateKeyPair().getPrivate().getEncoded()));
+        }
+        if (StringUtils.isBlank(config.getGatewayPublicKey())) {
+            // Only unsigned responses pass with a key nobody holds
+            config.setGatewayPublicKey(Base64.encode(generateKeyPair().getPublic().getEncoded()));
+        }
+
+        HttpPoolConfig poolConfig = new HttpPoolConfig();
+        poolConfig.setMaxTotal(config.getConnections());
+        poolConfig.setMaxPerRoute(config.getConnections());
+        try (OpenApiClient client = new OpenApiClient(config.getAppId(), config.getUrl(), config.getAppPrivateKey(), config.getGatewayPublicKey(), poolConfig)) {
+            // Failures are still logged
+            RequestLogConfig logConfig = new RequestLogConfig();
+            logConfig.setSampleRate(0);
+            client.setRequestLogging(logConfig);
+
+            System.out.println(String.format("Target %.1f req/s for %d s after %d s of warmup against %s, %s, mix %s",
+                    config.getRate(), config.getDurationSeconds(), config.getWarmupSeconds(), config.getUrl(),
+                    config.isAsync() ? "async" : "sync on " + config.getThreads() + " threads", config.getMix()));
+            LoadReport report = new LoadGenerator(config, client).run();
+            System.out.println();
+            System.out.print(report.toText(config.getDurationSeconds()));
+        } finally {
+            if (simulator != null) {
+                simulator.close();
+            }
+        }
+    }
+
+    /**
+     * A measured request that has not been reported yet
+     */
+    private static final class Pending {
+
+        final OpenApiRequest<?> request;
+
+        final long scheduled;
+
+        Pending(OpenApiRequest<?> request, long scheduled) {
+            this.request = request;
+            this.scheduled = scheduled;
+        }
+    }
+
+    private static KeyPair generateKeyPair() throws NoSuchAlgorithmException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        return generator.generateKeyPair();
+    }
+}
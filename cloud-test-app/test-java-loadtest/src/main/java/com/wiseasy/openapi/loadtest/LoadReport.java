@@ -0,0 +1,136 @@
+package com.wiseasy.openapi.loadtest;
+
+import com.wiseasy.openapi.metrics.NanoHistogram;
+import com.wiseasy.openapi.utils.Constants;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @Description: Results of a load test per API method: latency histogram and result codes.
+ * Latency runs from the time the request was scheduled, not sent, so queueing in the client counts
+ */
+public class LoadReport {
+
+    private final Map<String, MethodStats> methods = new ConcurrentHashMap<>();
+
+    private final NanoHistogram total = new NanoHistogram();
+
+    private final LongAdder overloaded = new LongAdder();
+
+    void record(String method, String code, long latencyNanos) {
+        MethodStats stats = methods.computeIfAbsent(method, m -> new MethodStats());
+        stats.latency.record(latencyNanos);
+        total.record(latencyNanos);
+        if (!Constants.CODE_SUCCESS.equals(code)) {
+            stats.codes.computeIfAbsent(code, c -> new LongAdder()).increment();
+        }
+    }
+
+    void overloaded(String method) {
+        overloaded.increment();
+        methods.computeIfAbsent(method, m -> new MethodStats()).codes
+                .computeIfAbsent(LoadGenerator.OVERLOADED, c -> new LongAdder()).increment();
+    }
+
+    /**
+     * Number of completed requests, the ones reported as {@link LoadGenerator#TIMEOUT} included
+     */
+    public long getCount() {
+        return total.getCount();
+    }
+
+    /**
+     * Number of requests that failed or did not return code 0, the requests not sent because of maxInFlight included
+     */
+    public long getErrorCount() {
+        long errors = 0;
+        for (MethodStats stats : methods.values()) {
+            errors += stats.errorCount();
+        }
+        return errors;
+    }
+
+    /**
+     * Number of failed requests of a method by code: the gateway code, the SDK error code (CLIxxx),
+     * the exception type for other failures, {@link LoadGenerator#OVERLOADED} or {@link LoadGenerator#TIMEOUT}
+     */
+    public Map<String, Long> getErrors(String method) {
+        Map<String, Long> errors = new TreeMap<>();
+        MethodStats stats = methods.get(method);
+        if (stats != null) {
+            for (Map.Entry<String, LongAdder> entry : stats.codes.entrySet()) {
+                errors.put(entry.getKey(), entry.getValue().sum());
+            }
+        }
+        return errors;
+    }
+
+    /**
+     * Latency of the completed requests of a method, null if there were none
+     */
+    public NanoHistogram getLatency(String method) {
+        MethodStats stats = methods.get(method);
+        return stats == null ? null : stats.latency;
+    }
+
+    /**
+     * Human-readable report
+     * @param seconds Length of the measurement, for the throughput
+     * @return
+     */
+    public String toText(double seconds) {
+        StringBuilder text = new StringBuilder();
+        long count = getCount();
+        long errors = getErrorCount();
+        text.append(String.format("Completed %d, throughput %.1f req/s, errors %d (%.2f%%)%n",
+                count, count / seconds, errors, count + overloaded.sum() == 0 ? 0 : 100.0 * errors / (count + overloaded.sum())));
+        if (overloaded.sum() > 0) {
+            text.append(String.format("Not sent, too many requests in flight: %d%n", overloaded.sum()));
+        }
+        text.append(String.format("%n%-32s %9s %9s %8s %9s %9s %9s %9s %9s%n",
+                "method", "count", "req/s", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+        Map<String, MethodStats> sorted = new TreeMap<>(methods);
+        for (Map.Entry<String, MethodStats> entry : sorted.entrySet()) {
+            appendRow(text, entry.getKey(), entry.getValue().latency, entry.getValue().errorCount(), seconds);
+        }
+        appendRow(text, "all", total, errors, seconds);
+
+        if (errors > 0) {
+            text.append(String.format("%n%-32s %-24s %9s%n", "method", "code", "count"));
+            for (Map.Entry<String, MethodStats> entry : sorted.entrySet()) {
+                for (Map.Entry<String, LongAdder> code : new TreeMap<>(entry.getValue().codes).entrySet()) {
+                    text.append(String.format("%-32s %-24s %9d%n", entry.getKey(), code.getKey(), code.getValue().sum()));
+                }
+            }
+        }
+        return text.toString();
+    }
+
+    private static void appendRow(StringBuilder text, String method, NanoHistogram latency, long errors, double seconds) {
+        text.append(String.format("%-32s %9d %9.1f %8d %9.2f %9.2f %9.2f %9.2f %9.2f%n", method, latency.getCount(),
+                latency.getCount() / seconds, errors, millis(latency.percentile(50)), millis(latency.percentile(90)),
+                millis(latency.percentile(99)), millis(latency.percentile(99.9)), millis(latency.getMax())));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private static class MethodStats {
+
+        final NanoHistogram latency = new NanoHistogram();
+
+        final Map<String, LongAdder> codes = new ConcurrentHashMap<>();
+
+        long errorCount() {
+            long errors = 0;
+            for (LongAdder adder : codes.values()) {
+                errors += adder.sum();
+            }
+            return errors;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.wiseasy.openapi.loadtest;
+
+import com.wiseasy.openapi.request.OpenApiRequest;
+import com.wiseasy.openapi.request.OrderQueryRequest;
+import com.wiseasy.openapi.request.OrderRefundSubmitRequest;
+import com.wiseasy.openapi.request.WisehubCloudMessageSendRequest;
+import com.wiseasy.openapi.request.WisehubCloudPayOrderRequest;
+import com.wiseasy.openapi.response.OpenApiResponse;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * @Description: Produces the requests of a load test in the configured proportions. Queries and refunds refer to
+ * payments of the same run that succeeded, as long as there are some, so that they exercise the same path as in production
+ */
+class RequestMix {
+
+    static final String PAY = "pay";
+
+    static final String QUERY = "query";
+
+    static final String REFUND = "refund";
+
+    static final String MESSAGE = "message";
+
+    private static final String[] KINDS = {PAY, QUERY, REFUND, MESSAGE};
+
+    // Merchant order numbers of recent successful payments
+    private static final int PAID_CAPACITY = 4096;
+
+    private final String merchantNo;
+
+    private final String terminalSn;
+
+    private final int[] cumulativeWeights = new int[KINDS.length];
+
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final AtomicReferenceArray<String> paid = new AtomicReferenceArray<>(PAID_CAPACITY);
+
+    private final AtomicLong paidCount = new AtomicLong();
+
+    RequestMix(Map<String, Integer> weights, String merchantNo, String terminalSn) {
+        this.merchantNo = merchantNo;
+        this.terminalSn = terminalSn;
+        int total = 0;
+        for (int i = 0; i < KINDS.length; i++) {
+            Integer weight = weights.get(KINDS[i]);
+            total += weight == null ? 0 : Math.max(0, weight);
+            cumulativeWeights[i] = total;
+        }
+        for (String kind : weights.keySet()) {
+            if (!PAY.equals(kind) && !QUERY.equals(kind) && !REFUND.equals(kind) && !MESSAGE.equals(kind)) {
+                throw new IllegalArgumentException("Unknown request kind [" + kind + "], expected pay, query, refund or message");
+            }
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("The request mix is empty");
+        }
+    }
+
+    OpenApiRequest<?> next(Random random) {
+        int pick = random.nextInt(cumulativeWeights[KINDS.length - 1]);
+        String kind = KINDS[KINDS.length - 1];
+        for (int i = 0; i < KINDS.length; i++) {
+            if (pick < cumulativeWeights[i]) {
+                kind = KINDS[i];
+                break;
+            }
+        }
+        switch (kind) {
+            case PAY:
+                WisehubCloudPayOrderRequest pay = new WisehubCloudPayOrderRequest();
+                pay.setMerchant_no(merchantNo);
+                pay.setTerminal_sn(terminalSn);
+                pay.setMerchant_order_no(nextOrderNo("P"));
+                pay.setPrice_currency("USD");
+                pay.setOrder_amount((100 + random.nextInt(100000)) / 100.0);
+                pay.setTrans_type(1);
+                pay.setPay_method_category("BANKCARD");
+                pay.setDescription("Load test");
+                return pay;
+            case QUERY:
+                OrderQueryRequest query = new OrderQueryRequest();
+                query.setMerchant_no(merchantNo);
+                query.setMerchant_order_no(paidOrder(random));
+                return query;
+            case REFUND:
+                OrderRefundSubmitRequest refund = new OrderRefundSubmitRequest();
+                refund.setMerchant_no(merchantNo);
+                refund.setOrig_merchant_order_no(paidOrder(random));
+                refund.setMerchant_order_no(nextOrderNo("R"));
+                refund.setPrice_currency("USD");
+                refund.setTrans_amount(0.01);
+                refund.setDescription("Load test");
+                return refund;
+            default:
+                WisehubCloudMessageSendRequest message = new WisehubCloudMessageSendRequest();
+                message.setMerchant_no(merchantNo);
+                message.setTerminal_sn(terminalSn);
+                message.setMerchant_request_id(nextOrderNo("S"));
+                message.setLanguage("en");
+                message.setVoice_content("Load test");
+                return message;
+        }
+    }
+
+    /**
+     * Remember the successful payments for the queries and refunds that follow
+     */
+    void completed(OpenApiRequest<?> request, OpenApiResponse resp) {
+        if (request instanceof WisehubCloudPayOrderRequest && resp.isSuccess()) {
+            long index = paidCount.getAndIncrement();
+            paid.set((int) (index % PAID_CAPACITY), ((WisehubCloudPayOrderRequest) request).getMerchant_order_no());
+        }
+    }
+
+    private String paidOrder(Random random) {
+        long count = Math.min(paidCount.get(), PAID_CAPACITY);
+        String orderNo = count == 0 ? null : paid.get(random.nextInt((int) count));
+        // Nothing paid yet: an order number the gateway does not know
+        return orderNo != null ? orderNo : nextOrderNo("X");
+    }
+
+    private String nextOrderNo(String prefix) {
+        return prefix + runId + sequence.incrementAndGet();
+    }
+}
@@ -0,0 +1,49 @@
+package com.wiseasy.openapi.simulator;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @Description: The "--name value" options of the command lines of the simulator and the load generator
+ */
+public final class CommandLineOptions {
+
+    private CommandLineOptions() {
+    }
+
+    /**
+     * @param args e.g. --port 8080 --error-rate 0.01
+     * @return Values by option name without the leading dashes
+     * @throws IllegalArgumentException if an argument is not an option or an option has no value
+     */
+    public static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument [" + args[i] + "]");
+            }
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException("Missing value of [" + args[i] + "]");
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+
+    /**
+     * A key given on the command line
+     * @param value Base64 key, or @path of a file holding it, may be null
+     * @return
+     * @throws IOException
+     */
+    public static String key(String value) throws IOException {
+        if (value == null || !value.startsWith("@")) {
+            return value;
+        }
+        return new String(Files.readAllBytes(Paths.get(value.substring(1))), StandardCharsets.US_ASCII).trim();
+    }
+}
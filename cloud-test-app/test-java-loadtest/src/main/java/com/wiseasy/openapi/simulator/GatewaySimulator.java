@@ -0,0 +1,606 @@
+package com.wiseasy.openapi.simulator;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.wiseasy.openapi.OpenApiException;
+import com.wiseasy.openapi.sign.RSAKeyHolder;
+import com.wiseasy.openapi.sign.SignHandler;
+import com.wiseasy.openapi.utils.Constants;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @Description: In-process stand-in of the gateway for offline load tests. Serves {@link Constants#API_ENTRY_URL},
+ * {@link Constants#API_FILE_UPLOAD_URL} and the chunked upload endpoints over plain HTTP, verifies the request signatures
+ * with the application public keys and signs the responses with a test gateway key.
+ * <p>
+ * Payments, refunds and voids are kept in memory and move through trans_status like the real ones: a payment is paying (0)
+ * for {@link SimulatorConfig#getPaymentMillis()} and then successful (2) or closed (1), a refund is refunding (0) and then
+ * successful, a void cancels the payment (3). Latency is drawn from a distribution per method and responses are delayed
+ * on a timer, so the number of handler threads does not limit the concurrency. Errors are injected at configured rates.
+ * <p>
+ * The codes of the simulator (GWxxx) are its own, not those of the real gateway
+ */
+public class GatewaySimulator implements Closeable {
+
+    // Missing or malformed parameter, unknown app_id, expired timestamp
+    public static final String PARAMETER_ERROR = "GW001";
+
+    // Missing or invalid request signature
+    public static final String SIGNATURE_ERROR = "GW002";
+
+    // No transaction with the given trans_no or merchant_order_no
+    public static final String NOT_FOUND = "GW003";
+
+    // merchant_order_no already used by the merchant
+    public static final String DUPLICATE_ORDER = "GW004";
+
+    // The status of the original transaction does not allow the refund or void
+    public static final String STATUS_ERROR = "GW005";
+
+    // Refund amount larger than what is left of the payment
+    public static final String AMOUNT_ERROR = "GW006";
+
+    // API method the simulator does not implement
+    public static final String UNSUPPORTED_METHOD = "GW007";
+
+    // Default code of injected errors
+    public static final String SYSTEM_ERROR = "GW999";
+
+    // Endpoints of the experimental chunked upload of the SDK, which the real gateway does not have, see ChunkedUploadConfig
+    public static final String CHUNK_UPLOAD_PATH = Constants.API_FILE_UPLOAD_URL + "/chunk";
+
+    public static final String CHUNK_COMPLETE_PATH = Constants.API_FILE_UPLOAD_URL + "/complete";
+
+    private static final String PAY_ORDER = "wisehub.cloud.pay.order";
+
+    private static final String ORDER_QUERY = "order.query";
+
+    private static final String REFUND_SUBMIT = "order.refund.submit";
+
+    private static final String REFUND_QUERY = "order.refund.query";
+
+    private static final String ORDER_REVOKE = "order.revoker";
+
+    private static final String MESSAGE_SEND = "wisehub.cloud.message.send";
+
+    private Log log = LogFactory.getLog(this.getClass());
+
+    private final SimulatorConfig config;
+
+    private final RSAKeyHolder gatewayKeys;
+
+    private final Map<String, RSAKeyHolder> appKeys = new HashMap<>();
+
+    // Payments and refunds by merchant_no and merchant_order_no, and by trans_no
+    private final Map<String, Transaction> orders = new ConcurrentHashMap<>();
+
+    private final Map<String, Transaction> transactions = new ConcurrentHashMap<>();
+
+    // Received chunks by upload_id, until the upload is completed or expires
+    private final Map<String, PendingUpload> chunks = new ConcurrentHashMap<>();
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final AtomicLong requests = new AtomicLong();
+
+    private final AtomicLong injectedErrors = new AtomicLong();
+
+    private HttpServer server;
+
+    private ExecutorService executor;
+
+    private ScheduledExecutorService scheduler;
+
+    public GatewaySimulator(SimulatorConfig config) {
+        this.config = config;
+        this.gatewayKeys = StringUtils.isBlank(config.getGatewayPrivateKey()) ? null : new RSAKeyHolder(config.getGatewayPrivateKey(), null);
+        for (Map.Entry<String, String> entry : config.getAppPublicKeys().entrySet()) {
+            appKeys.put(entry.getKey(), new RSAKeyHolder(null, entry.getValue()));
+        }
+    }
+
+    /**
+     * Start listening, see {@link #getUrl()} for the address when the port is chosen by the system
+     * @return this
+     * @throws IOException
+     */
+    public synchronized GatewaySimulator start() throws IOException {
+        if (server != null) {
+            return this;
+        }
+        // Without TCP_NODELAY Nagle and delayed ACKs add ~40ms to small responses, only read before the first server is created
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        server = HttpServer.create(new InetSocketAddress(config.getHost(), config.getPort()), 1024);
+        executor = Executors.newFixedThreadPool(Math.max(1, config.getThreads()), threadFactory("openapi-simulator-"));
+        scheduler = Executors.newScheduledThreadPool(2, threadFactory("openapi-simulator-timer-"));
+        server.setExecutor(executor);
+        server.createContext(Constants.API_ENTRY_URL, exchange -> handle(exchange, Constants.API_ENTRY_URL));
+        server.createContext(Constants.API_FILE_UPLOAD_URL, exchange -> handle(exchange, exchange.getRequestURI().getPath()));
+        scheduler.scheduleWithFixedDelay(() -> expire(System.currentTimeMillis()), 1, 1, TimeUnit.SECONDS);
+        server.start();
+        log.info("Gateway simulator listening on " + getUrl() + ", " + config);
+        return this;
+    }
+
+    /**
+     * Gateway address to give to OpenApiClient
+     * @return e.g. http://127.0.0.1:41234
+     */
+    public String getUrl() {
+        InetSocketAddress address = server.getAddress();
+        return "http://" + address.getHostString() + ":" + address.getPort();
+    }
+
+    /**
+     * Number of requests received
+     */
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    /**
+     * Number of requests answered with an injected error, HTTP errors included
+     */
+    public long getInjectedErrorCount() {
+        return injectedErrors.get();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (server == null) {
+            return;
+        }
+        server.stop(0);
+        scheduler.shutdownNow();
+        executor.shutdownNow();
+        server = null;
+    }
+
+    private void handle(HttpExchange exchange, String path) {
+        requests.incrementAndGet();
+        Random random = ThreadLocalRandom.current();
+        try {
+            byte[] raw = readBody(exchange);
+            if (raw == null) {
+                reply(exchange, 413, "Request body too large".getBytes(StandardCharsets.UTF_8), 0);
+                return;
+            }
+            JSONObject params;
+            byte[] file = null;
+            if (Constants.API_ENTRY_URL.equals(path)) {
+                params = parseForm(raw);
+            } else {
+                Multipart form = Multipart.parse(exchange.getRequestHeaders().getFirst("Content-Type"), raw, Constants.FILE_DATA);
+                params = new JSONObject(form.fields);
+                file = form.file;
+            }
+            String method = Constants.API_ENTRY_URL.equals(path) ? params.getString(Constants.METHOD) : path;
+            long delay = config.getLatency(method).sampleMicros(random);
+
+            if (random.nextDouble() < config.getHttpErrorRate()) {
+                injectedErrors.incrementAndGet();
+                reply(exchange, 503, "Service Unavailable".getBytes(StandardCharsets.UTF_8), delay);
+                return;
+            }
+            JSONObject resp;
+            if (random.nextDouble() < config.getErrorRate()) {
+                injectedErrors.incrementAndGet();
+                resp = error(config.getErrorCode(), "Simulated error");
+            } else {
+                resp = checkRequest(params);
+                if (resp == null) {
+                    resp = Constants.API_ENTRY_URL.equals(path) ? process(method, params) : upload(path, params, file);
+                }
+            }
+            resp.put("psn", exchange.getRequestHeaders().getFirst(Constants.HTTP_REQUEST_HEADER_PSN));
+            reply(exchange, 200, responseBody(resp), delay);
+        } catch (Exception e) {
+            log.error("Simulator request " + exchange.getRequestURI() + " fail", e);
+            reply(exchange, 500, "Internal Server Error".getBytes(StandardCharsets.UTF_8), 0);
+        }
+    }
+
+    /**
+     * @return The error response, null if the request may be processed
+     */
+    private JSONObject checkRequest(JSONObject params) {
+        String appId = params.getString(Constants.APP_ID);
+        if (StringUtils.isBlank(appId)) {
+            return error(PARAMETER_ERROR, "Missing app_id");
+        }
+        if (config.getMaxClockSkewMillis() > 0) {
+            Long timestamp = params.getLong(Constants.TIMESTAMP);
+            if (timestamp == null || Math.abs(System.currentTimeMillis() - timestamp) > config.getMaxClockSkewMillis()) {
+                return error(PARAMETER_ERROR, "Invalid timestamp");
+            }
+        }
+        if (appKeys.isEmpty()) {
+            return null;
+        }
+        RSAKeyHolder keys = appKeys.get(appId);
+        if (keys == null) {
+            return error(PARAMETER_ERROR, "Unknown app_id");
+        }
+        if (StringUtils.isBlank(params.getString(Constants.SIGN)) || !SignHandler.verifySign(keys, params)) {
+            return error(SIGNATURE_ERROR, "Signature verification failed");
+        }
+        return null;
+    }
+
+    private JSONObject process(String method, JSONObject params) {
+        if (method == null) {
+            return error(PARAMETER_ERROR, "Missing method");
+        }
+        switch (method) {
+            case PAY_ORDER:
+                return payOrder(params);
+            case ORDER_QUERY:
+            case REFUND_QUERY:
+                return query(params);
+            case REFUND_SUBMIT:
+                return refund(params);
+            case ORDER_REVOKE:
+                return revoke(params);
+            case MESSAGE_SEND:
+                JSONObject data = new JSONObject();
+                data.put("message_id", nextId("M"));
+                return success(data);
+            default:
+                return error(UNSUPPORTED_METHOD, "Method [" + method + "] is not supported by the simulator");
+        }
+    }
+
+    private JSONObject payOrder(JSONObject params) {
+        String merchantNo = params.getString("merchant_no");
+        String merchantOrderNo = params.getString("merchant_order_no");
+        BigDecimal amount = decimal(params, "order_amount");
+        if (StringUtils.isBlank(merchantNo) || StringUtils.isBlank(merchantOrderNo) || amount == null || amount.signum() <= 0) {
+            return error(PARAMETER_ERROR, "merchant_no, merchant_order_no and order_amount are required");
+        }
+        Integer transType = params.getInteger("trans_type");
+        boolean failed = ThreadLocalRandom.current().nextDouble() < config.getPaymentFailureRate();
+        Transaction payment = new Transaction(nextId("P"), transType != null ? transType : Transaction.TYPE_PAYMENT, params, amount, null,
+                System.currentTimeMillis() + config.getPaymentMillis(), failed ? Transaction.STATUS_CLOSED : Transaction.STATUS_SUCCESS);
+        if (!register(payment)) {
+            return error(DUPLICATE_ORDER, "Duplicate merchant_order_no");
+        }
+        JSONObject data = new JSONObject();
+        data.put("message_id", nextId("M"));
+        return success(data);
+    }
+
+    private JSONObject query(JSONObject params) {
+        Transaction transaction = find(params, "trans_no", "merchant_order_no");
+        if (transaction == null) {
+            return error(NOT_FOUND, "Transaction not found");
+        }
+        return success(transaction.toData(System.currentTimeMillis()));
+    }
+
+    private JSONObject refund(JSONObject params) {
+        BigDecimal amount = decimal(params, "trans_amount");
+        if (StringUtils.isBlank(params.getString("merchant_order_no")) || amount == null || amount.signum() <= 0) {
+            return error(PARAMETER_ERROR, "merchant_order_no and trans_amount are required");
+        }
+        Transaction original = find(params, "orig_trans_no", "orig_merchant_order_no");
+        if (original == null) {
+            return error(NOT_FOUND, "Original transaction not found");
+        }
+        long now = System.currentTimeMillis();
+        if (orders.containsKey(orderKey(params.getString("merchant_no"), params.getString("merchant_order_no")))) {
+            return error(DUPLICATE_ORDER, "Duplicate merchant_order_no");
+        }
+        if (!original.refund(now, amount)) {
+            return original.getStatus(now) != Transaction.STATUS_SUCCESS
+                    ? error(STATUS_ERROR, "The original transaction is not successful")
+                    : error(AMOUNT_ERROR, "Refund amount exceeds the refundable amount");
+        }
+        Transaction refund = new Transaction(nextId("R"), Transaction.TYPE_REFUND, params, amount, original,
+                now + config.getRefundMillis(), Transaction.STATUS_SUCCESS);
+        if (!register(refund)) {
+            original.refund(now, amount.negate());
+            return error(DUPLICATE_ORDER, "Duplicate merchant_order_no");
+        }
+        JSONObject data = new JSONObject();
+        data.put("trans_no", refund.transNo);
+        return success(data);
+    }
+
+    private JSONObject revoke(JSONObject params) {
+        Transaction payment = find(params, "trans_no", "merchant_order_no");
+        if (payment == null) {
+            return error(NOT_FOUND, "Transaction not found");
+        }
+        if (payment.transType == Transaction.TYPE_REFUND || !payment.cancel(System.currentTimeMillis())) {
+            return error(STATUS_ERROR, "The transaction cannot be voided");
+        }
+        return success(new JSONObject());
+    }
+
+    private JSONObject upload(String path, JSONObject params, byte[] file) throws IOException {
+        String fileHash = params.getString(Constants.FILE_DATA_HASH);
+        if (Constants.API_FILE_UPLOAD_URL.equals(path)) {
+            if (file == null || !DigestUtils.md5Hex(file).equals(fileHash)) {
+                return error(PARAMETER_ERROR, "file_data does not match file_data_hash");
+            }
+            return fileKey();
+        }
+        String uploadId = params.getString(Constants.UPLOAD_ID);
+        Integer total = params.getInteger(Constants.CHUNK_TOTAL);
+        if (StringUtils.isBlank(uploadId) || total == null || total <= 0) {
+            return error(PARAMETER_ERROR, "upload_id and chunk_total are required");
+        }
+        if (CHUNK_UPLOAD_PATH.equals(path)) {
+            Integer index = params.getInteger(Constants.CHUNK_INDEX);
+            if (index == null || index < 0 || index >= total) {
+                return error(PARAMETER_ERROR, "Invalid chunk_index");
+            }
+            if (file == null || !DigestUtils.md5Hex(file).equals(params.getString(Constants.CHUNK_DATA_HASH))) {
+                return error(PARAMETER_ERROR, "file_data does not match chunk_data_hash");
+            }
+            PendingUpload upload = chunks.computeIfAbsent(uploadId, id -> new PendingUpload());
+            upload.chunks.put(index, file);
+            upload.touchedAt = System.currentTimeMillis();
+            return success(new JSONObject());
+        }
+        if (CHUNK_COMPLETE_PATH.equals(path)) {
+            PendingUpload received = chunks.get(uploadId);
+            MessageDigest digest = DigestUtils.getMd5Digest();
+            for (int i = 0; i < total; i++) {
+                byte[] chunk = received == null ? null : received.chunks.get(i);
+                if (chunk == null) {
+                    return error(PARAMETER_ERROR, "Chunk " + i + " of the upload is missing");
+                }
+                digest.update(chunk);
+            }
+            if (!Hex.encodeHexString(digest.digest()).equals(fileHash)) {
+                return error(PARAMETER_ERROR, "Assembled file does not match file_data_hash");
+            }
+            chunks.remove(uploadId);
+            return fileKey();
+        }
+        return error(UNSUPPORTED_METHOD, "Path [" + path + "] is not supported by the simulator");
+    }
+
+    private JSONObject fileKey() {
+        JSONObject data = new JSONObject();
+        data.put("file_key", nextId("F"));
+        return success(data);
+    }
+
+    /**
+     * Drop the transactions completed more than transactionTtlMillis ago and the uploads without a chunk for
+     * chunkTtlMillis, so that a long run does not fill the heap
+     */
+    void expire(long now) {
+        if (config.getTransactionTtlMillis() > 0) {
+            long completedBefore = now - config.getTransactionTtlMillis();
+            for (Transaction transaction : transactions.values()) {
+                if (transaction.completedAt < completedBefore) {
+                    transactions.remove(transaction.transNo, transaction);
+                    orders.remove(orderKey(transaction.merchantNo, transaction.merchantOrderNo), transaction);
+                }
+            }
+        }
+        if (config.getChunkTtlMillis() > 0) {
+            long touchedBefore = now - config.getChunkTtlMillis();
+            chunks.values().removeIf(upload -> upload.touchedAt < touchedBefore);
+        }
+    }
+
+    /**
+     * Number of transactions kept
+     */
+    int getTransactionCount() {
+        return transactions.size();
+    }
+
+    /**
+     * Number of chunked uploads not completed yet
+     */
+    int getPendingUploadCount() {
+        return chunks.size();
+    }
+
+    private boolean register(Transaction transaction) {
+        if (orders.putIfAbsent(orderKey(transaction.merchantNo, transaction.merchantOrderNo), transaction) != null) {
+            return false;
+        }
+        transactions.put(transaction.transNo, transaction);
+        return true;
+    }
+
+    /**
+     * Look a transaction up by its trans_no, or else by merchant_no and merchant order number
+     */
+    private Transaction find(JSONObject params, String transNoField, String orderNoField) {
+        String transNo = params.getString(transNoField);
+        if (StringUtils.isNotBlank(transNo)) {
+            return transactions.get(transNo);
+        }
+        String orderNo = params.getString(orderNoField);
+        return StringUtils.isBlank(orderNo) ? null : orders.get(orderKey(params.getString("merchant_no"), orderNo));
+    }
+
+    private static String orderKey(String merchantNo, String merchantOrderNo) {
+        return merchantNo + "|" + merchantOrderNo;
+    }
+
+    private String nextId(String prefix) {
+        return prefix + System.currentTimeMillis() + String.format("%08d", sequence.incrementAndGet() % 100000000);
+    }
+
+    private static BigDecimal decimal(JSONObject params, String name) {
+        try {
+            return params.getBigDecimal(name);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static JSONObject success(JSONObject data) {
+        JSONObject resp = new JSONObject();
+        resp.put(Constants.CODE, Constants.CODE_SUCCESS);
+        resp.put(Constants.MSG, "success");
+        resp.put(Constants.DATA, data);
+        return resp;
+    }
+
+    private static JSONObject error(String code, String msg) {
+        JSONObject resp = new JSONObject();
+        resp.put(Constants.CODE, code);
+        resp.put(Constants.MSG, msg);
+        return resp;
+    }
+
+    private byte[] responseBody(JSONObject resp) throws OpenApiException {
+        if (gatewayKeys != null) {
+            // Sign what the client will parse: nested objects are signed by their string form, which depends on the key order
+            resp = JSON.parseObject(resp.toJSONString());
+            resp.put(Constants.SIGN, SignHandler.sign(gatewayKeys, resp));
+        }
+        return resp.toJSONString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void reply(final HttpExchange exchange, final int status, final byte[] body, long delayMicros) {
+        Runnable send = () -> {
+            try {
+                exchange.getResponseHeaders().set("Content-Type", status == 200 ? "application/json;charset=UTF-8" : "text/plain");
+                exchange.sendResponseHeaders(status, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } catch (IOException e) {
+                log.debug("Simulator response to " + exchange.getRemoteAddress() + " fail: " + e);
+            } finally {
+                exchange.close();
+            }
+        };
+        if (delayMicros <= 0) {
+            send.run();
+        } else {
+            scheduler.schedule(send, delayMicros, TimeUnit.MICROSECONDS);
+        }
+    }
+
+    /**
+     * @return null if the body is larger than allowed
+     */
+    private byte[] readBody(HttpExchange exchange) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        try (InputStream in = exchange.getRequestBody()) {
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                if (out.size() + n > config.getMaxBodyBytes()) {
+                    return null;
+                }
+                out.write(buffer, 0, n);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static JSONObject parseForm(byte[] raw) throws IOException {
+        JSONObject params = new JSONObject();
+        String body = new String(raw, StandardCharsets.US_ASCII);
+        for (String pair : body.split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            int eq = pair.indexOf('=');
+            String name = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), "UTF-8");
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), "UTF-8");
+            params.put(name, value);
+        }
+        return params;
+    }
+
+    /**
+     * Chunks received for an upload
+     */
+    private static final class PendingUpload {
+
+        final Map<Integer, byte[]> chunks = new ConcurrentHashMap<>();
+
+        volatile long touchedAt;
+    }
+
+    private static ThreadFactory threadFactory(final String prefix) {
+        final AtomicInteger count = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    /**
+     * Run a simulator until the process is stopped, e.g. as the target of a load generator:
+     * java -jar loadtest.jar --port 8080 --latency-median 20 --latency-p99 200 --error-rate 0.01
+     * <p>
+     * Options: --host, --port, --threads, --latency-median and --latency-p99 (ms, log-normal), --error-rate, --error-code,
+     * --http-error-rate, --payment-millis, --payment-failure-rate, --refund-millis, --transaction-ttl-millis,
+     * --app-id with --app-public-key,
+     * --gateway-private-key. Keys are Base64, or @path of a file holding it. Without --app-id signatures are not checked,
+     * without --gateway-private-key responses are not signed
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = CommandLineOptions.parse(args);
+        SimulatorConfig config = new SimulatorConfig();
+        config.setHost(options.getOrDefault("host", "0.0.0.0"));
+        config.setPort(Integer.parseInt(options.getOrDefault("port", "8080")));
+        config.setThreads(Integer.parseInt(options.getOrDefault("threads", String.valueOf(config.getThreads()))));
+        if (options.containsKey("latency-median")) {
+            double median = Double.parseDouble(options.get("latency-median"));
+            config.setLatency(LatencyDistribution.logNormal(median, Double.parseDouble(options.getOrDefault("latency-p99", String.valueOf(median)))));
+        }
+        config.setErrorRate(Double.parseDouble(options.getOrDefault("error-rate", "0")));
+        config.setErrorCode(options.getOrDefault("error-code", SYSTEM_ERROR));
+        config.setHttpErrorRate(Double.parseDouble(options.getOrDefault("http-error-rate", "0")));
+        config.setPaymentMillis(Long.parseLong(options.getOrDefault("payment-millis", "0")));
+        config.setPaymentFailureRate(Double.parseDouble(options.getOrDefault("payment-failure-rate", "0")));
+        config.setRefundMillis(Long.parseLong(options.getOrDefault("refund-millis", "0")));
+        config.setTransactionTtlMillis(Long.parseLong(options.getOrDefault("transaction-ttl-millis", String.valueOf(config.getTransactionTtlMillis()))));
+        if (options.containsKey("app-id")) {
+            config.getAppPublicKeys().put(options.get("app-id"), CommandLineOptions.key(options.get("app-public-key")));
+        }
+        config.setGatewayPrivateKey(CommandLineOptions.key(options.get("gateway-private-key")));
+
+        final GatewaySimulator simulator = new GatewaySimulator(config).start();
+        Runtime.getRuntime().addShutdownHook(new Thread(simulator::close));
+        System.out.println("Gateway simulator listening on " + simulator.getUrl());
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,50 @@
+package com.wiseasy.openapi.simulator;
+
+import java.util.Random;
+
+/**
+ * @Description: Processing time the simulator adds to a response, drawn independently for every request
+ */
+public interface LatencyDistribution {
+
+    /**
+     * @param random Source of randomness, owned by the calling thread
+     * @return Delay in microseconds, 0 answers immediately
+     */
+    long sampleMicros(Random random);
+
+    /**
+     * No added latency
+     */
+    static LatencyDistribution none() {
+        return random -> 0;
+    }
+
+    /**
+     * The same delay for every request
+     */
+    static LatencyDistribution fixed(double millis) {
+        final long micros = Math.round(millis * 1000);
+        return random -> micros;
+    }
+
+    /**
+     * Delay uniformly distributed between the two bounds
+     */
+    static LatencyDistribution uniform(double minMillis, double maxMillis) {
+        final long min = Math.round(minMillis * 1000);
+        final long range = Math.max(0, Math.round(maxMillis * 1000) - min);
+        return random -> min + (long) (random.nextDouble() * range);
+    }
+
+    /**
+     * Log-normal delay, the usual shape of service latency: most requests near the median and a long tail,
+     * described by its median and 99th percentile
+     */
+    static LatencyDistribution logNormal(double medianMillis, double p99Millis) {
+        final double mu = Math.log(medianMillis * 1000);
+        // 2.326 is the 99th percentile of the standard normal distribution
+        final double sigma = Math.log(Math.max(p99Millis, medianMillis) / medianMillis) / 2.326;
+        return random -> Math.round(Math.exp(mu + sigma * random.nextGaussian()));
+    }
+}
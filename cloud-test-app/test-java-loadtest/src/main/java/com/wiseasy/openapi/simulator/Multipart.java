@@ -0,0 +1,49 @@
+package com.wiseasy.openapi.simulator;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @Description: multipart/form-data parsing, just enough for the uploads of the SDK: text fields and one file part
+ */
+final class Multipart {
+
+    final Map<String, Object> fields = new HashMap<>();
+
+    byte[] file;
+
+    static Multipart parse(String contentType, byte[] raw, String fileField) throws IOException {
+        int boundaryAt = contentType == null ? -1 : contentType.indexOf("boundary=");
+        if (boundaryAt < 0) {
+            throw new IOException("Not a multipart request");
+        }
+        String boundary = "--" + contentType.substring(boundaryAt + 9).split(";")[0].replace("\"", "");
+        // ISO-8859-1 maps every byte to one char, so positions in the string are byte offsets
+        String body = new String(raw, StandardCharsets.ISO_8859_1);
+
+        Multipart form = new Multipart();
+        int start = body.indexOf(boundary);
+        while (start >= 0) {
+            int headerStart = start + boundary.length() + 2;
+            int next = body.indexOf("\r\n" + boundary, headerStart);
+            int headerEnd = body.indexOf("\r\n\r\n", headerStart);
+            if (next < 0 || headerEnd < 0 || headerEnd > next) {
+                break;
+            }
+            String headers = body.substring(headerStart, headerEnd);
+            int nameStart = headers.indexOf("name=\"") + 6;
+            String name = headers.substring(nameStart, headers.indexOf('"', nameStart));
+            byte[] value = new byte[next - headerEnd - 4];
+            System.arraycopy(raw, headerEnd + 4, value, 0, value.length);
+            if (name.equals(fileField)) {
+                form.file = value;
+            } else {
+                form.fields.put(name, new String(value, StandardCharsets.UTF_8));
+            }
+            start = next + 2;
+        }
+        return form;
+    }
+}
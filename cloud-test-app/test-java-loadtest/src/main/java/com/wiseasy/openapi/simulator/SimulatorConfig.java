@@ -0,0 +1,77 @@
+package com.wiseasy.openapi.simulator;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @Description: Settings of {@link GatewaySimulator}
+ */
+@Getter
+@Setter
+@ToString
+public class SimulatorConfig {
+
+    // Address the simulator listens on, port 0 picks a free port
+    private String host = "127.0.0.1";
+
+    private int port = 0;
+
+    // Threads handling requests, the simulated latency does not occupy them
+    private int threads = 16;
+
+    // Public keys of the applications by app_id, requests of other applications are rejected.
+    // Empty: any app_id is accepted and signatures are not checked
+    private Map<String, String> appPublicKeys = new HashMap<>();
+
+    // Private key the responses are signed with, null: responses are not signed
+    @ToString.Exclude
+    private String gatewayPrivateKey;
+
+    // Largest accepted difference between the request timestamp and the clock of the simulator, 0: not checked
+    private long maxClockSkewMillis = 15 * 60 * 1000;
+
+    // Latency added to every response, per API method, methods without an entry use the default
+    private LatencyDistribution latency = LatencyDistribution.none();
+
+    private Map<String, LatencyDistribution> methodLatency = new HashMap<>();
+
+    // Fraction of requests answered with errorCode instead of being processed
+    private double errorRate;
+
+    private String errorCode = GatewaySimulator.SYSTEM_ERROR;
+
+    // Fraction of requests answered with HTTP 503 and no JSON body
+    private double httpErrorRate;
+
+    // How long a payment stays paying (trans_status 0) before it completes, in milliseconds
+    private long paymentMillis;
+
+    // Fraction of payments that end closed (trans_status 1) instead of successful (2)
+    private double paymentFailureRate;
+
+    // How long a refund stays refunding (trans_status 0) before it succeeds, in milliseconds
+    private long refundMillis;
+
+    // Largest accepted request body in bytes, uploads and chunks included
+    private int maxBodyBytes = 64 * 1024 * 1024;
+
+    // How long a transaction is kept after its completion time, later queries and refunds do not find it; 0: forever
+    private long transactionTtlMillis = 60 * 60 * 1000;
+
+    // How long the chunks of an upload are kept after the last one was received, if it is not completed; 0: forever
+    private long chunkTtlMillis = 10 * 60 * 1000;
+
+    /**
+     * Latency of an API method
+     * @param method e.g. order.query
+     * @return
+     */
+    public LatencyDistribution getLatency(String method) {
+        LatencyDistribution distribution = method == null ? null : methodLatency.get(method);
+        return distribution != null ? distribution : latency;
+    }
+}
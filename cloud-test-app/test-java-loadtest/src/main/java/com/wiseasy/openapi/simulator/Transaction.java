@@ -0,0 +1,139 @@
+package com.wiseasy.openapi.simulator;
+
+import com.alibaba.fastjson.JSONObject;
+
+import java.math.BigDecimal;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.TimeZone;
+
+/**
+ * @Description: A payment or refund known to the simulator. The status is derived from the clock when it is read:
+ * a transaction is in progress until its completion time and then takes its final status, unless it was voided before
+ */
+class Transaction {
+
+    static final int TYPE_PAYMENT = 1;
+
+    static final int TYPE_REFUND = 2;
+
+    static final int STATUS_IN_PROGRESS = 0;
+
+    static final int STATUS_CLOSED = 1;
+
+    static final int STATUS_SUCCESS = 2;
+
+    static final int STATUS_CANCELLED = 3;
+
+    final String transNo;
+
+    final int transType;
+
+    final String merchantNo;
+
+    final String merchantOrderNo;
+
+    final String priceCurrency;
+
+    final BigDecimal amount;
+
+    final String attach;
+
+    final String storeNo;
+
+    final String terminalSn;
+
+    final String payMethodId;
+
+    // The payment a refund belongs to
+    final Transaction original;
+
+    final long completedAt;
+
+    private final int finalStatus;
+
+    private boolean cancelled;
+
+    private BigDecimal refunded = BigDecimal.ZERO;
+
+    Transaction(String transNo, int transType, JSONObject params, BigDecimal amount, Transaction original, long completedAt, int finalStatus) {
+        this.transNo = transNo;
+        this.transType = transType;
+        this.merchantNo = params.getString("merchant_no");
+        this.merchantOrderNo = params.getString("merchant_order_no");
+        this.priceCurrency = original != null ? original.priceCurrency : params.getString("price_currency");
+        this.amount = amount;
+        this.attach = params.getString("attach");
+        this.storeNo = original != null ? original.storeNo : params.getString("store_no");
+        this.terminalSn = original != null ? original.terminalSn : params.getString("terminal_sn");
+        this.payMethodId = original != null ? original.payMethodId : params.getString("pay_method_id");
+        this.original = original;
+        this.completedAt = completedAt;
+        this.finalStatus = finalStatus;
+    }
+
+    synchronized int getStatus(long now) {
+        if (cancelled) {
+            return STATUS_CANCELLED;
+        }
+        return now < completedAt ? STATUS_IN_PROGRESS : finalStatus;
+    }
+
+    /**
+     * Void the payment, possible while it is in progress or after it succeeded, as long as nothing was refunded
+     * @return false if the status does not allow it
+     */
+    synchronized boolean cancel(long now) {
+        int status = getStatus(now);
+        if (status == STATUS_CANCELLED || status == STATUS_CLOSED || refunded.signum() > 0) {
+            return false;
+        }
+        cancelled = true;
+        return true;
+    }
+
+    /**
+     * Reserve part of a successful payment for a refund
+     * @return false if the payment is not successful or the amount exceeds what is left to refund
+     */
+    synchronized boolean refund(long now, BigDecimal refundAmount) {
+        if (getStatus(now) != STATUS_SUCCESS || refunded.add(refundAmount).compareTo(amount) > 0) {
+            return false;
+        }
+        refunded = refunded.add(refundAmount);
+        return true;
+    }
+
+    /**
+     * Fields of the query responses
+     */
+    JSONObject toData(long now) {
+        int status = getStatus(now);
+        JSONObject data = new JSONObject();
+        data.put("trans_no", transNo);
+        data.put("trans_type", transType);
+        data.put("trans_status", status);
+        data.put("merchant_order_no", merchantOrderNo);
+        data.put("price_currency", priceCurrency);
+        data.put("trans_amount", amount);
+        data.put("attach", attach);
+        data.put("store_no", storeNo);
+        data.put("terminal_sn", terminalSn);
+        data.put("pay_method_id", payMethodId);
+        if (original != null) {
+            data.put("orig_trans_no", original.transNo);
+        }
+        if (status == STATUS_SUCCESS) {
+            data.put("paid_amount", amount);
+            data.put("pay_channel_trans_no", "SIM" + transNo);
+            data.put("trans_end_time", utcTime(completedAt));
+        }
+        return data;
+    }
+
+    private static String utcTime(long millis) {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return format.format(new Date(millis));
+    }
+}
@@ -0,0 +1,98 @@
+package com.wiseasy.openapi.loadtest;
+
+import com.wiseasy.openapi.OpenApiClient;
+import com.wiseasy.openapi.simulator.GatewaySimulator;
+import com.wiseasy.openapi.simulator.LatencyDistribution;
+import com.wiseasy.openapi.simulator.SimulatorConfig;
+import com.wiseasy.openapi.sign.Base64;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Open-loop load against the simulator: the request rate holds while the gateway is slow, and every result is reported
+ */
+public class LoadGeneratorTest {
+
+    @Test
+    public void holdsTheRateAndReportsCodes() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair app = generator.generateKeyPair();
+
+        SimulatorConfig simulatorConfig = new SimulatorConfig();
+        simulatorConfig.setLatency(LatencyDistribution.fixed(300));
+        simulatorConfig.getMethodLatency().put("order.query", LatencyDistribution.none());
+
+        LoadConfig config = new LoadConfig();
+        config.setRate(40);
+        config.setWarmupSeconds(0);
+        config.setDurationSeconds(2);
+        config.setThreads(4);
+
+        try (GatewaySimulator simulator = new GatewaySimulator(simulatorConfig).start();
+             OpenApiClient client = new OpenApiClient(config.getAppId(), simulator.getUrl(),
+                     Base64.encode(app.getPrivate().getEncoded()), Base64.encode(app.getPublic().getEncoded()))) {
+            LoadReport report = new LoadGenerator(config, client).run();
+
+            // Responses take 300ms and only 4 threads send: a closed loop would manage far fewer requests
+            Assert.assertEquals(80, report.getCount());
+            Assert.assertEquals(80, simulator.getRequestCount());
+            Assert.assertTrue(report.getLatency("wisehub.cloud.pay.order").percentile(50) >= 300000000L);
+            Assert.assertTrue(report.getLatency("order.query").percentile(50) < 300000000L);
+            for (String method : new String[]{"wisehub.cloud.pay.order", "wisehub.cloud.message.send"}) {
+                Assert.assertEquals(Collections.emptyMap(), report.getErrors(method));
+            }
+            Assert.assertNotNull(report.toText(2));
+        }
+
+        config.setMix(Collections.singletonMap(RequestMix.QUERY, 1));
+        simulatorConfig.setErrorRate(1);
+        try (GatewaySimulator simulator = new GatewaySimulator(simulatorConfig).start();
+             OpenApiClient client = new OpenApiClient(config.getAppId(), simulator.getUrl(),
+                     Base64.encode(app.getPrivate().getEncoded()), Base64.encode(app.getPublic().getEncoded()))) {
+            LoadReport report = new LoadGenerator(config, client).run();
+
+            Map<String, Long> errors = report.getErrors("order.query");
+            Assert.assertEquals(Collections.singletonMap(GatewaySimulator.SYSTEM_ERROR, 80L), errors);
+            Assert.assertEquals(80, report.getErrorCount());
+        }
+    }
+
+    @Test
+    public void reportsRequestsStillInFlightAsTimedOut() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair app = generator.generateKeyPair();
+
+        SimulatorConfig simulatorConfig = new SimulatorConfig();
+        simulatorConfig.setLatency(LatencyDistribution.fixed(3000));
+
+        LoadConfig config = new LoadConfig();
+        config.setMix(Collections.singletonMap(RequestMix.QUERY, 1));
+        config.setRate(20);
+        config.setWarmupSeconds(0);
+        config.setDurationSeconds(1);
+        config.setDrainSeconds(0);
+
+        try (GatewaySimulator simulator = new GatewaySimulator(simulatorConfig).start();
+             OpenApiClient client = new OpenApiClient(config.getAppId(), simulator.getUrl(),
+                     Base64.encode(app.getPrivate().getEncoded()), Base64.encode(app.getPublic().getEncoded()))) {
+            LoadReport report = new LoadGenerator(config, client).run();
+
+            Assert.assertEquals(20, report.getCount());
+            Assert.assertEquals(Collections.singletonMap(LoadGenerator.TIMEOUT, 20L), report.getErrors("order.query"));
+            // The earliest request waited about the whole test
+            Assert.assertTrue(report.getLatency("order.query").getMax() >= 900000000L);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAnOptionWithoutValue() throws Exception {
+        LoadGenerator.main(new String[]{"--url", "embedded", "--rate"});
+    }
+}
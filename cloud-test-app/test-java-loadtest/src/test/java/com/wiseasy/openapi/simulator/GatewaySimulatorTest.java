@@ -0,0 +1,280 @@
+package com.wiseasy.openapi.simulator;
+
+import com.wiseasy.openapi.ChunkedUploadConfig;
+import com.wiseasy.openapi.OpenApiClient;
+import com.wiseasy.openapi.OpenApiException;
+import com.wiseasy.openapi.request.FileUploadRequest;
+import com.wiseasy.openapi.request.OrderQueryRequest;
+import com.wiseasy.openapi.request.OrderRefundQueryRequest;
+import com.wiseasy.openapi.request.OrderRefundSubmitRequest;
+import com.wiseasy.openapi.request.OrderRevokerRequest;
+import com.wiseasy.openapi.request.WisehubCloudPayOrderRequest;
+import com.wiseasy.openapi.response.FileUploadResponse;
+import com.wiseasy.openapi.response.OrderQueryResponse;
+import com.wiseasy.openapi.response.OrderRefundQueryResponse;
+import com.wiseasy.openapi.response.OrderRefundSubmitResponse;
+import com.wiseasy.openapi.sign.Base64;
+import com.wiseasy.openapi.utils.Constants;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.mime.MultipartEntityBuilder;
+import org.apache.http.entity.mime.content.FileBody;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.util.EntityUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Random;
+
+/**
+ * The SDK against the simulator: signed requests and responses, trans_status transitions, error injection and uploads
+ */
+public class GatewaySimulatorTest {
+
+    private static KeyPair app;
+
+    private static KeyPair gateway;
+
+    private GatewaySimulator simulator;
+
+    private OpenApiClient client;
+
+    @BeforeClass
+    public static void generateKeys() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        app = generator.generateKeyPair();
+        gateway = generator.generateKeyPair();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        start(config());
+    }
+
+    @After
+    public void tearDown() {
+        client.close();
+        simulator.close();
+    }
+
+    @Test
+    public void paymentRefundAndVoid() throws Exception {
+        SimulatorConfig config = config();
+        config.setPaymentMillis(300);
+        restart(config);
+
+        Assert.assertTrue(client.execute(payOrder("O1", 10.00)).isSuccess());
+        Assert.assertEquals(Integer.valueOf(0), query("O1").getTrans_status());
+        Thread.sleep(400);
+        OrderQueryResponse paid = query("O1");
+        Assert.assertEquals(Integer.valueOf(2), paid.getTrans_status());
+        Assert.assertEquals(Double.valueOf(10.00), paid.getTrans_amount());
+
+        OrderRefundSubmitResponse refund = client.execute(refund("O1", "R1", 4.00));
+        Assert.assertTrue(refund.getMsg(), refund.isSuccess());
+        OrderRefundQueryRequest refundQuery = new OrderRefundQueryRequest();
+        refundQuery.setMerchant_no("M1");
+        refundQuery.setTrans_no(refund.getTrans_no());
+        OrderRefundQueryResponse refunded = client.execute(refundQuery);
+        Assert.assertEquals(Integer.valueOf(2), refunded.getTrans_status());
+        Assert.assertEquals(paid.getTrans_no(), refunded.getOrig_trans_no());
+
+        Assert.assertEquals(GatewaySimulator.AMOUNT_ERROR, client.execute(refund("O1", "R2", 6.01)).getCode());
+        Assert.assertEquals(GatewaySimulator.DUPLICATE_ORDER, client.execute(refund("O1", "R1", 1.00)).getCode());
+        Assert.assertEquals(GatewaySimulator.DUPLICATE_ORDER, client.execute(payOrder("O1", 1.00)).getCode());
+        Assert.assertEquals("A refunded payment cannot be voided", GatewaySimulator.STATUS_ERROR, client.execute(revoke("O1")).getCode());
+
+        Assert.assertTrue(client.execute(payOrder("O2", 5.00)).isSuccess());
+        Assert.assertTrue(client.execute(revoke("O2")).isSuccess());
+        Assert.assertEquals(Integer.valueOf(3), query("O2").getTrans_status());
+        Assert.assertEquals(GatewaySimulator.STATUS_ERROR, client.execute(refund("O2", "R3", 1.00)).getCode());
+        Assert.assertEquals(GatewaySimulator.NOT_FOUND, query("O3").getCode());
+    }
+
+    @Test
+    public void rejectsInvalidSignature() throws Exception {
+        KeyPair other = KeyPairGenerator.getInstance("RSA").generateKeyPair();
+        try (OpenApiClient forged = new OpenApiClient("app1", simulator.getUrl(), Base64.encode(other.getPrivate().getEncoded()),
+                Base64.encode(gateway.getPublic().getEncoded()))) {
+            Assert.assertEquals(GatewaySimulator.SIGNATURE_ERROR, forged.execute(payOrder("O1", 1.00)).getCode());
+        }
+        try (OpenApiClient unknown = new OpenApiClient("app2", simulator.getUrl(), Base64.encode(app.getPrivate().getEncoded()),
+                Base64.encode(gateway.getPublic().getEncoded()))) {
+            Assert.assertEquals(GatewaySimulator.PARAMETER_ERROR, unknown.execute(payOrder("O1", 1.00)).getCode());
+        }
+    }
+
+    @Test
+    public void responsesAreSignedByTheGateway() throws Exception {
+        KeyPair other = KeyPairGenerator.getInstance("RSA").generateKeyPair();
+        try (OpenApiClient wrongKey = new OpenApiClient("app1", simulator.getUrl(), Base64.encode(app.getPrivate().getEncoded()),
+                Base64.encode(other.getPublic().getEncoded()))) {
+            wrongKey.execute(payOrder("O1", 1.00));
+            Assert.fail("A response signed with another key must not verify");
+        } catch (OpenApiException e) {
+            Assert.assertEquals("CLI004", e.getErrCode());
+        }
+    }
+
+    @Test
+    public void injectsErrorsAndLatency() throws Exception {
+        SimulatorConfig config = config();
+        config.setErrorRate(1);
+        config.getMethodLatency().put("order.query", LatencyDistribution.fixed(150));
+        restart(config);
+
+        Assert.assertEquals(GatewaySimulator.SYSTEM_ERROR, client.execute(payOrder("O1", 1.00)).getCode());
+        long start = System.nanoTime();
+        Assert.assertEquals(GatewaySimulator.SYSTEM_ERROR, query("O1").getCode());
+        Assert.assertTrue((System.nanoTime() - start) / 1000000 >= 150);
+        Assert.assertEquals(2, simulator.getInjectedErrorCount());
+
+        Random random = new Random(1);
+        LatencyDistribution logNormal = LatencyDistribution.logNormal(20, 200);
+        long[] samples = new long[10000];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = logNormal.sampleMicros(random);
+        }
+        Arrays.sort(samples);
+        Assert.assertEquals(20000, samples[5000], 2000);
+        Assert.assertEquals(200000, samples[9900], 40000);
+    }
+
+    @Test
+    public void uploads() throws Exception {
+        File dir = Files.createTempDirectory("simulator-upload").toFile();
+        File file = new File(dir, "data.bin");
+        byte[] content = new byte[300 * 1024 + 7];
+        new Random(3).nextBytes(content);
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(content);
+        }
+        FileUploadRequest request = new FileUploadRequest();
+        request.setInstitution_no("I1");
+        request.setFile_body(new FileBody(file, ContentType.APPLICATION_OCTET_STREAM, file.getName()));
+
+        FileUploadResponse single = client.uploadFile(request);
+        Assert.assertTrue(single.getMsg(), single.isSuccess());
+        Assert.assertNotNull(single.getFile_key());
+
+        ChunkedUploadConfig chunked = new ChunkedUploadConfig();
+        chunked.setChunkUploadPath(GatewaySimulator.CHUNK_UPLOAD_PATH);
+        chunked.setChunkCompletePath(GatewaySimulator.CHUNK_COMPLETE_PATH);
+        chunked.setChunkSize(64 * 1024);
+        chunked.setProgressDir(new File(dir, "progress"));
+        FileUploadResponse assembled = client.uploadFileChunked(request, chunked);
+        Assert.assertTrue(assembled.getMsg(), assembled.isSuccess());
+        Assert.assertNotNull(assembled.getFile_key());
+
+        file.delete();
+        new File(dir, "progress").delete();
+        dir.delete();
+    }
+
+    @Test
+    public void expiresCompletedTransactionsAndAbandonedUploads() throws Exception {
+        SimulatorConfig config = config();
+        config.setAppPublicKeys(new HashMap<>());
+        config.setTransactionTtlMillis(1000);
+        config.setChunkTtlMillis(1000);
+        restart(config);
+
+        Assert.assertTrue(client.execute(payOrder("O1", 10.00)).isSuccess());
+        Assert.assertEquals(1, simulator.getTransactionCount());
+        // An upload whose last chunk is never sent
+        try (CloseableHttpClient http = HttpClients.createDefault()) {
+            HttpPost post = new HttpPost(simulator.getUrl() + GatewaySimulator.CHUNK_UPLOAD_PATH);
+            byte[] chunk = "first chunk".getBytes(StandardCharsets.UTF_8);
+            post.setEntity(MultipartEntityBuilder.create()
+                    .addTextBody(Constants.APP_ID, "app1")
+                    .addTextBody(Constants.TIMESTAMP, String.valueOf(System.currentTimeMillis()))
+                    .addTextBody(Constants.UPLOAD_ID, "U1")
+                    .addTextBody(Constants.CHUNK_TOTAL, "2")
+                    .addTextBody(Constants.CHUNK_INDEX, "0")
+                    .addTextBody(Constants.CHUNK_DATA_HASH, DigestUtils.md5Hex(chunk))
+                    .addBinaryBody(Constants.FILE_DATA, chunk, ContentType.APPLICATION_OCTET_STREAM, "data.bin")
+                    .build());
+            String body = EntityUtils.toString(http.execute(post).getEntity());
+            Assert.assertTrue(body, body.contains("\"code\":\"0\""));
+        }
+        Assert.assertEquals(1, simulator.getPendingUploadCount());
+
+        long now = System.currentTimeMillis();
+        simulator.expire(now);
+        Assert.assertEquals(1, simulator.getTransactionCount());
+        Assert.assertEquals(1, simulator.getPendingUploadCount());
+
+        simulator.expire(now + 2000);
+        Assert.assertEquals(0, simulator.getTransactionCount());
+        Assert.assertEquals(0, simulator.getPendingUploadCount());
+        Assert.assertEquals(GatewaySimulator.NOT_FOUND, query("O1").getCode());
+        // The order number may be used again
+        Assert.assertTrue(client.execute(payOrder("O1", 10.00)).isSuccess());
+    }
+
+    private SimulatorConfig config() {
+        SimulatorConfig config = new SimulatorConfig();
+        config.getAppPublicKeys().put("app1", Base64.encode(app.getPublic().getEncoded()));
+        config.setGatewayPrivateKey(Base64.encode(gateway.getPrivate().getEncoded()));
+        return config;
+    }
+
+    private void start(SimulatorConfig config) throws Exception {
+        simulator = new GatewaySimulator(config).start();
+        client = new OpenApiClient("app1", simulator.getUrl(), Base64.encode(app.getPrivate().getEncoded()),
+                Base64.encode(gateway.getPublic().getEncoded()));
+    }
+
+    private void restart(SimulatorConfig config) throws Exception {
+        tearDown();
+        start(config);
+    }
+
+    private OrderQueryResponse query(String merchantOrderNo) throws OpenApiException {
+        OrderQueryRequest request = new OrderQueryRequest();
+        request.setMerchant_no("M1");
+        request.setMerchant_order_no(merchantOrderNo);
+        return client.execute(request);
+    }
+
+    private static WisehubCloudPayOrderRequest payOrder(String merchantOrderNo, double amount) {
+        WisehubCloudPayOrderRequest request = new WisehubCloudPayOrderRequest();
+        request.setMerchant_no("M1");
+        request.setTerminal_sn("T1");
+        request.setMerchant_order_no(merchantOrderNo);
+        request.setPrice_currency("USD");
+        request.setOrder_amount(amount);
+        request.setTrans_type(1);
+        return request;
+    }
+
+    private static OrderRefundSubmitRequest refund(String origMerchantOrderNo, String merchantOrderNo, double amount) {
+        OrderRefundSubmitRequest request = new OrderRefundSubmitRequest();
+        request.setMerchant_no("M1");
+        request.setOrig_merchant_order_no(origMerchantOrderNo);
+        request.setMerchant_order_no(merchantOrderNo);
+        request.setTrans_amount(amount);
+        return request;
+    }
+
+    private static OrderRevokerRequest revoke(String merchantOrderNo) {
+        OrderRevokerRequest request = new OrderRevokerRequest();
+        request.setMerchant_no("M1");
+        request.setMerchant_order_no(merchantOrderNo);
+        return request;
+    }
+}
@@ -0,0 +1,39 @@
+package com.wiseasy.openapi;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.io.File;
+
+/**
+ * @Description: Settings of {@link OpenApiClient#uploadFileChunked}. Experimental: the endpoints must be provided by a
+ * gateway-side counterpart of the chunked upload protocol, the gateway itself offers none
+ */
+@Getter
+@Setter
+@ToString
+public class ChunkedUploadConfig {
+
+    // Path of the endpoint receiving one chunk (upload_id, chunk_index, chunk_total, chunk_data_hash, file_data), required
+    private String chunkUploadPath;
+
+    // Path of the endpoint assembling the chunks of an upload and returning the file_key, required
+    private String chunkCompletePath;
+
+    // Size of one chunk in bytes, the last chunk may be smaller
+    private int chunkSize = 8 * 1024 * 1024;
+
+    // Maximum number of chunks uploaded at the same time
+    private int parallelism = 4;
+
+    // How many times a chunk is retried after a failed request before the upload is abandoned
+    private int maxRetries = 3;
+
+    // Wait before the first retry of a chunk, doubled for every further retry, in milliseconds
+    private long retryBackoffMillis = 1000;
+
+    // Directory where the progress of unfinished uploads is saved, so that they can be resumed
+    private File progressDir = new File(System.getProperty("java.io.tmpdir"), "openapi-uploads");
+
+}
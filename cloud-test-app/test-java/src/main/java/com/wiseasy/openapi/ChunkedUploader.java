@@ -0,0 +1,274 @@
+package com.wiseasy.openapi;
+
+import com.wiseasy.openapi.request.FileUploadRequest;
+import com.wiseasy.openapi.response.FileUploadResponse;
+import com.wiseasy.openapi.utils.Constants;
+import com.wiseasy.openapi.utils.FileChannelBody;
+import com.wiseasy.openapi.utils.FileUtil;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.entity.mime.content.FileBody;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * @Description: Uploads a file as independently retried chunks with bounded parallelism.
+ * Completed chunks are recorded in a progress file, an interrupted upload resumes with the chunks still missing.
+ * The protocol is the SDK's own, the endpoints of {@link ChunkedUploadConfig} must implement it
+ */
+class ChunkedUploader {
+
+    private Log log = LogFactory.getLog(this.getClass());
+
+    private final OpenApiClient client;
+
+    private final ChunkedUploadConfig config;
+
+    ChunkedUploader(OpenApiClient client, ChunkedUploadConfig config) {
+        this.client = client;
+        this.config = config;
+    }
+
+    FileUploadResponse upload(final FileUploadRequest request) throws OpenApiException {
+        if (StringUtils.isBlank(config.getChunkUploadPath()) || StringUtils.isBlank(config.getChunkCompletePath())) {
+            throw new OpenApiException(Constants.PARAMETER_IS_EMPTY, "The parameter [chunkUploadPath, chunkCompletePath] cannot be empty");
+        }
+        final FileBody fileBody = request.getFile_body();
+        final File file = fileBody.getFile();
+        if (!file.isFile()) {
+            throw new OpenApiException(Constants.PARAMETER_IS_EMPTY, "The parameter [file_body] cannot be read");
+        }
+        final long chunkSize = Math.max(1, config.getChunkSize());
+        final int chunkTotal = (int) Math.max(1, (file.length() + chunkSize - 1) / chunkSize);
+
+        final Progress progress;
+        try {
+            progress = Progress.open(config.getProgressDir(), file, chunkSize, request.getInstitution_no());
+        } catch (IOException e) {
+            log.error("Read upload progress of file [" + file + "] fail", e);
+            throw new OpenApiException(Constants.PARAMETER_IS_EMPTY, "The parameter [file_body] cannot be read");
+        }
+
+        List<Integer> pending = new ArrayList<>();
+        for (int i = 0; i < chunkTotal; i++) {
+            if (!progress.isCompleted(i)) {
+                pending.add(i);
+            }
+        }
+        if (!pending.isEmpty()) {
+            if (pending.size() < chunkTotal) {
+                log.info("Resume upload [" + progress.uploadId + "] of file [" + file + "], " + pending.size() + "/" + chunkTotal + " chunks left");
+            }
+            uploadChunks(request, file, fileBody, progress, pending, chunkSize, chunkTotal);
+        }
+
+        // Assemble the chunks
+        Map<String, Object> params = new HashMap<>();
+        params.put(Constants.UPLOAD_ID, progress.uploadId);
+        params.put(Constants.CHUNK_TOTAL, chunkTotal);
+        params.put(Constants.FILE_DATA_HASH, progress.fileHash);
+        FileUploadResponse resp = client.postMultipart(request, config.getChunkCompletePath(), params, null);
+        if (resp.isSuccess()) {
+            progress.delete();
+        }
+        return resp;
+    }
+
+    private void uploadChunks(final FileUploadRequest request, final File file, final FileBody fileBody, final Progress progress,
+                              List<Integer> pending, final long chunkSize, final int chunkTotal) throws OpenApiException {
+        int threads = Math.max(1, Math.min(config.getParallelism(), pending.size()));
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "openapi-chunk-upload-" + progress.uploadId);
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        // Set on the first failure: chunks not started yet are skipped, chunks in flight finish and are recorded
+        final AtomicBoolean aborted = new AtomicBoolean();
+        try {
+            CompletionService<Integer> completion = new ExecutorCompletionService<>(executor);
+            for (final Integer index : pending) {
+                completion.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() throws Exception {
+                        if (aborted.get()) {
+                            return index;
+                        }
+                        uploadChunk(request, file, fileBody, progress, index, chunkSize, chunkTotal);
+                        return index;
+                    }
+                });
+            }
+            for (int i = 0; i < pending.size(); i++) {
+                try {
+                    completion.take().get();
+                } catch (ExecutionException e) {
+                    aborted.set(true);
+                    Throwable cause = e.getCause();
+                    if (cause instanceof OpenApiException) {
+                        throw (OpenApiException) cause;
+                    }
+                    log.error("Upload chunk of file [" + file + "] fail", cause);
+                    throw new OpenApiException(Constants.REQUEST_SERVER_FAILED, "Request to gateway fail");
+                }
+            }
+        } catch (InterruptedException e) {
+            aborted.set(true);
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new OpenApiException(Constants.REQUEST_SERVER_FAILED, "Upload interrupted");
+        } finally {
+            executor.shutdown();
+            awaitTermination(executor);
+        }
+    }
+
+    private void awaitTermination(ExecutorService executor) {
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void uploadChunk(FileUploadRequest request, File file, FileBody fileBody, Progress progress,
+                             int index, long chunkSize, int chunkTotal) throws Exception {
+        long position = index * chunkSize;
+        long length = Math.min(chunkSize, file.length() - position);
+
+        Map<String, Object> params = new HashMap<>();
+        params.put(Constants.UPLOAD_ID, progress.uploadId);
+        params.put(Constants.CHUNK_INDEX, index);
+        params.put(Constants.CHUNK_TOTAL, chunkTotal);
+        params.put(Constants.CHUNK_DATA_HASH, FileUtil.md5Hex(file, position, length));
+        params.put(Constants.FILE_DATA_HASH, progress.fileHash);
+        FileChannelBody chunk = new FileChannelBody(file, position, length, fileBody.getContentType(), fileBody.getFilename());
+
+        long backoff = config.getRetryBackoffMillis();
+        for (int attempt = 0; ; attempt++) {
+            try {
+                FileUploadResponse resp = client.postMultipart(request, config.getChunkUploadPath(), params, chunk);
+                if (!resp.isSuccess()) {
+                    throw new OpenApiException(resp.getCode(), resp.getMsg());
+                }
+                progress.markCompleted(index);
+                return;
+            } catch (OpenApiException e) {
+                // Only transport failures are retried, a rejected chunk or a bad signature would fail again
+                if (!Constants.REQUEST_SERVER_FAILED.equals(e.getErrCode()) || attempt >= config.getMaxRetries()) {
+                    throw e;
+                }
+                log.warn("Upload chunk " + index + " of [" + progress.uploadId + "] fail, retry " + (attempt + 1) + "/" + config.getMaxRetries());
+                Thread.sleep(backoff);
+                backoff *= 2;
+            }
+        }
+    }
+
+    /**
+     * Upload id, file hash and completed chunks of one upload, saved as a properties file named after the file
+     * identity (path, size, modification time, chunk size), so a changed file starts a new upload
+     */
+    static class Progress {
+
+        private static final String COMPLETED = "completed";
+
+        final String uploadId;
+
+        final String fileHash;
+
+        private final File store;
+
+        private final BitSet completed = new BitSet();
+
+        // Guards the completed chunks and the progress file
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private Progress(File store, String uploadId, String fileHash) {
+            this.store = store;
+            this.uploadId = uploadId;
+            this.fileHash = fileHash;
+        }
+
+        static Progress open(File dir, File file, long chunkSize, String institutionNo) throws IOException {
+            String identity = file.getCanonicalPath() + "|" + file.length() + "|" + file.lastModified() + "|" + chunkSize + "|" + institutionNo;
+            File store = new File(dir, DigestUtils.md5Hex(identity) + ".properties");
+            if (store.isFile()) {
+                Properties properties = new Properties();
+                try (InputStream in = new FileInputStream(store)) {
+                    properties.load(in);
+                }
+                Progress progress = new Progress(store, properties.getProperty(Constants.UPLOAD_ID), properties.getProperty(Constants.FILE_DATA_HASH));
+                String done = properties.getProperty(COMPLETED, "");
+                for (String index : done.split(",")) {
+                    if (!index.trim().isEmpty()) {
+                        progress.completed.set(Integer.parseInt(index.trim()));
+                    }
+                }
+                if (progress.uploadId != null && progress.fileHash != null) {
+                    return progress;
+                }
+            }
+            Progress progress = new Progress(store, UUID.randomUUID().toString().replace("-", ""), FileUtil.md5Hex(file));
+            progress.save();
+            return progress;
+        }
+
+        boolean isCompleted(int index) {
+            lock.lock();
+            try {
+                return completed.get(index);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void markCompleted(int index) throws IOException {
+            lock.lock();
+            try {
+                completed.set(index);
+                save();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void delete() {
+            lock.lock();
+            try {
+                store.delete();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Written to a temporary file and moved, a crash never leaves a truncated progress file
+         */
+        private void save() throws IOException {
+            StringBuilder done = new StringBuilder();
+            for (int i = completed.nextSetBit(0); i >= 0; i = completed.nextSetBit(i + 1)) {
+                if (done.length() > 0) {
+                    done.append(',');
+                }
+                done.append(i);
+            }
+            Properties properties = new Properties();
+            properties.setProperty(Constants.UPLOAD_ID, uploadId);
+            properties.setProperty(Constants.FILE_DATA_HASH, fileHash);
+            properties.setProperty(COMPLETED, done.toString());
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            properties.store(out, null);
+            FileUtil.copyAtomically(new ByteArrayInputStream(out.toByteArray()), store);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.wiseasy.openapi;
+
+import com.wiseasy.openapi.request.OpenApiRequest;
+import com.wiseasy.openapi.request.RequestMetadata;
+import com.wiseasy.openapi.response.OpenApiResponse;
+import com.wiseasy.openapi.utils.Constants;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * @Description: Collapses submissions with the same key onto one gateway call. While a call is in flight, duplicates
+ * wait for its outcome; once it completed, its response is returned for repeat submissions until it expires.
+ * Failed calls are forgotten at once so that a retry reaches the gateway again.
+ * Entries expire in insertion order (the time to live is the same for all), so eviction only ever looks at the
+ * head of a queue: lookups and inserts do not scan the cache
+ */
+class IdempotencyCache {
+
+    private final IdempotencyConfig config;
+
+    private final long ttlNanos;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    // Completed entries in the order they were completed, for expiry and size eviction
+    private final Queue<Entry> completed = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger completedCount = new AtomicInteger();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong joins = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    IdempotencyCache(IdempotencyConfig config) {
+        this.config = config;
+        this.ttlNanos = config.getTtlMillis() * 1000000L;
+    }
+
+    /**
+     * Cache key of the request, null if the request is not deduplicated
+     */
+    String keyOf(OpenApiRequest<?> request) {
+        RequestMetadata metadata = RequestMetadata.of(request.getClass());
+        if (!config.getMethods().contains(metadata.getRequestMethod())) {
+            return null;
+        }
+        Object id = metadata.getProperty(request, config.getKeyParameter());
+        if (id == null || id.toString().isEmpty()) {
+            return null;
+        }
+        Object merchantNo = metadata.getProperty(request, "merchant_no");
+        return metadata.getRequestMethod() + '|' + (merchantNo == null ? "" : merchantNo) + '|' + id;
+    }
+
+    /**
+     * The response of the call with this key: the remembered one, the one in flight, or a new call
+     * @param key Cache key, see keyOf
+     * @param call Starts the gateway call
+     */
+    <T extends OpenApiResponse> CompletableFuture<T> submit(String key, Supplier<CompletableFuture<T>> call) {
+        long now = System.nanoTime();
+        expire(now);
+        while (true) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.isExpired(now)) {
+                entries.remove(key, entry);
+                continue;
+            }
+            if (entry != null) {
+                (entry.future.isDone() ? hits : joins).incrementAndGet();
+                return cast(entry.future);
+            }
+            Entry mine = new Entry(key);
+            if (entries.putIfAbsent(key, mine) != null) {
+                continue;
+            }
+            misses.incrementAndGet();
+            CompletableFuture<T> result;
+            try {
+                result = call.get();
+            } catch (RuntimeException e) {
+                entries.remove(key, mine);
+                mine.future.completeExceptionally(e);
+                throw e;
+            }
+            result.whenComplete((resp, e) -> complete(mine, resp, e));
+            return cast(mine.future);
+        }
+    }
+
+    /**
+     * Blocking form of submit, failures are thrown as the OpenApiException of the call
+     */
+    <T extends OpenApiResponse> T execute(String key, final Execution<T> call) throws OpenApiException {
+        CompletableFuture<T> future = submit(key, () -> {
+            CompletableFuture<T> f = new CompletableFuture<>();
+            try {
+                f.complete(call.execute());
+            } catch (Throwable e) {
+                f.completeExceptionally(e);
+            }
+            return f;
+        });
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OpenApiException(Constants.REQUEST_SERVER_FAILED, "Interrupted while waiting for the same submission in flight");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof CompletionException && e.getCause().getCause() != null ? e.getCause().getCause() : e.getCause();
+            if (cause instanceof OpenApiException) {
+                throw (OpenApiException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    long getHits() {
+        return hits.get();
+    }
+
+    long getJoins() {
+        return joins.get();
+    }
+
+    long getMisses() {
+        return misses.get();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private void complete(Entry entry, OpenApiResponse resp, Throwable error) {
+        boolean remember = error == null && resp != null && (resp.isSuccess() || config.isCacheFailedResponses());
+        if (remember) {
+            entry.expiresAt = System.nanoTime() + ttlNanos;
+            completed.offer(entry);
+            if (completedCount.incrementAndGet() > config.getMaxEntries()) {
+                evictOldest();
+            }
+        } else {
+            entries.remove(entry.key, entry);
+        }
+        if (error != null) {
+            entry.future.completeExceptionally(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+        } else {
+            entry.future.complete(resp);
+        }
+    }
+
+    private void expire(long now) {
+        for (Entry head = completed.peek(); head != null && head.isExpired(now); head = completed.peek()) {
+            if (completed.remove(head)) {
+                completedCount.decrementAndGet();
+                entries.remove(head.key, head);
+            }
+        }
+    }
+
+    private void evictOldest() {
+        Entry oldest = completed.poll();
+        if (oldest != null) {
+            completedCount.decrementAndGet();
+            entries.remove(oldest.key, oldest);
+        }
+    }
+
+    /**
+     * A dependent future per caller, so that one caller cancelling its future does not cancel the shared one
+     */
+    @SuppressWarnings("unchecked")
+    private static <T extends OpenApiResponse> CompletableFuture<T> cast(CompletableFuture<OpenApiResponse> future) {
+        return future.thenApply(resp -> (T) resp);
+    }
+
+    interface Execution<T> {
+        T execute() throws OpenApiException;
+    }
+
+    private static final class Entry {
+
+        final String key;
+
+        final CompletableFuture<OpenApiResponse> future = new CompletableFuture<>();
+
+        // Set when the response is remembered, until then the entry is in flight and does not expire
+        volatile long expiresAt;
+
+        Entry(String key) {
+            this.key = key;
+        }
+
+        boolean isExpired(long now) {
+            return future.isDone() && expiresAt != 0 && now - expiresAt >= 0;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.wiseasy.openapi;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * @Description: Settings of the idempotent submission cache, see {@link OpenApiClient#setIdempotency(IdempotencyConfig)}
+ */
+@Getter
+@Setter
+@ToString
+public class IdempotencyConfig {
+
+    // Methods whose submissions are deduplicated
+    private Set<String> methods = new HashSet<>(Arrays.asList("wisehub.cloud.pay.order", "bscanc.pay.submit", "order.refund.submit"));
+
+    // Request parameter identifying a submission, together with merchant_no and the method
+    private String keyParameter = "merchant_order_no";
+
+    // How long a completed response is returned for repeat submissions, in milliseconds
+    private long ttlMillis = 15 * 60 * 1000;
+
+    // Upper bound of remembered responses, the oldest are dropped first
+    private int maxEntries = 10000;
+
+    // Whether responses with a non-success code are remembered too. Failed requests (exceptions) never are
+    private boolean cacheFailedResponses = false;
+
+}
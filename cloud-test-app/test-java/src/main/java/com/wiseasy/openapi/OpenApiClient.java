@@ -1,30 +1,82 @@
 package com.wiseasy.openapi;
 
-import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
+import com.wiseasy.openapi.bill.BillReader;
+import com.wiseasy.openapi.id.IdGenerator;
+import com.wiseasy.openapi.id.TimeSequenceIdGenerator;
+import com.wiseasy.openapi.logging.RequestLogConfig;
+import com.wiseasy.openapi.logging.RequestLogger;
+import com.wiseasy.openapi.metrics.CallMetrics;
+import com.wiseasy.openapi.metrics.InMemoryMetricsSink;
+import com.wiseasy.openapi.metrics.MetricsSink;
+import com.wiseasy.openapi.metrics.MetricsTextExporter;
+import com.wiseasy.openapi.metrics.Phase;
 import com.wiseasy.openapi.request.FileUploadRequest;
 import com.wiseasy.openapi.request.OpenApiRequest;
+import com.wiseasy.openapi.request.PayBillDownloadRequest;
+import com.wiseasy.openapi.request.RequestMetadata;
+import com.wiseasy.openapi.request.RequestSerializer;
 import com.wiseasy.openapi.response.FileUploadResponse;
 import com.wiseasy.openapi.response.OpenApiResponse;
+import com.wiseasy.openapi.response.PayBillDownloadResponse;
+import com.wiseasy.openapi.ratelimit.RateLimitStats;
+import com.wiseasy.openapi.ratelimit.RateLimiter;
+import com.wiseasy.openapi.resilience.Hedging;
+import com.wiseasy.openapi.resilience.HedgingConfig;
+import com.wiseasy.openapi.resilience.HedgingStats;
+import com.wiseasy.openapi.resilience.Resilience;
+import com.wiseasy.openapi.resilience.ResilienceConfig;
+import com.wiseasy.openapi.resilience.ResilienceStats;
+import com.wiseasy.openapi.response.ResponseDecoder;
+import com.wiseasy.openapi.routing.GatewayEndpoint;
+import com.wiseasy.openapi.routing.GatewayRouter;
+import com.wiseasy.openapi.routing.GatewayRoutingConfig;
+import com.wiseasy.openapi.sign.RSAKeyHolder;
 import com.wiseasy.openapi.sign.SignHandler;
+import com.wiseasy.openapi.transport.ApacheTransport;
+import com.wiseasy.openapi.transport.Transport;
+import com.wiseasy.openapi.utils.AsyncHttpConnectionPool;
 import com.wiseasy.openapi.utils.Constants;
+import com.wiseasy.openapi.utils.FileChannelBody;
 import com.wiseasy.openapi.utils.FileUtil;
 import com.wiseasy.openapi.utils.HttpClientUtil;
-import org.apache.commons.codec.digest.DigestUtils;
+import com.wiseasy.openapi.utils.HttpConnectionPool;
+import com.wiseasy.openapi.utils.HttpPoolConfig;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.http.entity.mime.content.ContentBody;
 import org.apache.http.entity.mime.content.FileBody;
+import org.apache.http.pool.PoolStats;
 
-import java.text.SimpleDateFormat;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * @Auther: liqie
  * @Date: 2021/6/3 16:40
- * @Description: The client class that accesses the Open Service Gateway
+ * @Description: The client class that accesses the Open Service Gateway.
+ * Thread-safe, and the blocking calls can run on virtual threads (see {@link com.wiseasy.openapi.utils.ExecutorFactory}):
+ * no lock is held while waiting for the network, and the connection pool alone limits the calls in flight
  */
-public class OpenApiClient {
+public class OpenApiClient implements Closeable {
+
+    // Result codes of calls that got no response code, see MetricsSink
+    private static final String RESULT_ERROR = "error";
+
+    private static final String RESULT_CANCELLED = "cancelled";
 
     /**
      * The log object
@@ -52,11 +104,103 @@ public class OpenApiClient {
      */
     private String gatewayRsaPublicKey;
 
+    /**
+     * The two keys above, parsed once
+     */
+    private RSAKeyHolder rsaKeyHolder;
+
+    /**
+     * Pooled connections to the gateway, shared by all requests of this client
+     */
+    private HttpConnectionPool httpConnectionPool;
+
+    /**
+     * Whether the connection pool was created by (and must be closed with) this client
+     */
+    private boolean ownsConnectionPool;
+
+    /**
+     * Non-blocking connections used by the asynchronous calls, created on first use
+     */
+    private volatile AsyncHttpConnectionPool asyncConnectionPool;
+
+    /**
+     * Sends the requests to the gateway, by default on the two pools above
+     */
+    private volatile Transport transport;
+
+    /**
+     * Runs signing and response verification of the asynchronous calls
+     */
+    private Executor executor = ForkJoinPool.commonPool();
+
+    /**
+     * Deduplicates submissions by merchant order number, disabled unless configured
+     */
+    private volatile IdempotencyCache idempotencyCache;
+
+    /**
+     * Retries and circuit breaker, disabled unless configured
+     */
+    private volatile Resilience resilience;
+
+    /**
+     * Spreads requests over several gateways, disabled unless configured: all requests go to gatewayUrl
+     */
+    private volatile GatewayRouter gatewayRouter;
+
+    /**
+     * Sends a second attempt of slow read-only calls, disabled unless configured
+     */
+    private volatile Hedging hedging;
+
+    /**
+     * Smooths the requests sent to the gateway, disabled unless configured
+     */
+    private volatile RateLimiter rateLimiter;
+
+    /**
+     * Receives the phase timings of every call, disabled unless configured
+     */
+    private volatile MetricsSink metricsSink;
+
+    /**
+     * Logs requests and responses off the calling thread, shared by the clients without logging settings
+     */
+    private volatile RequestLogger requestLogger = RequestLogger.getDefault();
+
+    private boolean ownsRequestLogger;
+
+    /**
+     * Guards the lazy creation of the async pool and the replacement of the request logger
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Generates the Http-Request-Psn of every request
+     */
+    private volatile IdGenerator idGenerator = IdGenerator.getDefault();
+
     public OpenApiClient(String appId, String gatewayUrl, String appRsaPrivateKey, String gatewayRsaPublicKey) {
         this.appId = appId;
         this.gatewayUrl = gatewayUrl;
         this.appRsaPrivateKey = appRsaPrivateKey;
         this.gatewayRsaPublicKey = gatewayRsaPublicKey;
+        this.rsaKeyHolder = new RSAKeyHolder(appRsaPrivateKey, gatewayRsaPublicKey);
+        this.httpConnectionPool = HttpConnectionPool.getDefault();
+        this.transport = new ApacheTransport(httpConnectionPool, this::getAsyncConnectionPool);
+    }
+
+    /**
+     * Create a client with its own connection pool, the pool is closed by {@link #close()}
+     *
+     * @param poolConfig Connection pool settings, see HttpPoolConfig
+     */
+    public OpenApiClient(String appId, String gatewayUrl, String appRsaPrivateKey, String gatewayRsaPublicKey, HttpPoolConfig poolConfig) {
+        this(appId, gatewayUrl, appRsaPrivateKey, gatewayRsaPublicKey);
+        this.httpConnectionPool = new HttpConnectionPool(poolConfig);
+        this.ownsConnectionPool = true;
+        this.transport = new ApacheTransport(httpConnectionPool, this::getAsyncConnectionPool);
     }
 
     /**
@@ -67,7 +211,478 @@ public class OpenApiClient {
      * @return Response object
      * @throws OpenApiException
      */
-    public <T extends OpenApiResponse> T execute(OpenApiRequest<T> request) throws OpenApiException {
+    public <T extends OpenApiResponse> T execute(final OpenApiRequest<T> request) throws OpenApiException {
+        IdempotencyCache cache = idempotencyCache;
+        String key = cache == null || request == null ? null : cache.keyOf(request);
+        if (key != null) {
+            return cache.execute(key, () -> executeDirect(request));
+        }
+        return executeDirect(request);
+    }
+
+    private <T extends OpenApiResponse> T executeDirect(final OpenApiRequest<T> request) throws OpenApiException {
+        Resilience policies = resilience;
+        if (policies != null && request != null) {
+            return policies.execute(request.getRequestMethod(), () -> executeAttempt(request));
+        }
+        return executeAttempt(request);
+    }
+
+    private <T extends OpenApiResponse> T executeAttempt(final OpenApiRequest<T> request) throws OpenApiException {
+        Hedging hedger = hedging;
+        if (hedger == null || request == null || !hedger.isHedged(request.getRequestMethod())) {
+            return executeOnce(request);
+        }
+        // Both attempts run over the asynchronous connections, so that the slower one can be aborted
+        CompletableFuture<T> future = executeHedged(hedger, request);
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new OpenApiException(Constants.REQUEST_SERVER_FAILED, "Interrupted while waiting for the gateway");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof CompletionException && e.getCause().getCause() != null ? e.getCause().getCause() : e.getCause();
+            if (cause instanceof OpenApiException) {
+                throw (OpenApiException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private <T extends OpenApiResponse> T executeOnce(OpenApiRequest<T> request) throws OpenApiException {
+        acquirePermit(request);
+        CallMetrics metrics = startMetrics(request);
+        String resultCode = RESULT_ERROR;
+        try {
+            PreparedRequest prepared = prepareRequest(request, null, metrics);
+
+            // Request gateway server Rest api
+            String resultStr;
+            long mark = metrics.mark();
+            try {
+                requestLogger.request(prepared.logged, prepared.apiUrl, prepared.httpRequestPsn, prepared.params);
+
+                resultStr = transport.post(prepared.apiUrl, prepared.headers, prepared.params);
+
+                requestLogger.response(prepared.logged, prepared.apiUrl, prepared.httpRequestPsn, resultStr);
+            } catch (Exception e) {
+                requestLogger.failure(prepared.apiUrl, prepared.httpRequestPsn, e);
+                metrics.stop(Phase.HTTP, mark);
+                onGatewayResult(prepared, false);
+                throw new OpenApiException(Constants.REQUEST_SERVER_FAILED, "Request to gateway fail");
+            }
+            metrics.stop(Phase.HTTP, mark);
+            onGatewayResult(prepared, true);
+            T resp = parseResponse(resultStr, request.getResponseClass(), metrics);
+            resultCode = resultCode(resp, null);
+            return resp;
+        } catch (OpenApiException e) {
+            resultCode = e.getErrCode();
+            throw e;
+        } finally {
+            metrics.finish(resultCode);
+        }
+    }
+
+    /**
+     * Call the gateway API without blocking the caller. Signing and response verification run on the
+     * executor of this client (see {@link #setExecutor(Executor)}), the HTTP exchange runs on the shared I/O reactor.
+     * The future fails with an {@link OpenApiException} in the same cases where {@link #execute(OpenApiRequest)} throws one,
+     * cancelling it aborts the HTTP exchange (unless the call is shared with duplicate submissions, see {@link #setIdempotency})
+     *
+     * @param <T>
+     * @param request   The request object
+     * @return Future of the response object
+     */
+    public <T extends OpenApiResponse> CompletableFuture<T> executeAsync(final OpenApiRequest<T> request) {
+        IdempotencyCache cache = idempotencyCache;
+        String key = cache == null || request == null ? null : cache.keyOf(request);
+        if (key != null) {
+            return cache.submit(key, () -> executeAsyncDirect(request));
+        }
+        return executeAsyncDirect(request);
+    }
+
+    private <T extends OpenApiResponse> CompletableFuture<T> executeAsyncDirect(final OpenApiRequest<T> request) {
+        Resilience policies = resilience;
+        if (policies != null && request != null) {
+            return policies.executeAsync(request.getRequestMethod(), () -> executeAsyncAttempt(request));
+        }
+        return executeAsyncAttempt(request);
+    }
+
+    private <T extends OpenApiResponse> CompletableFuture<T> executeAsyncAttempt(final OpenApiRequest<T> request) {
+        Hedging hedger = hedging;
+        if (hedger == null || request == null || !hedger.isHedged(request.getRequestMethod())) {
+            return executeAsyncOnce(request, null, null);
+        }
+        return executeHedged(hedger, request);
+    }
+
+    /**
+     * Send the request, and a second time if the first attempt is slow; the first validly signed response wins
+     */
+    private <T extends OpenApiResponse> CompletableFuture<T> executeHedged(Hedging hedger, final OpenApiRequest<T> request) {
+        final boolean otherGateway = hedger.getConfig().isOtherGateway();
+        final AtomicReference<GatewayEndpoint> firstGateway = new AtomicReference<>();
+        return hedger.executeAsync(request.getRequestMethod(), hedge -> hedge
+                ? executeAsyncOnce(request, otherGateway ? firstGateway.get() : null, null)
+                : executeAsyncOnce(request, null, firstGateway));
+    }
+
+    /**
+     * @param avoid Gateway not to send to if another one is healthy, may be null
+     * @param selected Receives the gateway the request is sent to, may be null
+     */
+    private <T extends OpenApiResponse> CompletableFuture<T> executeAsyncOnce(final OpenApiRequest<T> request, final GatewayEndpoint avoid,
+                                                                             final AtomicReference<GatewayEndpoint> selected) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        long wait;
+        try {
+            wait = reservePermit(request);
+        } catch (OpenApiException e) {
+            result.completeExceptionally(e);
+            return result;
+        }
+        // Over the rate limit the request is sent once its slot comes, without holding a thread meanwhile
+        RateLimiter.runAfter(wait, () -> runAsync(result, () -> {
+            if (result.isDone()) {
+                return;
+            }
+            final CallMetrics metrics = startMetrics(request);
+            result.whenComplete((resp, e) -> metrics.finish(resultCode(resp, e)));
+            final PreparedRequest prepared = prepareRequest(request, avoid, metrics);
+            if (selected != null) {
+                selected.set(prepared.endpoint);
+            }
+            requestLogger.request(prepared.logged, prepared.apiUrl, prepared.httpRequestPsn, prepared.params);
+
+            final long mark = metrics.mark();
+            final CompletableFuture<String> httpFuture = transport.postAsync(prepared.apiUrl, prepared.headers, prepared.params);
+            result.whenComplete((resp, e) -> {
+                if (result.isCancelled()) {
+                    httpFuture.cancel(false);
+                }
+            });
+            httpFuture.whenComplete((resultStr, e) -> {
+                metrics.stop(Phase.HTTP, mark);
+                if (e != null) {
+                    if (httpFuture.isCancelled()) {
+                        onGatewayCancelled(prepared);
+                    } else {
+                        requestLogger.failure(prepared.apiUrl, prepared.httpRequestPsn, e);
+                        onGatewayResult(prepared, false);
+                    }
+                    result.completeExceptionally(new OpenApiException(Constants.REQUEST_SERVER_FAILED, "Request to gateway fail"));
+                    return;
+                }
+                onGatewayResult(prepared, true);
+                requestLogger.response(prepared.logged, prepared.apiUrl, prepared.httpRequestPsn, resultStr);
+                runAsync(result, () -> result.complete(parseResponse(resultStr, request.getResponseClass(), metrics)));
+            });
+        }));
+        return result;
+    }
+
+
+    /**
+     * Call the internal handler function of the gateway API
+     *
+     * @param request   The request object
+     * @return Response object
+     * @throws OpenApiException
+     */
+    public FileUploadResponse uploadFile(FileUploadRequest request) throws OpenApiException {
+        checkUploadRequest(request);
+        FileBody fileBody = request.getFile_body();
+
+        // Hash the file with a fixed-size buffer, it is streamed again when the multipart body is written
+        Map<String, Object> fileParams = new HashMap<>(2);
+        try {
+            fileParams.put(Constants.FILE_DATA_HASH, FileUtil.md5Hex(fileBody.getFile()));
+        } catch (IOException e) {
+            log.error("Read file [" + fileBody.getFile() + "] fail", e);
+            throw new OpenApiException(Constants.PARAMETER_IS_EMPTY, "The parameter [file_body] cannot be read");
+        }
+        return postMultipart(request, Constants.API_FILE_UPLOAD_URL, fileParams,
+                new FileChannelBody(fileBody.getFile(), fileBody.getContentType(), fileBody.getFilename()));
+    }
+
+    /**
+     * Experimental: upload a large file in chunks. Chunks are uploaded concurrently and retried individually, and the
+     * progress is saved locally so that calling this method again with the same file resumes an interrupted upload.
+     * The gateway has no chunked upload endpoints: this only works against a service implementing the chunk and
+     * complete endpoints configured in ChunkedUploadConfig, use {@link #uploadFile} with the gateway
+     *
+     * @param request   The request object
+     * @param config    Endpoints, chunk size, parallelism, retries and where the progress is saved
+     * @return Response object of the final (assembling) call
+     * @throws OpenApiException If the endpoints are not configured, or the upload failed
+     */
+    public FileUploadResponse uploadFileChunked(FileUploadRequest request, ChunkedUploadConfig config) throws OpenApiException {
+        checkUploadRequest(request);
+        if (config == null) {
+            throw new OpenApiException(Constants.PARAMETER_IS_EMPTY, "The parameter [config] cannot be empty");
+        }
+        return new ChunkedUploader(this, config).upload(request);
+    }
+
+    /**
+     * Upload a file without blocking the caller. The multipart body is streamed by a blocking upload
+     * on the executor of this client, uploads are rare and bandwidth bound so they do not use the I/O reactor
+     *
+     * @param request   The request object
+     * @return Future of the response object
+     */
+    public CompletableFuture<FileUploadResponse> uploadFileAsync(final FileUploadRequest request) {
+        final CompletableFuture<FileUploadResponse> result = new CompletableFuture<>();
+        runAsync(result, () -> result.complete(uploadFile(request)));
+        return result;
+    }
+
+    /**
+     * Request the statement of a day and open it for streaming, records are downloaded as they are read.
+     * The caller must close the reader
+     *
+     * @param request   The request object
+     * @return Reader of the statement
+     * @throws OpenApiException
+     */
+    public BillReader openBill(PayBillDownloadRequest request) throws OpenApiException {
+        String billFileUrl = requestBillFileUrl(request);
+        try {
+            return BillReader.open(billFileUrl, httpConnectionPool);
+        } catch (IOException e) {
+            log.error("Download statement [" + billFileUrl + "] fail", e);
+            throw new OpenApiException(Constants.REQUEST_SERVER_FAILED, "Download statement fail");
+        }
+    }
+
+    /**
+     * Request the statement of a day and save it, as served (possibly compressed), into a directory.
+     * The file is named after the transaction date and only appears once it is complete
+     *
+     * @param request   The request object
+     * @param dir       Target directory
+     * @return The statement file, e.g. 2021-06-03.csv
+     * @throws OpenApiException
+     */
+    public File downloadBill(PayBillDownloadRequest request, File dir) throws OpenApiException {
+        String billFileUrl = requestBillFileUrl(request);
+        File file = new File(dir, request.getTrans_date() + FileUtil.getExtension(billFileUrl, ".csv"));
+        try (InputStream in = HttpClientUtil.doGetStream(httpConnectionPool, billFileUrl, null, HttpClientUtil.DEFAULT_TIMEOUT, HttpClientUtil.DEFAULT_TIMEOUT)) {
+            FileUtil.copyAtomically(in, file);
+            return file;
+        } catch (Exception e) {
+            log.error("Download statement [" + billFileUrl + "] fail", e);
+            throw new OpenApiException(Constants.REQUEST_SERVER_FAILED, "Download statement fail");
+        }
+    }
+
+    /**
+     * Connection pool statistics: leased, available and pending connections, and the pool limit
+     * @return
+     */
+    public PoolStats getPoolStats() {
+        return httpConnectionPool.getTotalStats();
+    }
+
+    /**
+     * Release the connection pool if it was created by this client, the shared default pool stays open
+     */
+    @Override
+    public void close() {
+        if (ownsConnectionPool) {
+            httpConnectionPool.close();
+            if (asyncConnectionPool != null) {
+                asyncConnectionPool.close();
+            }
+        }
+        if (ownsRequestLogger) {
+            requestLogger.close();
+        }
+    }
+
+    /**
+     * Send the API calls and uploads through another HTTP client, e.g. one on HTTP/2. Bill downloads and
+     * {@link #getPoolStats()} keep using the connection pool of this client.
+     * The transport is not closed by {@link #close()}, it can be shared by several clients
+     * @param transport The transport, null to go back to the default Apache HttpClient pools
+     */
+    public void setTransport(Transport transport) {
+        this.transport = transport == null ? new ApacheTransport(httpConnectionPool, this::getAsyncConnectionPool) : transport;
+    }
+
+    /**
+     * Executor for signing and response verification of asynchronous calls, defaults to the common fork-join pool
+     * @param executor
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor == null ? ForkJoinPool.commonPool() : executor;
+    }
+
+    /**
+     * Enable idempotent submissions: concurrent calls of the configured methods (by default wisehub.cloud.pay.order,
+     * bscanc.pay.submit and order.refund.submit) with the same merchant_no and merchant_order_no share one gateway call,
+     * and a successful response is returned again for repeat submissions until it expires.
+     * The shared response object is the same instance for all callers and must not be modified
+     *
+     * @param config Cache settings, null to disable (the remembered responses are dropped)
+     */
+    public void setIdempotency(IdempotencyConfig config) {
+        this.idempotencyCache = config == null ? null : new IdempotencyCache(config);
+    }
+
+    /**
+     * Enable retries and the circuit breaker: calls of the methods with a retry policy (by default the read-only
+     * queries such as order.query) are retried after a failed request within a global retry budget, and all calls
+     * fail fast with CLI005 while the gateway error rate or latency is above the thresholds
+     *
+     * @param config Retry policies, budget and breaker settings, null to disable
+     */
+    public void setResilience(ResilienceConfig config) {
+        this.resilience = config == null ? null : new Resilience(config);
+    }
+
+    /**
+     * Counters of retries and circuit breaker rejections, see {@link ResilienceStats#toText()}
+     * @return null if resilience is not enabled
+     */
+    public ResilienceStats getResilienceStats() {
+        Resilience policies = resilience;
+        return policies == null ? null : policies.getStats();
+    }
+
+    /**
+     * Change how requests and responses are logged: share of the calls logged, masked fields, body length cap and
+     * the bounded queue of the background writer. By default every call is logged with its signature masked.
+     * Nothing is rendered if the info level of this class is disabled; failures are logged at error level whatever the sampling
+     *
+     * @param config Logging settings, null to return to the default
+     */
+    public void setRequestLogging(RequestLogConfig config) {
+        lock.lock();
+        try {
+            RequestLogger previous = requestLogger;
+            boolean ownedPrevious = ownsRequestLogger;
+            this.requestLogger = config == null ? RequestLogger.getDefault() : new RequestLogger(log, config);
+            this.ownsRequestLogger = config != null;
+            if (ownedPrevious) {
+                previous.close();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Time every call by phase (serialization, signing, HTTP, response parsing, signature verification and total)
+     * and report it to the sink, tagged by method and result code
+     *
+     * @param sink e.g. an {@link InMemoryMetricsSink} exported with {@link MetricsTextExporter}, null to disable
+     */
+    public void setMetricsSink(MetricsSink sink) {
+        this.metricsSink = sink;
+    }
+
+    /**
+     * Change how the Http-Request-Psn of the requests is generated, by default 20 digits from
+     * {@link TimeSequenceIdGenerator#getDefault()}, whose node id is set with the system property openapi.id.node
+     *
+     * @param generator Must return unique values of at most 20 characters, null to return to the default
+     */
+    public void setIdGenerator(IdGenerator generator) {
+        this.idGenerator = generator == null ? IdGenerator.getDefault() : generator;
+    }
+
+    /**
+     * Enable the client-side rate limit: every request sent to the gateway (retries and hedges included) takes a slot
+     * from the limits of the app, its method and its merchant_no. Over the limit it waits for its slot, or fails with
+     * CLI006 in fail-fast mode; asynchronous calls wait without holding a thread.
+     * Clients using the same app_id should be given the same limiter
+     *
+     * @param limiter e.g. new RateLimiter(config), null to disable
+     */
+    public void setRateLimiter(RateLimiter limiter) {
+        this.rateLimiter = limiter;
+    }
+
+    /**
+     * Counters of the requests delayed and rejected by the rate limit, see {@link RateLimitStats#toText()}
+     * @return null if rate limiting is not enabled
+     */
+    public RateLimitStats getRateLimitStats() {
+        RateLimiter limiter = rateLimiter;
+        return limiter == null ? null : limiter.getStats();
+    }
+
+    /**
+     * Enable request hedging: a call of a hedged method (by default order.query and order.refund.query) that has not
+     * answered within a percentile of the recent latency is sent a second time, to another gateway in the multi-gateway
+     * mode, and the first validly signed response is returned while the other request is aborted. Hedges are capped
+     * to a share of the requests. Hedged calls of {@link #execute(OpenApiRequest)} use the asynchronous connections
+     *
+     * @param config Hedged methods, delay and cap, null to disable
+     */
+    public void setHedging(HedgingConfig config) {
+        this.hedging = config == null ? null : new Hedging(config);
+    }
+
+    /**
+     * Counters of hedged calls, see {@link HedgingStats#toText()}
+     * @return null if hedging is not enabled
+     */
+    public HedgingStats getHedgingStats() {
+        Hedging hedger = hedging;
+        return hedger == null ? null : hedger.getStats();
+    }
+
+    /**
+     * Enable the multi-gateway mode: every request goes to the gateway with the best recent latency and error rate
+     * (exponentially weighted averages of the requests themselves), gateways failing repeatedly are ejected for a while
+     * and re-admitted afterwards. gatewayUrl is then only used if the mode is disabled again
+     *
+     * @param config Gateway addresses and health thresholds, null to disable
+     */
+    public void setGatewayRouting(GatewayRoutingConfig config) {
+        this.gatewayRouter = config == null ? null : new GatewayRouter(config);
+    }
+
+    /**
+     * Health data of the gateways in multi-gateway mode
+     * @return empty if the mode is not enabled
+     */
+    public List<GatewayEndpoint> getGatewayEndpoints() {
+        GatewayRouter router = gatewayRouter;
+        return router == null ? Collections.<GatewayEndpoint>emptyList() : router.getEndpoints();
+    }
+
+    private void paramsCheck() throws OpenApiException {
+        if (StringUtils.isBlank(appId)) {
+            throw new OpenApiException(Constants.PARAMETER_IS_EMPTY, "The parameter [appId] cannot be empty");
+        }
+        if (StringUtils.isBlank(gatewayUrl)) {
+            throw new OpenApiException(Constants.PARAMETER_IS_EMPTY, "The parameter [gatewayUrl] cannot be empty");
+        }
+        if (StringUtils.isBlank(gatewayRsaPublicKey)) {
+            throw new OpenApiException(Constants.PARAMETER_IS_EMPTY, "You are using the RSA signature method,The parameter [gatewayRsaPublicKey] cannot be empty");
+        }
+        if (StringUtils.isBlank(appRsaPrivateKey)) {
+            throw new OpenApiException(Constants.PARAMETER_IS_EMPTY, "You are using the RSA signature method,The parameter [appRsaPrivateKey] cannot be empty");
+        }
+    }
+
+    /**
+     * Check, serialize and sign the request
+     *
+     * @param avoid Gateway not to send to if another one is healthy, may be null
+     * @param metrics Timings of the call
+     */
+    private <T extends OpenApiResponse> PreparedRequest prepareRequest(OpenApiRequest<T> request, GatewayEndpoint avoid, CallMetrics metrics) throws OpenApiException {
         // Basic parameter check
         if (request == null) {
             throw new OpenApiException(Constants.PARAMETER_IS_EMPTY, "The parameter [request] cannot be null");
@@ -75,10 +690,12 @@ public class OpenApiClient {
         paramsCheck();
 
         // Convert the request OpenApiRequest to JSON
-        JSONObject requestParams = JSONObject.parseObject(JSON.toJSONString(request));
+        long mark = metrics.mark();
+        JSONObject requestParams = RequestSerializer.toParams(request);
 
         // Build common request parameters
         buildCommonParameters(request, requestParams);
+        metrics.stop(Phase.SERIALIZE, mark);
 
         // Build common request header
         Map<String, Object> reqHeaders = new HashMap<>();
@@ -87,48 +704,26 @@ public class OpenApiClient {
         reqHeaders.put("Cookie", "gray");
 
         // Signature
-        requestParams.put(Constants.SIGN, SignHandler.sign(appRsaPrivateKey, requestParams));
-
-        // Request gateway server Rest api
-        String apiUrl = gatewayUrl + Constants.API_ENTRY_URL;
-        String resultStr;
-        try {
-            log.info("Request to gateway[" + apiUrl + "] send data [Http-Request-Psn = " + httpRequestPsn +"] -->> " + requestParams.toJSONString());
+        mark = metrics.mark();
+        requestParams.put(Constants.SIGN, SignHandler.sign(rsaKeyHolder, requestParams));
+        metrics.stop(Phase.SIGN, mark);
 
-            resultStr = HttpClientUtil.doPost(apiUrl, reqHeaders, requestParams);
-
-            log.info("Response from gateway[" + apiUrl + "] receive data [Http-Request-Psn = " + httpRequestPsn + "] <<-- " + resultStr);
-        } catch (Exception e) {
-            log.error("Request to gateway[" + apiUrl + "] fail", e);
-            throw new OpenApiException(Constants.REQUEST_SERVER_FAILED, "Request to gateway fail");
-        }
-        JSONObject resultJson = JSONObject.parseObject(resultStr);
+        GatewayEndpoint endpoint = selectGateway(avoid);
+        return new PreparedRequest(gatewayUrl(endpoint) + Constants.API_ENTRY_URL, httpRequestPsn, reqHeaders, requestParams, endpoint, requestLogger.sample());
+    }
 
-        // Verify signature
-        if (!SignHandler.verifySign(gatewayRsaPublicKey, resultJson)) {
-            throw new OpenApiException(Constants.VERIFY_SIGNATURE_FAILED, "Response data signature error");
+    private String requestBillFileUrl(PayBillDownloadRequest request) throws OpenApiException {
+        PayBillDownloadResponse resp = execute(request);
+        if (!resp.isSuccess()) {
+            throw new OpenApiException(resp.getCode(), resp.getMsg());
         }
-
-        // Convert the returned JSON to OpenApiResponse
-        Object data = resultJson.get(Constants.DATA);
-        if(data != null){
-            String dataStr = resultJson.getString(Constants.DATA);
-            resultJson.putAll(JSONObject.parseObject(dataStr));
+        if (StringUtils.isBlank(resp.getBill_file_url())) {
+            throw new OpenApiException(Constants.REQUEST_SERVER_FAILED, "No statement file returned");
         }
-        resultJson.remove(Constants.DATA);
-        T resp = JSON.toJavaObject(resultJson, request.getResponseClass());
-        return resp;
+        return resp.getBill_file_url();
     }
 
-
-    /**
-     * Call the internal handler function of the gateway API
-     *
-     * @param request   The request object
-     * @return Response object
-     * @throws OpenApiException
-     */
-    public FileUploadResponse uploadFile(FileUploadRequest request) throws OpenApiException {
+    void checkUploadRequest(FileUploadRequest request) throws OpenApiException {
         // Basic parameter check
         if (request == null) {
             throw new OpenApiException(Constants.PARAMETER_IS_EMPTY, "The parameter [request] cannot be null");
@@ -139,67 +734,200 @@ public class OpenApiClient {
         if (fileBody == null) {
             throw new OpenApiException(Constants.PARAMETER_IS_EMPTY, "The parameter [file_body] cannot be empty");
         }
+    }
+
+    /**
+     * Sign the file upload request with the additional parameters and post it as multipart form
+     *
+     * @param request   The request object
+     * @param apiPath   Path of the upload API
+     * @param extraParams Parameters added to the request parameters, covered by the signature
+     * @param filePart  The file_data part, may be null
+     */
+    FileUploadResponse postMultipart(FileUploadRequest request, String apiPath, Map<String, Object> extraParams, ContentBody filePart) throws OpenApiException {
+        acquirePermit(request);
+        CallMetrics metrics = startMetrics(request);
+        String resultCode = RESULT_ERROR;
+        try {
+            PreparedRequest prepared = prepareUpload(request, apiPath, extraParams, metrics);
+
+            Map<String, ContentBody> parts = new HashMap<>(1);
+            if (filePart != null) {
+                parts.put(Constants.FILE_DATA, filePart);
+            }
+
+            // Request gateway server Rest api
+            String resultStr;
+            long mark = metrics.mark();
+            try {
+                requestLogger.request(prepared.logged, prepared.apiUrl, prepared.httpRequestPsn, prepared.params);
+
+                resultStr = transport.postMultipart(prepared.apiUrl, prepared.headers, prepared.params, parts);
+
+                requestLogger.response(prepared.logged, prepared.apiUrl, prepared.httpRequestPsn, resultStr);
+            } catch (Exception e) {
+                requestLogger.failure(prepared.apiUrl, prepared.httpRequestPsn, e);
+                metrics.stop(Phase.HTTP, mark);
+                onGatewayResult(prepared, false);
+                throw new OpenApiException(Constants.REQUEST_SERVER_FAILED, "Request to gateway fail");
+            }
+            metrics.stop(Phase.HTTP, mark);
+            onGatewayResult(prepared, true);
+            FileUploadResponse resp = parseResponse(resultStr, FileUploadResponse.class, metrics);
+            resultCode = resultCode(resp, null);
+            return resp;
+        } catch (OpenApiException e) {
+            resultCode = e.getErrCode();
+            throw e;
+        } finally {
+            metrics.finish(resultCode);
+        }
+    }
 
+    /**
+     * Serialize and sign the file upload request
+     */
+    private PreparedRequest prepareUpload(FileUploadRequest request, String apiPath, Map<String, Object> extraParams, CallMetrics metrics) throws OpenApiException {
         // Build common request header
         String httpRequestPsn = genHttpRequestId();
         Map<String, Object> reqHeaders = new HashMap<>();
         reqHeaders.put(Constants.HTTP_REQUEST_HEADER_PSN, httpRequestPsn);
 
         // Convert the request OpenApiRequest to JSON
-        JSONObject requestParams = JSONObject.parseObject(JSON.toJSONString(request));
+        long mark = metrics.mark();
+        JSONObject requestParams = RequestSerializer.toParams(request);
         // Build common request parameters
         buildCommonParameters(request, requestParams);
-        requestParams.put("file_data_hash", DigestUtils.md5Hex(FileUtil.file2Byte(fileBody.getFile())));
+        if (extraParams != null) {
+            requestParams.putAll(extraParams);
+        }
+        metrics.stop(Phase.SERIALIZE, mark);
         // Signature
-        requestParams.put(Constants.SIGN, SignHandler.sign(appRsaPrivateKey, requestParams));
-
-        Map<String, FileBody> fileMap = new HashMap<>(1);
-        fileMap.put("file_data", fileBody);
+        mark = metrics.mark();
+        requestParams.put(Constants.SIGN, SignHandler.sign(rsaKeyHolder, requestParams));
+        metrics.stop(Phase.SIGN, mark);
 
-        // Request gateway server Rest api
-        String apiUrl = gatewayUrl + Constants.API_FILE_UPLOAD_URL;
-        String resultStr;
-        try {
-            log.info("Request to gateway[" + apiUrl + "] send data [Http-Request-Psn = " + httpRequestPsn +"] -->> " + requestParams.toJSONString());
+        GatewayEndpoint endpoint = selectGateway(null);
+        return new PreparedRequest(gatewayUrl(endpoint) + apiPath, httpRequestPsn, reqHeaders, requestParams, endpoint, requestLogger.sample());
+    }
 
-            resultStr = HttpClientUtil.doPostFile(apiUrl, reqHeaders, requestParams, fileMap);
+    /**
+     * Take a rate limit slot for the request, waiting for it if needed
+     */
+    private void acquirePermit(OpenApiRequest<?> request) throws OpenApiException {
+        RateLimiter limiter = rateLimiter;
+        if (limiter != null && request != null) {
+            limiter.acquire(request.getRequestMethod(), merchantNo(request));
+        }
+    }
 
-            log.info("Response from gateway[" + apiUrl + "] receive data [Http-Request-Psn = " + httpRequestPsn + "] <<-- " + resultStr);
-        } catch (Exception e) {
-            log.error("Request to gateway[" + apiUrl + "] fail", e);
-            throw new OpenApiException(Constants.REQUEST_SERVER_FAILED, "Request to gateway fail");
+    /**
+     * Take a rate limit slot for the request
+     * @return nanoseconds to wait before sending it
+     */
+    private long reservePermit(OpenApiRequest<?> request) throws OpenApiException {
+        RateLimiter limiter = rateLimiter;
+        if (limiter == null || request == null) {
+            return 0;
         }
-        JSONObject resultJson = JSONObject.parseObject(resultStr);
+        return limiter.reserve(request.getRequestMethod(), merchantNo(request));
+    }
 
-        // Verify signature
-        if (!SignHandler.verifySign(gatewayRsaPublicKey, resultJson)) {
-            throw new OpenApiException(Constants.VERIFY_SIGNATURE_FAILED, "Response data signature error");
+    private static String merchantNo(OpenApiRequest<?> request) {
+        Object merchantNo = RequestMetadata.of(request.getClass()).getProperty(request, "merchant_no");
+        return merchantNo == null ? null : merchantNo.toString();
+    }
+
+    private GatewayEndpoint selectGateway(GatewayEndpoint avoid) {
+        GatewayRouter router = gatewayRouter;
+        return router == null ? null : router.select(avoid);
+    }
+
+    private String gatewayUrl(GatewayEndpoint endpoint) {
+        return endpoint == null ? gatewayUrl : endpoint.getUrl();
+    }
+
+    /**
+     * Feed the outcome of the HTTP exchange to the router: answered or not
+     */
+    private void onGatewayResult(PreparedRequest prepared, boolean answered) {
+        GatewayRouter router = gatewayRouter;
+        if (router == null || prepared.endpoint == null) {
+            return;
         }
+        long elapsed = System.currentTimeMillis() - prepared.startMillis;
+        if (answered) {
+            router.onSuccess(prepared.endpoint, elapsed);
+        } else {
+            router.onFailure(prepared.endpoint, elapsed);
+        }
+    }
 
-        // Convert the returned JSON to OpenApiResponse
-        Object data = resultJson.get(Constants.DATA);
-        if(data != null){
-            String dataStr = resultJson.getString(Constants.DATA);
-            resultJson.putAll(JSONObject.parseObject(dataStr));
+    private void onGatewayCancelled(PreparedRequest prepared) {
+        GatewayRouter router = gatewayRouter;
+        if (router != null && prepared.endpoint != null) {
+            router.onCancelled(prepared.endpoint);
         }
-        resultJson.remove(Constants.DATA);
-        FileUploadResponse resp = JSON.toJavaObject(resultJson, FileUploadResponse.class);
-        return resp;
     }
 
-    private void paramsCheck() throws OpenApiException {
-        if (StringUtils.isBlank(appId)) {
-            throw new OpenApiException(Constants.PARAMETER_IS_EMPTY, "The parameter [appId] cannot be empty");
+    /**
+     * Verify the response signature and convert the returned JSON to OpenApiResponse
+     */
+    private <T extends OpenApiResponse> T parseResponse(String resultStr, Class<T> responseClass, CallMetrics metrics) throws OpenApiException {
+        return ResponseDecoder.decode(resultStr, responseClass, rsaKeyHolder, metrics);
+    }
+
+    private CallMetrics startMetrics(OpenApiRequest<?> request) {
+        MetricsSink sink = metricsSink;
+        return sink == null || request == null ? CallMetrics.DISABLED : CallMetrics.start(sink, request.getRequestMethod());
+    }
+
+    /**
+     * Result code a call is recorded under: the response code, or the error code of the failure
+     */
+    private static String resultCode(OpenApiResponse resp, Throwable e) {
+        if (e == null) {
+            return resp == null ? RESULT_ERROR : String.valueOf(resp.getCode());
         }
-        if (StringUtils.isBlank(gatewayUrl)) {
-            throw new OpenApiException(Constants.PARAMETER_IS_EMPTY, "The parameter [gatewayUrl] cannot be empty");
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof CancellationException) {
+            return RESULT_CANCELLED;
         }
-        if (StringUtils.isBlank(gatewayRsaPublicKey)) {
-            throw new OpenApiException(Constants.PARAMETER_IS_EMPTY, "You are using the RSA signature method,The parameter [gatewayRsaPublicKey] cannot be empty");
+        return cause instanceof OpenApiException ? ((OpenApiException) cause).getErrCode() : RESULT_ERROR;
+    }
+
+    /**
+     * Run a step on the executor of this client, any failure completes the future exceptionally
+     */
+    private void runAsync(final CompletableFuture<?> result, final AsyncStep step) {
+        try {
+            executor.execute(() -> {
+                try {
+                    step.run();
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
         }
-        if (StringUtils.isBlank(appRsaPrivateKey)) {
-            throw new OpenApiException(Constants.PARAMETER_IS_EMPTY, "You are using the RSA signature method,The parameter [appRsaPrivateKey] cannot be empty");
+    }
+
+    private AsyncHttpConnectionPool getAsyncConnectionPool() {
+        AsyncHttpConnectionPool pool = asyncConnectionPool;
+        if (pool == null) {
+            lock.lock();
+            try {
+                pool = asyncConnectionPool;
+                if (pool == null) {
+                    pool = ownsConnectionPool ? new AsyncHttpConnectionPool(httpConnectionPool.getConfig()) : AsyncHttpConnectionPool.getDefault();
+                    asyncConnectionPool = pool;
+                }
+            } finally {
+                lock.unlock();
+            }
         }
+        return pool;
     }
 
     private <T extends OpenApiResponse> void buildCommonParameters(OpenApiRequest<T> request, JSONObject requestParams) {
@@ -210,20 +938,10 @@ public class OpenApiClient {
         requestParams.put(Constants.SIGN_TYPE, Constants.SIGN_TYPE_RSA2);
         requestParams.put(Constants.VERSION, Constants.VERSION_VALUE);
         requestParams.put(Constants.TIMESTAMP, getUTCTimeStr());
-        requestParams.remove("responseClass");
-        requestParams.remove("requestMethod");
     }
 
     private String genHttpRequestId() {
-        SimpleDateFormat format = new SimpleDateFormat("MMddHHmmss");
-        String timeStr = format.format(new Date());
-        int randomNum = (int) (Math.random() * Integer.MAX_VALUE);
-        String str = timeStr + randomNum;
-        int len = str.length();
-        if (len < 20) {
-            str += "00000000000000000000".substring(len);
-        }
-        return str;
+        return idGenerator.nextId();
     }
 
     private static String getUTCTimeStr() {
@@ -233,4 +951,39 @@ public class OpenApiClient {
         return String.valueOf(cal.getTimeInMillis());
     }
 
+    /**
+     * A signed request ready to be sent
+     */
+    private static class PreparedRequest {
+
+        final String apiUrl;
+
+        final String httpRequestPsn;
+
+        final Map<String, Object> headers;
+
+        final JSONObject params;
+
+        // Gateway chosen by the router, null without multi-gateway mode
+        final GatewayEndpoint endpoint;
+
+        // Whether the request and its response are logged, see RequestLogger.sample
+        final boolean logged;
+
+        final long startMillis = System.currentTimeMillis();
+
+        PreparedRequest(String apiUrl, String httpRequestPsn, Map<String, Object> headers, JSONObject params, GatewayEndpoint endpoint, boolean logged) {
+            this.apiUrl = apiUrl;
+            this.httpRequestPsn = httpRequestPsn;
+            this.headers = headers;
+            this.params = params;
+            this.endpoint = endpoint;
+            this.logged = logged;
+        }
+    }
+
+    private interface AsyncStep {
+        void run() throws Exception;
+    }
+
 }
@@ -0,0 +1,29 @@
+package com.wiseasy.openapi.bill;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.io.File;
+
+/**
+ * @Description: Settings of {@link BillBackfill}
+ */
+@Getter
+@Setter
+@ToString
+public class BackfillConfig {
+
+    // Directory the statements are written to, one file per day, together with the checkpoint
+    private File outputDir = new File("bills");
+
+    // Days requested and downloaded at the same time
+    private int parallelism = 4;
+
+    // How many times a day is retried after a failed request or download
+    private int maxRetries = 2;
+
+    // Wait before the first retry of a day, doubled for every further retry, in milliseconds
+    private long retryBackoffMillis = 1000;
+
+}
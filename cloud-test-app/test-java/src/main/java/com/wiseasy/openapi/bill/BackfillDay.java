@@ -0,0 +1,48 @@
+package com.wiseasy.openapi.bill;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.io.File;
+
+/**
+ * @Description: Outcome of one day of a backfill
+ */
+@Getter
+@ToString
+public class BackfillDay {
+
+    // Transaction date, YYYY-MM-DD
+    private final String trans_date;
+
+    // The statement file, null if the day failed
+    private final File file;
+
+    // Size of the statement file in bytes
+    private final long bytes;
+
+    // Time spent on the day including retries, 0 if it was completed by an earlier run
+    private final long elapsedMillis;
+
+    // Whether the day was completed by an earlier run and skipped
+    private final boolean skipped;
+
+    // Error code and message of the last attempt if the day failed
+    private final String errCode;
+
+    private final String errMsg;
+
+    BackfillDay(String trans_date, File file, long bytes, long elapsedMillis, boolean skipped, String errCode, String errMsg) {
+        this.trans_date = trans_date;
+        this.file = file;
+        this.bytes = bytes;
+        this.elapsedMillis = elapsedMillis;
+        this.skipped = skipped;
+        this.errCode = errCode;
+        this.errMsg = errMsg;
+    }
+
+    public boolean isSuccess() {
+        return errCode == null;
+    }
+}
@@ -0,0 +1,118 @@
+package com.wiseasy.openapi.bill;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @Description: Outcome of a backfill: every day in date order, with throughput and per-day latency figures
+ */
+@Getter
+public class BackfillResult {
+
+    private final List<BackfillDay> days;
+
+    private final long elapsedMillis;
+
+    BackfillResult(List<BackfillDay> days, long elapsedMillis) {
+        this.days = Collections.unmodifiableList(days);
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * Days downloaded by this run
+     */
+    public int getDownloaded() {
+        int n = 0;
+        for (BackfillDay day : days) {
+            if (day.isSuccess() && !day.isSkipped()) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Days completed by an earlier run
+     */
+    public int getSkipped() {
+        int n = 0;
+        for (BackfillDay day : days) {
+            if (day.isSkipped()) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    public List<BackfillDay> getFailed() {
+        List<BackfillDay> failed = new ArrayList<>();
+        for (BackfillDay day : days) {
+            if (!day.isSuccess()) {
+                failed.add(day);
+            }
+        }
+        return failed;
+    }
+
+    public boolean isComplete() {
+        return getFailed().isEmpty();
+    }
+
+    /**
+     * Bytes downloaded by this run
+     */
+    public long getBytes() {
+        long bytes = 0;
+        for (BackfillDay day : days) {
+            if (day.isSuccess() && !day.isSkipped()) {
+                bytes += day.getBytes();
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Days downloaded per second over the whole run
+     */
+    public double getDaysPerSecond() {
+        return elapsedMillis == 0 ? 0 : getDownloaded() * 1000.0 / elapsedMillis;
+    }
+
+    /**
+     * Bytes downloaded per second over the whole run
+     */
+    public double getBytesPerSecond() {
+        return elapsedMillis == 0 ? 0 : getBytes() * 1000.0 / elapsedMillis;
+    }
+
+    /**
+     * Latency percentile of the days downloaded by this run
+     * @param percentile Between 0 and 100, e.g. 50 or 99
+     * @return Milliseconds, 0 if nothing was downloaded
+     */
+    public long getLatencyPercentile(double percentile) {
+        List<Long> latencies = new ArrayList<>();
+        for (BackfillDay day : days) {
+            if (day.isSuccess() && !day.isSkipped()) {
+                latencies.add(day.getElapsedMillis());
+            }
+        }
+        if (latencies.isEmpty()) {
+            return 0;
+        }
+        Collections.sort(latencies);
+        int index = (int) Math.ceil(percentile / 100 * latencies.size()) - 1;
+        return latencies.get(Math.min(latencies.size() - 1, Math.max(0, index)));
+    }
+
+    @Override
+    public String toString() {
+        return "BackfillResult(days=" + days.size() + ", downloaded=" + getDownloaded() + ", skipped=" + getSkipped()
+                + ", failed=" + getFailed().size() + ", bytes=" + getBytes() + ", elapsedMillis=" + elapsedMillis
+                + ", daysPerSecond=" + String.format("%.2f", getDaysPerSecond())
+                + ", p50=" + getLatencyPercentile(50) + "ms, p99=" + getLatencyPercentile(99) + "ms)";
+    }
+}
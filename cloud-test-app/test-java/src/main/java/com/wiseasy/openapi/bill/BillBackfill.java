@@ -0,0 +1,177 @@
+package com.wiseasy.openapi.bill;
+
+import com.wiseasy.openapi.OpenApiClient;
+import com.wiseasy.openapi.OpenApiException;
+import com.wiseasy.openapi.request.PayBillDownloadRequest;
+import com.wiseasy.openapi.utils.Constants;
+import com.wiseasy.openapi.utils.FileUtil;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * @Description: Downloads the statements of a date range, several days at a time, one file per day.
+ * Completed days are recorded in a checkpoint file in the output directory, running the backfill again for the
+ * same range only fetches the days still missing. A failed day does not stop the others, it is reported in the result
+ */
+public class BillBackfill {
+
+    static final String CHECKPOINT_FILE = "backfill.checkpoint";
+
+    private Log log = LogFactory.getLog(this.getClass());
+
+    private final OpenApiClient client;
+
+    private final BackfillConfig config;
+
+    public BillBackfill(OpenApiClient client, BackfillConfig config) {
+        this.client = client;
+        this.config = config == null ? new BackfillConfig() : config;
+    }
+
+    /**
+     * Download the statements from one day to another, both included
+     *
+     * @param from First transaction date
+     * @param to Last transaction date
+     * @return Every day of the range in date order
+     * @throws IOException If the checkpoint cannot be read
+     */
+    public BackfillResult run(LocalDate from, LocalDate to) throws IOException {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("The date range ends before it starts");
+        }
+        long start = System.currentTimeMillis();
+        final File dir = config.getOutputDir();
+        final Checkpoint checkpoint = Checkpoint.load(new File(dir, CHECKPOINT_FILE));
+
+        List<String> dates = new ArrayList<>();
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            dates.add(date.toString());
+        }
+
+        int threads = Math.max(1, Math.min(config.getParallelism(), dates.size()));
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "openapi-bill-backfill");
+            t.setDaemon(true);
+            return t;
+        });
+        List<BackfillDay> days = new ArrayList<>(dates.size());
+        try {
+            List<Future<BackfillDay>> futures = new ArrayList<>(dates.size());
+            for (final String date : dates) {
+                File done = checkpoint.file(dir, date);
+                if (done != null) {
+                    futures.add(CompletableFuture.completedFuture(new BackfillDay(date, done, done.length(), 0, true, null, null)));
+                } else {
+                    futures.add(executor.submit(() -> download(date, dir, checkpoint)));
+                }
+            }
+            for (Future<BackfillDay> future : futures) {
+                days.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Backfill interrupted");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Backfill fail", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        BackfillResult result = new BackfillResult(days, System.currentTimeMillis() - start);
+        log.info("Backfill of statements from " + from + " to " + to + " finished: " + result);
+        return result;
+    }
+
+    private BackfillDay download(String date, File dir, Checkpoint checkpoint) throws InterruptedException {
+        long start = System.currentTimeMillis();
+        PayBillDownloadRequest request = new PayBillDownloadRequest();
+        request.setTrans_date(date);
+
+        long backoff = config.getRetryBackoffMillis();
+        for (int attempt = 0; ; attempt++) {
+            try {
+                File file = client.downloadBill(request, dir);
+                checkpoint.complete(date, file);
+                long elapsed = System.currentTimeMillis() - start;
+                log.info("Statement of " + date + " downloaded to [" + file + "], " + file.length() + " bytes in " + elapsed + "ms");
+                return new BackfillDay(date, file, file.length(), elapsed, false, null, null);
+            } catch (OpenApiException e) {
+                // Only transport failures are retried, a day the gateway refuses would be refused again
+                if (!Constants.REQUEST_SERVER_FAILED.equals(e.getErrCode()) || attempt >= config.getMaxRetries()) {
+                    log.error("Statement of " + date + " fail: " + e.getErrCode() + " " + e.getErrMsg());
+                    return new BackfillDay(date, null, 0, System.currentTimeMillis() - start, false, e.getErrCode(), e.getErrMsg());
+                }
+            } catch (IOException e) {
+                log.error("Save checkpoint of " + date + " fail", e);
+                return new BackfillDay(date, null, 0, System.currentTimeMillis() - start, false, Constants.REQUEST_SERVER_FAILED, "Save checkpoint fail");
+            }
+            log.warn("Statement of " + date + " fail, retry " + (attempt + 1) + "/" + config.getMaxRetries());
+            Thread.sleep(backoff);
+            backoff *= 2;
+        }
+    }
+
+    /**
+     * Completed days and their file names, rewritten atomically after every day
+     */
+    static class Checkpoint {
+
+        private final File store;
+
+        private final Properties days = new Properties();
+
+        // Guards the days and the checkpoint file
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private Checkpoint(File store) {
+            this.store = store;
+        }
+
+        static Checkpoint load(File store) throws IOException {
+            Checkpoint checkpoint = new Checkpoint(store);
+            if (store.isFile()) {
+                try (InputStream in = new FileInputStream(store)) {
+                    checkpoint.days.load(in);
+                }
+            }
+            return checkpoint;
+        }
+
+        /**
+         * The file of a completed day, null if the day is not completed or its file was removed since
+         */
+        File file(File dir, String date) {
+            lock.lock();
+            try {
+                String name = days.getProperty(date);
+                if (name == null) {
+                    return null;
+                }
+                File file = new File(dir, name);
+                return file.isFile() ? file : null;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void complete(String date, File file) throws IOException {
+            lock.lock();
+            try {
+                days.setProperty(date, file.getName());
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                days.store(out, null);
+                FileUtil.copyAtomically(new ByteArrayInputStream(out.toByteArray()), store);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.wiseasy.openapi.bill;
+
+import com.wiseasy.openapi.utils.HttpClientUtil;
+import com.wiseasy.openapi.utils.HttpConnectionPool;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * @Description: Reads a statement (the file behind PayBillDownloadResponse.bill_file_url) row by row.
+ * The file is streamed from the URL or a local path and gzip or zip compressed files are decompressed on the fly.
+ * Records are produced only when the caller asks for the next one, so a slow consumer simply slows the download,
+ * and memory stays bounded by the read buffers and a single row whatever the size of the statement.
+ * <p>
+ * The first row is the header, fields are separated by ',' (or by tab if the header contains no ','), quoted as CSV.
+ * Blank lines and lines starting with '#' are skipped. Not thread-safe
+ */
+public class BillReader implements Closeable, Iterable<BillRecord> {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final CsvTokenizer tokenizer;
+
+    private final Map<String, Integer> columns;
+
+    private final List<String> header;
+
+    private final List<String> row = new ArrayList<>();
+
+    private long count;
+
+    private boolean iterated;
+
+    private BillReader(InputStream in) throws IOException {
+        InputStream content = decompress(new BufferedInputStream(in, BUFFER_SIZE));
+        this.tokenizer = new CsvTokenizer(new InputStreamReader(content, StandardCharsets.UTF_8), ',');
+
+        List<String> names = new ArrayList<>();
+        if (!readRow(names)) {
+            throw new IOException("Statement has no header");
+        }
+        if (names.size() == 1 && names.get(0).indexOf('\t') >= 0) {
+            names = new ArrayList<>(Arrays.asList(names.get(0).split("\t", -1)));
+            tokenizer.setDelimiter('\t');
+        }
+        // UTF-8 byte order mark
+        if (!names.isEmpty() && names.get(0).startsWith("\uFEFF")) {
+            names.set(0, names.get(0).substring(1));
+        }
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            String name = normalize(names.get(i));
+            names.set(i, name);
+            if (!index.containsKey(name)) {
+                index.put(name, i);
+            }
+        }
+        this.columns = Collections.unmodifiableMap(index);
+        this.header = Collections.unmodifiableList(names);
+    }
+
+    /**
+     * Open a statement from its download address or a local file path, downloads use the shared connection pool
+     * @param location http(s) URL or file path
+     * @return
+     * @throws IOException
+     */
+    public static BillReader open(String location) throws IOException {
+        return open(location, HttpConnectionPool.getDefault());
+    }
+
+    /**
+     * Open a statement from its download address or a local file path
+     * @param location http(s) URL or file path
+     * @param pool Connection pool used for the download
+     * @return
+     * @throws IOException
+     */
+    public static BillReader open(String location, HttpConnectionPool pool) throws IOException {
+        String lower = location.toLowerCase(Locale.ROOT);
+        if (!lower.startsWith("http://") && !lower.startsWith("https://")) {
+            return open(new File(location));
+        }
+        InputStream in;
+        try {
+            // The read timeout applies between packets, not to the whole download
+            in = HttpClientUtil.doGetStream(pool, location, null, HttpClientUtil.DEFAULT_TIMEOUT, HttpClientUtil.DEFAULT_TIMEOUT);
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Download statement [" + location + "] fail", e);
+        }
+        return open(in);
+    }
+
+    public static BillReader open(File file) throws IOException {
+        return open(new FileInputStream(file));
+    }
+
+    /**
+     * @param in Statement content, plain or compressed, closed with the reader
+     * @return
+     * @throws IOException
+     */
+    public static BillReader open(InputStream in) throws IOException {
+        try {
+            return new BillReader(in);
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Column names of the statement, normalized: lower case, spaces and '-' replaced by '_'
+     * @return
+     */
+    public List<String> getColumns() {
+        return header;
+    }
+
+    /**
+     * Number of records returned so far
+     * @return
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * The next record
+     * @return null at the end of the statement
+     * @throws IOException
+     */
+    public BillRecord next() throws IOException {
+        if (!readRow(row)) {
+            return null;
+        }
+        count++;
+        return new BillRecord(columns, row.toArray(new String[0]), tokenizer.getLine());
+    }
+
+    /**
+     * Pass every remaining record to the consumer
+     * @param consumer
+     * @return Number of records passed
+     * @throws IOException
+     */
+    public long read(Consumer<BillRecord> consumer) throws IOException {
+        long n = 0;
+        for (BillRecord record = next(); record != null; record = next()) {
+            consumer.accept(record);
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * Iterate over the remaining records, read errors are thrown as UncheckedIOException. Can be called once
+     */
+    @Override
+    public Iterator<BillRecord> iterator() {
+        if (iterated) {
+            throw new IllegalStateException("The statement can be iterated only once");
+        }
+        iterated = true;
+        return new Iterator<BillRecord>() {
+
+            private BillRecord next;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null) {
+                    try {
+                        next = BillReader.this.next();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public BillRecord next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                BillRecord record = next;
+                next = null;
+                return record;
+            }
+        };
+    }
+
+    /**
+     * Sequential stream of the remaining records, closing the stream closes the reader
+     * @return
+     */
+    public Stream<BillRecord> stream() {
+        return StreamSupport.stream(spliterator(), false).onClose(() -> {
+            try {
+                close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @Override
+    public void close() throws IOException {
+        tokenizer.close();
+    }
+
+    static String normalize(String column) {
+        return column.trim().toLowerCase(Locale.ROOT).replace(' ', '_').replace('-', '_');
+    }
+
+    private boolean readRow(List<String> fields) throws IOException {
+        while (tokenizer.readRow(fields)) {
+            if (!fields.get(0).startsWith("#")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Detect gzip or zip by their magic number, a zip statement is read from its first file entry
+     */
+    private static InputStream decompress(BufferedInputStream in) throws IOException {
+        in.mark(4);
+        int b0 = in.read();
+        int b1 = in.read();
+        int b2 = in.read();
+        int b3 = in.read();
+        in.reset();
+        if (b0 == 0x1f && b1 == 0x8b) {
+            return new BufferedInputStream(new GZIPInputStream(in, BUFFER_SIZE), BUFFER_SIZE);
+        }
+        if (b0 == 'P' && b1 == 'K' && b2 == 3 && b3 == 4) {
+            ZipInputStream zip = new ZipInputStream(in, StandardCharsets.UTF_8);
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                if (!entry.isDirectory()) {
+                    return new BufferedInputStream(zip, BUFFER_SIZE);
+                }
+            }
+            throw new IOException("Zip statement contains no file");
+        }
+        return in;
+    }
+}
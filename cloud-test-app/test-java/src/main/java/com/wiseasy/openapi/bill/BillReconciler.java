@@ -0,0 +1,330 @@
+package com.wiseasy.openapi.bill;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * @Description: Reconciles a statement against the merchant's own orders. Orders are added to a compact index
+ * (primitive arrays, see OrderIndex) split into partitions by key hash; the statement is then streamed once and
+ * each record is matched by the thread owning its partition, so neither side is ever held as objects in memory.
+ * Reports orders missing from the statement, statement records without an order, and amount mismatches.
+ * <pre>
+ * BillReconciler reconciler = new BillReconciler(new ReconcileConfig());
+ * reconciler.addOrder("ORD1", new BigDecimal("10.00"));
+ * try (BillReader reader = client.openBill(request)) {
+ *     ReconcileResult result = reconciler.reconcile(reader, listener);
+ * }
+ * </pre>
+ * A reconciler is used for one statement, orders can be added from several threads
+ */
+public class BillReconciler {
+
+    private static final List<Item> END = Collections.emptyList();
+
+    private static final AtomicInteger THREAD_ID = new AtomicInteger();
+
+    private final ReconcileConfig config;
+
+    private final OrderIndex[] partitions;
+
+    // Partition of a key: high bits of its hash, the index slot uses the low bits
+    private final int mask;
+
+    private volatile boolean reconciled;
+
+    public BillReconciler(ReconcileConfig config) {
+        this.config = config;
+        int count = Integer.highestOneBit(Math.max(1, config.getPartitions()) - 1) << 1;
+        if (count < 1) {
+            count = 1;
+        }
+        this.partitions = new OrderIndex[count];
+        for (int i = 0; i < count; i++) {
+            partitions[i] = new OrderIndex(Math.max(16, config.getExpectedOrders() / count));
+        }
+        this.mask = count - 1;
+    }
+
+    /**
+     * Add an order
+     * @param key Value of the key column, e.g. the merchant order number
+     * @param amount Amount in minor units (see ReconcileConfig.amountScale)
+     * @return false if an order with this key was added already
+     */
+    public boolean addOrder(String key, long amount) {
+        if (reconciled) {
+            throw new IllegalStateException("Orders cannot be added after the reconciliation");
+        }
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        long hash = OrderIndex.hash(bytes);
+        OrderIndex index = partitions[partitionOf(hash)];
+        synchronized (index) {
+            return index.add(bytes, hash, amount);
+        }
+    }
+
+    /**
+     * Add an order
+     * @param key Value of the key column, e.g. the merchant order number
+     * @param amount Amount in major units, rounded half up to the amount scale
+     * @return false if an order with this key was added already
+     */
+    public boolean addOrder(String key, BigDecimal amount) {
+        return addOrder(key, amount.movePointRight(config.getAmountScale()).setScale(0, RoundingMode.HALF_UP).longValueExact());
+    }
+
+    public long getOrderCount() {
+        long count = 0;
+        for (OrderIndex index : partitions) {
+            synchronized (index) {
+                count += index.size();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Stream the statement against the orders. Reading waits when the partitions fall behind, so memory use does not
+     * depend on the statement size. The reader is not closed
+     *
+     * @param reader Statement
+     * @param listener Receives every difference, may be null when only the counts are needed
+     * @return Counts
+     * @throws IOException If reading the statement fails
+     */
+    public ReconcileResult reconcile(BillReader reader, ReconcileListener listener) throws IOException {
+        synchronized (this) {
+            if (reconciled) {
+                throw new IllegalStateException("A reconciler can be used for one statement only");
+            }
+            reconciled = true;
+        }
+        final ReconcileListener target = listener == null ? new ReconcileListener() { } : listener;
+        long start = System.currentTimeMillis();
+
+        int count = partitions.length;
+        ExecutorService executor = Executors.newFixedThreadPool(count, r -> {
+            Thread t = new Thread(r, "openapi-reconcile-" + THREAD_ID.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        List<BlockingQueue<List<Item>>> queues = new ArrayList<>(count);
+        List<Future<long[]>> futures = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            BlockingQueue<List<Item>> queue = new ArrayBlockingQueue<>(Math.max(1, config.getQueueCapacity()));
+            queues.add(queue);
+            futures.add(executor.submit(new Worker(partitions[i], queue, target)));
+        }
+
+        ReconcileResult result = new ReconcileResult();
+        long records = 0;
+        try {
+            int batchSize = Math.max(1, config.getBatchSize());
+            List<List<Item>> batches = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                batches.add(new ArrayList<>(batchSize));
+            }
+            Predicate<BillRecord> filter = config.getFilter();
+            long extra = 0;
+            for (BillRecord record = reader.next(); record != null; record = reader.next()) {
+                records++;
+                if (filter != null && !filter.test(record)) {
+                    continue;
+                }
+                String key = record.get(config.getKeyColumn());
+                if (key == null) {
+                    extra++;
+                    target.onExtra(record);
+                    continue;
+                }
+                byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+                long hash = OrderIndex.hash(bytes);
+                int partition = partitionOf(hash);
+                List<Item> batch = batches.get(partition);
+                batch.add(new Item(record, bytes, hash));
+                if (batch.size() >= batchSize) {
+                    put(queues.get(partition), batch, futures.get(partition));
+                    batches.set(partition, new ArrayList<>(batchSize));
+                }
+            }
+            for (int i = 0; i < count; i++) {
+                if (!batches.get(i).isEmpty()) {
+                    put(queues.get(i), batches.get(i), futures.get(i));
+                }
+                put(queues.get(i), END, futures.get(i));
+            }
+            result.add(0, 0, extra, 0);
+            for (Future<long[]> future : futures) {
+                long[] counts = future.get();
+                result.add(counts[0], counts[1], counts[2], counts[3]);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Reconciliation interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException("Reconciliation fail", cause);
+        } finally {
+            executor.shutdownNow();
+        }
+        result.finish(getOrderCount(), records, System.currentTimeMillis() - start);
+        return result;
+    }
+
+    /**
+     * Convert a decimal amount to minor units without creating a BigDecimal for plain values like "-12.3"
+     * @throws ArithmeticException if the amount in minor units does not fit in a long
+     */
+    static long toMinorUnits(String amount, int scale) {
+        String s = amount.trim();
+        int len = s.length();
+        int i = 0;
+        boolean negative = false;
+        if (len > 0 && (s.charAt(0) == '-' || s.charAt(0) == '+')) {
+            negative = s.charAt(0) == '-';
+            i++;
+        }
+        long value = 0;
+        int fraction = -1;
+        boolean digits = false;
+        for (; i < len; i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9' && value < Long.MAX_VALUE / 100) {
+                if (fraction >= 0 && ++fraction > scale) {
+                    return toMinorUnitsExact(s, scale);
+                }
+                value = value * 10 + (c - '0');
+                digits = true;
+            } else if (c == '.' && fraction < 0) {
+                fraction = 0;
+            } else {
+                // Exponents, grouping separators, very large values
+                return toMinorUnitsExact(s, scale);
+            }
+        }
+        if (!digits) {
+            throw new NumberFormatException("Invalid amount [" + amount + "]");
+        }
+        try {
+            for (int f = Math.max(fraction, 0); f < scale; f++) {
+                value = Math.multiplyExact(value, 10);
+            }
+        } catch (ArithmeticException e) {
+            // Fits in a long only before scaling
+            return toMinorUnitsExact(s, scale);
+        }
+        return negative ? -value : value;
+    }
+
+    private static long toMinorUnitsExact(String amount, int scale) {
+        return new BigDecimal(amount.replace(",", "")).movePointRight(scale).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    private int partitionOf(long hash) {
+        return (int) (hash >>> 40) & mask;
+    }
+
+    /**
+     * Hand a batch to a partition, waiting while its queue is full, unless the partition has failed
+     */
+    private static void put(BlockingQueue<List<Item>> queue, List<Item> batch, Future<long[]> worker) throws InterruptedException, ExecutionException {
+        while (!queue.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+            if (worker.isDone()) {
+                worker.get();
+            }
+        }
+    }
+
+    private static final class Item {
+
+        final BillRecord record;
+
+        final byte[] key;
+
+        final long hash;
+
+        Item(BillRecord record, byte[] key, long hash) {
+            this.record = record;
+            this.key = key;
+            this.hash = hash;
+        }
+    }
+
+    /**
+     * Matches the records of one partition, then reports its unmatched orders.
+     * Returns the counts: matched, missing, extra, amount mismatched
+     */
+    private final class Worker implements Callable<long[]> {
+
+        private final OrderIndex index;
+
+        private final BlockingQueue<List<Item>> queue;
+
+        private final ReconcileListener listener;
+
+        Worker(OrderIndex index, BlockingQueue<List<Item>> queue, ReconcileListener listener) {
+            this.index = index;
+            this.queue = queue;
+            this.listener = listener;
+        }
+
+        @Override
+        public long[] call() throws Exception {
+            long matched = 0;
+            long extra = 0;
+            long mismatched = 0;
+            String amountColumn = config.getAmountColumn();
+            int scale = config.getAmountScale();
+            for (List<Item> batch = queue.take(); batch != END; batch = queue.take()) {
+                for (Item item : batch) {
+                    int slot = index.find(item.key, item.hash);
+                    if (slot < 0 || !index.match(slot)) {
+                        extra++;
+                        listener.onExtra(item.record);
+                        continue;
+                    }
+                    long expected = index.amount(slot);
+                    Long actual = amountOf(item.record, amountColumn, scale);
+                    if (actual != null && actual == expected) {
+                        matched++;
+                    } else {
+                        mismatched++;
+                        listener.onAmountMismatch(item.record, expected, actual);
+                    }
+                }
+            }
+            final long[] missing = new long[1];
+            index.forEachUnmatched((keys, offset, length, amount) -> {
+                missing[0]++;
+                listener.onMissing(new String(keys, offset, length, StandardCharsets.UTF_8), amount);
+            });
+            return new long[]{matched, missing[0], extra, mismatched};
+        }
+
+        private Long amountOf(BillRecord record, String column, int scale) {
+            String value = record.get(column);
+            if (value == null) {
+                return null;
+            }
+            try {
+                return toMinorUnits(value, scale);
+            } catch (RuntimeException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.wiseasy.openapi.bill;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * @Description: One transaction row of a statement. Values are kept as read and converted when a getter is called,
+ * columns are looked up by their header name (lower case, '_' instead of spaces), so statements with extra or
+ * reordered columns read the same
+ */
+public class BillRecord {
+
+    private final Map<String, Integer> columns;
+
+    private final String[] values;
+
+    private final long line;
+
+    BillRecord(Map<String, Integer> columns, String[] values, long line) {
+        this.columns = columns;
+        this.values = values;
+        this.line = line;
+    }
+
+    /**
+     * Raw value of a column
+     * @param column Column name as in the header
+     * @return null if the statement has no such column or the value is empty
+     */
+    public String get(String column) {
+        Integer index = columns.get(column);
+        if (index == null) {
+            index = columns.get(BillReader.normalize(column));
+        }
+        if (index == null || index >= values.length) {
+            return null;
+        }
+        String value = values[index];
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Line of the statement file the record was read from
+     * @return
+     */
+    public long getLine() {
+        return line;
+    }
+
+    public String getMerchant_no() {
+        return get("merchant_no");
+    }
+
+    public String getStore_no() {
+        return get("store_no");
+    }
+
+    public String getTerminal_sn() {
+        return get("terminal_sn");
+    }
+
+    public String getTrans_no() {
+        return get("trans_no");
+    }
+
+    public String getMerchant_order_no() {
+        return get("merchant_order_no");
+    }
+
+    public String getOriginal_trans_no() {
+        return get("original_trans_no");
+    }
+
+    public Integer getTrans_type() {
+        return toInteger("trans_type");
+    }
+
+    public Integer getTrans_status() {
+        return toInteger("trans_status");
+    }
+
+    public String getPay_method_id() {
+        return get("pay_method_id");
+    }
+
+    public String getPrice_currency() {
+        return get("price_currency");
+    }
+
+    public Double getTrans_amount() {
+        return toDouble("trans_amount");
+    }
+
+    public Double getPaid_amount() {
+        return toDouble("paid_amount");
+    }
+
+    public String getTrans_end_time() {
+        return get("trans_end_time");
+    }
+
+    private Integer toInteger(String column) {
+        String value = get(column);
+        return value == null ? null : Integer.valueOf(value.trim());
+    }
+
+    private Double toDouble(String column) {
+        String value = get(column);
+        return value == null ? null : Double.valueOf(value.trim());
+    }
+
+    @Override
+    public String toString() {
+        return "BillRecord(line=" + line + ", values=" + Arrays.toString(values) + ")";
+    }
+}
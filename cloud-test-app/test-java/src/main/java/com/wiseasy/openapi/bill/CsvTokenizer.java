@@ -0,0 +1,155 @@
+package com.wiseasy.openapi.bill;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
+
+/**
+ * @Description: Splits delimited text (RFC 4180 quoting) into rows, reading through a fixed buffer.
+ * A row longer than the limit fails instead of growing without bound, e.g. on an unbalanced quote
+ */
+class CsvTokenizer implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    static final int MAX_ROW_CHARS = 1024 * 1024;
+
+    private final Reader reader;
+
+    private final char[] buf = new char[BUFFER_SIZE];
+
+    private final StringBuilder field = new StringBuilder(64);
+
+    private char delimiter;
+
+    private int pos;
+
+    private int limit;
+
+    private long line;
+
+    private long rowLine;
+
+    CsvTokenizer(Reader reader, char delimiter) {
+        this.reader = reader;
+        this.delimiter = delimiter;
+    }
+
+    void setDelimiter(char delimiter) {
+        this.delimiter = delimiter;
+    }
+
+    /**
+     * Line number where the last row read starts, 1 based
+     */
+    long getLine() {
+        return rowLine;
+    }
+
+    /**
+     * Read the next row into the list, blank lines are skipped
+     * @param row Cleared and filled with the fields
+     * @return false at the end of the input
+     */
+    boolean readRow(List<String> row) throws IOException {
+        row.clear();
+        while (true) {
+            int c = read();
+            if (c < 0) {
+                return false;
+            }
+            line++;
+            if (c == '\n') {
+                continue;
+            }
+            if (c == '\r') {
+                skipLf();
+                continue;
+            }
+            unread();
+            rowLine = line;
+            break;
+        }
+
+        int rowChars = 0;
+        field.setLength(0);
+        boolean quoted = false;
+        boolean afterQuote = false;
+        while (true) {
+            int c = read();
+            if (c < 0) {
+                if (quoted) {
+                    throw new IOException("Unterminated quoted field at line " + line);
+                }
+                row.add(field.toString());
+                return true;
+            }
+            if (++rowChars > MAX_ROW_CHARS) {
+                throw new IOException("Row longer than " + MAX_ROW_CHARS + " characters at line " + line);
+            }
+            if (quoted) {
+                if (c == '"') {
+                    int next = read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        if (next >= 0) {
+                            unread();
+                        }
+                        quoted = false;
+                        afterQuote = true;
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == delimiter) {
+                row.add(field.toString());
+                field.setLength(0);
+                afterQuote = false;
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r') {
+                    skipLf();
+                }
+                row.add(field.toString());
+                return true;
+            } else if (c == '"' && field.length() == 0 && !afterQuote) {
+                quoted = true;
+            } else {
+                field.append((char) c);
+            }
+        }
+    }
+
+    private void skipLf() throws IOException {
+        int next = read();
+        if (next >= 0 && next != '\n') {
+            unread();
+        }
+    }
+
+    private int read() throws IOException {
+        if (pos == limit) {
+            limit = reader.read(buf, 0, buf.length);
+            pos = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buf[pos++];
+    }
+
+    // Only ever called right after a successful read, so the character is still in the buffer
+    private void unread() {
+        pos--;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
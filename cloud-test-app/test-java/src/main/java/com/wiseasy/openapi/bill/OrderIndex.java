@@ -0,0 +1,205 @@
+package com.wiseasy.openapi.bill;
+
+/**
+ * @Description: Open-addressing hash table of order keys to amounts (minor units) and a matched flag, held in
+ * primitive arrays: no object per entry. Keys are stored UTF-8 encoded, with a 2 byte length prefix, in one byte
+ * arena so that unmatched orders can still be reported by key. About 20 bytes per entry plus the key bytes.
+ * Not thread-safe, the reconciler gives every partition its own index
+ */
+final class OrderIndex {
+
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private static final int MAX_KEY_LENGTH = 0xFFFF;
+
+    // Slot arrays, a slot is empty when its hash is 0
+    private long[] hashes;
+
+    private int[] offsets;
+
+    private long[] amounts;
+
+    private long[] matched;
+
+    private int size;
+
+    private int threshold;
+
+    private byte[] arena;
+
+    private int arenaSize;
+
+    OrderIndex(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+        this.arena = new byte[Math.max(1024, expectedSize * 16)];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return false if the key is already in the index, the amount is not changed then
+     */
+    boolean add(byte[] key, long hash, long amount) {
+        if (key.length > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Key longer than " + MAX_KEY_LENGTH + " bytes");
+        }
+        hash = nonZero(hash);
+        if (find(key, hash) >= 0) {
+            return false;
+        }
+        if (size >= threshold) {
+            rehash(hashes.length << 1);
+        }
+        int slot = freeSlot(hash);
+        hashes[slot] = hash;
+        offsets[slot] = store(key);
+        amounts[slot] = amount;
+        size++;
+        return true;
+    }
+
+    /**
+     * Slot of the key, or -1
+     */
+    int find(byte[] key, long hash) {
+        hash = nonZero(hash);
+        int mask = hashes.length - 1;
+        for (int slot = (int) hash & mask; ; slot = (slot + 1) & mask) {
+            long h = hashes[slot];
+            if (h == 0) {
+                return -1;
+            }
+            if (h == hash && keyEquals(offsets[slot], key)) {
+                return slot;
+            }
+        }
+    }
+
+    long amount(int slot) {
+        return amounts[slot];
+    }
+
+    /**
+     * Flag the slot as matched
+     * @return false if it was matched already
+     */
+    boolean match(int slot) {
+        long bit = 1L << slot;
+        long word = matched[slot >>> 6];
+        if ((word & bit) != 0) {
+            return false;
+        }
+        matched[slot >>> 6] = word | bit;
+        return true;
+    }
+
+    /**
+     * Pass every unmatched key and its amount to the visitor
+     */
+    void forEachUnmatched(Visitor visitor) {
+        for (int slot = 0; slot < hashes.length; slot++) {
+            if (hashes[slot] != 0 && (matched[slot >>> 6] & (1L << slot)) == 0) {
+                visitor.visit(arena, offsets[slot] + 2, keyLength(offsets[slot]), amounts[slot]);
+            }
+        }
+    }
+
+    interface Visitor {
+        void visit(byte[] keys, int offset, int length, long amount);
+    }
+
+    private void allocate(int capacity) {
+        hashes = new long[capacity];
+        offsets = new int[capacity];
+        amounts = new long[capacity];
+        matched = new long[(capacity + 63) >>> 6];
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private int freeSlot(long hash) {
+        int mask = hashes.length - 1;
+        int slot = (int) hash & mask;
+        while (hashes[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldHashes = hashes;
+        int[] oldOffsets = offsets;
+        long[] oldAmounts = amounts;
+        long[] oldMatched = matched;
+        allocate(capacity);
+        for (int i = 0; i < oldHashes.length; i++) {
+            if (oldHashes[i] != 0) {
+                int slot = freeSlot(oldHashes[i]);
+                hashes[slot] = oldHashes[i];
+                offsets[slot] = oldOffsets[i];
+                amounts[slot] = oldAmounts[i];
+                if ((oldMatched[i >>> 6] & (1L << i)) != 0) {
+                    matched[slot >>> 6] |= 1L << slot;
+                }
+            }
+        }
+    }
+
+    private int store(byte[] key) {
+        int needed = arenaSize + 2 + key.length;
+        if (needed < 0) {
+            throw new IllegalStateException("Order index partition is full, use more partitions");
+        }
+        if (needed > arena.length) {
+            long grown = Math.max(needed, (long) arena.length * 3 / 2);
+            byte[] larger = new byte[(int) Math.min(grown, Integer.MAX_VALUE - 8)];
+            System.arraycopy(arena, 0, larger, 0, arenaSize);
+            arena = larger;
+        }
+        int offset = arenaSize;
+        arena[offset] = (byte) (key.length >>> 8);
+        arena[offset + 1] = (byte) key.length;
+        System.arraycopy(key, 0, arena, offset + 2, key.length);
+        arenaSize = needed;
+        return offset;
+    }
+
+    private int keyLength(int offset) {
+        return ((arena[offset] & 0xFF) << 8) | (arena[offset + 1] & 0xFF);
+    }
+
+    private boolean keyEquals(int offset, byte[] key) {
+        if (keyLength(offset) != key.length) {
+            return false;
+        }
+        for (int i = 0, p = offset + 2; i < key.length; i++, p++) {
+            if (arena[p] != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long nonZero(long hash) {
+        return hash == 0 ? 1 : hash;
+    }
+
+    /**
+     * 64-bit FNV-1a with a final avalanche, so that both the high bits (partition) and the low bits (slot) are well spread
+     */
+    static long hash(byte[] key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key) {
+            h ^= b & 0xFF;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,41 @@
+package com.wiseasy.openapi.bill;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.function.Predicate;
+
+/**
+ * @Description: Settings of {@link BillReconciler}
+ */
+@Getter
+@Setter
+@ToString
+public class ReconcileConfig {
+
+    // Statement column that identifies a transaction, merchant_order_no or trans_no
+    private String keyColumn = "merchant_order_no";
+
+    // Statement column compared with the order amount
+    private String amountColumn = "trans_amount";
+
+    // Digits after the decimal point kept when amounts are converted to minor units, 2 for cents
+    private int amountScale = 2;
+
+    // Number of independent index partitions, each matched by its own thread. Rounded up to a power of two
+    private int partitions = Runtime.getRuntime().availableProcessors();
+
+    // Expected number of orders, sizes the index up front
+    private int expectedOrders = 1 << 16;
+
+    // Statement records handed to a partition at once
+    private int batchSize = 1024;
+
+    // Batches queued per partition before reading the statement waits for the partition to catch up
+    private int queueCapacity = 4;
+
+    // Statement records that take part in the reconciliation, e.g. only successful payments. null for all records
+    private Predicate<BillRecord> filter;
+
+}
@@ -0,0 +1,32 @@
+package com.wiseasy.openapi.bill;
+
+/**
+ * @Description: Receives the differences found by {@link BillReconciler}. The methods are called concurrently
+ * from the partition threads, implementations must be thread-safe
+ */
+public interface ReconcileListener {
+
+    /**
+     * An order that is not in the statement
+     * @param key Order key
+     * @param amount Order amount in minor units
+     */
+    default void onMissing(String key, long amount) {
+    }
+
+    /**
+     * A statement record without an order, or a second record of an order already matched
+     * @param record Statement record
+     */
+    default void onExtra(BillRecord record) {
+    }
+
+    /**
+     * A statement record whose amount differs from the order
+     * @param record Statement record
+     * @param expectedAmount Order amount in minor units
+     * @param actualAmount Statement amount in minor units, null if the record has no amount
+     */
+    default void onAmountMismatch(BillRecord record, long expectedAmount, Long actualAmount) {
+    }
+}
@@ -0,0 +1,53 @@
+package com.wiseasy.openapi.bill;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * @Description: Counts of one reconciliation run
+ */
+@Getter
+@ToString
+public class ReconcileResult {
+
+    // Orders in the index
+    private long orders;
+
+    // Statement records read, including the ones left out by the filter
+    private long records;
+
+    // Records with an order of the same amount
+    private long matched;
+
+    // Orders without a record
+    private long missing;
+
+    // Records without an order
+    private long extra;
+
+    // Records with an order of a different amount
+    private long amountMismatched;
+
+    private long elapsedMillis;
+
+    void add(long matched, long missing, long extra, long amountMismatched) {
+        this.matched += matched;
+        this.missing += missing;
+        this.extra += extra;
+        this.amountMismatched += amountMismatched;
+    }
+
+    void finish(long orders, long records, long elapsedMillis) {
+        this.orders = orders;
+        this.records = records;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * Whether the statement and the orders agree
+     * @return
+     */
+    public boolean isBalanced() {
+        return missing == 0 && extra == 0 && amountMismatched == 0;
+    }
+}
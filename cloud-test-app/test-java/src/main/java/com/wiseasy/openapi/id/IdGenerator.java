@@ -0,0 +1,22 @@
+package com.wiseasy.openapi.id;
+
+/**
+ * @Description: Source of unique identifiers: the Http-Request-Psn header of every call, and merchant order numbers
+ * (merchant_order_no, merchant_request_id) for integrations that do not have their own
+ */
+public interface IdGenerator {
+
+    /**
+     * A new identifier, never returned before by this generator
+     * @return
+     */
+    String nextId();
+
+    /**
+     * The generator of the JVM, see {@link TimeSequenceIdGenerator#getDefault()}
+     * @return
+     */
+    static IdGenerator getDefault() {
+        return TimeSequenceIdGenerator.getDefault();
+    }
+}
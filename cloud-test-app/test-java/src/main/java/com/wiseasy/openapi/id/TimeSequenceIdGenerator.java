@@ -0,0 +1,158 @@
+package com.wiseasy.openapi.id;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.lang.management.ManagementFactory;
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @Description: 20-digit identifiers made of the time in milliseconds (13 digits), a node id (3 digits) and a sequence
+ * within the millisecond (4 digits), e.g. 1697611200000 042 0007. The time and the sequence are one counter advanced
+ * with a single compare-and-set, never below the clock: up to 10000 identifiers per millisecond and node, beyond that
+ * the next millisecond is borrowed, so no thread ever waits for the clock or a lock.
+ * <p>
+ * Identifiers are unique within a generator and across generators with different node ids, nothing more. Give every
+ * JVM (or every generator sharing an app_id) its own node id through the constructor or the system property
+ * openapi.id.node. Without one the node id is derived from the process id and host name: it stays the same for the
+ * life of the process and differs between processes most of the time, which is enough for the Http-Request-Psn of the
+ * requests. It is no guarantee, with 1000 node ids two instances share one more likely than not from about 38
+ * instances on, so merchant order numbers ({@link #nextId(String)}) require a node id set explicitly.
+ * A clock set back between two runs of the same node may repeat identifiers of the previous run
+ */
+public class TimeSequenceIdGenerator implements IdGenerator {
+
+    public static final String NODE_PROPERTY = "openapi.id.node";
+
+    public static final int MAX_NODE_ID = 999;
+
+    private static final long SEQUENCE_RANGE = 10000;
+
+    private static final Log log = LogFactory.getLog(TimeSequenceIdGenerator.class);
+
+    private final int nodeId;
+
+    // Whether the node id was set by the constructor or the system property rather than derived
+    private final boolean nodeConfigured;
+
+    // Time in milliseconds * SEQUENCE_RANGE + sequence of the last identifier
+    private final AtomicLong last = new AtomicLong();
+
+    /**
+     * @param nodeId 0 to 999, unique among the instances generating identifiers for the same app_id
+     */
+    public TimeSequenceIdGenerator(int nodeId) {
+        this(nodeId, true);
+    }
+
+    private TimeSequenceIdGenerator(int nodeId, boolean nodeConfigured) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeId = nodeId;
+        this.nodeConfigured = nodeConfigured;
+    }
+
+    /**
+     * The generator shared by the clients of the JVM, its node id is taken from the system property openapi.id.node,
+     * or derived from the process if the property is not set
+     * @return
+     */
+    public static TimeSequenceIdGenerator getDefault() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    public int getNodeId() {
+        return nodeId;
+    }
+
+    public boolean isNodeConfigured() {
+        return nodeConfigured;
+    }
+
+    @Override
+    public String nextId() {
+        long floor = System.currentTimeMillis() * SEQUENCE_RANGE;
+        long prev;
+        long next;
+        do {
+            prev = last.get();
+            next = Math.max(prev + 1, floor);
+        } while (!last.compareAndSet(prev, next));
+        return format(next / SEQUENCE_RANGE, nodeId, (int) (next % SEQUENCE_RANGE));
+    }
+
+    /**
+     * A merchant order number: the prefix followed by a new identifier
+     * @param prefix e.g. a store code, may be empty
+     * @return
+     * @throws IllegalStateException If the node id was derived rather than set, see the class description
+     */
+    public String nextId(String prefix) {
+        if (!nodeConfigured) {
+            throw new IllegalStateException("Merchant order numbers need a node id unique among the instances: set the system property "
+                    + NODE_PROPERTY + " or create the generator with one");
+        }
+        return StringUtils.isEmpty(prefix) ? nextId() : prefix + nextId();
+    }
+
+    private static String format(long millis, int node, int sequence) {
+        char[] id = new char[20];
+        digits(id, 0, 13, millis);
+        digits(id, 13, 3, node);
+        digits(id, 16, 4, sequence);
+        return new String(id);
+    }
+
+    private static void digits(char[] target, int offset, int length, long value) {
+        for (int i = offset + length - 1; i >= offset; i--) {
+            target[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    /**
+     * The generator of the given openapi.id.node value, see {@link #getDefault()}
+     */
+    static TimeSequenceIdGenerator of(String configured) {
+        if (StringUtils.isNotBlank(configured)) {
+            try {
+                int nodeId = Integer.parseInt(configured.trim());
+                if (nodeId >= 0 && nodeId <= MAX_NODE_ID) {
+                    return new TimeSequenceIdGenerator(nodeId, true);
+                }
+            } catch (NumberFormatException ignore) {
+                // logged below
+            }
+            int nodeId = processNodeId();
+            log.warn("System property " + NODE_PROPERTY + " must be a number between 0 and " + MAX_NODE_ID
+                    + ": [" + configured + "], using the node id " + nodeId + " of the process");
+            return new TimeSequenceIdGenerator(nodeId, false);
+        }
+        return new TimeSequenceIdGenerator(processNodeId(), false);
+    }
+
+    /**
+     * Node id derived from the process id and host name ("pid@host"), a random one if the JVM does not tell
+     */
+    static int processNodeId() {
+        String name = null;
+        try {
+            name = ManagementFactory.getRuntimeMXBean().getName();
+        } catch (RuntimeException ignore) {
+            // no management support
+        }
+        if (StringUtils.isBlank(name)) {
+            return new SecureRandom().nextInt(MAX_NODE_ID + 1);
+        }
+        // Spread the hash, process ids of one host often differ in their last digits only
+        int hash = name.hashCode() * 0x9E3779B9;
+        return Math.floorMod(hash ^ (hash >>> 16), MAX_NODE_ID + 1);
+    }
+
+    private static class DefaultHolder {
+        private static final TimeSequenceIdGenerator INSTANCE = of(System.getProperty(NODE_PROPERTY));
+    }
+}
@@ -0,0 +1,126 @@
+package com.wiseasy.openapi.logging;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * @Description: Renders request and response bodies for the log: sensitive values masked, length capped
+ */
+final class Redactor {
+
+    static final String MASK = "***";
+
+    private final Set<String> redactedFields = new HashSet<>();
+
+    private final boolean maskCardNumbers;
+
+    private final int maxChars;
+
+    Redactor(RequestLogConfig config) {
+        if (config.getRedactedFields() != null) {
+            for (String field : config.getRedactedFields()) {
+                redactedFields.add(field.toLowerCase(Locale.ROOT));
+            }
+        }
+        this.maskCardNumbers = config.isMaskCardNumbers();
+        this.maxChars = config.getMaxBodyChars();
+    }
+
+    /**
+     * Render parameters, the map itself is not changed
+     */
+    String render(Map<String, Object> params) {
+        return truncate(JSON.toJSONString(redact(params)));
+    }
+
+    /**
+     * Render a response body; a body that is not a JSON object is only cut
+     */
+    String render(String body) {
+        if (body == null) {
+            return null;
+        }
+        Object parsed;
+        try {
+            parsed = JSON.parse(body);
+        } catch (RuntimeException e) {
+            return truncate(body);
+        }
+        return parsed instanceof Map ? render(castMap(parsed)) : truncate(body);
+    }
+
+    private Object redact(Object value) {
+        if (value instanceof Map) {
+            Map<String, Object> map = castMap(value);
+            JSONObject copy = new JSONObject(map.size(), true);
+            for (Map.Entry<String, Object> entry : map.entrySet()) {
+                String key = entry.getKey();
+                Object v = entry.getValue();
+                copy.put(key, v != null && key != null && redactedFields.contains(key.toLowerCase(Locale.ROOT)) ? MASK : redact(v));
+            }
+            return copy;
+        }
+        if (value instanceof List) {
+            JSONArray copy = new JSONArray(((List<?>) value).size());
+            for (Object item : (List<?>) value) {
+                copy.add(redact(item));
+            }
+            return copy;
+        }
+        if (value instanceof String) {
+            String s = (String) value;
+            // 'data' of some responses is itself a JSON string
+            if (s.length() > 1 && s.charAt(0) == '{') {
+                try {
+                    return JSON.toJSONString(redact(JSON.parseObject(s)));
+                } catch (RuntimeException ignore) {
+                    return s;
+                }
+            }
+            return maskCardNumbers && isCardNumber(s) ? s.substring(0, 6) + MASK + s.substring(s.length() - 4) : s;
+        }
+        return value;
+    }
+
+    String truncate(String s) {
+        if (maxChars <= 0 || s.length() <= maxChars) {
+            return s;
+        }
+        return s.substring(0, maxChars) + "...(" + s.length() + " chars)";
+    }
+
+    static boolean isCardNumber(String s) {
+        int length = s.length();
+        if (length < 13 || length > 19) {
+            return false;
+        }
+        int sum = 0;
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(length - 1 - i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+            int digit = c - '0';
+            if ((i & 1) == 1) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+        }
+        return sum % 10 == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> castMap(Object map) {
+        return (Map<String, Object>) map;
+    }
+}
@@ -0,0 +1,40 @@
+package com.wiseasy.openapi.logging;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * @Description: Settings of the request and response logging, see {@code OpenApiClient.setRequestLogging}
+ */
+@Getter
+@Setter
+@ToString
+public class RequestLogConfig {
+
+    // Share of the calls whose request and response are logged, between 0 and 1. Failures are always logged
+    private double sampleRate = 1;
+
+    // Longest logged request or response body, longer ones are cut, in characters
+    private int maxBodyChars = 4096;
+
+    // Parameters whose value is replaced by ***, at any depth, case-insensitive
+    private Set<String> redactedFields = new HashSet<>(Arrays.asList("sign", "auth_code", "account_no", "card_no",
+            "card_number", "cvv", "cvv2", "track_data", "pin", "password", "extend_token"));
+
+    // Whether any value that looks like a card number (13 to 19 digits passing the Luhn check) is masked to the first 6 and last 4 digits.
+    // Off by default: about one numeric id in ten, e.g. a merchant_order_no or trans_no, passes the check by chance.
+    // Card fields are masked through redactedFields either way
+    private boolean maskCardNumbers = false;
+
+    // Whether log lines are rendered and written by a background thread; if false they are written by the caller
+    private boolean async = true;
+
+    // Log lines waiting for the background thread, beyond it new lines are dropped (and counted)
+    private int queueCapacity = 8192;
+
+}
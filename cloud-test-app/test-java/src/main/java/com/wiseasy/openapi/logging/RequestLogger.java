@@ -0,0 +1,225 @@
+package com.wiseasy.openapi.logging;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @Description: Logs the requests sent to the gateway and its responses off the calling thread. The level is checked
+ * first and the sampling decided once per call; a line is only queued with references to the request parameters and
+ * the response body, it is rendered (sensitive values masked, length capped) and written by a background thread.
+ * When the bounded queue is full lines are dropped and counted, the caller never waits for the appender.
+ * The parameters must not be changed once logged
+ */
+public class RequestLogger implements Closeable {
+
+    private static volatile RequestLogger defaultLogger;
+
+    private final Log log;
+
+    private final RequestLogConfig config;
+
+    private final Redactor redactor;
+
+    private final BlockingQueue<Line> queue;
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final Thread writer;
+
+    private volatile boolean closed;
+
+    /**
+     * @param log Destination of the lines
+     */
+    public RequestLogger(Log log, RequestLogConfig config) {
+        this.log = log;
+        this.config = config;
+        this.redactor = new Redactor(config);
+        if (config.isAsync()) {
+            this.queue = new ArrayBlockingQueue<>(Math.max(1, config.getQueueCapacity()));
+            this.writer = new Thread(this::drain, "openapi-request-log");
+            this.writer.setDaemon(true);
+            this.writer.start();
+        } else {
+            this.queue = null;
+            this.writer = null;
+        }
+    }
+
+    /**
+     * The logger of the clients without logging settings, with the default configuration, writing to the log of OpenApiClient.
+     * It is closed by a shutdown hook, so that the lines still queued at exit (failures in particular) are written
+     */
+    public static RequestLogger getDefault() {
+        RequestLogger logger = defaultLogger;
+        if (logger == null) {
+            synchronized (RequestLogger.class) {
+                logger = defaultLogger;
+                if (logger == null) {
+                    logger = new RequestLogger(LogFactory.getLog("com.wiseasy.openapi.OpenApiClient"), new RequestLogConfig());
+                    try {
+                        Runtime.getRuntime().addShutdownHook(new Thread(logger::close, "openapi-request-log-shutdown"));
+                    } catch (IllegalStateException ignore) {
+                        // already shutting down
+                    }
+                    defaultLogger = logger;
+                }
+            }
+        }
+        return logger;
+    }
+
+    /**
+     * Decide whether the request and response of a call are logged
+     */
+    public boolean sample() {
+        double rate = config.getSampleRate();
+        return log.isInfoEnabled() && (rate >= 1 || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate));
+    }
+
+    /**
+     * @param sampled See {@link #sample()}
+     */
+    public void request(boolean sampled, String url, String psn, Map<String, Object> params) {
+        if (sampled) {
+            submit(new Line(false, null) {
+                @Override
+                String render() {
+                    return "Request to gateway[" + url + "] send data [Http-Request-Psn = " + psn + "] -->> " + redactor.render(params);
+                }
+            });
+        }
+    }
+
+    /**
+     * @param sampled See {@link #sample()}
+     */
+    public void response(boolean sampled, String url, String psn, String body) {
+        if (sampled) {
+            submit(new Line(false, null) {
+                @Override
+                String render() {
+                    return "Response from gateway[" + url + "] receive data [Http-Request-Psn = " + psn + "] <<-- " + redactor.render(body);
+                }
+            });
+        }
+    }
+
+    /**
+     * A request that got no response, logged whatever the sampling
+     */
+    public void failure(String url, String psn, Throwable e) {
+        if (log.isErrorEnabled()) {
+            submit(new Line(true, e) {
+                @Override
+                String render() {
+                    return "Request to gateway[" + url + "] fail [Http-Request-Psn = " + psn + "]";
+                }
+            });
+        }
+    }
+
+    /**
+     * Lines dropped because the queue was full
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Write the queued lines and stop the background thread
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if (writer != null) {
+            writer.interrupt();
+            try {
+                writer.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void submit(Line line) {
+        if (queue == null) {
+            line.write(log);
+        } else if (closed || !queue.offer(line)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    private void drain() {
+        List<Line> batch = new ArrayList<>(256);
+        long reportedDrops = 0;
+        while (true) {
+            try {
+                Line first = queue.poll(1, TimeUnit.SECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, 255);
+                }
+            } catch (InterruptedException e) {
+                if (closed) {
+                    queue.drainTo(batch);
+                    write(batch);
+                    return;
+                }
+            }
+            write(batch);
+            long drops = dropped.get();
+            if (drops != reportedDrops) {
+                log.warn((drops - reportedDrops) + " request log lines dropped, the log queue is full");
+                reportedDrops = drops;
+            }
+        }
+    }
+
+    private void write(List<Line> batch) {
+        for (Line line : batch) {
+            try {
+                line.write(log);
+            } catch (RuntimeException e) {
+                // A line that cannot be rendered must not stop the writer
+                log.warn("Render request log line fail", e);
+            }
+        }
+        batch.clear();
+    }
+
+    /**
+     * A log line rendered when written
+     */
+    private abstract static class Line {
+
+        private final boolean error;
+
+        private final Throwable throwable;
+
+        Line(boolean error, Throwable throwable) {
+            this.error = error;
+            this.throwable = throwable;
+        }
+
+        abstract String render();
+
+        void write(Log log) {
+            if (error) {
+                log.error(render(), throwable);
+            } else {
+                log.info(render());
+            }
+        }
+    }
+}
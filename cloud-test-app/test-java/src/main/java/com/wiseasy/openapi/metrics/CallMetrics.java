@@ -0,0 +1,78 @@
+package com.wiseasy.openapi.metrics;
+
+/**
+ * @Description: Timings of one gateway call, reported to the sink when the call ends. Not thread-safe: the phases
+ * of a call run one after the other, possibly on different threads that hand the call over
+ */
+public final class CallMetrics {
+
+    /**
+     * Used when no sink is configured, records nothing and never reads the clock
+     */
+    public static final CallMetrics DISABLED = new CallMetrics(null, null);
+
+    private final MetricsSink sink;
+
+    private final String method;
+
+    private final long start;
+
+    private final long[] phases = new long[Phase.values().length];
+
+    private boolean finished;
+
+    private CallMetrics(MetricsSink sink, String method) {
+        this.sink = sink;
+        this.method = method;
+        this.start = sink == null ? 0 : System.nanoTime();
+        for (int i = 0; i < phases.length; i++) {
+            phases[i] = -1;
+        }
+    }
+
+    /**
+     * Start timing a call
+     * @param sink May be null, then nothing is recorded
+     * @param method API method of the call
+     */
+    public static CallMetrics start(MetricsSink sink, String method) {
+        return sink == null ? DISABLED : new CallMetrics(sink, method);
+    }
+
+    /**
+     * Clock reading for a phase starting now
+     */
+    public long mark() {
+        return sink == null ? 0 : System.nanoTime();
+    }
+
+    /**
+     * Count the time since the mark to the phase
+     */
+    public void stop(Phase phase, long mark) {
+        if (sink != null) {
+            long elapsed = System.nanoTime() - mark;
+            int i = phase.ordinal();
+            phases[i] = phases[i] < 0 ? elapsed : phases[i] + elapsed;
+        }
+    }
+
+    /**
+     * Report the phases that ran and the total, only the first call has an effect
+     * @param resultCode See {@link MetricsSink#record}
+     */
+    public void finish(String resultCode) {
+        if (sink == null || finished) {
+            return;
+        }
+        finished = true;
+        long total = System.nanoTime() - start;
+        Phase[] values = Phase.values();
+        for (int i = 0; i < values.length; i++) {
+            if (phases[i] >= 0 && values[i] != Phase.TOTAL) {
+                sink.record(method, resultCode, values[i], phases[i]);
+            }
+        }
+        sink.record(method, resultCode, Phase.TOTAL, total);
+    }
+}
@@ -0,0 +1,99 @@
+package com.wiseasy.openapi.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * @Description: Default metrics sink, keeps a histogram per method, result code and phase in memory.
+ * Recording allocates nothing once the series exists. Read it with {@link MetricsTextExporter}
+ */
+public class InMemoryMetricsSink implements MetricsSink {
+
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, AtomicReferenceArray<NanoHistogram>>> byMethod = new ConcurrentHashMap<>();
+
+    @Override
+    public void record(String method, String resultCode, Phase phase, long nanos) {
+        ConcurrentHashMap<String, AtomicReferenceArray<NanoHistogram>> byCode = byMethod.get(method);
+        if (byCode == null) {
+            byCode = byMethod.computeIfAbsent(method, k -> new ConcurrentHashMap<>());
+        }
+        AtomicReferenceArray<NanoHistogram> phases = byCode.get(resultCode);
+        if (phases == null) {
+            phases = byCode.computeIfAbsent(resultCode, k -> new AtomicReferenceArray<>(Phase.values().length));
+        }
+        NanoHistogram histogram = phases.get(phase.ordinal());
+        if (histogram == null) {
+            phases.compareAndSet(phase.ordinal(), null, new NanoHistogram());
+            histogram = phases.get(phase.ordinal());
+        }
+        histogram.record(nanos);
+    }
+
+    /**
+     * Histogram of a series
+     * @return null if nothing was recorded for it
+     */
+    public NanoHistogram getHistogram(String method, String resultCode, Phase phase) {
+        Map<String, AtomicReferenceArray<NanoHistogram>> byCode = byMethod.get(method);
+        AtomicReferenceArray<NanoHistogram> phases = byCode == null ? null : byCode.get(resultCode);
+        return phases == null ? null : phases.get(phase.ordinal());
+    }
+
+    /**
+     * Every series recorded so far
+     */
+    public List<Series> getSeries() {
+        List<Series> series = new ArrayList<>();
+        for (Map.Entry<String, ConcurrentHashMap<String, AtomicReferenceArray<NanoHistogram>>> method : byMethod.entrySet()) {
+            for (Map.Entry<String, AtomicReferenceArray<NanoHistogram>> code : method.getValue().entrySet()) {
+                for (Phase phase : Phase.values()) {
+                    NanoHistogram histogram = getHistogram(method.getKey(), code.getKey(), phase);
+                    if (histogram != null) {
+                        series.add(new Series(method.getKey(), code.getKey(), phase, histogram));
+                    }
+                }
+            }
+        }
+        return series;
+    }
+
+    /**
+     * The histogram of one method, result code and phase
+     */
+    public static final class Series {
+
+        private final String method;
+
+        private final String resultCode;
+
+        private final Phase phase;
+
+        private final NanoHistogram histogram;
+
+        Series(String method, String resultCode, Phase phase, NanoHistogram histogram) {
+            this.method = method;
+            this.resultCode = resultCode;
+            this.phase = phase;
+            this.histogram = histogram;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public String getResultCode() {
+            return resultCode;
+        }
+
+        public Phase getPhase() {
+            return phase;
+        }
+
+        public NanoHistogram getHistogram() {
+            return histogram;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.wiseasy.openapi.metrics;
+
+/**
+ * @Description: Receives the timings of the gateway calls, see {@code OpenApiClient.setMetricsSink}. At the end of
+ * every call the client reports each phase that ran, then the total. Called from the thread completing the call,
+ * implementations must be thread-safe and cheap: no I/O, no lock held for long
+ */
+public interface MetricsSink {
+
+    /**
+     * @param method API method, e.g. order.query
+     * @param resultCode Code of the response (0 for success), the client error code (e.g. CLI003) if the call failed,
+     *                   "cancelled" if the caller cancelled it
+     * @param phase Timed phase
+     * @param nanos Time spent in the phase, in nanoseconds
+     */
+    void record(String method, String resultCode, Phase phase, long nanos);
+}
@@ -0,0 +1,65 @@
+package com.wiseasy.openapi.metrics;
+
+import org.apache.commons.lang.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * @Description: Renders an in-memory sink in Prometheus text exposition format, one summary per method, result code
+ * and phase with the usual quantiles, in seconds
+ */
+public final class MetricsTextExporter {
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private static final String NAME = "openapi_call_phase_seconds";
+
+    private MetricsTextExporter() {
+    }
+
+    public static String export(InMemoryMetricsSink sink) {
+        List<InMemoryMetricsSink.Series> series = new ArrayList<>(sink.getSeries());
+        series.sort(Comparator.comparing(InMemoryMetricsSink.Series::getMethod)
+                .thenComparing(InMemoryMetricsSink.Series::getResultCode)
+                .thenComparing(InMemoryMetricsSink.Series::getPhase));
+        StringBuilder sb = new StringBuilder();
+        sb.append("# TYPE ").append(NAME).append(" summary\n");
+        for (InMemoryMetricsSink.Series s : series) {
+            NanoHistogram histogram = s.getHistogram();
+            String labels = labels(s);
+            for (double quantile : QUANTILES) {
+                sb.append(NAME).append('{').append(labels).append(",quantile=\"").append(quantile).append("\"} ")
+                        .append(seconds(histogram.percentile(quantile * 100))).append('\n');
+            }
+            sb.append(NAME).append("_sum{").append(labels).append("} ").append(seconds(histogram.getSum())).append('\n');
+            sb.append(NAME).append("_count{").append(labels).append("} ").append(histogram.getCount()).append('\n');
+        }
+        sb.append("# TYPE ").append(NAME).append("_max gauge\n");
+        for (InMemoryMetricsSink.Series s : series) {
+            sb.append(NAME).append("_max{").append(labels(s)).append("} ").append(seconds(s.getHistogram().getMax())).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static String labels(InMemoryMetricsSink.Series s) {
+        return "method=\"" + escape(s.getMethod()) + "\",code=\"" + escape(s.getResultCode()) + "\",phase=\"" + s.getPhase().getName() + "\"";
+    }
+
+    /**
+     * A label value as the text format requires it: backslash, double quote and line feed escaped.
+     * The result code comes from the gateway, any of them would otherwise corrupt the whole scrape
+     */
+    static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        // Backslash first, the other replacements add backslashes of their own
+        return StringUtils.replace(StringUtils.replace(StringUtils.replace(value, "\\", "\\\\"), "\"", "\\\""), "\n", "\\n");
+    }
+
+    private static String seconds(long nanos) {
+        return String.valueOf(nanos / 1e9);
+    }
+}
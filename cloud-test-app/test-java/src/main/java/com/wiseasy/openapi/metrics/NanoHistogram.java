@@ -0,0 +1,139 @@
+package com.wiseasy.openapi.metrics;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @Description: Lock-free histogram of durations in nanoseconds, in the manner of HdrHistogram: buckets are exact
+ * below 16ns, then 16 per power of two (at most 6.25% wide) up to about 18 minutes. Recording is one array increment
+ * plus two adders, values are estimated from the bucket bounds. Optionally the older samples fade out of the buckets,
+ * so that the percentiles follow the recent values
+ */
+public class NanoHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private static final int MAX_EXPONENT = 39;
+
+    private static final int BUCKETS = SUB_BUCKETS + (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder sum = new LongAdder();
+
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    // Samples in the buckets after which every bucket is halved, 0 to keep them all
+    private final long window;
+
+    private final AtomicLong inBuckets = new AtomicLong();
+
+    private final AtomicBoolean decaying = new AtomicBoolean();
+
+    public NanoHistogram() {
+        this(0);
+    }
+
+    /**
+     * @param window Samples after which the older ones are halved in the buckets, 0 to keep them all. The count,
+     * sum and max still cover every recorded value
+     */
+    public NanoHistogram(long window) {
+        this.window = window;
+    }
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(indexOf(value));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+        if (window > 0 && inBuckets.incrementAndGet() >= window && decaying.compareAndSet(false, true)) {
+            try {
+                long removed = 0;
+                for (int i = 0; i < BUCKETS; i++) {
+                    long half = counts.get(i) / 2;
+                    if (half > 0) {
+                        counts.addAndGet(i, -half);
+                        removed += half;
+                    }
+                }
+                inBuckets.addAndGet(-removed);
+            } finally {
+                decaying.set(false);
+            }
+        }
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Sum of the recorded values, in nanoseconds
+     */
+    public long getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * Largest recorded value, in nanoseconds
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Estimated value below which the given share of the samples lie
+     * @param percentile e.g. 50 or 99.9
+     * @return upper bound of the bucket in nanoseconds, capped by the largest value; 0 without samples
+     */
+    public long percentile(double percentile) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * Math.min(100, Math.max(0, percentile)) / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int sub = (int) ((value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+        return SUB_BUCKETS + (exponent - SUB_BUCKET_BITS) * SUB_BUCKETS + sub;
+    }
+
+    static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = (index - SUB_BUCKETS) / SUB_BUCKETS + SUB_BUCKET_BITS;
+        int sub = (index - SUB_BUCKETS) % SUB_BUCKETS;
+        return (1L << exponent) + ((long) (sub + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+}
@@ -0,0 +1,38 @@
+package com.wiseasy.openapi.metrics;
+
+/**
+ * @Description: Phases of a gateway call that are timed separately
+ */
+public enum Phase {
+
+    // Request object to parameter map, common parameters included
+    SERIALIZE("serialize"),
+
+    // Request signature, SignHandler.sign
+    SIGN("sign"),
+
+    // HTTP exchange with the gateway, until the response body is read
+    HTTP("http"),
+
+    // Response body to response object
+    PARSE("parse"),
+
+    // Response signature verification
+    VERIFY("verify"),
+
+    // The whole call, from serialization to the response object
+    TOTAL("total");
+
+    private final String name;
+
+    Phase(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Name used as metric tag
+     */
+    public String getName() {
+        return name;
+    }
+}
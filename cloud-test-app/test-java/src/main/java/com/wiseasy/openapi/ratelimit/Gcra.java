@@ -0,0 +1,65 @@
+package com.wiseasy.openapi.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @Description: Generic cell rate algorithm: the rate limit as one theoretical arrival time, updated with a single
+ * compare-and-set. Equivalent to a token bucket of size burst refilled at the rate, without a refill step
+ */
+final class Gcra {
+
+    // Time between two requests at the sustained rate, in nanoseconds
+    private final long interval;
+
+    // How far ahead of the sustained rate requests may run: burst - 1 intervals, in nanoseconds
+    private final long tolerance;
+
+    // Theoretical arrival time of the next request at the sustained rate
+    private final AtomicLong arrival;
+
+    /**
+     * @param now System.nanoTime()
+     */
+    Gcra(RateLimit limit, long now) {
+        if (limit.getPermitsPerSecond() <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond must be positive");
+        }
+        this.interval = Math.max(1, (long) (1000000000L / limit.getPermitsPerSecond()));
+        this.tolerance = interval * (Math.max(1, limit.getBurst()) - 1);
+        this.arrival = new AtomicLong(now);
+    }
+
+    /**
+     * Reserve the next slot
+     * @param now System.nanoTime()
+     * @param maxWaitNanos Longest acceptable wait for the slot
+     * @return nanoseconds to wait before sending, or -1 if the wait would be longer (nothing is reserved)
+     */
+    long reserve(long now, long maxWaitNanos) {
+        while (true) {
+            long current = arrival.get();
+            long next = current - now > 0 ? current : now;
+            long wait = Math.max(0, next - tolerance - now);
+            if (wait > maxWaitNanos) {
+                return -1;
+            }
+            if (arrival.compareAndSet(current, next + interval)) {
+                return wait;
+            }
+        }
+    }
+
+    /**
+     * Give a reserved slot back, when another limit refused the request
+     */
+    void release() {
+        arrival.addAndGet(-interval);
+    }
+
+    /**
+     * Whether the full burst is available again, i.e. the state equals a fresh limiter
+     */
+    boolean isIdle(long now) {
+        return arrival.get() - now <= 0;
+    }
+}
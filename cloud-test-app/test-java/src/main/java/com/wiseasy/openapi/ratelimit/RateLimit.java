@@ -0,0 +1,29 @@
+package com.wiseasy.openapi.ratelimit;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * @Description: A sustained rate with a burst allowance
+ */
+@Getter
+@Setter
+@ToString
+public class RateLimit {
+
+    // Requests per second allowed on average
+    private double permitsPerSecond;
+
+    // Requests that may be sent at once after a quiet period, at least 1
+    private int burst = 1;
+
+    public RateLimit() {
+    }
+
+    public RateLimit(double permitsPerSecond, int burst) {
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+    }
+
+}
@@ -0,0 +1,36 @@
+package com.wiseasy.openapi.ratelimit;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @Description: Settings of the client-side rate limiter, see {@link RateLimiter}. A limit left null is not enforced
+ */
+@Getter
+@Setter
+@ToString
+public class RateLimitConfig {
+
+    // Limit of all requests of the app
+    private RateLimit appLimit;
+
+    // Limit of the requests of each merchant_no, applied to every merchant separately
+    private RateLimit merchantLimit;
+
+    // Limit by API method (e.g. order.query), across merchants
+    private Map<String, RateLimit> methodLimits = new HashMap<>();
+
+    // Whether a request over the limit waits for its turn; if false it fails at once with CLI006
+    private boolean blocking = true;
+
+    // Longest a request may wait for its turn, beyond it fails with CLI006, in milliseconds
+    private long maxWaitMillis = 1000;
+
+    // Merchants whose usage is tracked at most: beyond it a merchant is forgotten for every new one, idle ones first
+    private int maxMerchants = 10000;
+
+}
@@ -0,0 +1,112 @@
+package com.wiseasy.openapi.ratelimit;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @Description: Counters of the rate limiter by API method, readable as a map or as Prometheus text exposition format
+ */
+public class RateLimitStats {
+
+    // Requests let through, at once or after a wait
+    public static final String PERMITTED = "rate_limit_permitted";
+
+    // Requests that had to wait for their slot
+    public static final String DELAYED = "rate_limit_delayed";
+
+    public static final String REJECTED = "rate_limit_rejected";
+
+    // Total wait, in nanoseconds; exported in seconds
+    public static final String WAIT_NANOS = "rate_limit_wait_nanos";
+
+    private static final String[] COUNTERS = {PERMITTED, DELAYED, REJECTED, WAIT_NANOS};
+
+    private final ConcurrentHashMap<String, LongAdder[]> byMethod = new ConcurrentHashMap<>();
+
+    void onPermit(String method, long waitNanos) {
+        LongAdder[] counters = counters(method);
+        counters[0].increment();
+        if (waitNanos > 0) {
+            counters[1].increment();
+            counters[3].add(waitNanos);
+        }
+    }
+
+    void onReject(String method) {
+        counters(method)[2].increment();
+    }
+
+    /**
+     * Value of a counter of a method, e.g. get("order.query", RateLimitStats.REJECTED)
+     */
+    public long get(String method, String counter) {
+        LongAdder[] counters = byMethod.get(method);
+        return counters == null ? 0 : counters[indexOf(counter)].sum();
+    }
+
+    /**
+     * Every counter by method, then by counter name
+     */
+    public Map<String, Map<String, Long>> snapshot() {
+        Map<String, Map<String, Long>> snapshot = new TreeMap<>();
+        for (Map.Entry<String, LongAdder[]> entry : byMethod.entrySet()) {
+            Map<String, Long> values = new TreeMap<>();
+            for (int i = 0; i < COUNTERS.length; i++) {
+                values.put(COUNTERS[i], entry.getValue()[i].sum());
+            }
+            snapshot.put(entry.getKey(), values);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Counters in Prometheus text exposition format
+     */
+    public String toText() {
+        StringBuilder sb = new StringBuilder();
+        Map<String, Map<String, Long>> snapshot = snapshot();
+        for (String counter : COUNTERS) {
+            boolean wait = WAIT_NANOS.equals(counter);
+            String name = "openapi_" + (wait ? "rate_limit_wait_seconds" : counter) + "_total";
+            sb.append("# TYPE ").append(name).append(" counter\n");
+            for (Map.Entry<String, Map<String, Long>> entry : snapshot.entrySet()) {
+                long value = entry.getValue().get(counter);
+                sb.append(name).append("{method=\"").append(entry.getKey()).append("\"} ")
+                        .append(wait ? String.valueOf(value / (double) TimeUnit.SECONDS.toNanos(1)) : String.valueOf(value)).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "RateLimitStats" + snapshot();
+    }
+
+    private LongAdder[] counters(String method) {
+        LongAdder[] counters = byMethod.get(method);
+        if (counters == null) {
+            LongAdder[] created = new LongAdder[COUNTERS.length];
+            for (int i = 0; i < created.length; i++) {
+                created[i] = new LongAdder();
+            }
+            counters = byMethod.putIfAbsent(method, created);
+            if (counters == null) {
+                counters = created;
+            }
+        }
+        return counters;
+    }
+
+    private static int indexOf(String counter) {
+        for (int i = 0; i < COUNTERS.length; i++) {
+            if (COUNTERS[i].equals(counter)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown counter [" + counter + "]");
+    }
+}
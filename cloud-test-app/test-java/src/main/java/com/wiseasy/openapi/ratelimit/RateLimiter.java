@@ -0,0 +1,210 @@
+package com.wiseasy.openapi.ratelimit;
+
+import com.wiseasy.openapi.OpenApiException;
+import com.wiseasy.openapi.utils.Constants;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * @Description: Client-side rate limiter, smooths the requests of an app before the gateway throttles them. A request
+ * takes a slot from the app limit, the limit of its method and the limit of its merchant, each a GCRA cell updated
+ * by compare-and-set, no lock. Over the limit, a request waits for its slot (blocking mode) or fails with CLI006.
+ * Clients sharing an app_id should share one instance, see {@code OpenApiClient.setRateLimiter}
+ */
+public class RateLimiter {
+
+    // Merchants looked at to find an idle one to forget, when a new merchant goes over maxMerchants
+    private static final int EVICTION_SAMPLE = 16;
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "openapi-rate-limit-scheduler");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private Log log = LogFactory.getLog(this.getClass());
+
+    private final RateLimitConfig config;
+
+    // System.nanoTime(), replaced in tests
+    private final LongSupplier clock;
+
+    private final Gcra appLimit;
+
+    private final Map<String, Gcra> methodLimits;
+
+    private final ConcurrentHashMap<String, Gcra> merchantLimits = new ConcurrentHashMap<>();
+
+    // Where the next eviction resumes in merchantLimits, guarded by evictionLock
+    private Iterator<Map.Entry<String, Gcra>> evictionCursor;
+
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private final RateLimitStats stats = new RateLimitStats();
+
+    public RateLimiter(RateLimitConfig config) {
+        this(config, System::nanoTime);
+    }
+
+    RateLimiter(RateLimitConfig config, LongSupplier clock) {
+        this.config = config;
+        this.clock = clock;
+        long now = clock.getAsLong();
+        this.appLimit = config.getAppLimit() == null ? null : new Gcra(config.getAppLimit(), now);
+        Map<String, Gcra> methods = new HashMap<>();
+        if (config.getMethodLimits() != null) {
+            for (Map.Entry<String, RateLimit> entry : config.getMethodLimits().entrySet()) {
+                methods.put(entry.getKey(), new Gcra(entry.getValue(), now));
+            }
+        }
+        this.methodLimits = Collections.unmodifiableMap(methods);
+    }
+
+    public RateLimitStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Take a slot for a request, waiting for it in blocking mode
+     * @param method API method
+     * @param merchantNo Merchant of the request, may be null
+     * @throws OpenApiException CLI006 if the request is over the limit and may not wait (long enough)
+     */
+    public void acquire(String method, String merchantNo) throws OpenApiException {
+        long wait = reserve(method, merchantNo);
+        long deadline = clock.getAsLong() + wait;
+        while (wait > 0) {
+            LockSupport.parkNanos(this, wait);
+            if (Thread.interrupted()) {
+                Thread.currentThread().interrupt();
+                throw new OpenApiException(Constants.RATE_LIMITED, "Interrupted while waiting for the rate limit");
+            }
+            wait = deadline - clock.getAsLong();
+        }
+    }
+
+    /**
+     * Take a slot for a request without waiting for it
+     * @return nanoseconds until the slot, the request must not be sent before
+     * @throws OpenApiException CLI006 if the request is over the limit and may not wait (long enough)
+     */
+    public long reserve(String method, String merchantNo) throws OpenApiException {
+        long now = clock.getAsLong();
+        long maxWait = config.isBlocking() ? TimeUnit.MILLISECONDS.toNanos(config.getMaxWaitMillis()) : 0;
+        Gcra methodLimit = methodLimits.get(method);
+        Gcra merchantLimit = merchantNo == null || config.getMerchantLimit() == null ? null : merchantLimit(merchantNo, now);
+
+        long wait = 0;
+        if (appLimit != null) {
+            wait = appLimit.reserve(now, maxWait);
+            if (wait < 0) {
+                throw reject(method, "app");
+            }
+        }
+        if (methodLimit != null) {
+            long methodWait = methodLimit.reserve(now, maxWait);
+            if (methodWait < 0) {
+                release(appLimit);
+                throw reject(method, "method " + method);
+            }
+            wait = Math.max(wait, methodWait);
+        }
+        if (merchantLimit != null) {
+            long merchantWait = merchantLimit.reserve(now, maxWait);
+            if (merchantWait < 0) {
+                release(appLimit);
+                release(methodLimit);
+                throw reject(method, "merchant " + merchantNo);
+            }
+            wait = Math.max(wait, merchantWait);
+        }
+        stats.onPermit(method, wait);
+        return wait;
+    }
+
+    /**
+     * Run a task once the wait of its reserved slot is over, without holding a thread
+     */
+    public static void runAfter(long waitNanos, Runnable task) {
+        if (waitNanos <= 0) {
+            task.run();
+        } else {
+            SCHEDULER.schedule(task, waitNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Gcra merchantLimit(String merchantNo, long now) {
+        Gcra limit = merchantLimits.get(merchantNo);
+        if (limit != null) {
+            return limit;
+        }
+        limit = merchantLimits.computeIfAbsent(merchantNo, k -> new Gcra(config.getMerchantLimit(), now));
+        if (merchantLimits.size() > config.getMaxMerchants()) {
+            evictOne(merchantNo, now);
+        }
+        return limit;
+    }
+
+    /**
+     * Forget one merchant: the first idle one among the next few of a cursor going round the map, else the last one
+     * looked at. A merchant with its full burst available is the same as a new one; forgetting a busy one gives it a
+     * fresh burst, the price of a bounded map. Each new merchant costs a few steps of the cursor, never a full scan
+     */
+    private void evictOne(String added, long now) {
+        evictionLock.lock();
+        try {
+            Map.Entry<String, Gcra> victim = null;
+            for (int i = 0; i < EVICTION_SAMPLE; i++) {
+                if (evictionCursor == null || !evictionCursor.hasNext()) {
+                    evictionCursor = merchantLimits.entrySet().iterator();
+                    if (!evictionCursor.hasNext()) {
+                        return;
+                    }
+                }
+                Map.Entry<String, Gcra> entry = evictionCursor.next();
+                if (entry.getKey().equals(added)) {
+                    continue;
+                }
+                victim = entry;
+                if (entry.getValue().isIdle(now)) {
+                    break;
+                }
+            }
+            if (victim != null) {
+                merchantLimits.remove(victim.getKey(), victim.getValue());
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    int getMerchantCount() {
+        return merchantLimits.size();
+    }
+
+    private static void release(Gcra limit) {
+        if (limit != null) {
+            limit.release();
+        }
+    }
+
+    private OpenApiException reject(String method, String scope) {
+        stats.onReject(method);
+        if (log.isDebugEnabled()) {
+            log.debug("Request " + method + " over the rate limit of the " + scope);
+        }
+        return new OpenApiException(Constants.RATE_LIMITED, "Rate limit of the " + scope + " exceeded");
+    }
+}
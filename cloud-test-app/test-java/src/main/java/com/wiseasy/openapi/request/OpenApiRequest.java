@@ -2,8 +2,6 @@ package com.wiseasy.openapi.request;
 
 import com.wiseasy.openapi.response.OpenApiResponse;
 
-import java.lang.reflect.ParameterizedType;
-
 /**
  * @Auther: liqie
  * @Date: 2021/6/3 16:40
@@ -15,8 +13,9 @@ public abstract class OpenApiRequest <T extends OpenApiResponse>{
      * Get the type of API response object
      * @return
      */
+    @SuppressWarnings("unchecked")
     public  Class<T> getResponseClass(){
-        return (Class<T>)((ParameterizedType)getClass().getGenericSuperclass()).getActualTypeArguments()[0];
+        return (Class<T>) RequestMetadata.of(getClass()).getResponseClass();
     }
 
     /**
@@ -24,22 +23,7 @@ public abstract class OpenApiRequest <T extends OpenApiResponse>{
      * @return
      */
     public String getRequestMethod(){
-        String className = this.getClass().getSimpleName();
-        className = className.replace("Request", "");
-        char[] chars = className.toCharArray();
-        String method = "";
-        for (char c : chars){
-            if("".equals(method)){
-                method += (String.valueOf(c)).toLowerCase();
-            }else{
-                if( c >='A' && c <= 'Z'){
-                    method += "." + (String.valueOf(c)).toLowerCase();
-                }else{
-                    method += String.valueOf(c);
-                }
-            }
-        }
-        return method;
+        return RequestMetadata.of(getClass()).getRequestMethod();
     }
 
 }
@@ -0,0 +1,105 @@
+package com.wiseasy.openapi.request;
+
+import com.wiseasy.openapi.response.OpenApiResponse;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+
+/**
+ * @Description: Everything the client needs to know about a request type, computed once per class: the API method name,
+ * the response type and the field accessors used to serialize the request
+ */
+public final class RequestMetadata {
+
+    private static final ClassValue<RequestMetadata> REGISTRY = new ClassValue<RequestMetadata>() {
+        @Override
+        protected RequestMetadata computeValue(Class<?> type) {
+            return new RequestMetadata(type);
+        }
+    };
+
+    private final String requestMethod;
+
+    private final Class<? extends OpenApiResponse> responseClass;
+
+    private final RequestSerializer.FieldAccessor[] accessors;
+
+    private RequestMetadata(Class<?> type) {
+        this.requestMethod = methodName(type);
+        this.responseClass = responseClass(type);
+        this.accessors = RequestSerializer.createAccessors(type);
+    }
+
+    /**
+     * Metadata of a request type, computed on first use
+     * @param requestType
+     * @return
+     */
+    public static RequestMetadata of(Class<?> requestType) {
+        return REGISTRY.get(requestType);
+    }
+
+    /**
+     * The method name of the API request interface, derived from the class name: WisehubCloudPayOrderRequest -> wisehub.cloud.pay.order
+     * @return
+     */
+    public String getRequestMethod() {
+        return requestMethod;
+    }
+
+    /**
+     * The type of API response object, the type argument of OpenApiRequest
+     * @return
+     */
+    public Class<? extends OpenApiResponse> getResponseClass() {
+        return responseClass;
+    }
+
+    /**
+     * Value of a request property by its parameter name, e.g. merchant_order_no
+     * @param request
+     * @param name
+     * @return null if the request has no such property or it is not set
+     */
+    public Object getProperty(OpenApiRequest<?> request, String name) {
+        for (RequestSerializer.FieldAccessor accessor : accessors) {
+            if (accessor.name.equals(name)) {
+                return accessor.get(request);
+            }
+        }
+        return null;
+    }
+
+    RequestSerializer.FieldAccessor[] getAccessors() {
+        return accessors;
+    }
+
+    private static String methodName(Class<?> type) {
+        String className = type.getSimpleName().replace("Request", "");
+        StringBuilder method = new StringBuilder(className.length() + 8);
+        for (char c : className.toCharArray()) {
+            if (method.length() == 0) {
+                method.append(Character.toLowerCase(c));
+            } else if (c >= 'A' && c <= 'Z') {
+                method.append('.').append(Character.toLowerCase(c));
+            } else {
+                method.append(c);
+            }
+        }
+        return method.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Class<? extends OpenApiResponse> responseClass(Class<?> type) {
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            Type superType = c.getGenericSuperclass();
+            if (superType instanceof ParameterizedType) {
+                Type argument = ((ParameterizedType) superType).getActualTypeArguments()[0];
+                if (argument instanceof Class) {
+                    return (Class<? extends OpenApiResponse>) argument;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,123 @@
+package com.wiseasy.openapi.request;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.alibaba.fastjson.annotation.JSONField;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @Description: Converts an API request object into its parameter map in one pass over precomputed per-class
+ * field accessors, instead of writing the request to JSON and parsing it back. The map holds the same keys and
+ * values (by string form) as JSONObject.parseObject(JSON.toJSONString(request)): null values are skipped, as are
+ * static, transient and {@code @JSONField(serialize = false)} fields
+ */
+public final class RequestSerializer {
+
+    private RequestSerializer() {
+    }
+
+    /**
+     * Request parameters of the object, without the common parameters and the signature
+     * @param request The request object
+     * @return A new mutable map
+     */
+    public static JSONObject toParams(OpenApiRequest<?> request) {
+        FieldAccessor[] accessors = RequestMetadata.of(request.getClass()).getAccessors();
+        JSONObject params = new JSONObject(accessors.length + 8);
+        for (FieldAccessor accessor : accessors) {
+            Object value = accessor.get(request);
+            if (value != null) {
+                params.put(accessor.name, value);
+            }
+        }
+        return params;
+    }
+
+    /**
+     * The accessors of a request type, cached by {@link RequestMetadata}
+     */
+    static FieldAccessor[] createAccessors(Class<?> type) {
+        List<FieldAccessor> accessors = new ArrayList<>();
+        for (Class<?> c = type; c != null && c != OpenApiRequest.class && c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()) {
+                    continue;
+                }
+                JSONField annotation = field.getAnnotation(JSONField.class);
+                if (annotation != null && !annotation.serialize()) {
+                    continue;
+                }
+                String name = annotation != null && !annotation.name().isEmpty() ? annotation.name() : field.getName();
+                accessors.add(new FieldAccessor(name, field, findGetter(c, field)));
+            }
+        }
+        return accessors.toArray(new FieldAccessor[0]);
+    }
+
+    private static Method findGetter(Class<?> c, Field field) {
+        String name = field.getName();
+        String suffix = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        String[] candidates = field.getType() == boolean.class
+                ? new String[]{"is" + suffix, "get" + suffix}
+                : new String[]{"get" + suffix};
+        for (String candidate : candidates) {
+            try {
+                Method getter = c.getMethod(candidate);
+                if (getter.getReturnType() == field.getType()) {
+                    return getter;
+                }
+            } catch (NoSuchMethodException ignore) {
+                // try the next naming pattern, or fall back to the field
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads one property of a request and converts it to the value JSON parsing would have produced
+     */
+    static final class FieldAccessor {
+
+        final String name;
+
+        private final Field field;
+
+        private final Method getter;
+
+        private final boolean passThrough;
+
+        FieldAccessor(String name, Field field, Method getter) {
+            this.name = name;
+            this.field = field;
+            this.getter = getter;
+            if (getter == null) {
+                field.setAccessible(true);
+            }
+            // These types print the same after a JSON round trip, everything else (decimals, nested objects)
+            // goes through fastjson so that the string form, and therefore the signature, is unchanged
+            Class<?> type = field.getType();
+            this.passThrough = type == String.class || type == Integer.class || type == int.class
+                    || type == Long.class || type == long.class || type == Boolean.class || type == boolean.class
+                    || type == Short.class || type == short.class || type == Byte.class || type == byte.class;
+        }
+
+        Object get(Object bean) {
+            Object value;
+            try {
+                value = getter != null ? getter.invoke(bean) : field.get(bean);
+            } catch (Exception e) {
+                throw new IllegalStateException("Read request property [" + name + "] fail", e);
+            }
+            if (value == null || passThrough) {
+                return value;
+            }
+            return JSON.parse(JSON.toJSONString(value));
+        }
+    }
+}
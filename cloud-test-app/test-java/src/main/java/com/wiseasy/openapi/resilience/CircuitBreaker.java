@@ -0,0 +1,185 @@
+package com.wiseasy.openapi.resilience;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * @Description: Fails calls fast while the gateway is failing. Calls are counted in a sliding window of one-second
+ * buckets; when the failure rate or the slow call rate crosses its threshold the breaker opens and rejects calls,
+ * after a pause it lets a few trial calls through (half open) and closes again if they all succeed. Trial calls whose
+ * results are never recorded do not keep it half open: it opens again after the same pause.
+ * Lock-free: a concurrent bucket rotation may lose a few counts, which does not matter for a rate
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private static final int CALLS = 0;
+
+    private static final int FAILURES = 1;
+
+    private static final int SLOW = 2;
+
+    private final ResilienceConfig config;
+
+    private final int buckets;
+
+    // Second each bucket belongs to, and its counts: calls, failures, slow calls
+    private final AtomicLongArray bucketSecond;
+
+    private final AtomicLongArray counts;
+
+    private final AtomicInteger state = new AtomicInteger(State.CLOSED.ordinal());
+
+    private final AtomicLong openedAt = new AtomicLong();
+
+    private final AtomicLong halfOpenedAt = new AtomicLong();
+
+    private final AtomicInteger halfOpenPermits = new AtomicInteger();
+
+    private final AtomicInteger halfOpenSuccesses = new AtomicInteger();
+
+    private final AtomicLong openCount = new AtomicLong();
+
+    public CircuitBreaker(ResilienceConfig config) {
+        this.config = config;
+        this.buckets = Math.max(1, config.getWindowSeconds());
+        this.bucketSecond = new AtomicLongArray(buckets);
+        this.counts = new AtomicLongArray(buckets * 3);
+    }
+
+    public State getState() {
+        return State.values()[state.get()];
+    }
+
+    /**
+     * Times the breaker has opened
+     */
+    public long getOpenCount() {
+        return openCount.get();
+    }
+
+    /**
+     * Ask to make a call
+     * @return false if the call must be rejected
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = state.get();
+            if (current == State.CLOSED.ordinal()) {
+                return true;
+            }
+            if (current == State.OPEN.ordinal()) {
+                if (System.currentTimeMillis() - openedAt.get() < config.getOpenMillis()) {
+                    return false;
+                }
+                if (state.compareAndSet(current, State.HALF_OPEN.ordinal())) {
+                    halfOpenedAt.set(System.currentTimeMillis());
+                    halfOpenPermits.set(config.getHalfOpenCalls());
+                    halfOpenSuccesses.set(0);
+                }
+                continue;
+            }
+            // Half open: only the trial calls
+            while (true) {
+                int permits = halfOpenPermits.get();
+                if (permits <= 0) {
+                    if (System.currentTimeMillis() - halfOpenedAt.get() >= config.getOpenMillis()) {
+                        // The trial results did not come back in time
+                        open(current);
+                    }
+                    return false;
+                }
+                if (halfOpenPermits.compareAndSet(permits, permits - 1)) {
+                    return true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Record the outcome of a call that was acquired
+     * @param failed Whether the request failed (no response from the gateway)
+     * @param elapsedMillis Duration of the call
+     */
+    public void onResult(boolean failed, long elapsedMillis) {
+        boolean slow = elapsedMillis >= config.getSlowCallMillis();
+        int current = state.get();
+        if (current == State.HALF_OPEN.ordinal()) {
+            if (failed || slow) {
+                open(current);
+            } else if (halfOpenSuccesses.incrementAndGet() >= config.getHalfOpenCalls()
+                    && state.compareAndSet(current, State.CLOSED.ordinal())) {
+                reset();
+            }
+            return;
+        }
+        if (current != State.CLOSED.ordinal()) {
+            return;
+        }
+        int bucket = bucket(System.currentTimeMillis() / 1000);
+        counts.incrementAndGet(bucket * 3 + CALLS);
+        if (failed) {
+            counts.incrementAndGet(bucket * 3 + FAILURES);
+        }
+        if (slow) {
+            counts.incrementAndGet(bucket * 3 + SLOW);
+        }
+        if (failed || slow) {
+            evaluate();
+        }
+    }
+
+    private void evaluate() {
+        long second = System.currentTimeMillis() / 1000;
+        long calls = 0;
+        long failures = 0;
+        long slow = 0;
+        for (int i = 0; i < buckets; i++) {
+            if (second - bucketSecond.get(i) < buckets) {
+                calls += counts.get(i * 3 + CALLS);
+                failures += counts.get(i * 3 + FAILURES);
+                slow += counts.get(i * 3 + SLOW);
+            }
+        }
+        if (calls < config.getMinimumCalls()) {
+            return;
+        }
+        if (failures * 100 >= calls * config.getFailureRateThreshold() || slow * 100 >= calls * config.getSlowCallRateThreshold()) {
+            open(State.CLOSED.ordinal());
+        }
+    }
+
+    private void open(int from) {
+        if (state.compareAndSet(from, State.OPEN.ordinal())) {
+            openedAt.set(System.currentTimeMillis());
+            openCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Bucket of the second, cleared first if it still holds an older second
+     */
+    private int bucket(long second) {
+        int index = (int) (second % buckets);
+        long stamp = bucketSecond.get(index);
+        if (stamp != second && bucketSecond.compareAndSet(index, stamp, second)) {
+            counts.set(index * 3 + CALLS, 0);
+            counts.set(index * 3 + FAILURES, 0);
+            counts.set(index * 3 + SLOW, 0);
+        }
+        return index;
+    }
+
+    private void reset() {
+        for (int i = 0; i < buckets; i++) {
+            bucketSecond.set(i, 0);
+            counts.set(i * 3 + CALLS, 0);
+            counts.set(i * 3 + FAILURES, 0);
+            counts.set(i * 3 + SLOW, 0);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.wiseasy.openapi.resilience;
+
+import com.wiseasy.openapi.metrics.NanoHistogram;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @Description: Hedges slow read-only calls: when the first attempt has not answered within a percentile of the
+ * recent latency of its method, a second attempt is sent and the first response wins, the other attempt is cancelled.
+ * A failed attempt does not win while the other one may still answer. Hedges are capped to a share of the requests
+ * by a budget of their own, so that a slow gateway does not get twice the load
+ */
+public class Hedging {
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "openapi-hedge-scheduler");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private Log log = LogFactory.getLog(this.getClass());
+
+    private final HedgingConfig config;
+
+    private final RetryBudget hedgeBudget;
+
+    private final ConcurrentHashMap<String, NanoHistogram> latencies = new ConcurrentHashMap<>();
+
+    private final HedgingStats stats;
+
+    public Hedging(HedgingConfig config) {
+        this.config = config;
+        this.hedgeBudget = new RetryBudget(config.getMaxHedgeRatio(), 0);
+        this.stats = new HedgingStats(this);
+    }
+
+    public HedgingConfig getConfig() {
+        return config;
+    }
+
+    public HedgingStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Whether calls of the method are hedged
+     */
+    public boolean isHedged(String method) {
+        return config.getMethods() != null && config.getMethods().contains(method);
+    }
+
+    /**
+     * Current delay before a call of the method is hedged, in milliseconds
+     */
+    public long delayMillis(String method) {
+        NanoHistogram histogram = latencies.get(method);
+        if (histogram == null || histogram.getCount() < config.getMinSamples()) {
+            return config.getInitialDelayMillis();
+        }
+        long delay = TimeUnit.NANOSECONDS.toMillis(histogram.percentile(config.getDelayPercentile()));
+        return Math.max(config.getMinDelayMillis(), Math.min(config.getMaxDelayMillis(), delay));
+    }
+
+    /**
+     * Make a hedged call
+     * @param method API method, selects the latency the delay is derived from
+     * @param attempt Starts the first attempt (hedge false) or the second one (hedge true)
+     */
+    public <T> CompletableFuture<T> executeAsync(String method, Attempt<T> attempt) {
+        final NanoHistogram histogram = latencies.computeIfAbsent(method, m -> new NanoHistogram(config.getSampleWindow()));
+        stats.increment(method, HedgingStats.REQUESTS);
+        hedgeBudget.onRequest();
+
+        final Race<T> race = new Race<>();
+        final long start = System.nanoTime();
+        final CompletableFuture<T> first = race.start(attempt, false);
+        if (first == null) {
+            return race.result;
+        }
+        first.whenComplete((r, e) -> {
+            // The latency of the first attempt only: it is the one the delay applies to.
+            // If the hedge won, the first attempt took at least until then
+            if (e == null || first.isCancelled()) {
+                histogram.record(System.nanoTime() - start);
+            }
+        });
+        final ScheduledFuture<?> timer = SCHEDULER.schedule(() -> hedge(method, attempt, race),
+                delayMillis(method), TimeUnit.MILLISECONDS);
+        race.result.whenComplete((r, e) -> {
+            timer.cancel(false);
+            race.cancelAll();
+        });
+        return race.result;
+    }
+
+    private <T> void hedge(String method, Attempt<T> attempt, Race<T> race) {
+        if (race.result.isDone()) {
+            return;
+        }
+        if (!hedgeBudget.tryRetry()) {
+            stats.increment(method, HedgingStats.HEDGES_BUDGET_EXHAUSTED);
+            return;
+        }
+        if (race.start(attempt, true) != null) {
+            stats.increment(method, HedgingStats.HEDGES);
+            race.result.thenRun(() -> {
+                if (race.hedgeWon) {
+                    stats.increment(method, HedgingStats.HEDGE_WINS);
+                }
+            });
+            log.info("Call of " + method + " hedged after " + delayMillis(method) + "ms");
+        }
+    }
+
+    /**
+     * The attempts of one call, the first response completes the result
+     */
+    private static final class Race<T> {
+
+        final CompletableFuture<T> result = new CompletableFuture<>();
+
+        // Guarded by this
+        private final List<CompletableFuture<T>> attempts = new ArrayList<>(2);
+
+        private int pending;
+
+        private final AtomicBoolean answered = new AtomicBoolean();
+
+        // Whether the hedge won, set before the result completes
+        volatile boolean hedgeWon;
+
+        /**
+         * @return null if the call is already over
+         */
+        CompletableFuture<T> start(Attempt<T> attempt, boolean hedge) {
+            synchronized (this) {
+                if (result.isDone() || (hedge && pending == 0)) {
+                    return null;
+                }
+                pending++;
+            }
+            CompletableFuture<T> current;
+            try {
+                current = attempt.start(hedge);
+            } catch (RuntimeException e) {
+                current = new CompletableFuture<>();
+                current.completeExceptionally(e);
+            }
+            synchronized (this) {
+                attempts.add(current);
+            }
+            if (result.isDone()) {
+                current.cancel(false);
+            }
+            current.whenComplete((r, e) -> {
+                if (e == null) {
+                    if (answered.compareAndSet(false, true)) {
+                        hedgeWon = hedge;
+                        result.complete(r);
+                    }
+                    return;
+                }
+                boolean last;
+                synchronized (this) {
+                    last = --pending == 0;
+                }
+                // Wait for the other attempt unless this was the last one in flight
+                if (last) {
+                    result.completeExceptionally(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+                }
+            });
+            return current;
+        }
+
+        void cancelAll() {
+            List<CompletableFuture<T>> started;
+            synchronized (this) {
+                started = new ArrayList<>(attempts);
+            }
+            for (CompletableFuture<T> attempt : started) {
+                attempt.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Starts one attempt of a hedged call
+     */
+    public interface Attempt<T> {
+        CompletableFuture<T> start(boolean hedge);
+    }
+}
@@ -0,0 +1,45 @@
+package com.wiseasy.openapi.resilience;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * @Description: Settings of request hedging, see {@code OpenApiClient.setHedging}
+ */
+@Getter
+@Setter
+@ToString
+public class HedgingConfig {
+
+    // Methods that are hedged. Only read-only methods may be listed: a hedged payment could be submitted twice
+    private Set<String> methods = new HashSet<>(Arrays.asList("order.query", "order.refund.query"));
+
+    // The second attempt is sent when the first has not answered within this percentile of the recent latency
+    private double delayPercentile = 95;
+
+    // Delay used until enough latencies have been recorded, in milliseconds
+    private long initialDelayMillis = 500;
+
+    // Latencies of a method needed before its percentile is used
+    private int minSamples = 50;
+
+    // Bounds of the delay, in milliseconds
+    private long minDelayMillis = 10;
+
+    private long maxDelayMillis = 2000;
+
+    // Latencies per method after which the older ones are halved, see NanoHistogram
+    private long sampleWindow = 10000;
+
+    // Hedges allowed per request made, across all methods, e.g. 0.05 for one hedge every twenty requests
+    private double maxHedgeRatio = 0.05;
+
+    // Whether the second attempt avoids the gateway of the first one, in the multi-gateway mode
+    private boolean otherGateway = true;
+
+}
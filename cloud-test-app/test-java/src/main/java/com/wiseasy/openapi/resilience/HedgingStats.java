@@ -0,0 +1,97 @@
+package com.wiseasy.openapi.resilience;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @Description: Counters of request hedging by API method, readable as a map or as Prometheus text exposition format
+ */
+public class HedgingStats {
+
+    public static final String REQUESTS = "hedged_requests";
+
+    public static final String HEDGES = "hedges";
+
+    public static final String HEDGE_WINS = "hedge_wins";
+
+    public static final String HEDGES_BUDGET_EXHAUSTED = "hedges_budget_exhausted";
+
+    private static final String[] COUNTERS = {REQUESTS, HEDGES, HEDGE_WINS, HEDGES_BUDGET_EXHAUSTED};
+
+    private final ConcurrentHashMap<String, LongAdder[]> byMethod = new ConcurrentHashMap<>();
+
+    private final Hedging hedging;
+
+    HedgingStats(Hedging hedging) {
+        this.hedging = hedging;
+    }
+
+    void increment(String method, String counter) {
+        byMethod.computeIfAbsent(method, m -> {
+            LongAdder[] created = new LongAdder[COUNTERS.length];
+            for (int i = 0; i < created.length; i++) {
+                created[i] = new LongAdder();
+            }
+            return created;
+        })[indexOf(counter)].increment();
+    }
+
+    /**
+     * Value of a counter of a method, e.g. get("order.query", HedgingStats.HEDGES)
+     */
+    public long get(String method, String counter) {
+        LongAdder[] counters = byMethod.get(method);
+        return counters == null ? 0 : counters[indexOf(counter)].sum();
+    }
+
+    /**
+     * Every counter by method, then by counter name
+     */
+    public Map<String, Map<String, Long>> snapshot() {
+        Map<String, Map<String, Long>> snapshot = new TreeMap<>();
+        for (Map.Entry<String, LongAdder[]> entry : byMethod.entrySet()) {
+            Map<String, Long> values = new TreeMap<>();
+            for (int i = 0; i < COUNTERS.length; i++) {
+                values.put(COUNTERS[i], entry.getValue()[i].sum());
+            }
+            snapshot.put(entry.getKey(), values);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Counters and current hedge delays in Prometheus text exposition format
+     */
+    public String toText() {
+        StringBuilder sb = new StringBuilder();
+        Map<String, Map<String, Long>> snapshot = snapshot();
+        for (String counter : COUNTERS) {
+            String name = "openapi_" + counter + "_total";
+            sb.append("# TYPE ").append(name).append(" counter\n");
+            for (Map.Entry<String, Map<String, Long>> entry : snapshot.entrySet()) {
+                sb.append(name).append("{method=\"").append(entry.getKey()).append("\"} ").append(entry.getValue().get(counter)).append('\n');
+            }
+        }
+        sb.append("# TYPE openapi_hedge_delay_millis gauge\n");
+        for (String method : snapshot.keySet()) {
+            sb.append("openapi_hedge_delay_millis{method=\"").append(method).append("\"} ").append(hedging.delayMillis(method)).append('\n');
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "HedgingStats" + snapshot();
+    }
+
+    private static int indexOf(String counter) {
+        for (int i = 0; i < COUNTERS.length; i++) {
+            if (COUNTERS[i].equals(counter)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown counter [" + counter + "]");
+    }
+}
@@ -0,0 +1,182 @@
+package com.wiseasy.openapi.resilience;
+
+import com.wiseasy.openapi.OpenApiException;
+import com.wiseasy.openapi.utils.Constants;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * @Description: Runs gateway calls through the circuit breaker and retries them by the policy of their method
+ * within the retry budget. Only requests that got no response (CLI003) count as failures and are retried:
+ * a response with an error code shows the gateway is up, retrying it would not help
+ */
+public class Resilience {
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "openapi-retry-scheduler");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private Log log = LogFactory.getLog(this.getClass());
+
+    private final ResilienceConfig config;
+
+    private final CircuitBreaker circuitBreaker;
+
+    private final RetryBudget retryBudget;
+
+    private final ResilienceStats stats;
+
+    public Resilience(ResilienceConfig config) {
+        this.config = config;
+        this.circuitBreaker = config.isCircuitBreakerEnabled() ? new CircuitBreaker(config) : null;
+        this.retryBudget = new RetryBudget(config.getRetryBudgetRatio(), config.getMinRetriesPerSecond());
+        this.stats = new ResilienceStats(circuitBreaker, retryBudget);
+    }
+
+    public ResilienceStats getStats() {
+        return stats;
+    }
+
+    /**
+     * @return null if the breaker is disabled
+     */
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public RetryBudget getRetryBudget() {
+        return retryBudget;
+    }
+
+    /**
+     * Make a blocking call
+     * @param method API method, selects the retry policy
+     * @param call One attempt
+     */
+    public <T> T execute(String method, Call<T> call) throws OpenApiException {
+        RetryPolicy policy = config.getRetryPolicies().get(method);
+        stats.increment(method, ResilienceStats.REQUESTS);
+        retryBudget.onRequest();
+        for (int attempt = 1; ; attempt++) {
+            acquire(method);
+            long start = System.currentTimeMillis();
+            try {
+                T result = call.call();
+                onResult(false, start);
+                return result;
+            } catch (OpenApiException e) {
+                boolean failed = Constants.REQUEST_SERVER_FAILED.equals(e.getErrCode());
+                onResult(failed, start);
+                if (!failed || !canRetry(method, policy, attempt)) {
+                    throw e;
+                }
+            } catch (RuntimeException e) {
+                onResult(false, start);
+                throw e;
+            }
+            try {
+                Thread.sleep(policy.backoff(attempt));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new OpenApiException(Constants.REQUEST_SERVER_FAILED, "Interrupted before retry");
+            }
+        }
+    }
+
+    /**
+     * Make a non-blocking call, retries are scheduled after the backoff without holding a thread
+     * @param method API method, selects the retry policy
+     * @param call Starts one attempt
+     */
+    public <T> CompletableFuture<T> executeAsync(String method, Supplier<CompletableFuture<T>> call) {
+        stats.increment(method, ResilienceStats.REQUESTS);
+        retryBudget.onRequest();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        attemptAsync(method, config.getRetryPolicies().get(method), call, result, 1);
+        return result;
+    }
+
+    private <T> void attemptAsync(final String method, final RetryPolicy policy, final Supplier<CompletableFuture<T>> call,
+                                  final CompletableFuture<T> result, final int attempt) {
+        if (result.isDone()) {
+            return;
+        }
+        try {
+            acquire(method);
+        } catch (OpenApiException e) {
+            result.completeExceptionally(e);
+            return;
+        }
+        final long start = System.currentTimeMillis();
+        final CompletableFuture<T> current;
+        try {
+            current = call.get();
+        } catch (RuntimeException e) {
+            onResult(false, start);
+            result.completeExceptionally(e);
+            return;
+        }
+        result.whenComplete((r, e) -> {
+            if (result.isCancelled()) {
+                current.cancel(false);
+            }
+        });
+        current.whenComplete((r, e) -> {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            boolean failed = cause instanceof OpenApiException
+                    && Constants.REQUEST_SERVER_FAILED.equals(((OpenApiException) cause).getErrCode());
+            onResult(failed, start);
+            if (cause == null) {
+                result.complete(r);
+            } else if (failed && !result.isDone() && canRetry(method, policy, attempt)) {
+                SCHEDULER.schedule(() -> attemptAsync(method, policy, call, result, attempt + 1),
+                        policy.backoff(attempt), TimeUnit.MILLISECONDS);
+            } else {
+                result.completeExceptionally(cause);
+            }
+        });
+    }
+
+    private void acquire(String method) throws OpenApiException {
+        if (circuitBreaker != null && !circuitBreaker.tryAcquire()) {
+            stats.increment(method, ResilienceStats.REJECTED_CIRCUIT_OPEN);
+            throw new OpenApiException(Constants.CIRCUIT_OPEN, "Gateway is failing, call rejected by the circuit breaker");
+        }
+    }
+
+    private void onResult(boolean failed, long start) {
+        if (circuitBreaker != null) {
+            circuitBreaker.onResult(failed, System.currentTimeMillis() - start);
+        }
+    }
+
+    private boolean canRetry(String method, RetryPolicy policy, int attempt) {
+        stats.increment(method, ResilienceStats.FAILURES);
+        if (policy == null || attempt >= policy.getMaxAttempts()) {
+            return false;
+        }
+        if (!retryBudget.tryRetry()) {
+            stats.increment(method, ResilienceStats.RETRIES_BUDGET_EXHAUSTED);
+            log.warn("Retry budget exhausted, " + method + " is not retried");
+            return false;
+        }
+        stats.increment(method, ResilienceStats.RETRIES);
+        return true;
+    }
+
+    /**
+     * One attempt of a blocking call
+     */
+    public interface Call<T> {
+        T call() throws OpenApiException;
+    }
+}
@@ -0,0 +1,61 @@
+package com.wiseasy.openapi.resilience;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @Description: Retry policies, retry budget and circuit breaker settings of a client,
+ * see {@code OpenApiClient.setResilience}
+ */
+@Getter
+@Setter
+@ToString
+public class ResilienceConfig {
+
+    // Retry policy by API method. Only read-only methods are listed by default: retrying a payment or a refund
+    // whose response was lost could submit it twice
+    private Map<String, RetryPolicy> retryPolicies = defaultRetryPolicies();
+
+    // Retries allowed per request made, across all methods, e.g. 0.1 for one retry every ten requests
+    private double retryBudgetRatio = 0.1;
+
+    // Retries allowed per second whatever the traffic, so that a quiet client can still retry
+    private int minRetriesPerSecond = 10;
+
+    // Whether the circuit breaker is enabled
+    private boolean circuitBreakerEnabled = true;
+
+    // Length of the sliding window the failure and slow call rates are computed over, in seconds
+    private int windowSeconds = 10;
+
+    // Calls needed in the window before the breaker can open
+    private int minimumCalls = 20;
+
+    // Failure rate (failed requests / calls) in percent that opens the breaker
+    private int failureRateThreshold = 50;
+
+    // A call slower than this counts as slow, in milliseconds
+    private long slowCallMillis = 5000;
+
+    // Slow call rate in percent that opens the breaker
+    private int slowCallRateThreshold = 80;
+
+    // How long the breaker stays open before letting trial calls through, in milliseconds
+    private long openMillis = 10000;
+
+    // Trial calls let through while half open, all must succeed to close the breaker
+    private int halfOpenCalls = 5;
+
+    private static Map<String, RetryPolicy> defaultRetryPolicies() {
+        Map<String, RetryPolicy> policies = new HashMap<>();
+        for (String method : new String[]{"order.query", "order.refund.query", "merchant.query",
+                "auto.debit.sign.query", "customs.declaration.query"}) {
+            policies.put(method, new RetryPolicy());
+        }
+        return policies;
+    }
+}
@@ -0,0 +1,112 @@
+package com.wiseasy.openapi.resilience;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @Description: Counters of the retry and circuit breaker layer by API method, readable as a map or as
+ * Prometheus text exposition format for scraping
+ */
+public class ResilienceStats {
+
+    public static final String REQUESTS = "requests";
+
+    public static final String FAILURES = "failures";
+
+    public static final String RETRIES = "retries";
+
+    public static final String RETRIES_BUDGET_EXHAUSTED = "retries_budget_exhausted";
+
+    public static final String REJECTED_CIRCUIT_OPEN = "rejected_circuit_open";
+
+    private static final String[] COUNTERS = {REQUESTS, FAILURES, RETRIES, RETRIES_BUDGET_EXHAUSTED, REJECTED_CIRCUIT_OPEN};
+
+    private final ConcurrentHashMap<String, LongAdder[]> byMethod = new ConcurrentHashMap<>();
+
+    private final CircuitBreaker circuitBreaker;
+
+    private final RetryBudget retryBudget;
+
+    ResilienceStats(CircuitBreaker circuitBreaker, RetryBudget retryBudget) {
+        this.circuitBreaker = circuitBreaker;
+        this.retryBudget = retryBudget;
+    }
+
+    void increment(String method, String counter) {
+        LongAdder[] counters = byMethod.get(method);
+        if (counters == null) {
+            LongAdder[] created = new LongAdder[COUNTERS.length];
+            for (int i = 0; i < created.length; i++) {
+                created[i] = new LongAdder();
+            }
+            counters = byMethod.putIfAbsent(method, created);
+            if (counters == null) {
+                counters = created;
+            }
+        }
+        counters[indexOf(counter)].increment();
+    }
+
+    /**
+     * Value of a counter of a method, e.g. get("order.query", ResilienceStats.RETRIES)
+     */
+    public long get(String method, String counter) {
+        LongAdder[] counters = byMethod.get(method);
+        return counters == null ? 0 : counters[indexOf(counter)].sum();
+    }
+
+    /**
+     * Every counter by method, then by counter name
+     */
+    public Map<String, Map<String, Long>> snapshot() {
+        Map<String, Map<String, Long>> snapshot = new TreeMap<>();
+        for (Map.Entry<String, LongAdder[]> entry : byMethod.entrySet()) {
+            Map<String, Long> values = new TreeMap<>();
+            for (int i = 0; i < COUNTERS.length; i++) {
+                values.put(COUNTERS[i], entry.getValue()[i].sum());
+            }
+            snapshot.put(entry.getKey(), values);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Counters in Prometheus text exposition format
+     */
+    public String toText() {
+        StringBuilder sb = new StringBuilder();
+        Map<String, Map<String, Long>> snapshot = snapshot();
+        for (String counter : COUNTERS) {
+            String name = "openapi_" + counter + "_total";
+            sb.append("# TYPE ").append(name).append(" counter\n");
+            for (Map.Entry<String, Map<String, Long>> entry : snapshot.entrySet()) {
+                sb.append(name).append("{method=\"").append(entry.getKey()).append("\"} ").append(entry.getValue().get(counter)).append('\n');
+            }
+        }
+        if (circuitBreaker != null) {
+            sb.append("# TYPE openapi_circuit_state gauge\n");
+            sb.append("openapi_circuit_state ").append(circuitBreaker.getState().ordinal()).append('\n');
+            sb.append("# TYPE openapi_circuit_opened_total counter\n");
+            sb.append("openapi_circuit_opened_total ").append(circuitBreaker.getOpenCount()).append('\n');
+        }
+        sb.append("# TYPE openapi_retry_budget_available gauge\n");
+        sb.append("openapi_retry_budget_available ").append(retryBudget.available()).append('\n');
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "ResilienceStats" + snapshot();
+    }
+
+    private static int indexOf(String counter) {
+        for (int i = 0; i < COUNTERS.length; i++) {
+            if (COUNTERS[i].equals(counter)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown counter [" + counter + "]");
+    }
+}
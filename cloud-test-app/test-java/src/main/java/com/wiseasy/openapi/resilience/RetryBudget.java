@@ -0,0 +1,86 @@
+package com.wiseasy.openapi.resilience;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @Description: Caps retries to a fraction of the requests, so that retries cannot multiply the load on a failing
+ * gateway. Every request deposits the ratio, every retry withdraws one; a small reserve is refilled over time.
+ * Lock-free, amounts are kept in thousandths
+ */
+public class RetryBudget {
+
+    private static final long UNIT = 1000;
+
+    private final long deposit;
+
+    private final long refillPerSecond;
+
+    // Upper bound of the balance: ten seconds worth of reserve, at least 10 retries
+    private final long maxBalance;
+
+    private final AtomicLong balance;
+
+    private final AtomicLong lastRefill;
+
+    public RetryBudget(double ratio, int minRetriesPerSecond) {
+        this.deposit = (long) (ratio * UNIT);
+        this.refillPerSecond = Math.max(0, minRetriesPerSecond) * UNIT;
+        this.maxBalance = Math.max(10 * UNIT, refillPerSecond * 10);
+        this.balance = new AtomicLong(refillPerSecond);
+        this.lastRefill = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Record a request (first attempts only)
+     */
+    public void onRequest() {
+        add(deposit);
+    }
+
+    /**
+     * Withdraw one retry
+     * @return false if the budget is exhausted, the retry must not be made
+     */
+    public boolean tryRetry() {
+        refill();
+        while (true) {
+            long current = balance.get();
+            if (current < UNIT) {
+                return false;
+            }
+            if (balance.compareAndSet(current, current - UNIT)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Retries currently available
+     */
+    public long available() {
+        refill();
+        return balance.get() / UNIT;
+    }
+
+    private void refill() {
+        if (refillPerSecond == 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        long last = lastRefill.get();
+        long elapsedMillis = (now - last) / 1000000;
+        if (elapsedMillis >= 10 && lastRefill.compareAndSet(last, now)) {
+            add(refillPerSecond * elapsedMillis / 1000);
+        }
+    }
+
+    private void add(long amount) {
+        while (true) {
+            long current = balance.get();
+            long next = Math.min(maxBalance, current + amount);
+            if (next == current || balance.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+}
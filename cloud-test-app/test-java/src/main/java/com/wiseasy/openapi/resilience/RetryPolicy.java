@@ -0,0 +1,45 @@
+package com.wiseasy.openapi.resilience;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * @Description: How a method is retried after a failed request: attempts and exponential backoff with jitter.
+ * Only requests that failed before a response was received (CLI003) are retried
+ */
+@Getter
+@Setter
+@ToString
+public class RetryPolicy {
+
+    // Attempts including the first one, 1 disables retries
+    private int maxAttempts = 3;
+
+    // Wait before the first retry, doubled for every further retry, in milliseconds
+    private long backoffMillis = 100;
+
+    // Upper bound of the wait between two attempts, in milliseconds
+    private long maxBackoffMillis = 2000;
+
+    public RetryPolicy() {
+    }
+
+    public RetryPolicy(int maxAttempts, long backoffMillis) {
+        this.maxAttempts = maxAttempts;
+        this.backoffMillis = backoffMillis;
+    }
+
+    /**
+     * Wait before the given retry, full jitter between half and all of the exponential backoff
+     * @param retry 1 for the first retry
+     * @return
+     */
+    long backoff(int retry) {
+        long max = Math.min(maxBackoffMillis, backoffMillis << Math.min(retry - 1, 20));
+        if (max <= 0) {
+            return 0;
+        }
+        return max / 2 + (long) (Math.random() * (max / 2 + 1));
+    }
+}
@@ -0,0 +1,208 @@
+package com.wiseasy.openapi.response;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.alibaba.fastjson.parser.ParserConfig;
+import com.alibaba.fastjson.util.TypeUtils;
+import com.wiseasy.openapi.OpenApiException;
+import com.wiseasy.openapi.metrics.CallMetrics;
+import com.wiseasy.openapi.metrics.Phase;
+import com.wiseasy.openapi.sign.RSAKeyHolder;
+import com.wiseasy.openapi.sign.SignHandler;
+import com.wiseasy.openapi.utils.Constants;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @Description: Decodes a gateway response in one pass: the envelope is parsed once, the string to verify is
+ * streamed from that parsed tree into the signature engine, and the envelope and its 'data' object are bound directly
+ * into the response object through per-class field binders. Produces the same object as merging 'data' into the
+ * envelope and calling JSON.toJavaObject
+ */
+public final class ResponseDecoder {
+
+    private static final ClassValue<Binders> BINDERS = new ClassValue<Binders>() {
+        @Override
+        protected Binders computeValue(Class<?> type) {
+            return new Binders(type);
+        }
+    };
+
+    private ResponseDecoder() {
+    }
+
+    /**
+     * Verify the response signature and convert the returned JSON to OpenApiResponse
+     *
+     * @param resultStr Response body
+     * @param responseClass Type of the response object
+     * @param keys Gateway public key used to verify the signature
+     * @return Response object
+     * @throws OpenApiException
+     */
+    public static <T extends OpenApiResponse> T decode(String resultStr, Class<T> responseClass, RSAKeyHolder keys) throws OpenApiException {
+        return decode(resultStr, responseClass, keys, CallMetrics.DISABLED);
+    }
+
+    /**
+     * Verify the response signature and convert the returned JSON to OpenApiResponse, timing the parse and verify phases
+     *
+     * @param metrics Timings of the call
+     */
+    public static <T extends OpenApiResponse> T decode(String resultStr, Class<T> responseClass, RSAKeyHolder keys, CallMetrics metrics) throws OpenApiException {
+        long mark = metrics.mark();
+        JSONObject resultJson = JSON.parseObject(resultStr);
+        metrics.stop(Phase.PARSE, mark);
+
+        // Verify signature
+        mark = metrics.mark();
+        boolean verified = SignHandler.verifySign(keys, resultJson);
+        metrics.stop(Phase.VERIFY, mark);
+        if (!verified) {
+            throw new OpenApiException(Constants.VERIFY_SIGNATURE_FAILED, "Response data signature error");
+        }
+        mark = metrics.mark();
+        T resp = bind(resultJson, responseClass);
+        metrics.stop(Phase.PARSE, mark);
+        return resp;
+    }
+
+    /**
+     * Bind a parsed response into the response object, fields of 'data' take precedence over the envelope
+     *
+     * @param resultJson Parsed response body
+     * @param responseClass Type of the response object
+     * @return Response object
+     */
+    public static <T extends OpenApiResponse> T bind(JSONObject resultJson, Class<T> responseClass) {
+        Binders binders = BINDERS.get(responseClass);
+        T resp;
+        try {
+            resp = responseClass.newInstance();
+        } catch (Exception e) {
+            throw new IllegalStateException("Create response object [" + responseClass.getName() + "] fail", e);
+        }
+        if (resultJson == null) {
+            return resp;
+        }
+
+        Object data = null;
+        for (Map.Entry<String, Object> entry : resultJson.entrySet()) {
+            if (Constants.DATA.equals(entry.getKey())) {
+                data = entry.getValue();
+            } else {
+                binders.bind(resp, entry.getKey(), entry.getValue());
+            }
+        }
+        if (data instanceof String) {
+            data = JSON.parseObject((String) data);
+        }
+        if (data instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) data).entrySet()) {
+                binders.bind(resp, String.valueOf(entry.getKey()), entry.getValue());
+            }
+        }
+        return resp;
+    }
+
+    /**
+     * Property binders of one response type, looked up by JSON key
+     */
+    private static final class Binders {
+
+        private final Map<String, FieldBinder> byName = new HashMap<>();
+
+        // Fallback as fastjson's smart match: case-insensitive, ignoring '_' and '-'
+        private final Map<String, FieldBinder> byNormalizedName = new HashMap<>();
+
+        Binders(Class<?> type) {
+            for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    int modifiers = field.getModifiers();
+                    if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || Modifier.isFinal(modifiers)
+                            || field.isSynthetic() || byName.containsKey(field.getName())) {
+                        continue;
+                    }
+                    FieldBinder binder = new FieldBinder(field, findSetter(c, field));
+                    byName.put(field.getName(), binder);
+                    String normalized = normalize(field.getName());
+                    if (!byNormalizedName.containsKey(normalized)) {
+                        byNormalizedName.put(normalized, binder);
+                    }
+                }
+            }
+        }
+
+        void bind(Object bean, String key, Object value) {
+            FieldBinder binder = byName.get(key);
+            if (binder == null) {
+                binder = byNormalizedName.get(normalize(key));
+            }
+            if (binder != null) {
+                binder.set(bean, value);
+            }
+        }
+
+        private static String normalize(String name) {
+            StringBuilder sb = new StringBuilder(name.length());
+            for (int i = 0; i < name.length(); i++) {
+                char c = name.charAt(i);
+                if (c != '_' && c != '-') {
+                    sb.append(Character.toLowerCase(c));
+                }
+            }
+            return sb.toString();
+        }
+
+        private static Method findSetter(Class<?> c, Field field) {
+            String name = field.getName();
+            try {
+                return c.getMethod("set" + Character.toUpperCase(name.charAt(0)) + name.substring(1), field.getType());
+            } catch (NoSuchMethodException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Converts a JSON value to the declared (possibly generic) type of one property and sets it
+     */
+    private static final class FieldBinder {
+
+        private final Field field;
+
+        private final Method setter;
+
+        private final Type type;
+
+        FieldBinder(Field field, Method setter) {
+            this.field = field;
+            this.setter = setter;
+            this.type = field.getGenericType();
+            if (setter == null) {
+                field.setAccessible(true);
+            }
+        }
+
+        void set(Object bean, Object value) {
+            Object converted = value == null ? null : TypeUtils.cast(value, type, ParserConfig.getGlobalInstance());
+            if (converted == null && field.getType().isPrimitive()) {
+                return;
+            }
+            try {
+                if (setter != null) {
+                    setter.invoke(bean, converted);
+                } else {
+                    field.set(bean, converted);
+                }
+            } catch (Exception e) {
+                throw new IllegalStateException("Set response property [" + field.getName() + "] fail", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.wiseasy.openapi.routing;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @Description: One gateway address and its passive health data: average latency and error rate (EWMA),
+ * requests in flight, consecutive failures and ejection state. Updated lock-free by the router
+ */
+public class GatewayEndpoint {
+
+    private final String url;
+
+    // Doubles stored as raw long bits so that they can be updated with compare-and-set, NaN until the first sample
+    private final AtomicLong latencyMillis = new AtomicLong(Double.doubleToRawLongBits(Double.NaN));
+
+    private final AtomicLong errorRate = new AtomicLong(Double.doubleToRawLongBits(Double.NaN));
+
+    final AtomicLong samples = new AtomicLong();
+
+    final AtomicInteger inFlight = new AtomicInteger();
+
+    final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    final AtomicInteger consecutiveSuccesses = new AtomicInteger();
+
+    // Ejections in a row, the next ejection lasts longer
+    final AtomicInteger ejections = new AtomicInteger();
+
+    final AtomicLong ejectedUntil = new AtomicLong();
+
+    GatewayEndpoint(String url) {
+        this.url = url;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Average latency of the successful requests, in milliseconds
+     */
+    public double getLatencyMillis() {
+        return valueOf(latencyMillis);
+    }
+
+    /**
+     * Average share of failed requests, between 0 and 1
+     */
+    public double getErrorRate() {
+        return valueOf(errorRate);
+    }
+
+    public long getSamples() {
+        return samples.get();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public boolean isEjected() {
+        return isEjected(System.currentTimeMillis());
+    }
+
+    boolean isEjected(long now) {
+        return ejectedUntil.get() > now;
+    }
+
+    /**
+     * Lower is better: the expected latency, penalized by the load in flight and by the error rate
+     */
+    double score() {
+        double latency = getLatencyMillis();
+        return (latency + 1) * (1 + inFlight.get()) / Math.max(0.05, 1 - getErrorRate());
+    }
+
+    void recordLatency(double alpha, double millis) {
+        update(latencyMillis, alpha, millis);
+    }
+
+    void recordError(double alpha, boolean failed) {
+        update(errorRate, alpha, failed ? 1 : 0);
+    }
+
+    void resetErrorRate() {
+        errorRate.set(Double.doubleToRawLongBits(0));
+    }
+
+    private void update(AtomicLong average, double alpha, double sample) {
+        while (true) {
+            long bits = average.get();
+            double current = Double.longBitsToDouble(bits);
+            // The first sample of this average replaces the initial value, whatever was recorded in the other one
+            double next = Double.isNaN(current) ? sample : current + alpha * (sample - current);
+            if (average.compareAndSet(bits, Double.doubleToRawLongBits(next))) {
+                return;
+            }
+        }
+    }
+
+    private static double valueOf(AtomicLong average) {
+        double value = Double.longBitsToDouble(average.get());
+        return Double.isNaN(value) ? 0 : value;
+    }
+
+    @Override
+    public String toString() {
+        return "GatewayEndpoint(url=" + url + ", latencyMillis=" + String.format("%.1f", getLatencyMillis())
+                + ", errorRate=" + String.format("%.3f", getErrorRate()) + ", samples=" + getSamples()
+                + ", inFlight=" + getInFlight() + ", ejected=" + isEjected() + ")";
+    }
+}
@@ -0,0 +1,163 @@
+package com.wiseasy.openapi.routing;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * @Description: Routes each request to the healthiest gateway, from passive health data only: the latency and
+ * outcome of the requests themselves, no probing. A gateway failing repeatedly (or with a high error rate) is ejected
+ * for a while and re-admitted afterwards with a clean error rate; repeated ejections last longer.
+ * Usage: select() before the request, then exactly one of onSuccess, onFailure or onCancelled
+ */
+public class GatewayRouter {
+
+    private Log log = LogFactory.getLog(this.getClass());
+
+    private final GatewayRoutingConfig config;
+
+    private final List<GatewayEndpoint> endpoints;
+
+    public GatewayRouter(GatewayRoutingConfig config) {
+        if (config.getGatewayUrls() == null || config.getGatewayUrls().isEmpty()) {
+            throw new IllegalArgumentException("At least one gateway url is required");
+        }
+        this.config = config;
+        List<GatewayEndpoint> list = new ArrayList<>();
+        for (String url : config.getGatewayUrls()) {
+            list.add(new GatewayEndpoint(url));
+        }
+        this.endpoints = Collections.unmodifiableList(list);
+    }
+
+    public List<GatewayEndpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    /**
+     * Pick the gateway for a request and count it in flight
+     */
+    public GatewayEndpoint select() {
+        return select(null);
+    }
+
+    /**
+     * Pick the gateway for a request and count it in flight
+     * @param exclude Gateway to avoid if another one is healthy, e.g. the one a first attempt went to; may be null
+     */
+    public GatewayEndpoint select(GatewayEndpoint exclude) {
+        long now = System.currentTimeMillis();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        GatewayEndpoint best = null;
+        double bestScore = Double.MAX_VALUE;
+        int healthy = 0;
+        GatewayEndpoint explore = null;
+        for (GatewayEndpoint endpoint : endpoints) {
+            if (endpoint.isEjected(now) || endpoint == exclude) {
+                continue;
+            }
+            healthy++;
+            // Reservoir sampling of one random healthy gateway
+            if (random.nextInt(healthy) == 0) {
+                explore = endpoint;
+            }
+            double score = endpoint.score();
+            if (score < bestScore) {
+                best = endpoint;
+                bestScore = score;
+            }
+        }
+        GatewayEndpoint chosen;
+        if (best == null) {
+            // Nothing else is healthy: the excluded one if it is, else the one whose ejection ends first
+            chosen = exclude != null && !exclude.isEjected(now) ? exclude : soonestReadmitted();
+        } else if (healthy > 1 && random.nextDouble() < config.getExplorationRatio()) {
+            chosen = explore;
+        } else {
+            chosen = best;
+        }
+        chosen.inFlight.incrementAndGet();
+        return chosen;
+    }
+
+    /**
+     * The gateway answered
+     */
+    public void onSuccess(GatewayEndpoint endpoint, long elapsedMillis) {
+        endpoint.inFlight.decrementAndGet();
+        endpoint.samples.incrementAndGet();
+        endpoint.recordLatency(config.getEwmaAlpha(), elapsedMillis);
+        endpoint.recordError(config.getEwmaAlpha(), false);
+        endpoint.consecutiveFailures.set(0);
+        if (endpoint.consecutiveSuccesses.incrementAndGet() >= config.getEjectConsecutiveFailures()) {
+            endpoint.ejections.set(0);
+        }
+    }
+
+    /**
+     * The request got no answer
+     */
+    public void onFailure(GatewayEndpoint endpoint, long elapsedMillis) {
+        endpoint.inFlight.decrementAndGet();
+        endpoint.samples.incrementAndGet();
+        endpoint.recordError(config.getEwmaAlpha(), true);
+        endpoint.consecutiveSuccesses.set(0);
+        int failures = endpoint.consecutiveFailures.incrementAndGet();
+        boolean eject = failures >= config.getEjectConsecutiveFailures()
+                || (endpoint.getSamples() >= config.getMinSamples() && endpoint.getErrorRate() >= config.getEjectErrorRate());
+        if (eject) {
+            eject(endpoint);
+        }
+    }
+
+    /**
+     * The request was abandoned by the caller, it says nothing about the gateway
+     */
+    public void onCancelled(GatewayEndpoint endpoint) {
+        endpoint.inFlight.decrementAndGet();
+    }
+
+    private void eject(GatewayEndpoint endpoint) {
+        long now = System.currentTimeMillis();
+        if (endpoint.isEjected(now)) {
+            return;
+        }
+        int ejected = 0;
+        for (GatewayEndpoint e : endpoints) {
+            if (e.isEjected(now)) {
+                ejected++;
+            }
+        }
+        int maxEjected = Math.min(endpoints.size() - 1, endpoints.size() * config.getMaxEjectedPercent() / 100);
+        if (ejected >= maxEjected) {
+            return;
+        }
+        int times = Math.min(endpoint.ejections.incrementAndGet(), 20);
+        long duration = Math.min(config.getMaxEjectMillis(), config.getEjectMillis() << (times - 1));
+        if (duration <= 0) {
+            duration = config.getMaxEjectMillis();
+        }
+        long until = now + duration;
+        long current = endpoint.ejectedUntil.get();
+        if (current <= now && endpoint.ejectedUntil.compareAndSet(current, until)) {
+            // Re-admitted later on probation: a clean error rate, and one more failure in a row ejects it again
+            endpoint.resetErrorRate();
+            endpoint.consecutiveFailures.set(Math.max(0, config.getEjectConsecutiveFailures() - 1));
+            log.warn("Gateway [" + endpoint.getUrl() + "] ejected for " + duration + "ms: " + endpoint);
+        }
+    }
+
+    private GatewayEndpoint soonestReadmitted() {
+        GatewayEndpoint soonest = endpoints.get(0);
+        for (GatewayEndpoint endpoint : endpoints) {
+            if (endpoint.ejectedUntil.get() < soonest.ejectedUntil.get()) {
+                soonest = endpoint;
+            }
+        }
+        return soonest;
+    }
+}
@@ -0,0 +1,47 @@
+package com.wiseasy.openapi.routing;
+
+import com.wiseasy.openapi.utils.Constants;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @Description: Settings of the multi-gateway mode, see {@code OpenApiClient.setGatewayRouting}
+ */
+@Getter
+@Setter
+@ToString
+public class GatewayRoutingConfig {
+
+    // Gateway addresses requests are spread over
+    private List<String> gatewayUrls = new ArrayList<>(Arrays.asList(Constants.GATEWAY_URL, Constants.HK_GATEWAY_URL));
+
+    // Weight of the newest sample in the latency and error rate averages, between 0 and 1
+    private double ewmaAlpha = 0.2;
+
+    // Share of requests sent to a random healthy gateway instead of the best one, keeps the figures of the others fresh
+    private double explorationRatio = 0.05;
+
+    // Consecutive failed requests that eject a gateway
+    private int ejectConsecutiveFailures = 5;
+
+    // Average error rate that ejects a gateway, between 0 and 1
+    private double ejectErrorRate = 0.5;
+
+    // Requests a gateway must have served before its error rate can eject it
+    private int minSamples = 10;
+
+    // How long a gateway is ejected the first time, doubled for every ejection in a row, in milliseconds
+    private long ejectMillis = 30000;
+
+    // Upper bound of an ejection, in milliseconds
+    private long maxEjectMillis = 5 * 60 * 1000;
+
+    // Share of the gateways that may be ejected at the same time, at least one always stays
+    private int maxEjectedPercent = 50;
+
+}
@@ -0,0 +1,143 @@
+package com.wiseasy.openapi.sign;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * @Description: The string to sign of a parameter map: empty values and the 'sign' parameter are removed,
+ * the remaining parameters are sorted by key and written as "key=value" joined with "&", UTF-8 encoded.
+ * Keys are sorted once and the UTF-8 bytes are streamed through a small buffer, byte-identical to
+ * the String built by the original SignHandler implementation
+ */
+public final class CanonicalContent implements SignContent {
+
+    private static final int BUFFER_SIZE = 512;
+
+    private final String[] keys;
+
+    private final String[] values;
+
+    private final int size;
+
+    private CanonicalContent(String[] keys, String[] values, int size) {
+        this.keys = keys;
+        this.values = values;
+        this.size = size;
+    }
+
+    /**
+     * @param params Parameters to be signed, values are rendered with toString()
+     * @return
+     */
+    public static CanonicalContent of(Map<String, ?> params) {
+        if (params == null || params.isEmpty()) {
+            return new CanonicalContent(new String[0], new String[0], 0);
+        }
+        String[] keys = new String[params.size()];
+        int size = 0;
+        for (Map.Entry<String, ?> entry : params.entrySet()) {
+            String key = entry.getKey();
+            Object value = entry.getValue();
+            if (value == null || key.equalsIgnoreCase("sign")) {
+                continue;
+            }
+            keys[size++] = key;
+        }
+        Arrays.sort(keys, 0, size);
+
+        String[] values = new String[size];
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            String value = params.get(keys[i]).toString();
+            if (value.isEmpty()) {
+                continue;
+            }
+            keys[n] = keys[i];
+            values[n++] = value;
+        }
+        return new CanonicalContent(keys, values, n);
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        byte[] buf = new byte[BUFFER_SIZE];
+        int pos = 0;
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                pos = put(out, buf, pos, '&');
+            }
+            pos = encode(out, buf, pos, keys[i]);
+            pos = put(out, buf, pos, '=');
+            pos = encode(out, buf, pos, values[i]);
+        }
+        if (pos > 0) {
+            out.write(buf, 0, pos);
+        }
+    }
+
+    public byte[] toByteArray() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(BUFFER_SIZE);
+        try {
+            writeTo(out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public String toString() {
+        return new String(toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static int put(OutputStream out, byte[] buf, int pos, char ascii) throws IOException {
+        if (pos == buf.length) {
+            out.write(buf, 0, pos);
+            pos = 0;
+        }
+        buf[pos++] = (byte) ascii;
+        return pos;
+    }
+
+    /**
+     * UTF-8 encode, unpaired surrogates become '?' as String.getBytes("UTF-8") does
+     */
+    private static int encode(OutputStream out, byte[] buf, int pos, String s) throws IOException {
+        int len = s.length();
+        for (int i = 0; i < len; i++) {
+            // Worst case a character takes 4 bytes
+            if (pos > buf.length - 4) {
+                out.write(buf, 0, pos);
+                pos = 0;
+            }
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                buf[pos++] = (byte) c;
+            } else if (c < 0x800) {
+                buf[pos++] = (byte) (0xC0 | (c >> 6));
+                buf[pos++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                char low = i + 1 < len ? s.charAt(i + 1) : 0;
+                if (Character.isHighSurrogate(c) && Character.isLowSurrogate(low)) {
+                    int cp = Character.toCodePoint(c, low);
+                    buf[pos++] = (byte) (0xF0 | (cp >> 18));
+                    buf[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                    buf[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                    buf[pos++] = (byte) (0x80 | (cp & 0x3F));
+                    i++;
+                } else {
+                    buf[pos++] = (byte) '?';
+                }
+            } else {
+                buf[pos++] = (byte) (0xE0 | (c >> 12));
+                buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buf[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return pos;
+    }
+}
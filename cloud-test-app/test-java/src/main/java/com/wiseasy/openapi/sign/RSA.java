@@ -18,7 +18,7 @@ public class RSA {
 	private static final String  RSA = "RSA";
 
 	// Encryption Algorithm, Private key length 2048
-	private static final String  SIGN_ALGORITHMS = "SHA256WithRSA";
+	static final String  SIGN_ALGORITHMS = "SHA256WithRSA";
 	
 	/**
 	* RSA signature
@@ -29,9 +29,7 @@ public class RSA {
 	*/
 	public static String sign(String content, String privateKey, String charset) {
         try {
-        	PKCS8EncodedKeySpec priPKCS8 	= new PKCS8EncodedKeySpec( Base64.decode(privateKey) ); 
-        	KeyFactory keyf 				= KeyFactory.getInstance(RSA);
-        	PrivateKey priKey 				= keyf.generatePrivate(priPKCS8);
+        	PrivateKey priKey 				= parsePrivateKey(privateKey);
 
             java.security.Signature signature = java.security.Signature.getInstance(SIGN_ALGORITHMS);
 
@@ -58,9 +56,7 @@ public class RSA {
 	*/
 	public static boolean verify(String content, String sign, String publicKey, String charset) {
 		try {
-			KeyFactory keyFactory = KeyFactory.getInstance(RSA);
-	        byte[] encodedKey = Base64.decode(publicKey);
-	        PublicKey pubKey = keyFactory.generatePublic(new X509EncodedKeySpec(encodedKey));
+	        PublicKey pubKey = parsePublicKey(publicKey);
 
 			java.security.Signature signature = java.security.Signature
 			.getInstance(SIGN_ALGORITHMS);
@@ -74,4 +70,26 @@ public class RSA {
 		
 		return false;
 	}
+
+	/**
+	* Parse a Base64 encoded PKCS8 private key, prefer {@link RSAKeyHolder} which parses the key only once
+	* @param privateKey Private key
+	* @return
+	*/
+	public static PrivateKey parsePrivateKey(String privateKey) throws Exception {
+		PKCS8EncodedKeySpec priPKCS8 	= new PKCS8EncodedKeySpec( Base64.decode(privateKey) );
+		KeyFactory keyf 				= KeyFactory.getInstance(RSA);
+		return keyf.generatePrivate(priPKCS8);
+	}
+
+	/**
+	* Parse a Base64 encoded X509 public key, prefer {@link RSAKeyHolder} which parses the key only once
+	* @param publicKey Public key
+	* @return
+	*/
+	public static PublicKey parsePublicKey(String publicKey) throws Exception {
+		KeyFactory keyFactory = KeyFactory.getInstance(RSA);
+		byte[] encodedKey = Base64.decode(publicKey);
+		return keyFactory.generatePublic(new X509EncodedKeySpec(encodedKey));
+	}
 }
@@ -0,0 +1,264 @@
+package com.wiseasy.openapi.sign;
+
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @Description: Holds the application private key and the gateway public key, parsed once, together with pools of
+ * Signature objects that are already initialized with those keys. Thread-safe
+ */
+public class RSAKeyHolder {
+
+    // Upper bound of idle Signature objects kept per pool
+    static final int MAX_POOLED = 64;
+
+    private final PrivateKey privateKey;
+
+    private final PublicKey publicKey;
+
+    // Whether a public key was configured at all, response verification is skipped without one
+    private final boolean publicKeyConfigured;
+
+    private final SignaturePool signers;
+
+    private final SignaturePool verifiers;
+
+    /**
+     * Keys that cannot be parsed are kept as null, signing (or verifying) with them fails the same way
+     * {@link RSA#sign(String, String, String)} does, when the request is made
+     *
+     * @param privateKey Base64 PKCS8 private key, may be null
+     * @param publicKey Base64 X509 public key, may be null
+     */
+    public RSAKeyHolder(String privateKey, String publicKey) {
+        this.privateKey = parsePrivateKey(privateKey);
+        this.publicKey = parsePublicKey(publicKey);
+        this.publicKeyConfigured = publicKey != null && !publicKey.trim().isEmpty();
+        this.signers = new SignaturePool(true);
+        this.verifiers = new SignaturePool(false);
+    }
+
+    public PrivateKey getPrivateKey() {
+        return privateKey;
+    }
+
+    public PublicKey getPublicKey() {
+        return publicKey;
+    }
+
+    public boolean isPublicKeyConfigured() {
+        return publicKeyConfigured;
+    }
+
+    SignaturePool getSigners() {
+        return signers;
+    }
+
+    SignaturePool getVerifiers() {
+        return verifiers;
+    }
+
+    /**
+     * RSA signature
+     * @param content Data to be signed
+     * @return Raw signature bytes, null if the private key is invalid or signing fails
+     */
+    public byte[] sign(byte[] content) {
+        Signature signature = signers.borrow();
+        if (signature == null) {
+            return null;
+        }
+        try {
+            signature.update(content);
+            byte[] signed = signature.sign();
+            signers.release(signature);
+            return signed;
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * RSA signature
+     * @param content Data to be signed
+     * @param charset charset
+     * @return Signature string, null if the private key is invalid or signing fails
+     */
+    public String sign(String content, String charset) {
+        try {
+            byte[] signed = sign(content.getBytes(charset));
+            return signed == null ? null : Base64.encode(signed);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * RSA signature, the content is streamed into the signature engine
+     * @param content Data to be signed
+     * @return Raw signature bytes, null if the private key is invalid or signing fails
+     */
+    public byte[] sign(SignContent content) {
+        Signature signature = signers.borrow();
+        if (signature == null) {
+            return null;
+        }
+        try {
+            content.writeTo(new SignatureOutputStream(signature));
+            byte[] signed = signature.sign();
+            signers.release(signature);
+            return signed;
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Sign verification, the content is streamed into the signature engine
+     * @param content Data to be verified
+     * @param sign Raw signature bytes
+     * @return false if the public key is invalid or the signature does not match
+     */
+    public boolean verify(SignContent content, byte[] sign) {
+        if (sign == null) {
+            return false;
+        }
+        Signature signature = verifiers.borrow();
+        if (signature == null) {
+            return false;
+        }
+        try {
+            content.writeTo(new SignatureOutputStream(signature));
+            boolean verified = signature.verify(sign);
+            verifiers.release(signature);
+            return verified;
+        } catch (Exception e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Sign verification
+     * @param content Data to be verified
+     * @param sign Raw signature bytes
+     * @return false if the public key is invalid or the signature does not match
+     */
+    public boolean verify(byte[] content, byte[] sign) {
+        if (sign == null) {
+            return false;
+        }
+        Signature signature = verifiers.borrow();
+        if (signature == null) {
+            return false;
+        }
+        try {
+            signature.update(content);
+            boolean verified = signature.verify(sign);
+            verifiers.release(signature);
+            return verified;
+        } catch (Exception e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Sign verification
+     * @param content Data to be verified
+     * @param sign Signature string
+     * @param charset charset
+     * @return false if the public key is invalid or the signature does not match
+     */
+    public boolean verify(String content, String sign, String charset) {
+        try {
+            return verify(content.getBytes(charset), Base64.decode(sign));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    private static PrivateKey parsePrivateKey(String key) {
+        if (key == null || key.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return RSA.parsePrivateKey(key);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private static PublicKey parsePublicKey(String key) {
+        if (key == null || key.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return RSA.parsePublicKey(key);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Lock-free pool of initialized Signature objects. A Signature returns to its initialized state after sign() or
+     * verify(), so it can be reused; one that failed half-way is simply not released
+     */
+    class SignaturePool {
+
+        private final boolean forSign;
+
+        private final Queue<Signature> idle = new ConcurrentLinkedQueue<>();
+
+        private final AtomicInteger idleCount = new AtomicInteger();
+
+        SignaturePool(boolean forSign) {
+            this.forSign = forSign;
+        }
+
+        Signature borrow() {
+            Signature signature = idle.poll();
+            if (signature != null) {
+                idleCount.decrementAndGet();
+                return signature;
+            }
+            if ((forSign ? privateKey : publicKey) == null) {
+                return null;
+            }
+            try {
+                signature = Signature.getInstance(RSA.SIGN_ALGORITHMS);
+                if (forSign) {
+                    signature.initSign(privateKey);
+                } else {
+                    signature.initVerify(publicKey);
+                }
+                return signature;
+            } catch (Exception e) {
+                e.printStackTrace();
+                return null;
+            }
+        }
+
+        void release(Signature signature) {
+            if (idleCount.incrementAndGet() <= MAX_POOLED) {
+                idle.offer(signature);
+            } else {
+                idleCount.decrementAndGet();
+            }
+        }
+
+        int idleCount() {
+            return idleCount.get();
+        }
+    }
+}
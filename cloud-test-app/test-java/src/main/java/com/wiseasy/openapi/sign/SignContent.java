@@ -0,0 +1,19 @@
+package com.wiseasy.openapi.sign;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * @Description: The bytes covered by a signature, written directly into the signature engine
+ * so that no intermediate String or byte array of the whole content is needed
+ */
+public interface SignContent {
+
+    /**
+     * Write the content to be signed (or verified)
+     * @param out Destination, may be called with many small chunks
+     * @throws IOException
+     */
+    void writeTo(OutputStream out) throws IOException;
+
+}
@@ -0,0 +1,54 @@
+package com.wiseasy.openapi.transport;
+
+import com.wiseasy.openapi.utils.AsyncHttpConnectionPool;
+import com.wiseasy.openapi.utils.HttpClientUtil;
+import com.wiseasy.openapi.utils.HttpConnectionPool;
+import org.apache.http.entity.mime.content.ContentBody;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * @Description: HTTP/1.1 transport on Apache HttpClient: blocking calls use a {@link HttpConnectionPool}, asynchronous
+ * calls an {@link AsyncHttpConnectionPool}. TLS is limited to TLSv1.2 and a connection carries one request at a time.
+ * The pools belong to the caller and are not closed with the transport
+ */
+public class ApacheTransport implements Transport {
+
+    private final HttpConnectionPool pool;
+
+    private final Supplier<AsyncHttpConnectionPool> asyncPool;
+
+    /**
+     * @param pool Connections of the blocking calls
+     * @param asyncPool Connections of the asynchronous calls, asked for on every asynchronous call so that the pool
+     *                  can be created on first use
+     */
+    public ApacheTransport(HttpConnectionPool pool, Supplier<AsyncHttpConnectionPool> asyncPool) {
+        this.pool = pool;
+        this.asyncPool = asyncPool;
+    }
+
+    /**
+     * Transport on the shared default pools
+     */
+    public ApacheTransport() {
+        this(HttpConnectionPool.getDefault(), AsyncHttpConnectionPool::getDefault);
+    }
+
+    @Override
+    public String post(String url, Map<String, Object> headers, Map<String, Object> params) throws Exception {
+        return HttpClientUtil.doPost(pool, url, headers, params);
+    }
+
+    @Override
+    public CompletableFuture<String> postAsync(String url, Map<String, Object> headers, Map<String, Object> params) {
+        return HttpClientUtil.doPostAsync(asyncPool.get(), url, headers, params);
+    }
+
+    @Override
+    public String postMultipart(String url, Map<String, Object> headers, Map<String, Object> params, Map<String, ContentBody> parts) throws Exception {
+        return HttpClientUtil.doPostMultipart(pool, url, headers, params, parts);
+    }
+}
@@ -0,0 +1,52 @@
+package com.wiseasy.openapi.transport;
+
+import org.apache.http.entity.mime.content.ContentBody;
+
+import java.io.Closeable;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * @Description: Sends the HTTP requests of an OpenApiClient to the gateway, see {@code OpenApiClient.setTransport}.
+ * The default {@link ApacheTransport} uses the Apache HttpClient connection pools of the client. Implementations must
+ * be thread-safe, return the response body whatever the HTTP status, and fail with an exception on I/O errors
+ */
+public interface Transport extends Closeable {
+
+    /**
+     * Blocking form POST (application/x-www-form-urlencoded, UTF-8)
+     * @param url
+     * @param headers Request headers, null values are skipped
+     * @param params Form fields, null values are skipped
+     * @return Response body
+     * @throws Exception
+     */
+    String post(String url, Map<String, Object> headers, Map<String, Object> params) throws Exception;
+
+    /**
+     * Non-blocking form POST. Cancelling the returned future aborts the HTTP exchange where the implementation can
+     * @param url
+     * @param headers Request headers, null values are skipped
+     * @param params Form fields, null values are skipped
+     * @return Response body
+     */
+    CompletableFuture<String> postAsync(String url, Map<String, Object> headers, Map<String, Object> params);
+
+    /**
+     * Blocking multipart/form-data POST of an upload, the content parts are streamed and not loaded into memory
+     * @param url
+     * @param headers Request headers, null values are skipped
+     * @param params Text parts
+     * @param parts Content parts
+     * @return Response body
+     * @throws Exception
+     */
+    String postMultipart(String url, Map<String, Object> headers, Map<String, Object> params, Map<String, ContentBody> parts) throws Exception;
+
+    /**
+     * Release the connections of the transport, a no-op by default
+     */
+    @Override
+    default void close() {
+    }
+}
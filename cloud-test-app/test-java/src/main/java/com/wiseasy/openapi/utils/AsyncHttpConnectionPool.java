@@ -0,0 +1,124 @@
+package com.wiseasy.openapi.utils;
+
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.conn.NoopIOSessionStrategy;
+import org.apache.http.nio.conn.SchemeIOSessionStrategy;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
+import org.apache.http.pool.PoolStats;
+
+import java.io.Closeable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Description: Non-blocking counterpart of {@link HttpConnectionPool}. A few I/O reactor threads multiplex all
+ * in-flight requests, so the number of concurrent gateway calls is bounded by the pool, not by caller threads
+ */
+public class AsyncHttpConnectionPool implements Closeable {
+
+    private final HttpPoolConfig config;
+
+    private final PoolingNHttpClientConnectionManager connectionManager;
+
+    private final CloseableHttpAsyncClient httpAsyncClient;
+
+    private final ScheduledExecutorService evictor;
+
+    public AsyncHttpConnectionPool() {
+        this(new HttpPoolConfig());
+    }
+
+    public AsyncHttpConnectionPool(HttpPoolConfig config) {
+        this.config = config;
+        try {
+            IOReactorConfig ioReactorConfig = IOReactorConfig.custom()
+                    .setIoThreadCount(Runtime.getRuntime().availableProcessors())
+                    .setSoKeepAlive(true)
+                    .build();
+            Registry<SchemeIOSessionStrategy> registry = RegistryBuilder.<SchemeIOSessionStrategy>create()
+                    .register("http", NoopIOSessionStrategy.INSTANCE)
+                    .register("https", new SSLIOSessionStrategy(HttpConnectionPool.createSSLContext(),
+                            HttpConnectionPool.SUPPORTED_PROTOCOLS, null, HttpConnectionPool.TRUST_ALL_HOSTNAME_VERIFIER))
+                    .build();
+            long ttl = config.getTimeToLiveMillis() > 0 ? config.getTimeToLiveMillis() : -1;
+            connectionManager = new PoolingNHttpClientConnectionManager(new DefaultConnectingIOReactor(ioReactorConfig),
+                    null, registry, null, null, ttl, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException("Create async connection pool fail", e);
+        }
+        connectionManager.setMaxTotal(config.getMaxTotal());
+        connectionManager.setDefaultMaxPerRoute(config.getMaxPerRoute());
+
+        httpAsyncClient = HttpAsyncClients.custom()
+                .setConnectionManager(connectionManager)
+                .setKeepAliveStrategy(HttpConnectionPool.keepAliveStrategy(config.getKeepAliveMillis()))
+                .disableCookieManagement()
+                .disableConnectionState()
+                .build();
+        httpAsyncClient.start();
+
+        // The async connection manager has no built-in evictor, expired and idle connections are closed periodically
+        evictor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "openapi-async-connection-evictor");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        long period = Math.max(1000, config.getMaxIdleMillis());
+        evictor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                connectionManager.closeExpiredConnections();
+                connectionManager.closeIdleConnections(AsyncHttpConnectionPool.this.config.getMaxIdleMillis(), TimeUnit.MILLISECONDS);
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * The pool shared by all callers that do not configure one of their own, started on first use
+     * @return
+     */
+    public static AsyncHttpConnectionPool getDefault() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    public CloseableHttpAsyncClient getHttpAsyncClient() {
+        return httpAsyncClient;
+    }
+
+    public HttpPoolConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Statistics of the whole pool: leased, available and pending connections
+     * @return
+     */
+    public PoolStats getTotalStats() {
+        return connectionManager.getTotalStats();
+    }
+
+    @Override
+    public void close() {
+        evictor.shutdownNow();
+        try {
+            httpAsyncClient.close();
+        } catch (Exception e) {
+            // ignore
+        }
+    }
+
+    private static class DefaultHolder {
+        private static final AsyncHttpConnectionPool INSTANCE = new AsyncHttpConnectionPool();
+    }
+}
@@ -69,6 +69,12 @@ public class Constants {
 
     public static final String VERIFY_SIGNATURE_FAILED = "CLI004";
 
+    // The call was not sent because the gateway is failing, see ResilienceConfig
+    public static final String CIRCUIT_OPEN = "CLI005";
+
+    // The call was not sent because it exceeds the client-side rate limit, see RateLimitConfig
+    public static final String RATE_LIMITED = "CLI006";
+
     // Sandbox environment gateway address
     public static final String SANDBOX_GATEWAY_URL = "https://gw.wisepaycloud.com";
     // Product environment gateway address
@@ -78,4 +84,25 @@ public class Constants {
     public static final String API_ENTRY_URL = "/api/entry";
     public static final String API_FILE_UPLOAD_URL = "/api/file/upload";
 
+    // Chunked file upload (experimental, the gateway has no such endpoints): the fields below are sent to the
+    // chunk and complete endpoints of ChunkedUploadConfig
+
+    // MD5 of the whole file
+    public static final String FILE_DATA_HASH = "file_data_hash";
+
+    // The file part of a multipart upload
+    public static final String FILE_DATA = "file_data";
+
+    // Identifies the chunks of one file, stays the same when an interrupted upload is resumed
+    public static final String UPLOAD_ID = "upload_id";
+
+    // Zero-based index of the chunk
+    public static final String CHUNK_INDEX = "chunk_index";
+
+    // Number of chunks of the file
+    public static final String CHUNK_TOTAL = "chunk_total";
+
+    // MD5 of the chunk
+    public static final String CHUNK_DATA_HASH = "chunk_data_hash";
+
 }
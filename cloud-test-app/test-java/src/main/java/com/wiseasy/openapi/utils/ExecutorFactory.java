@@ -0,0 +1,128 @@
+package com.wiseasy.openapi.utils;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @Description: Executors for fanning out blocking OpenApiClient calls, e.g. a nightly batch of refunds or order
+ * queries. With virtual threads (Java 21 or later) every call gets its own thread and tens of thousands can be in
+ * flight: the connection pool (HttpPoolConfig.maxPerRoute / maxTotal) is what limits the calls sent at once, the
+ * others wait for a connection in first-come order for up to HttpPoolConfig.leaseTimeoutMillis.
+ * Inside Apache HttpClient a virtual thread can still be pinned to its carrier for the short wait on the internal lock
+ * of the pool (until Java 24), never while waiting for the network or for a free connection.
+ * For the same reason the SDK guards state that is written to a file or the network while locked (checkpoints, upload
+ * progress, client settings) with a ReentrantLock rather than synchronized.
+ * The SDK is built for Java 8, virtual threads are looked up at run time
+ *
+ * <pre>
+ * ExecutorService executor = ExecutorFactory.newExecutor(200, "refund-batch");
+ * for (OrderRefundSubmitRequest refund : refunds) {
+ *     executor.submit(() -&gt; client.execute(refund));
+ * }
+ * executor.shutdown();
+ * executor.awaitTermination(1, TimeUnit.HOURS);
+ * </pre>
+ */
+public class ExecutorFactory {
+
+    // Thread.ofVirtual(), Thread.Builder.name(String, long), Thread.Builder.factory() and
+    // Executors.newThreadPerTaskExecutor(ThreadFactory), null before Java 21
+    private static final Method OF_VIRTUAL = method(Thread.class, "ofVirtual");
+
+    private static final Method BUILDER_NAME = method(builderClass(), "name", String.class, long.class);
+
+    private static final Method BUILDER_FACTORY = method(builderClass(), "factory");
+
+    private static final Method THREAD_PER_TASK = method(Executors.class, "newThreadPerTaskExecutor", ThreadFactory.class);
+
+    private ExecutorFactory() {
+    }
+
+    /**
+     * Whether this JVM has virtual threads (Java 21 or later)
+     * @return
+     */
+    public static boolean isVirtualThreadSupported() {
+        return OF_VIRTUAL != null && BUILDER_NAME != null && BUILDER_FACTORY != null && THREAD_PER_TASK != null;
+    }
+
+    /**
+     * Virtual threads named name-0, name-1...
+     * @param name Thread name prefix
+     * @return
+     * @throws UnsupportedOperationException Before Java 21
+     */
+    public static ThreadFactory newVirtualThreadFactory(String name) {
+        if (!isVirtualThreadSupported()) {
+            throw new UnsupportedOperationException("Virtual threads need Java 21 or later, running " + System.getProperty("java.version"));
+        }
+        try {
+            Object builder = BUILDER_NAME.invoke(OF_VIRTUAL.invoke(null), name + "-", 0L);
+            return (ThreadFactory) BUILDER_FACTORY.invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Create virtual thread factory fail", e);
+        }
+    }
+
+    /**
+     * An executor that starts a new virtual thread for every task, unbounded
+     * @param name Thread name prefix
+     * @return
+     * @throws UnsupportedOperationException Before Java 21
+     */
+    public static ExecutorService newVirtualThreadExecutor(String name) {
+        ThreadFactory factory = newVirtualThreadFactory(name);
+        try {
+            return (ExecutorService) THREAD_PER_TASK.invoke(null, factory);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Create virtual thread executor fail", e);
+        }
+    }
+
+    /**
+     * A fixed pool of daemon platform threads named name-0, name-1...
+     * @param threads Number of threads, the calls in flight at most
+     * @param name Thread name prefix
+     * @return
+     */
+    public static ExecutorService newPlatformThreadExecutor(int threads, final String name) {
+        final AtomicInteger id = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, name + "-" + id.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Virtual threads when the JVM has them, a fixed pool of platform threads otherwise
+     * @param platformThreads Size of the platform thread pool used before Java 21
+     * @param name Thread name prefix
+     * @return
+     */
+    public static ExecutorService newExecutor(int platformThreads, String name) {
+        return isVirtualThreadSupported() ? newVirtualThreadExecutor(name) : newPlatformThreadExecutor(platformThreads, name);
+    }
+
+    private static Class<?> builderClass() {
+        try {
+            return Class.forName("java.lang.Thread$Builder");
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+
+    private static Method method(Class<?> type, String name, Class<?>... parameterTypes) {
+        if (type == null) {
+            return null;
+        }
+        try {
+            return type.getMethod(name, parameterTypes);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.wiseasy.openapi.utils;
+
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.mime.MIME;
+import org.apache.http.entity.mime.content.AbstractContentBody;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * @Description: Multipart file part streamed from a FileChannel with transferTo, so the file is never held in memory.
+ * Its length is known, so the request is not chunked. The target is a plain OutputStream, so the JDK still copies
+ * through a small buffer: this is not faster than FileBody. May cover only a region of the file
+ */
+public class FileChannelBody extends AbstractContentBody {
+
+    // Upper bound of one transferTo call
+    private static final long TRANSFER_CHUNK = 8L * 1024 * 1024;
+
+    private final File file;
+
+    private final String filename;
+
+    private final long position;
+
+    // Length of the region, negative means up to the end of the file
+    private final long length;
+
+    public FileChannelBody(File file, ContentType contentType, String filename) {
+        this(file, 0, -1, contentType, filename);
+    }
+
+    public FileChannelBody(File file, long position, long length, ContentType contentType, String filename) {
+        super(contentType != null ? contentType : ContentType.DEFAULT_BINARY);
+        this.file = file;
+        this.filename = filename != null ? filename : file.getName();
+        this.position = position;
+        this.length = length;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        WritableByteChannel target = Channels.newChannel(out);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long end = length < 0 ? channel.size() : position + length;
+            long current = position;
+            while (current < end) {
+                long n = channel.transferTo(current, Math.min(TRANSFER_CHUNK, end - current), target);
+                if (n <= 0) {
+                    throw new IOException("File [" + file + "] is shorter than expected");
+                }
+                current += n;
+            }
+        }
+        out.flush();
+    }
+
+    @Override
+    public String getFilename() {
+        return filename;
+    }
+
+    @Override
+    public String getTransferEncoding() {
+        return MIME.ENC_BINARY;
+    }
+
+    @Override
+    public long getContentLength() {
+        return length < 0 ? file.length() - position : length;
+    }
+}
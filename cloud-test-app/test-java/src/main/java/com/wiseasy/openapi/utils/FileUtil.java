@@ -1,6 +1,15 @@
 package com.wiseasy.openapi.utils;
 
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
 
 /**
  * @program: wise-paycloud-open-api-sdk-java
@@ -10,6 +19,13 @@ import java.io.*;
  **/
 public class FileUtil {
 
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Read the whole file into memory, prefer {@link #md5Hex(File)} for hashing large files
+     * @param file
+     * @return
+     */
     public static byte[] file2Byte(File file) {
         InputStream in = null;
         ByteArrayOutputStream out = null;
@@ -18,9 +34,10 @@ public class FileUtil {
             in = new FileInputStream(file);
             out = new ByteArrayOutputStream();
 
-            int ch;
-            while((ch = in.read()) != -1) {
-                out.write(ch);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int n;
+            while((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
             }
 
             bytes = out.toByteArray();
@@ -44,4 +61,100 @@ public class FileUtil {
         }
         return bytes;
     }
+
+    /**
+     * MD5 of the file content as lowercase hex, computed with a fixed-size buffer whatever the file size
+     * @param file
+     * @return
+     * @throws IOException
+     */
+    public static String md5Hex(File file) throws IOException {
+        return md5Hex(file, 0, Long.MAX_VALUE);
+    }
+
+    /**
+     * MD5 of a region of the file as lowercase hex, computed with a fixed-size buffer
+     * @param file
+     * @param position Start of the region
+     * @param length Length of the region, stops early at the end of the file
+     * @return
+     * @throws IOException
+     */
+    public static String md5Hex(File file, long position, long length) throws IOException {
+        MessageDigest digest = DigestUtils.getMd5Digest();
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long remaining = length;
+            long current = position;
+            while (remaining > 0) {
+                buffer.limit((int) Math.min(buffer.capacity(), remaining));
+                int n = channel.read(buffer, current);
+                if (n < 0) {
+                    break;
+                }
+                digest.update(buffer.array(), 0, n);
+                current += n;
+                remaining -= n;
+                buffer.clear();
+            }
+        }
+        return Hex.encodeHexString(digest.digest());
+    }
+
+    /**
+     * Copy the stream into the file through a temporary file in the same directory, which is then renamed:
+     * the file never exists half-written, an existing file is replaced
+     * @param in
+     * @param file
+     * @return Number of bytes copied
+     * @throws IOException
+     */
+    public static long copyAtomically(InputStream in, File file) throws IOException {
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (!dir.isDirectory() && !dir.mkdirs() && !dir.isDirectory()) {
+            throw new IOException("Create directory [" + dir + "] fail");
+        }
+        File tmp = new File(dir, file.getName() + ".part");
+        long size;
+        try {
+            size = Files.copy(in, tmp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            tmp.delete();
+        }
+        return size;
+    }
+
+    /**
+     * Extension of the last path segment of a URL or path, from its first '.', e.g. ".csv.gz"
+     * @param location
+     * @param defaultExtension Returned when there is none
+     * @return
+     */
+    public static String getExtension(String location, String defaultExtension) {
+        String path = location;
+        int end = path.length();
+        int query = path.indexOf('?');
+        if (query >= 0) {
+            end = query;
+        }
+        int fragment = path.indexOf('#');
+        if (fragment >= 0 && fragment < end) {
+            end = fragment;
+        }
+        path = path.substring(0, end);
+        String name = path.substring(Math.max(path.lastIndexOf('/'), path.lastIndexOf('\\')) + 1);
+        int dot = name.indexOf('.', 1);
+        if (dot < 0 || dot == name.length() - 1) {
+            return defaultExtension;
+        }
+        String extension = name.substring(dot);
+        for (int i = 1; i < extension.length(); i++) {
+            char c = extension.charAt(i);
+            if (!Character.isLetterOrDigit(c) && c != '.') {
+                return defaultExtension;
+            }
+        }
+        return extension;
+    }
 }
@@ -5,6 +5,7 @@ import org.apache.commons.lang.StringUtils;
 import org.apache.http.Header;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
 import org.apache.http.NameValuePair;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
@@ -14,30 +15,29 @@ import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.client.utils.HttpClientUtils;
 import org.apache.http.client.utils.URIBuilder;
-import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.concurrent.FutureCallback;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.entity.mime.HttpMultipartMode;
 import org.apache.http.entity.mime.MultipartEntityBuilder;
+import org.apache.http.entity.mime.content.ContentBody;
 import org.apache.http.entity.mime.content.FileBody;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClientBuilder;
-import org.apache.http.impl.client.HttpClients;
 import org.apache.http.message.BasicNameValuePair;
-import org.apache.http.ssl.SSLContextBuilder;
-import org.apache.http.ssl.TrustStrategy;
 import org.apache.http.util.EntityUtils;
 
-import javax.net.ssl.HostnameVerifier;
-import javax.net.ssl.SSLSession;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.Charset;
-import java.security.cert.CertificateException;
-import java.security.cert.X509Certificate;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
 
 /**
- * Http tools, the retry mechanism is disabled by default
+ * Http tools, the retry mechanism is disabled by default.
+ * Requests go through a shared {@link HttpConnectionPool} unless a pool is passed explicitly
  * 
  * @author Jiangzj
  * @date 2019-06-03
@@ -119,6 +119,14 @@ public class HttpClientUtil {
 	}
 
 	public static String doPost(String url, Map<String, Object> reqHeaders, Map<String, Object> respHeaders, Map<String, Object> params, int connectTimeout, int readTimeout, String charset, String proxyHost, Integer proxyPort) throws Exception {
+		return doPost(HttpConnectionPool.getDefault(), url, reqHeaders, respHeaders, params, connectTimeout, readTimeout, charset, proxyHost, proxyPort);
+	}
+
+	public static String doPost(HttpConnectionPool pool, String url, Map<String, Object> reqHeaders, Map<String, Object> params) throws Exception {
+		return doPost(pool, url, reqHeaders, null, params, DEFAULT_TIMEOUT, DEFAULT_TIMEOUT, DEFAULT_CHARSET, null, null);
+	}
+
+	public static String doPost(HttpConnectionPool pool, String url, Map<String, Object> reqHeaders, Map<String, Object> respHeaders, Map<String, Object> params, int connectTimeout, int readTimeout, String charset, String proxyHost, Integer proxyPort) throws Exception {
 		HttpPost httpPost = new HttpPost(url);
 
 		List<NameValuePair> pairs = params2nvps(params);
@@ -126,10 +134,60 @@ public class HttpClientUtil {
 			httpPost.setEntity(new UrlEncodedFormEntity(pairs, charset));
 		}
 		
-		return doRequest(url, reqHeaders, respHeaders, httpPost, connectTimeout, readTimeout, charset, proxyHost, proxyPort);
+		return doRequest(pool, url, reqHeaders, respHeaders, httpPost, connectTimeout, readTimeout, charset, proxyHost, proxyPort);
 	}
 	
 	
+	public static CompletableFuture<String> doPostAsync(AsyncHttpConnectionPool pool, String url, Map<String, Object> reqHeaders, Map<String, Object> params) {
+		return doPostAsync(pool, url, reqHeaders, params, DEFAULT_TIMEOUT, DEFAULT_TIMEOUT, DEFAULT_CHARSET);
+	}
+
+	/**
+	 * Non-blocking form POST, the returned future completes on an I/O reactor thread.
+	 * Cancelling the returned future aborts the HTTP exchange
+	 */
+	public static CompletableFuture<String> doPostAsync(AsyncHttpConnectionPool pool, String url, Map<String, Object> reqHeaders, Map<String, Object> params, int connectTimeout, int readTimeout, final String charset) {
+		final CompletableFuture<String> result = new CompletableFuture<>();
+		HttpPost httpPost = new HttpPost(url);
+		try {
+			List<NameValuePair> pairs = params2nvps(params);
+			if (pairs != null && pairs.size() > 0) {
+				httpPost.setEntity(new UrlEncodedFormEntity(pairs, charset));
+			}
+			prepareRequest(reqHeaders, httpPost, connectTimeout, readTimeout, null);
+		} catch (Exception e) {
+			result.completeExceptionally(e);
+			return result;
+		}
+
+		final Future<HttpResponse> httpFuture = pool.getHttpAsyncClient().execute(httpPost, new FutureCallback<HttpResponse>() {
+			@Override
+			public void completed(HttpResponse httpResponse) {
+				try {
+					result.complete(EntityUtils.toString(httpResponse.getEntity(), charset));
+				} catch (Exception e) {
+					result.completeExceptionally(e);
+				}
+			}
+
+			@Override
+			public void failed(Exception e) {
+				result.completeExceptionally(e);
+			}
+
+			@Override
+			public void cancelled() {
+				result.cancel(false);
+			}
+		});
+		result.whenComplete((resp, e) -> {
+			if (result.isCancelled()) {
+				httpFuture.cancel(true);
+			}
+		});
+		return result;
+	}
+
 	public static String doPostStr(String url, String data) throws Exception {
 		return doPostStr(url, null, data);
 	}
@@ -195,6 +253,32 @@ public class HttpClientUtil {
 	}
 
 	public static String doPostFile(String url, Map<String, Object> reqHeaders, Map<String, Object> params, Map<String, FileBody> fileParams) throws Exception {
+		return doPostFile(HttpConnectionPool.getDefault(), url, reqHeaders, params, fileParams);
+	}
+
+	public static String doPostFile(HttpConnectionPool pool, String url, Map<String, Object> reqHeaders, Map<String, Object> params, Map<String, FileBody> fileParams) throws Exception {
+		Map<String, ContentBody> parts = new LinkedHashMap<String, ContentBody>();
+		if (fileParams != null && !fileParams.isEmpty()) {
+			for (Map.Entry<String, FileBody> entry : fileParams.entrySet()) {
+				// Streamed from a FileChannel, the file is not loaded into memory
+				FileBody fileBody = entry.getValue();
+				parts.put(entry.getKey(), new FileChannelBody(fileBody.getFile(), fileBody.getContentType(), fileBody.getFilename()));
+			}
+		}
+		return doPostMultipart(pool, url, reqHeaders, params, parts);
+	}
+
+	public static String doPostMultipart(HttpConnectionPool pool, String url, Map<String, Object> reqHeaders, Map<String, Object> params, Map<String, ContentBody> parts) throws Exception {
+		HttpPost httpPost = new HttpPost(url);
+		httpPost.setEntity(multipartEntity(params, parts));
+
+		return doRequest(pool, url, reqHeaders, null, httpPost, DEFAULT_TIMEOUT * 2, DEFAULT_TIMEOUT * 2, DEFAULT_CHARSET, null, null);
+	}
+
+	/**
+	 * The multipart/form-data body of an upload: the params as UTF-8 text parts followed by the content parts
+	 */
+	public static HttpEntity multipartEntity(Map<String, Object> params, Map<String, ContentBody> parts) {
 		MultipartEntityBuilder builder = MultipartEntityBuilder.create();
 		builder.setCharset(Charset.forName(DEFAULT_CHARSET));
 		builder.setMode(HttpMultipartMode.BROWSER_COMPATIBLE);
@@ -205,51 +289,73 @@ public class HttpClientUtil {
 			}
 		}
 
-		if (fileParams != null && !fileParams.isEmpty()) {
-			for (Map.Entry<String, FileBody> entry : fileParams.entrySet()) {
-				FileBody fileBody = entry.getValue();
-				builder.addBinaryBody(entry.getKey(), fileBody.getFile(), fileBody.getContentType(), fileBody.getFilename());
+		if (parts != null && !parts.isEmpty()) {
+			for (Map.Entry<String, ContentBody> entry : parts.entrySet()) {
+				builder.addPart(entry.getKey(), entry.getValue());
 			}
 		}
 
-		HttpPost httpPost = new HttpPost(url);
-		httpPost.setEntity(builder.build());
+		return builder.build();
+	}
 
-		return doRequest(url, reqHeaders, null, httpPost, DEFAULT_TIMEOUT * 2, DEFAULT_TIMEOUT * 2, DEFAULT_CHARSET, null, null);
+	/**
+	 * GET the url and return the response body as a stream instead of a String, for downloads too large to hold in memory.
+	 * Closing the stream releases the connection, a non-2xx status fails without returning a stream
+	 */
+	public static InputStream doGetStream(HttpConnectionPool pool, String url, Map<String, Object> reqHeaders, int connectTimeout, int readTimeout) throws Exception {
+		HttpGet httpGet = new HttpGet(url);
+		prepareRequest(reqHeaders, httpGet, connectTimeout, readTimeout, null);
+
+		final HttpConnectionPool.Permit permit = pool.acquire(httpGet.getURI(), leaseTimeout(pool, connectTimeout));
+		CloseableHttpResponse httpResponse = null;
+		InputStream content = null;
+		try {
+			httpResponse = pool.getHttpClient().execute(httpGet);
+			int status = httpResponse.getStatusLine().getStatusCode();
+			HttpEntity entity = httpResponse.getEntity();
+			if (status < 200 || status >= 300 || entity == null) {
+				throw new IOException("GET " + url + " fail, status " + status);
+			}
+			content = entity.getContent();
+		} finally {
+			if (content == null) {
+				HttpClientUtils.closeQuietly(httpResponse);
+				permit.release();
+			}
+		}
+		final CloseableHttpResponse response = httpResponse;
+		return new FilterInputStream(content) {
+			@Override
+			public void close() throws IOException {
+				try {
+					response.close();
+				} finally {
+					permit.release();
+				}
+			}
+		};
 	}
 
 	private static String doRequest(String url, Map<String, Object> reqHeaders, Map<String, Object> respHeaders, HttpRequestBase request, int connectTimeout, int readTimeout, String charset, String proxyHost, Integer proxyPort) throws Exception {
+		return doRequest(HttpConnectionPool.getDefault(), url, reqHeaders, respHeaders, request, connectTimeout, readTimeout, charset, proxyHost, proxyPort);
+	}
+
+	private static String doRequest(HttpConnectionPool pool, String url, Map<String, Object> reqHeaders, Map<String, Object> respHeaders, HttpRequestBase request, int connectTimeout, int readTimeout, String charset, String proxyHost, Integer proxyPort) throws Exception {
 		HttpHost proxy = null;
 		if (StringUtils.isNotBlank(proxyHost)) {
 			proxy = new HttpHost(proxyHost, proxyPort);
 		}
-		return doRequest(url, reqHeaders, respHeaders, request, connectTimeout, readTimeout, charset, proxy);
+		return doRequest(pool, reqHeaders, respHeaders, request, connectTimeout, readTimeout, charset, proxy);
 	}
 	
-	private static String doRequest(String url, Map<String, Object> reqHeaders, Map<String, Object> respHeaders, HttpRequestBase request, int connectTimeout, int readTimeout, String charset, HttpHost proxy) throws Exception {
-		CloseableHttpClient httpClient = null;
+	private static String doRequest(HttpConnectionPool pool, Map<String, Object> reqHeaders, Map<String, Object> respHeaders, HttpRequestBase request, int connectTimeout, int readTimeout, String charset, HttpHost proxy) throws Exception {
 		CloseableHttpResponse httpResponse = null;
+		HttpConnectionPool.Permit permit = null;
 		try {
-			RequestConfig.Builder configBuilder = RequestConfig.custom();
-			configBuilder.setConnectionRequestTimeout(connectTimeout);// 设置从连接池获取连接实例的超时
-			configBuilder.setConnectTimeout(connectTimeout);// 设置连接超时
-			configBuilder.setSocketTimeout(readTimeout);// 设置读取超时
-			if (proxy != null) {
-				configBuilder.setProxy(proxy); // 设置代理
-			}
-			request.setConfig(configBuilder.build());
-
-			if (reqHeaders != null) {
-				for (Map.Entry<String, Object> header : reqHeaders.entrySet()) {
-					Object v = header.getValue();
-					if (v != null) {
-						request.setHeader(header.getKey(), v.toString());
-					}
-				}
-			}
+			prepareRequest(reqHeaders, request, connectTimeout, readTimeout, proxy);
 
-			httpClient = getHttpClient(url);
-			httpResponse = httpClient.execute(request);
+			permit = pool.acquire(request.getURI(), leaseTimeout(pool, connectTimeout));
+			httpResponse = pool.getHttpClient().execute(request);
 
 			if (respHeaders != null) {
 				if (httpResponse != null) {
@@ -263,11 +369,37 @@ public class HttpClientUtil {
 			HttpEntity entity = httpResponse.getEntity();
 			return EntityUtils.toString(entity, charset);
 		} finally {
+			// Closing the consumed response releases the connection back to the pool
 			if (httpResponse != null) {
 				HttpClientUtils.closeQuietly(httpResponse);
 			}
-			if (httpClient != null) {
-				HttpClientUtils.closeQuietly(httpClient);
+			if (permit != null) {
+				permit.release();
+			}
+		}
+	}
+
+	private static long leaseTimeout(HttpConnectionPool pool, int connectTimeout) {
+		long leaseTimeout = pool.getConfig().getLeaseTimeoutMillis();
+		return leaseTimeout < 0 ? connectTimeout : leaseTimeout;
+	}
+
+	private static void prepareRequest(Map<String, Object> reqHeaders, HttpRequestBase request, int connectTimeout, int readTimeout, HttpHost proxy) {
+		RequestConfig.Builder configBuilder = RequestConfig.custom();
+		configBuilder.setConnectionRequestTimeout(connectTimeout);// 设置从连接池获取连接实例的超时
+		configBuilder.setConnectTimeout(connectTimeout);// 设置连接超时
+		configBuilder.setSocketTimeout(readTimeout);// 设置读取超时
+		if (proxy != null) {
+			configBuilder.setProxy(proxy); // 设置代理
+		}
+		request.setConfig(configBuilder.build());
+
+		if (reqHeaders != null) {
+			for (Map.Entry<String, Object> header : reqHeaders.entrySet()) {
+				Object v = header.getValue();
+				if (v != null) {
+					request.setHeader(header.getKey(), v.toString());
+				}
 			}
 		}
 	}
@@ -284,31 +416,4 @@ public class HttpClientUtil {
 		}
 		return pairList;
 	}
-
-	private static CloseableHttpClient getHttpClient(String url) throws Exception {
-		HttpClientBuilder httpClientBuilder = HttpClients.custom().disableAutomaticRetries();
-		
-		boolean isSSL = url.startsWith("https");
-		if (isSSL) {
-			SSLContextBuilder contextBuilder = new SSLContextBuilder().loadTrustMaterial(null,
-					new TrustStrategy() {
-						@Override
-						public boolean isTrusted(X509Certificate[] chain, String authType) throws CertificateException {
-							return true;
-						}
-					});
-			SSLConnectionSocketFactory sslf = new SSLConnectionSocketFactory(contextBuilder.build(),
-					new String[]{"TLSv1.2"},
-					null,
-					new HostnameVerifier() {
-						@Override
-						public boolean verify(String host, SSLSession sslSession) {
-							return true;
-						}
-					});
-			httpClientBuilder.setSSLSocketFactory(sslf);
-		}
-		
-		return httpClientBuilder.build();
-	}
 }
\ No newline at end of file
@@ -0,0 +1,290 @@
+package com.wiseasy.openapi.utils;
+
+import org.apache.http.HeaderElement;
+import org.apache.http.HeaderElementIterator;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.message.BasicHeaderElementIterator;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HTTP;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.ssl.SSLContextBuilder;
+import org.apache.http.ssl.TrustStrategy;
+
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSession;
+import java.io.Closeable;
+import java.net.URI;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @Description: A long-lived, thread-safe pool of HTTP connections. Connections (and their TLS sessions) are reused
+ * across requests instead of doing a TCP + TLS handshake for every call. The retry mechanism is disabled, same as before.
+ * Blocking calls beyond maxPerRoute / maxTotal queue in first-come order for a free connection, see {@link #acquire}
+ */
+public class HttpConnectionPool implements Closeable {
+
+    private final HttpPoolConfig config;
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+
+    private final CloseableHttpClient httpClient;
+
+    // Free connections of the whole pool and of each route (scheme://host:port), reserved by acquire()
+    private final Semaphore totalPermits;
+
+    private final ConcurrentMap<String, Semaphore> routePermits = new ConcurrentHashMap<>();
+
+    public HttpConnectionPool() {
+        this(new HttpPoolConfig());
+    }
+
+    public HttpConnectionPool(HttpPoolConfig config) {
+        this.config = config;
+
+        Registry<ConnectionSocketFactory> registry = RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", createSSLSocketFactory())
+                .build();
+        long ttl = config.getTimeToLiveMillis() > 0 ? config.getTimeToLiveMillis() : -1;
+        connectionManager = new PoolingHttpClientConnectionManager(registry, null, null, null, ttl, TimeUnit.MILLISECONDS);
+        connectionManager.setMaxTotal(config.getMaxTotal());
+        connectionManager.setDefaultMaxPerRoute(config.getMaxPerRoute());
+        connectionManager.setValidateAfterInactivity(config.getValidateAfterInactivityMillis());
+
+        HttpClientBuilder httpClientBuilder = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setKeepAliveStrategy(new DefaultKeepAliveStrategy(config.getKeepAliveMillis()))
+                .evictExpiredConnections()
+                .evictIdleConnections(config.getMaxIdleMillis(), TimeUnit.MILLISECONDS)
+                // Connections are shared by all callers, nothing may leak from one request into the next
+                .disableCookieManagement()
+                .disableConnectionState()
+                .disableAutomaticRetries();
+        httpClient = httpClientBuilder.build();
+        totalPermits = new Semaphore(config.getMaxTotal(), true);
+    }
+
+    /**
+     * The pool shared by all callers that do not configure one of their own
+     * @return
+     */
+    public static HttpConnectionPool getDefault() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    public CloseableHttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    public HttpPoolConfig getConfig() {
+        return config;
+    }
+
+    PoolingHttpClientConnectionManager getConnectionManager() {
+        return connectionManager;
+    }
+
+    /**
+     * Statistics of the whole pool: leased, available and pending connections.
+     * Pending counts the blocking calls waiting in {@link #acquire} as well as those waiting in the Apache pool
+     * @return
+     */
+    public PoolStats getTotalStats() {
+        PoolStats stats = connectionManager.getTotalStats();
+        int waiting = totalPermits.getQueueLength();
+        for (Semaphore route : routePermits.values()) {
+            waiting += route.getQueueLength();
+        }
+        return withWaiting(stats, waiting);
+    }
+
+    /**
+     * Statistics of the connections to one host, e.g. the gateway
+     * @param url Any url of the host
+     * @return
+     */
+    public PoolStats getStats(String url) {
+        URI uri = URI.create(url);
+        boolean secure = "https".equalsIgnoreCase(uri.getScheme());
+        HttpRoute route = new HttpRoute(new HttpHost(uri.getHost(), port(uri), uri.getScheme()), null, secure);
+        Semaphore permits = routePermits.get(routeKey(uri));
+        return withWaiting(connectionManager.getStats(route), permits == null ? 0 : permits.getQueueLength());
+    }
+
+    private static PoolStats withWaiting(PoolStats stats, int waiting) {
+        if (waiting == 0) {
+            return stats;
+        }
+        return new PoolStats(stats.getLeased(), stats.getPending() + waiting, stats.getAvailable(), stats.getMax());
+    }
+
+    /**
+     * Wait until the pool can lend a connection to the host of the uri, and reserve it.
+     * Blocking calls queue here rather than in the Apache pool: its lease waits for a free connection inside a
+     * synchronized block, which on Java 21 to 23 pins a virtual thread to its carrier thread. With more waiting
+     * virtual threads than carriers, the calls holding the connections could not resume to give them back
+     *
+     * @param uri Target of the call
+     * @param timeoutMillis Maximum wait, 0 without limit
+     * @return The reservation, released once the response is consumed
+     * @throws ConnectionPoolTimeoutException If no connection became free in time
+     */
+    Permit acquire(URI uri, long timeoutMillis) throws InterruptedException, ConnectionPoolTimeoutException {
+        Semaphore route = routePermits.get(routeKey(uri));
+        if (route == null) {
+            route = routePermits.computeIfAbsent(routeKey(uri), key -> new Semaphore(config.getMaxPerRoute(), true));
+        }
+        if (timeoutMillis <= 0) {
+            route.acquire();
+            try {
+                totalPermits.acquire();
+            } catch (InterruptedException e) {
+                route.release();
+                throw e;
+            }
+            return new Permit(route);
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        if (!route.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+            throw new ConnectionPoolTimeoutException("Timeout waiting for connection from pool");
+        }
+        boolean acquired = false;
+        try {
+            acquired = totalPermits.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } finally {
+            if (!acquired) {
+                route.release();
+            }
+        }
+        if (!acquired) {
+            throw new ConnectionPoolTimeoutException("Timeout waiting for connection from pool");
+        }
+        return new Permit(route);
+    }
+
+    private static String routeKey(URI uri) {
+        return uri.getScheme() + "://" + uri.getHost() + ":" + port(uri);
+    }
+
+    private static int port(URI uri) {
+        return uri.getPort() > 0 ? uri.getPort() : ("https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80);
+    }
+
+    @Override
+    public void close() {
+        try {
+            httpClient.close();
+        } catch (Exception e) {
+            // ignore
+        }
+        connectionManager.shutdown();
+    }
+
+    private static SSLConnectionSocketFactory createSSLSocketFactory() {
+        return new SSLConnectionSocketFactory(createSSLContext(), SUPPORTED_PROTOCOLS, null, TRUST_ALL_HOSTNAME_VERIFIER);
+    }
+
+    // TLS protocol versions offered to the gateway
+    static final String[] SUPPORTED_PROTOCOLS = new String[]{"TLSv1.2"};
+
+    // The gateway certificate is not verified, same as the original per-request client
+    static final HostnameVerifier TRUST_ALL_HOSTNAME_VERIFIER = new HostnameVerifier() {
+        @Override
+        public boolean verify(String host, SSLSession sslSession) {
+            return true;
+        }
+    };
+
+    static SSLContext createSSLContext() {
+        try {
+            SSLContextBuilder contextBuilder = new SSLContextBuilder().loadTrustMaterial(null,
+                    new TrustStrategy() {
+                        @Override
+                        public boolean isTrusted(X509Certificate[] chain, String authType) throws CertificateException {
+                            return true;
+                        }
+                    });
+            return contextBuilder.build();
+        } catch (Exception e) {
+            throw new IllegalStateException("Create SSL context fail", e);
+        }
+    }
+
+    static ConnectionKeepAliveStrategy keepAliveStrategy(long defaultKeepAliveMillis) {
+        return new DefaultKeepAliveStrategy(defaultKeepAliveMillis);
+    }
+
+    /**
+     * Honors the Keep-Alive timeout of the server, falls back to the configured keep-alive
+     */
+    private static class DefaultKeepAliveStrategy implements ConnectionKeepAliveStrategy {
+
+        private final long defaultKeepAliveMillis;
+
+        DefaultKeepAliveStrategy(long defaultKeepAliveMillis) {
+            this.defaultKeepAliveMillis = defaultKeepAliveMillis;
+        }
+
+        @Override
+        public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+            HeaderElementIterator it = new BasicHeaderElementIterator(response.headerIterator(HTTP.CONN_KEEP_ALIVE));
+            while (it.hasNext()) {
+                HeaderElement he = it.nextElement();
+                if (he.getValue() != null && "timeout".equalsIgnoreCase(he.getName())) {
+                    try {
+                        return Long.parseLong(he.getValue()) * 1000;
+                    } catch (NumberFormatException ignore) {
+                        // fall through
+                    }
+                }
+            }
+            return defaultKeepAliveMillis;
+        }
+    }
+
+    /**
+     * A connection reserved by {@link #acquire}, released once: a streamed response may be closed from another thread
+     * than the one that reserved it
+     */
+    final class Permit {
+
+        private final Semaphore route;
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(Semaphore route) {
+            this.route = route;
+        }
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                totalPermits.release();
+                route.release();
+            }
+        }
+    }
+
+    private static class DefaultHolder {
+        private static final HttpConnectionPool INSTANCE = new HttpConnectionPool();
+    }
+}
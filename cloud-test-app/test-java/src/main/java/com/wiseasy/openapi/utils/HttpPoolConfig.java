@@ -0,0 +1,38 @@
+package com.wiseasy.openapi.utils;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * @Description: Connection pool settings of the HTTP transport used to access the gateway.
+ * The defaults are suitable for a single gateway host shared by all requests of the application
+ */
+@Getter
+@Setter
+@ToString
+public class HttpPoolConfig {
+
+    // Maximum number of connections kept by the pool across all routes
+    private int maxTotal = 200;
+
+    // Maximum number of connections per route (scheme + host + port), the gateway is normally a single route
+    private int maxPerRoute = 100;
+
+    // How long an idle connection is kept alive when the server does not send a Keep-Alive timeout, in milliseconds
+    private long keepAliveMillis = 60 * 1000;
+
+    // Idle connections older than this are closed by the background evictor, in milliseconds
+    private long maxIdleMillis = 30 * 1000;
+
+    // Maximum life time of a pooled connection, 0 or negative means unlimited, in milliseconds
+    private long timeToLiveMillis = 0;
+
+    // Connections idle for longer than this are checked for staleness before being leased again, in milliseconds
+    private int validateAfterInactivityMillis = 2 * 1000;
+
+    // How long a blocking call waits for a free connection when maxPerRoute or maxTotal are in use, in milliseconds.
+    // Negative uses the connect timeout of the call, 0 waits without limit
+    private long leaseTimeoutMillis = -1;
+
+}
@@ -0,0 +1,258 @@
+package com.wiseasy.openapi;
+
+import com.alibaba.fastjson.JSONObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.wiseasy.openapi.request.FileUploadRequest;
+import com.wiseasy.openapi.response.FileUploadResponse;
+import com.wiseasy.openapi.utils.Constants;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.mime.content.FileBody;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Chunked uploads against a local stand-in of the chunk endpoints, which the gateway does not have: chunks are stored per upload id
+ * and assembled on completion
+ */
+public class ChunkedUploadTest {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private static final String CHUNK_PATH = "/upload/chunk";
+
+    private static final String COMPLETE_PATH = "/upload/complete";
+
+    private StubGateway gateway;
+
+    private OpenApiClient client;
+
+    private File dir;
+
+    private File file;
+
+    private final Map<String, Map<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+
+    private final Map<String, byte[]> assembled = new ConcurrentHashMap<>();
+
+    private final AtomicInteger chunkRequests = new AtomicInteger();
+
+    // Chunk indices answered with a business error, and indices whose next request is dropped
+    private final Set<Integer> rejected = ConcurrentHashMap.newKeySet();
+
+    private final Set<Integer> dropOnce = ConcurrentHashMap.newKeySet();
+
+    @Before
+    public void setUp() throws Exception {
+        gateway = new StubGateway(8)
+                .context(CHUNK_PATH, this::chunk)
+                .context(COMPLETE_PATH, this::complete)
+                .start();
+        client = gateway.newClient();
+
+        dir = Files.createTempDirectory("chunked-upload").toFile();
+        file = new File(dir, "data.bin");
+        byte[] content = new byte[CHUNK_SIZE * 9 + 123];
+        new Random(7).nextBytes(content);
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(content);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        client.close();
+        gateway.close();
+        StubGateway.delete(dir);
+    }
+
+    @Test
+    public void uploadsAllChunks() throws Exception {
+        FileUploadResponse resp = client.uploadFileChunked(request(), config());
+
+        Assert.assertTrue(resp.isSuccess());
+        Assert.assertArrayEquals(Files.readAllBytes(file.toPath()), assembled.get(resp.getFile_key()));
+        Assert.assertEquals(10, chunkRequests.get());
+        Assert.assertEquals(0, progressFiles());
+    }
+
+    @Test
+    public void retriesFailedChunk() throws Exception {
+        dropOnce.add(3);
+        dropOnce.add(9);
+
+        FileUploadResponse resp = client.uploadFileChunked(request(), config());
+
+        Assert.assertTrue(resp.isSuccess());
+        Assert.assertArrayEquals(Files.readAllBytes(file.toPath()), assembled.get(resp.getFile_key()));
+        Assert.assertEquals(12, chunkRequests.get());
+    }
+
+    @Test
+    public void resumesInterruptedUpload() throws Exception {
+        rejected.add(4);
+        try {
+            client.uploadFileChunked(request(), config());
+            Assert.fail("Rejected chunk must fail the upload");
+        } catch (OpenApiException e) {
+            Assert.assertEquals("GW_CHUNK", e.getErrCode());
+        }
+        Assert.assertEquals(1, progressFiles());
+        Assert.assertEquals(1, uploads.size());
+        int received = uploads.values().iterator().next().size();
+
+        rejected.clear();
+        chunkRequests.set(0);
+        FileUploadResponse resp = client.uploadFileChunked(request(), config());
+
+        Assert.assertTrue(resp.isSuccess());
+        Assert.assertEquals("Same upload must be continued", 1, uploads.size());
+        Assert.assertEquals("Only missing chunks are sent again", 10 - received, chunkRequests.get());
+        Assert.assertArrayEquals(Files.readAllBytes(file.toPath()), assembled.get(resp.getFile_key()));
+        Assert.assertEquals(0, progressFiles());
+    }
+
+    @Test
+    public void endpointsAreRequired() throws Exception {
+        ChunkedUploadConfig config = config();
+        config.setChunkCompletePath(null);
+        try {
+            client.uploadFileChunked(request(), config);
+            Assert.fail("The gateway has no chunked upload endpoints");
+        } catch (OpenApiException e) {
+            Assert.assertEquals(Constants.PARAMETER_IS_EMPTY, e.getErrCode());
+        }
+        Assert.assertEquals(0, chunkRequests.get());
+    }
+
+    private FileUploadRequest request() {
+        FileUploadRequest request = new FileUploadRequest();
+        request.setInstitution_no("I1");
+        request.setFile_body(new FileBody(file, ContentType.APPLICATION_OCTET_STREAM, file.getName()));
+        return request;
+    }
+
+    private ChunkedUploadConfig config() {
+        ChunkedUploadConfig config = new ChunkedUploadConfig();
+        config.setChunkUploadPath(CHUNK_PATH);
+        config.setChunkCompletePath(COMPLETE_PATH);
+        config.setChunkSize(CHUNK_SIZE);
+        config.setParallelism(3);
+        config.setRetryBackoffMillis(10);
+        config.setProgressDir(new File(dir, "progress"));
+        return config;
+    }
+
+    private int progressFiles() {
+        File[] files = new File(dir, "progress").listFiles();
+        return files == null ? 0 : files.length;
+    }
+
+    private void chunk(HttpExchange exchange) throws IOException {
+        chunkRequests.incrementAndGet();
+        Multipart form = Multipart.parse(exchange);
+        int index = Integer.parseInt(form.field(Constants.CHUNK_INDEX));
+        if (dropOnce.remove(index)) {
+            // No response at all, the client sees a failed request
+            exchange.close();
+            return;
+        }
+        JSONObject resp = new JSONObject();
+        if (rejected.contains(index)) {
+            resp.put("code", "GW_CHUNK");
+            resp.put("msg", "Chunk rejected");
+        } else {
+            byte[] data = form.file;
+            Assert.assertEquals(form.field(Constants.CHUNK_DATA_HASH), DigestUtils.md5Hex(data));
+            uploads.computeIfAbsent(form.field(Constants.UPLOAD_ID), k -> new ConcurrentHashMap<>()).put(index, data);
+            resp.put("code", "0");
+            resp.put("msg", "success");
+        }
+        StubGateway.reply(exchange, resp.toJSONString());
+    }
+
+    private void complete(HttpExchange exchange) throws IOException {
+        Multipart form = Multipart.parse(exchange);
+        Map<Integer, byte[]> chunks = uploads.get(form.field(Constants.UPLOAD_ID));
+        int total = Integer.parseInt(form.field(Constants.CHUNK_TOTAL));
+        JSONObject resp = new JSONObject();
+        if (chunks == null || chunks.size() != total) {
+            resp.put("code", "GW_INCOMPLETE");
+            resp.put("msg", "Missing chunks");
+        } else {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            for (int i = 0; i < total; i++) {
+                out.write(chunks.get(i));
+            }
+            byte[] data = out.toByteArray();
+            Assert.assertEquals(form.field(Constants.FILE_DATA_HASH), DigestUtils.md5Hex(data));
+            String fileKey = "F" + form.field(Constants.UPLOAD_ID);
+            assembled.put(fileKey, data);
+            resp.put("code", "0");
+            resp.put("msg", "success");
+            JSONObject result = new JSONObject();
+            result.put("file_key", fileKey);
+            resp.put("data", result);
+        }
+        StubGateway.reply(exchange, resp.toJSONString());
+    }
+
+    /**
+     * Just enough multipart/form-data parsing for the requests of the SDK
+     */
+    private static class Multipart {
+
+        private final Map<String, String> fields = new ConcurrentHashMap<>();
+
+        private byte[] file;
+
+        String field(String name) {
+            return fields.get(name);
+        }
+
+        static Multipart parse(HttpExchange exchange) throws IOException {
+            String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+            String boundary = "--" + contentType.substring(contentType.indexOf("boundary=") + 9).split(";")[0];
+            // ISO-8859-1 maps every byte to one char, so positions in the string are byte offsets
+            byte[] raw = StubGateway.readAll(exchange.getRequestBody());
+            String body = new String(raw, StandardCharsets.ISO_8859_1);
+
+            Multipart form = new Multipart();
+            int start = body.indexOf(boundary);
+            while (start >= 0) {
+                int headerStart = start + boundary.length() + 2;
+                int next = body.indexOf("\r\n" + boundary, headerStart);
+                if (next < 0) {
+                    break;
+                }
+                int headerEnd = body.indexOf("\r\n\r\n", headerStart);
+                String headers = body.substring(headerStart, headerEnd);
+                int nameStart = headers.indexOf("name=\"") + 6;
+                String name = headers.substring(nameStart, headers.indexOf('"', nameStart));
+                byte[] value = new byte[next - headerEnd - 4];
+                System.arraycopy(raw, headerEnd + 4, value, 0, value.length);
+                if (Constants.FILE_DATA.equals(name)) {
+                    form.file = value;
+                } else {
+                    form.fields.put(name, new String(value, StandardCharsets.UTF_8));
+                }
+                start = next + 2;
+            }
+            return form;
+        }
+    }
+}
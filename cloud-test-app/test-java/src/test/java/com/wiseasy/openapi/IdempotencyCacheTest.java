@@ -0,0 +1,131 @@
+package com.wiseasy.openapi;
+
+import com.wiseasy.openapi.request.OrderQueryRequest;
+import com.wiseasy.openapi.request.WisehubCloudPayOrderRequest;
+import com.wiseasy.openapi.response.WisehubCloudPayOrderResponse;
+import com.wiseasy.openapi.utils.Constants;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class IdempotencyCacheTest {
+
+    @Test
+    public void keysCoveredMethodsOnly() {
+        IdempotencyCache cache = new IdempotencyCache(new IdempotencyConfig());
+        WisehubCloudPayOrderRequest pay = new WisehubCloudPayOrderRequest();
+        Assert.assertNull(cache.keyOf(pay));
+        pay.setMerchant_no("M1");
+        pay.setMerchant_order_no("O1");
+        Assert.assertEquals("wisehub.cloud.pay.order|M1|O1", cache.keyOf(pay));
+
+        OrderQueryRequest query = new OrderQueryRequest();
+        query.setMerchant_no("M1");
+        query.setMerchant_order_no("O1");
+        Assert.assertNull(cache.keyOf(query));
+    }
+
+    @Test
+    public void collapsesConcurrentDuplicates() throws Exception {
+        final IdempotencyCache cache = new IdempotencyCache(new IdempotencyConfig());
+        final AtomicInteger calls = new AtomicInteger();
+        final CompletableFuture<Void> release = new CompletableFuture<>();
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<WisehubCloudPayOrderResponse>> futures = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                futures.add(pool.submit(() -> cache.execute("k", () -> {
+                    calls.incrementAndGet();
+                    release.join();
+                    return response("0");
+                })));
+            }
+            // Let every caller reach the cache before the call completes
+            while (cache.getMisses() + cache.getJoins() < 16) {
+                Thread.sleep(1);
+            }
+            release.complete(null);
+            WisehubCloudPayOrderResponse first = futures.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<WisehubCloudPayOrderResponse> future : futures) {
+                Assert.assertSame(first, future.get(5, TimeUnit.SECONDS));
+            }
+            Assert.assertEquals(1, calls.get());
+            Assert.assertEquals(15, cache.getJoins());
+
+            // A repeat submission after completion is answered from the cache
+            Assert.assertSame(first, cache.execute("k", () -> response("0")));
+            Assert.assertEquals(1, cache.getHits());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void forgetsFailures() throws Exception {
+        IdempotencyCache cache = new IdempotencyCache(new IdempotencyConfig());
+        try {
+            cache.execute("k", () -> {
+                throw new OpenApiException(Constants.REQUEST_SERVER_FAILED, "Request to gateway fail");
+            });
+            Assert.fail();
+        } catch (OpenApiException e) {
+            Assert.assertEquals(Constants.REQUEST_SERVER_FAILED, e.getErrCode());
+        }
+        Assert.assertEquals(0, cache.size());
+
+        Assert.assertEquals("GW001", cache.execute("k", () -> response("GW001")).getCode());
+        Assert.assertEquals(0, cache.size());
+
+        WisehubCloudPayOrderResponse ok = cache.execute("k", () -> response("0"));
+        Assert.assertSame(ok, cache.execute("k", () -> response("0")));
+    }
+
+    @Test
+    public void asyncFailureIsShared() throws Exception {
+        IdempotencyCache cache = new IdempotencyCache(new IdempotencyConfig());
+        CompletableFuture<WisehubCloudPayOrderResponse> call = new CompletableFuture<>();
+        CompletableFuture<WisehubCloudPayOrderResponse> first = cache.submit("k", () -> call);
+        CompletableFuture<WisehubCloudPayOrderResponse> second = cache.submit("k", () -> new CompletableFuture<>());
+        second.cancel(false);
+        call.completeExceptionally(new OpenApiException(Constants.REQUEST_SERVER_FAILED, "Request to gateway fail"));
+        try {
+            first.get();
+            Assert.fail();
+        } catch (Exception e) {
+            Assert.assertTrue(e.getCause() instanceof OpenApiException);
+        }
+        Assert.assertTrue(second.isCancelled());
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void expiresAndEvicts() throws Exception {
+        IdempotencyConfig config = new IdempotencyConfig();
+        config.setTtlMillis(50);
+        config.setMaxEntries(3);
+        IdempotencyCache cache = new IdempotencyCache(config);
+        for (int i = 0; i < 5; i++) {
+            cache.execute("k" + i, () -> response("0"));
+        }
+        Assert.assertEquals(3, cache.size());
+
+        WisehubCloudPayOrderResponse cached = cache.execute("k4", () -> response("0"));
+        Thread.sleep(80);
+        Assert.assertNotSame(cached, cache.execute("k4", () -> response("0")));
+        Assert.assertEquals(1, cache.size());
+    }
+
+    private static WisehubCloudPayOrderResponse response(String code) {
+        WisehubCloudPayOrderResponse resp = new WisehubCloudPayOrderResponse();
+        resp.setCode(code);
+        return resp;
+    }
+}
@@ -0,0 +1,164 @@
+package com.wiseasy.openapi;
+
+import com.wiseasy.openapi.request.FileUploadRequest;
+import com.wiseasy.openapi.request.OrderQueryRequest;
+import com.wiseasy.openapi.response.FileUploadResponse;
+import com.wiseasy.openapi.response.OrderQueryResponse;
+import com.wiseasy.openapi.utils.Constants;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.mime.content.FileBody;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * executeAsync and uploadFileAsync against a local stub of the gateway
+ */
+public class OpenApiClientAsyncTest {
+
+    private static final String SUCCESS = "{\"code\":\"0\",\"msg\":\"success\",\"data\":{\"trans_no\":\"T1\",\"file_key\":\"F1\"}}";
+
+    private StubGateway gateway;
+
+    private OpenApiClient client;
+
+    // Set by the stub: released when the test wants the stuck request answered
+    private volatile CountDownLatch stuck;
+
+    private final CountDownLatch received = new CountDownLatch(1);
+
+    private final AtomicReference<Exception> writeFailure = new AtomicReference<>();
+
+    private final CountDownLatch written = new CountDownLatch(1);
+
+    @Before
+    public void setUp() throws Exception {
+        gateway = new StubGateway(0).context("/api", exchange -> {
+            try (InputStream in = exchange.getRequestBody()) {
+                byte[] buffer = new byte[8192];
+                while (in.read(buffer) >= 0) {
+                    // drain the request
+                }
+            }
+            byte[] body = SUCCESS.getBytes(StandardCharsets.UTF_8);
+            CountDownLatch wait = stuck;
+            if (wait != null) {
+                received.countDown();
+                try {
+                    wait.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                // Large enough not to fit in the socket buffers: fails if the client closed the connection
+                body = new byte[8 * 1024 * 1024];
+            }
+            try {
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } catch (IOException e) {
+                writeFailure.set(e);
+            } finally {
+                written.countDown();
+            }
+        }).start();
+        client = gateway.newClient();
+    }
+
+    @After
+    public void tearDown() {
+        client.close();
+        gateway.close();
+    }
+
+    @Test
+    public void executesWithoutBlocking() throws Exception {
+        OrderQueryResponse resp = client.executeAsync(orderQuery()).get(10, TimeUnit.SECONDS);
+        Assert.assertTrue(resp.isSuccess());
+        Assert.assertEquals("T1", resp.getTrans_no());
+    }
+
+    @Test
+    public void uploadsWithoutBlocking() throws Exception {
+        File file = Files.createTempFile("async-upload", ".txt").toFile();
+        try {
+            Files.write(file.toPath(), "statement".getBytes(StandardCharsets.UTF_8));
+            FileUploadRequest request = new FileUploadRequest();
+            request.setInstitution_no("I1");
+            request.setFile_body(new FileBody(file, ContentType.TEXT_PLAIN, file.getName()));
+            FileUploadResponse resp = client.uploadFileAsync(request).get(10, TimeUnit.SECONDS);
+            Assert.assertEquals("F1", resp.getFile_key());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void connectionFailureIsCli003() throws Exception {
+        int closedPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+        try (OpenApiClient unreachable = StubGateway.newClient("http://127.0.0.1:" + closedPort)) {
+            unreachable.executeAsync(orderQuery()).get(10, TimeUnit.SECONDS);
+            Assert.fail("Nothing listens on the port");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(String.valueOf(e.getCause()), e.getCause() instanceof OpenApiException);
+            Assert.assertEquals(Constants.REQUEST_SERVER_FAILED, ((OpenApiException) e.getCause()).getErrCode());
+        }
+    }
+
+    @Test
+    public void cancellingAbortsTheExchange() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        stuck = release;
+        CompletableFuture<OrderQueryResponse> future = client.executeAsync(orderQuery());
+        Assert.assertTrue(received.await(10, TimeUnit.SECONDS));
+
+        Assert.assertTrue(future.cancel(true));
+        Thread.sleep(200);
+        release.countDown();
+        Assert.assertTrue(written.await(10, TimeUnit.SECONDS));
+        Assert.assertNotNull("The client closed the connection of the cancelled call", writeFailure.get());
+        Assert.assertTrue(future.isCancelled());
+    }
+
+    @Test
+    public void rejectedExecutionCompletesTheFuture() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.shutdown();
+        client.setExecutor(executor);
+        CompletableFuture<OrderQueryResponse> future = client.executeAsync(orderQuery());
+        try {
+            future.get(10, TimeUnit.SECONDS);
+            Assert.fail("The executor is shut down");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(String.valueOf(e.getCause()), e.getCause() instanceof RejectedExecutionException);
+        }
+    }
+
+    private static OrderQueryRequest orderQuery() {
+        OrderQueryRequest request = new OrderQueryRequest();
+        request.setMerchant_no("M1");
+        request.setMerchant_order_no("O1");
+        return request;
+    }
+}
@@ -2,6 +2,7 @@ package com.wiseasy.openapi;
 
 
 import com.alibaba.fastjson.JSON;
+import com.wiseasy.openapi.id.TimeSequenceIdGenerator;
 import com.wiseasy.openapi.request.*;
 import com.wiseasy.openapi.response.*;
 import com.wiseasy.openapi.utils.Constants;
@@ -15,6 +16,9 @@ public class PayTest {
     private static final String GATEWAY_RSA_PUBLIC_KEY = "RSA public key provided by payment gateway";
     private static final String APP_ID = "Your app app Id";//wzac09fb2b0ad16b28   wz9f2a175d0e0ef632  wz6012822ca2f1as78
 
+    // Merchant order numbers, the node id must be unique among the instances of the integration
+    private static final TimeSequenceIdGenerator ORDER_NOS = new TimeSequenceIdGenerator(1);
+
     /**
      * Purchase
      */
@@ -31,7 +35,7 @@ public class PayTest {
         request.setPrice_currency("ZAR");
         request.setOrder_amount(100.0);
         request.setTrans_type(1);
-        request.setMerchant_order_no("" + System.currentTimeMillis());
+        request.setMerchant_order_no(ORDER_NOS.nextId(""));
         request.setDescription("test");
         try {
             openapiClient.execute(request);
@@ -57,7 +61,7 @@ public class PayTest {
         request.setPrice_currency("ZAR");
         request.setOrder_amount(100.0);
         request.setTrans_type(3);
-        request.setMerchant_order_no("" + System.currentTimeMillis());
+        request.setMerchant_order_no(ORDER_NOS.nextId(""));
         request.setOrig_merchant_order_no("1682661311505");
         request.setDescription("iPhone");
         try {
@@ -83,7 +87,7 @@ public class PayTest {
         request.setPrice_currency("ZAR");
         request.setOrder_amount(100.0);
         request.setTrans_type(2);
-        request.setMerchant_order_no("" + System.currentTimeMillis());
+        request.setMerchant_order_no(ORDER_NOS.nextId(""));
         request.setOrig_merchant_order_no("1682666690514");
         request.setDescription("iPhone");
         try {
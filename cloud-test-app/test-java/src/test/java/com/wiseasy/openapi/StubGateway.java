@@ -0,0 +1,128 @@
+package com.wiseasy.openapi;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import com.wiseasy.openapi.sign.Base64;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Local stand-in of the gateway for the tests: an HTTP server on a free port of 127.0.0.1 and clients signed with
+ * keys generated once per JVM
+ */
+public class StubGateway implements AutoCloseable {
+
+    private final HttpServer server;
+
+    private final ExecutorService executor;
+
+    public StubGateway(int threads) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        executor = threads > 0 ? Executors.newFixedThreadPool(threads) : Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+    }
+
+    public StubGateway context(String path, HttpHandler handler) {
+        server.createContext(path, handler);
+        return this;
+    }
+
+    public StubGateway start() {
+        server.start();
+        return this;
+    }
+
+    /**
+     * @return e.g. http://127.0.0.1:12345, without trailing slash
+     */
+    public String getUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * A client of app1 for this gateway, to be closed by the caller
+     */
+    public OpenApiClient newClient() {
+        return newClient(getUrl());
+    }
+
+    public static OpenApiClient newClient(String gatewayUrl) {
+        return new OpenApiClient("app1", gatewayUrl, Keys.APP_PRIVATE_KEY, Keys.GATEWAY_PUBLIC_KEY);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Answer the exchange with a 200 and the body, and close it
+     */
+    public static void reply(HttpExchange exchange, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    public static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[8192];
+        int n;
+        while ((n = in.read(buf)) > 0) {
+            out.write(buf, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Delete a temporary file or directory and everything in it
+     */
+    public static void delete(File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                delete(f);
+            }
+        }
+        file.delete();
+    }
+
+    /**
+     * 2048-bit keys take a while to generate, every test shares the same pair
+     */
+    private static class Keys {
+
+        private static final String APP_PRIVATE_KEY;
+
+        private static final String GATEWAY_PUBLIC_KEY;
+
+        static {
+            try {
+                KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+                generator.initialize(2048);
+                KeyPair app = generator.generateKeyPair();
+                KeyPair gateway = generator.generateKeyPair();
+                APP_PRIVATE_KEY = Base64.encode(app.getPrivate().getEncoded());
+                GATEWAY_PUBLIC_KEY = Base64.encode(gateway.getPublic().getEncoded());
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.wiseasy.openapi.bill;
+
+import com.alibaba.fastjson.JSONObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.wiseasy.openapi.OpenApiClient;
+import com.wiseasy.openapi.StubGateway;
+import com.wiseasy.openapi.utils.Constants;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Backfill against a local stand-in of the statement API and the statement file server
+ */
+public class BillBackfillTest {
+
+    private StubGateway gateway;
+
+    private OpenApiClient client;
+
+    private File dir;
+
+    private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+
+    // Days without statement, and days whose next download fails
+    private final Set<String> refused = ConcurrentHashMap.newKeySet();
+
+    private final Set<String> dropOnce = ConcurrentHashMap.newKeySet();
+
+    @Before
+    public void setUp() throws Exception {
+        gateway = new StubGateway(8)
+                .context(Constants.API_ENTRY_URL, this::entry)
+                .context("/bills/", this::bill)
+                .start();
+        client = gateway.newClient();
+        dir = Files.createTempDirectory("backfill").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        client.close();
+        gateway.close();
+        StubGateway.delete(dir);
+    }
+
+    @Test
+    public void downloadsRangeAndResumes() throws Exception {
+        refused.add("2021-06-04");
+        dropOnce.add("2021-06-02");
+        BackfillConfig config = new BackfillConfig();
+        config.setOutputDir(dir);
+        config.setParallelism(3);
+        config.setRetryBackoffMillis(10);
+        BillBackfill backfill = new BillBackfill(client, config);
+
+        BackfillResult first = backfill.run(LocalDate.parse("2021-05-30"), LocalDate.parse("2021-06-05"));
+
+        Assert.assertEquals(7, first.getDays().size());
+        Assert.assertEquals("2021-05-30", first.getDays().get(0).getTrans_date());
+        Assert.assertEquals(6, first.getDownloaded());
+        Assert.assertEquals(1, first.getFailed().size());
+        Assert.assertEquals("GW_NO_BILL", first.getFailed().get(0).getErrCode());
+        Assert.assertEquals(2, requests.get("2021-06-02").get());
+        Assert.assertTrue(first.getLatencyPercentile(99) >= first.getLatencyPercentile(50));
+        File day = new File(dir, "2021-06-01.csv");
+        Assert.assertEquals(statement("2021-06-01"), new String(Files.readAllBytes(day.toPath()), StandardCharsets.UTF_8));
+        try (BillReader reader = BillReader.open(day)) {
+            Assert.assertEquals("2021-06-01", reader.next().get("trans_date"));
+        }
+
+        refused.clear();
+        BackfillResult second = backfill.run(LocalDate.parse("2021-05-30"), LocalDate.parse("2021-06-05"));
+        Assert.assertEquals(6, second.getSkipped());
+        Assert.assertEquals(1, second.getDownloaded());
+        Assert.assertTrue(second.isComplete());
+        Assert.assertEquals(1, requests.get("2021-06-01").get());
+        Assert.assertEquals(2, requests.get("2021-06-04").get());
+    }
+
+    private static String statement(String date) {
+        return "trans_date,trans_no,trans_amount\n" + date + ",T" + date + ",1.00\n";
+    }
+
+    private void entry(HttpExchange exchange) throws IOException {
+        String date = null;
+        for (String pair : new String(StubGateway.readAll(exchange.getRequestBody()), StandardCharsets.UTF_8).split("&")) {
+            String[] kv = pair.split("=", 2);
+            if ("trans_date".equals(kv[0])) {
+                date = URLDecoder.decode(kv[1], "UTF-8");
+            }
+        }
+        requests.computeIfAbsent(date, k -> new AtomicInteger()).incrementAndGet();
+        JSONObject resp = new JSONObject();
+        if (refused.contains(date)) {
+            resp.put("code", "GW_NO_BILL");
+            resp.put("msg", "No statement");
+        } else {
+            resp.put("code", "0");
+            JSONObject data = new JSONObject();
+            data.put("bill_file_url", gateway.getUrl() + "/bills/" + date + ".csv?token=x");
+            resp.put("data", data);
+        }
+        StubGateway.reply(exchange, resp.toJSONString());
+    }
+
+    private void bill(HttpExchange exchange) throws IOException {
+        String name = exchange.getRequestURI().getPath().substring("/bills/".length());
+        String date = name.substring(0, name.indexOf('.'));
+        if (dropOnce.remove(date)) {
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+            return;
+        }
+        byte[] body = statement(date).getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+    }
+}
@@ -0,0 +1,141 @@
+package com.wiseasy.openapi.bill;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+public class BillReaderTest {
+
+    private static final String STATEMENT = "\uFEFFMerchant No,trans_no,Merchant-Order-No,trans_type,trans_status,trans_amount,attach\r\n"
+            + "M1,T1,O1,1,2,100.50,plain\r\n"
+            + "\r\n"
+            + "# summary lines are skipped\n"
+            + "M1,T2,O2,3,2,\"1,000.00\",\"quoted \"\"text\"\"\nover two lines\"\n"
+            + "M1,T3,,1,1,,\n"
+            + "M1,T4,O4,1,2,5";
+
+    @Test
+    public void readsTypedRecords() throws Exception {
+        try (BillReader reader = BillReader.open(new ByteArrayInputStream(STATEMENT.getBytes(StandardCharsets.UTF_8)))) {
+            assertStatement(reader);
+        }
+    }
+
+    @Test
+    public void readsCompressedStatements() throws Exception {
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(gzip)) {
+            out.write(STATEMENT.getBytes(StandardCharsets.UTF_8));
+        }
+        try (BillReader reader = BillReader.open(new ByteArrayInputStream(gzip.toByteArray()))) {
+            assertStatement(reader);
+        }
+
+        ByteArrayOutputStream zip = new ByteArrayOutputStream();
+        try (ZipOutputStream out = new ZipOutputStream(zip)) {
+            out.putNextEntry(new ZipEntry("bill/"));
+            out.putNextEntry(new ZipEntry("bill/20210603.csv"));
+            out.write(STATEMENT.getBytes(StandardCharsets.UTF_8));
+        }
+        try (BillReader reader = BillReader.open(new ByteArrayInputStream(zip.toByteArray()))) {
+            assertStatement(reader);
+        }
+    }
+
+    @Test
+    public void readsTabSeparated() throws Exception {
+        String statement = "merchant_no\ttrans_no\ttrans_amount\nM1\tT1\t1.5\nM1\tT2\t2,5\n";
+        try (BillReader reader = BillReader.open(new ByteArrayInputStream(statement.getBytes(StandardCharsets.UTF_8)))) {
+            List<BillRecord> records = new ArrayList<>();
+            reader.read(records::add);
+            Assert.assertEquals(2, records.size());
+            Assert.assertEquals(Double.valueOf(1.5), records.get(0).getTrans_amount());
+            Assert.assertEquals("2,5", records.get(1).get("trans_amount"));
+        }
+    }
+
+    @Test
+    public void streamsFromUrl() throws Exception {
+        final byte[] body = STATEMENT.getBytes(StandardCharsets.UTF_8);
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/bill.csv", exchange -> {
+            // Chunked response, the length is not known in advance
+            exchange.sendResponseHeaders(200, 0);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.createContext("/missing.csv", exchange -> {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.start();
+        try {
+            String base = "http://127.0.0.1:" + server.getAddress().getPort();
+            try (BillReader reader = BillReader.open(base + "/bill.csv")) {
+                assertStatement(reader);
+            }
+            try {
+                BillReader.open(base + "/missing.csv");
+                Assert.fail("A failed download must not open");
+            } catch (IOException e) {
+                Assert.assertTrue(e.getMessage().contains("404"));
+            }
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void unterminatedQuoteFails() throws Exception {
+        String statement = "trans_no,attach\nT1,\"never closed\nT2,x\n";
+        try (BillReader reader = BillReader.open(new ByteArrayInputStream(statement.getBytes(StandardCharsets.UTF_8)))) {
+            reader.read(record -> { });
+        }
+    }
+
+    private static void assertStatement(BillReader reader) throws IOException {
+        Assert.assertEquals("merchant_no", reader.getColumns().get(0));
+        Assert.assertEquals("merchant_order_no", reader.getColumns().get(2));
+
+        BillRecord first = reader.next();
+        Assert.assertEquals("M1", first.getMerchant_no());
+        Assert.assertEquals("O1", first.getMerchant_order_no());
+        Assert.assertEquals(Integer.valueOf(1), first.getTrans_type());
+        Assert.assertEquals(Integer.valueOf(2), first.getTrans_status());
+        Assert.assertEquals(Double.valueOf(100.5), first.getTrans_amount());
+        Assert.assertEquals("plain", first.get("Attach"));
+        Assert.assertEquals(2, first.getLine());
+
+        BillRecord second = reader.next();
+        Assert.assertEquals("1,000.00", second.get("trans_amount"));
+        Assert.assertEquals("quoted \"text\"\nover two lines", second.get("attach"));
+        Assert.assertEquals(5, second.getLine());
+
+        BillRecord third = reader.next();
+        Assert.assertNull(third.getMerchant_order_no());
+        Assert.assertNull(third.getTrans_amount());
+        Assert.assertNull(third.getPaid_amount());
+        Assert.assertEquals(7, third.getLine());
+
+        List<String> rest = new ArrayList<>();
+        for (BillRecord record : reader) {
+            rest.add(record.getTrans_no());
+        }
+        Assert.assertEquals(1, rest.size());
+        Assert.assertEquals("T4", rest.get(0));
+        Assert.assertEquals(4, reader.getCount());
+        Assert.assertNull(reader.next());
+    }
+}
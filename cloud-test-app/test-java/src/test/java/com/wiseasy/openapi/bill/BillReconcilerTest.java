@@ -0,0 +1,147 @@
+package com.wiseasy.openapi.bill;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class BillReconcilerTest {
+
+    @Test
+    public void reportsDifferences() throws Exception {
+        String statement = "merchant_order_no,trans_no,trans_status,trans_amount\n"
+                + "O1,T1,2,10.00\n"
+                + "O2,T2,2,5.5\n"
+                + "O3,T3,2,7.01\n"
+                + "O9,T9,2,1.00\n"
+                + "O1,T1B,2,10.00\n"
+                + ",T10,2,1.00\n"
+                + "O4,T4,1,3.00\n"
+                + "订单5,T5,2,1\n";
+        for (int partitions : new int[]{1, 3, 16}) {
+            ReconcileConfig config = new ReconcileConfig();
+            config.setPartitions(partitions);
+            config.setExpectedOrders(1);
+            config.setBatchSize(2);
+            config.setFilter(record -> Integer.valueOf(2).equals(record.getTrans_status()));
+            BillReconciler reconciler = new BillReconciler(config);
+            Assert.assertTrue(reconciler.addOrder("O1", new BigDecimal("10")));
+            Assert.assertTrue(reconciler.addOrder("O2", 550));
+            Assert.assertTrue(reconciler.addOrder("O3", new BigDecimal("7.00")));
+            Assert.assertTrue(reconciler.addOrder("O4", 300));
+            Assert.assertTrue(reconciler.addOrder("O5", 100));
+            Assert.assertTrue(reconciler.addOrder("订单5", 100));
+            Assert.assertFalse(reconciler.addOrder("O5", 200));
+
+            Collector collector = new Collector();
+            ReconcileResult result;
+            try (BillReader reader = BillReader.open(new ByteArrayInputStream(statement.getBytes(StandardCharsets.UTF_8)))) {
+                result = reconciler.reconcile(reader, collector);
+            }
+
+            Assert.assertEquals(6, result.getOrders());
+            Assert.assertEquals(8, result.getRecords());
+            Assert.assertEquals(3, result.getMatched());
+            Assert.assertEquals(1, result.getAmountMismatched());
+            Assert.assertEquals(3, result.getExtra());
+            Assert.assertEquals(2, result.getMissing());
+            Assert.assertFalse(result.isBalanced());
+
+            Assert.assertEquals(Long.valueOf(300), collector.missing.get("O4"));
+            Assert.assertEquals(Long.valueOf(100), collector.missing.get("O5"));
+            Assert.assertTrue(collector.extra.contains("T9"));
+            Assert.assertTrue(collector.extra.contains("T1B"));
+            Assert.assertTrue(collector.extra.contains("T10"));
+            Assert.assertEquals("700/701", collector.mismatched.get("T3"));
+        }
+    }
+
+    @Test
+    public void indexGrowsAndKeepsAllKeys() throws Exception {
+        ReconcileConfig config = new ReconcileConfig();
+        config.setPartitions(4);
+        config.setExpectedOrders(16);
+        BillReconciler reconciler = new BillReconciler(config);
+        int orders = 200_000;
+        for (int i = 0; i < orders; i++) {
+            reconciler.addOrder("ORD" + i, i);
+        }
+        Assert.assertEquals(orders, reconciler.getOrderCount());
+
+        StringBuilder statement = new StringBuilder("merchant_order_no,trans_amount\n");
+        for (int i = 0; i < orders; i += 2) {
+            statement.append("ORD").append(i).append(',').append(BigDecimal.valueOf(i, 2).toPlainString()).append('\n');
+        }
+        Collector collector = new Collector();
+        ReconcileResult result;
+        try (BillReader reader = BillReader.open(new ByteArrayInputStream(statement.toString().getBytes(StandardCharsets.UTF_8)))) {
+            result = reconciler.reconcile(reader, collector);
+        }
+        Assert.assertEquals(orders / 2, result.getMatched());
+        Assert.assertEquals(orders / 2, result.getMissing());
+        Assert.assertEquals(0, result.getExtra());
+        Assert.assertEquals(0, result.getAmountMismatched());
+        Assert.assertEquals(Long.valueOf(1), collector.missing.get("ORD1"));
+    }
+
+    @Test
+    public void convertsAmountsToMinorUnits() {
+        Assert.assertEquals(1234, BillReconciler.toMinorUnits("12.34", 2));
+        Assert.assertEquals(1230, BillReconciler.toMinorUnits(" 12.3 ", 2));
+        Assert.assertEquals(1200, BillReconciler.toMinorUnits("12", 2));
+        Assert.assertEquals(-50, BillReconciler.toMinorUnits("-0.5", 2));
+        Assert.assertEquals(123457, BillReconciler.toMinorUnits("1,234.565", 2));
+        Assert.assertEquals(100000, BillReconciler.toMinorUnits("1E+3", 2));
+        Assert.assertEquals(12, BillReconciler.toMinorUnits("12", 0));
+        // Fits in a long only before scaling: falls back to the exact conversion instead of wrapping
+        Assert.assertEquals(9223372036854775700L, BillReconciler.toMinorUnits("92233720368547757", 2));
+        Assert.assertEquals(-9223372036854775700L, BillReconciler.toMinorUnits("-92233720368547757", 2));
+        try {
+            BillReconciler.toMinorUnits("123456789012345678", 2);
+            Assert.fail();
+        } catch (ArithmeticException expected) {
+            // does not fit in a long
+        }
+        try {
+            BillReconciler.toMinorUnits("92233720368547757", 3);
+            Assert.fail();
+        } catch (ArithmeticException expected) {
+            // does not fit in a long
+        }
+        try {
+            BillReconciler.toMinorUnits("abc", 2);
+            Assert.fail();
+        } catch (NumberFormatException expected) {
+            // not an amount
+        }
+    }
+
+    private static class Collector implements ReconcileListener {
+
+        final Map<String, Long> missing = new ConcurrentHashMap<>();
+
+        final Set<String> extra = ConcurrentHashMap.newKeySet();
+
+        final Map<String, String> mismatched = new ConcurrentHashMap<>();
+
+        @Override
+        public void onMissing(String key, long amount) {
+            missing.put(key, amount);
+        }
+
+        @Override
+        public void onExtra(BillRecord record) {
+            extra.add(record.getTrans_no());
+        }
+
+        @Override
+        public void onAmountMismatch(BillRecord record, long expectedAmount, Long actualAmount) {
+            mismatched.put(record.getTrans_no(), expectedAmount + "/" + actualAmount);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.wiseasy.openapi.id;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Collision test: many threads and two nodes drawing identifiers as fast as they can,
+ * far beyond the 10000 per millisecond of the sequence
+ */
+public class TimeSequenceIdGeneratorTest {
+
+    private static final int THREADS = 8;
+
+    private static final int IDS_PER_THREAD = 100000;
+
+    @Test
+    public void uniqueAcrossThreadsAndNodes() throws Exception {
+        final TimeSequenceIdGenerator[] nodes = {new TimeSequenceIdGenerator(1), new TimeSequenceIdGenerator(2)};
+        final Set<String> ids = ConcurrentHashMap.newKeySet(THREADS * IDS_PER_THREAD * 2);
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[THREADS];
+        final boolean[] ordered = new boolean[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            final int index = t;
+            threads[t] = new Thread(() -> {
+                TimeSequenceIdGenerator generator = nodes[index % 2];
+                String previous = "";
+                boolean increasing = true;
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < IDS_PER_THREAD; i++) {
+                    String id = generator.nextId();
+                    ids.add(id);
+                    increasing &= id.compareTo(previous) > 0;
+                    previous = id;
+                }
+                ordered[index] = increasing;
+            });
+            threads[t].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Assert.assertEquals(THREADS * IDS_PER_THREAD, ids.size());
+        for (int t = 0; t < THREADS; t++) {
+            Assert.assertTrue("Identifiers of a thread must increase", ordered[t]);
+        }
+        for (String id : ids) {
+            Assert.assertTrue(id, id.matches("\\d{20}"));
+        }
+    }
+
+    @Test
+    public void format() {
+        long before = System.currentTimeMillis();
+        String id = new TimeSequenceIdGenerator(42).nextId("ORD");
+        long after = System.currentTimeMillis();
+
+        Assert.assertTrue(id.startsWith("ORD"));
+        Assert.assertEquals(23, id.length());
+        long millis = Long.parseLong(id.substring(3, 16));
+        Assert.assertTrue(millis >= before && millis <= after + 1);
+        Assert.assertEquals("042", id.substring(16, 19));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsInvalidNode() {
+        new TimeSequenceIdGenerator(1000);
+    }
+
+    @Test
+    public void nodeIdIsDerivedFromTheProcessWithoutProperty() {
+        TimeSequenceIdGenerator configured = TimeSequenceIdGenerator.of(" 7 ");
+        Assert.assertEquals(7, configured.getNodeId());
+        Assert.assertTrue(configured.isNodeConfigured());
+        int processNodeId = TimeSequenceIdGenerator.processNodeId();
+        Assert.assertEquals(processNodeId, TimeSequenceIdGenerator.processNodeId());
+        for (String value : new String[]{null, "", "node-1", "1000", "-1"}) {
+            TimeSequenceIdGenerator generator = TimeSequenceIdGenerator.of(value);
+            Assert.assertEquals(value, processNodeId, generator.getNodeId());
+            Assert.assertFalse(value, generator.isNodeConfigured());
+            // Fine for request PSNs
+            Assert.assertTrue(generator.nextId().matches("\\d{20}"));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void orderNumbersNeedAConfiguredNode() {
+        TimeSequenceIdGenerator.of(null).nextId("ORD");
+    }
+}
@@ -0,0 +1,131 @@
+package com.wiseasy.openapi.logging;
+
+import com.alibaba.fastjson.JSONObject;
+import org.apache.commons.logging.impl.NoOpLog;
+import org.apache.commons.logging.impl.SimpleLog;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class RequestLoggerTest {
+
+    @Test
+    public void redactsAndTruncates() {
+        RequestLogConfig config = new RequestLogConfig();
+        config.setAsync(false);
+        config.setMaxBodyChars(200);
+        config.setMaskCardNumbers(true);
+        CapturingLog log = new CapturingLog();
+        RequestLogger logger = new RequestLogger(log, config);
+
+        JSONObject params = new JSONObject(true);
+        params.put("merchant_no", "M1");
+        params.put("sign", "c2lnbmF0dXJl");
+        params.put("Auth_Code", "284612345678901234");
+        params.put("payer", "4111111111111111");
+        params.put("trans_amount", 12.3);
+        logger.request(logger.sample(), "http://gw/api/entry", "P1", params);
+        String line = log.lines.get(0);
+        Assert.assertTrue(line, line.startsWith("Request to gateway[http://gw/api/entry] send data [Http-Request-Psn = P1] -->> "));
+        Assert.assertTrue(line, line.contains("\"merchant_no\":\"M1\""));
+        Assert.assertTrue(line, line.contains("\"sign\":\"***\""));
+        Assert.assertTrue(line, line.contains("\"Auth_Code\":\"***\""));
+        Assert.assertTrue(line, line.contains("\"payer\":\"411111***1111\""));
+        Assert.assertFalse(line, line.contains("c2lnbmF0dXJl"));
+        // The logged parameters are not changed
+        Assert.assertEquals("c2lnbmF0dXJl", params.getString("sign"));
+
+        logger.response(true, "http://gw/api/entry", "P1", "{\"code\":\"0\",\"sign\":\"abc\",\"data\":\"{\\\"card_no\\\":\\\"5500000000000004\\\"}\"}");
+        Assert.assertTrue(log.lines.get(1), log.lines.get(1).contains("\"sign\":\"***\""));
+        Assert.assertFalse(log.lines.get(1), log.lines.get(1).contains("5500000000000004"));
+
+        StringBuilder longBody = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            longBody.append("0123456789");
+        }
+        logger.response(true, "u", "P2", longBody.toString());
+        Assert.assertTrue(log.lines.get(2), log.lines.get(2).endsWith("...(1000 chars)"));
+    }
+
+    @Test
+    public void keepsNumericIdsByDefault() {
+        RequestLogConfig config = new RequestLogConfig();
+        config.setAsync(false);
+        CapturingLog log = new CapturingLog();
+        RequestLogger logger = new RequestLogger(log, config);
+
+        JSONObject params = new JSONObject(true);
+        // A millisecond order number that happens to pass the Luhn check
+        params.put("merchant_order_no", "1623456789013");
+        params.put("card_no", "4111111111111111");
+        Assert.assertTrue(Redactor.isCardNumber("1623456789013"));
+        logger.request(true, "u", "P1", params);
+        String line = log.lines.get(0);
+        Assert.assertTrue(line, line.contains("\"merchant_order_no\":\"1623456789013\""));
+        Assert.assertTrue(line, line.contains("\"card_no\":\"***\""));
+    }
+
+    @Test
+    public void samplesAndChecksLevel() {
+        RequestLogConfig config = new RequestLogConfig();
+        config.setAsync(false);
+        config.setSampleRate(0);
+        CapturingLog log = new CapturingLog();
+        RequestLogger logger = new RequestLogger(log, config);
+        Assert.assertFalse(logger.sample());
+        logger.failure("u", "P1", new RuntimeException("down"));
+        Assert.assertEquals(1, log.lines.size());
+
+        config.setSampleRate(1);
+        Assert.assertTrue(logger.sample());
+        Assert.assertFalse(new RequestLogger(new NoOpLog(), config).sample());
+    }
+
+    @Test
+    public void writesInBackgroundAndDropsWhenFull() throws Exception {
+        RequestLogConfig config = new RequestLogConfig();
+        config.setQueueCapacity(2);
+        final CountDownLatch release = new CountDownLatch(1);
+        CapturingLog log = new CapturingLog() {
+            @Override
+            protected void log(int type, Object message, Throwable t) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.log(type, message, t);
+            }
+        };
+        RequestLogger logger = new RequestLogger(log, config);
+        for (int i = 0; i < 10; i++) {
+            logger.response(true, "u", "P" + i, "{}");
+        }
+        // The writer holds at most one line, the queue two: the rest is dropped without blocking the caller
+        Assert.assertTrue(logger.getDropped() >= 7);
+        release.countDown();
+        logger.close();
+        Assert.assertEquals(10 - logger.getDropped(), log.lines.size());
+    }
+
+    private static class CapturingLog extends SimpleLog {
+
+        final List<String> lines = new CopyOnWriteArrayList<>();
+
+        CapturingLog() {
+            super("test");
+            setLevel(LOG_LEVEL_INFO);
+        }
+
+        @Override
+        protected void log(int type, Object message, Throwable t) {
+            if (type >= LOG_LEVEL_INFO && type != LOG_LEVEL_WARN) {
+                lines.add(String.valueOf(message));
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.wiseasy.openapi.metrics;
+
+import com.wiseasy.openapi.OpenApiClient;
+import com.wiseasy.openapi.OpenApiException;
+import com.wiseasy.openapi.StubGateway;
+import com.wiseasy.openapi.request.OrderQueryRequest;
+import com.wiseasy.openapi.utils.Constants;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class MetricsTest {
+
+    @Test
+    public void histogramPercentiles() {
+        NanoHistogram histogram = new NanoHistogram();
+        for (int i = 1; i <= 100000; i++) {
+            histogram.record(i * 1000L);
+        }
+        Assert.assertEquals(100000, histogram.getCount());
+        Assert.assertEquals(100000000L, histogram.getMax());
+        assertClose(50000000L, histogram.percentile(50));
+        assertClose(99000000L, histogram.percentile(99));
+        assertClose(99900000L, histogram.percentile(99.9));
+        Assert.assertEquals(100000000L, histogram.percentile(100));
+        Assert.assertEquals(0, new NanoHistogram().percentile(50));
+
+        for (long value : new long[]{0, 1, 15, 16, 17, 1023, 1024, 123456789, Long.MAX_VALUE}) {
+            int index = NanoHistogram.indexOf(value);
+            Assert.assertTrue(value + " above its bucket", value <= NanoHistogram.upperBound(index) || index == NanoHistogram.indexOf(Long.MAX_VALUE));
+            Assert.assertTrue(value + " below its bucket", index == 0 || value > NanoHistogram.upperBound(index - 1));
+        }
+    }
+
+    @Test
+    public void histogramDecay() {
+        NanoHistogram decaying = new NanoHistogram(100);
+        for (int i = 0; i < 1000; i++) {
+            decaying.record(1000000);
+        }
+        for (int i = 0; i < 100; i++) {
+            decaying.record(5000);
+        }
+        // The older values have faded out of the percentiles, not out of the totals
+        assertClose(5000, decaying.percentile(50));
+        Assert.assertEquals(1100, decaying.getCount());
+        Assert.assertEquals(1000000, decaying.getMax());
+    }
+
+    @Test
+    public void clientRecordsPhases() throws Exception {
+        StubGateway gateway = new StubGateway(1).context(Constants.API_ENTRY_URL, exchange ->
+                StubGateway.reply(exchange, "{\"code\":\"0\",\"msg\":\"success\",\"data\":{\"trans_no\":\"T1\"}}")).start();
+        InMemoryMetricsSink sink = new InMemoryMetricsSink();
+        try {
+            OpenApiClient client = gateway.newClient();
+            client.setMetricsSink(sink);
+
+            OrderQueryRequest request = new OrderQueryRequest();
+            request.setMerchant_no("M1");
+            request.setMerchant_order_no("O1");
+            client.execute(request);
+            client.executeAsync(request).get(5, TimeUnit.SECONDS);
+            for (Phase phase : Phase.values()) {
+                NanoHistogram histogram = sink.getHistogram("order.query", "0", phase);
+                Assert.assertNotNull(phase.getName(), histogram);
+                Assert.assertEquals(phase.getName(), 2, histogram.getCount());
+            }
+            NanoHistogram total = sink.getHistogram("order.query", "0", Phase.TOTAL);
+            Assert.assertTrue(total.getMax() >= sink.getHistogram("order.query", "0", Phase.HTTP).getMax());
+
+            gateway.close();
+            try {
+                client.execute(request);
+                Assert.fail();
+            } catch (OpenApiException e) {
+                Assert.assertEquals(Constants.REQUEST_SERVER_FAILED, e.getErrCode());
+            }
+            Assert.assertEquals(1, sink.getHistogram("order.query", Constants.REQUEST_SERVER_FAILED, Phase.HTTP).getCount());
+            Assert.assertNull(sink.getHistogram("order.query", Constants.REQUEST_SERVER_FAILED, Phase.VERIFY));
+            client.close();
+        } finally {
+            gateway.close();
+        }
+
+        String text = MetricsTextExporter.export(sink);
+        Assert.assertTrue(text, text.contains("# TYPE openapi_call_phase_seconds summary"));
+        Assert.assertTrue(text, text.contains("openapi_call_phase_seconds_count{method=\"order.query\",code=\"0\",phase=\"sign\"} 2"));
+        Assert.assertTrue(text, text.contains("openapi_call_phase_seconds{method=\"order.query\",code=\"CLI003\",phase=\"total\",quantile=\"0.99\"} "));
+    }
+
+    @Test
+    public void labelValuesAreEscaped() {
+        Assert.assertEquals("GW\\\"1\\\\x\\ny", MetricsTextExporter.escape("GW\"1\\x\ny"));
+        Assert.assertEquals("", MetricsTextExporter.escape(null));
+
+        InMemoryMetricsSink sink = new InMemoryMetricsSink();
+        sink.record("order.query", "E\"\n", Phase.TOTAL, 1000);
+        String text = MetricsTextExporter.export(sink);
+        Assert.assertTrue(text, text.contains("openapi_call_phase_seconds_count{method=\"order.query\",code=\"E\\\"\\n\",phase=\"total\"} 1\n"));
+        for (String line : text.split("\n")) {
+            Assert.assertTrue(line, line.startsWith("# TYPE ") || line.startsWith("openapi_call_phase_seconds"));
+        }
+    }
+
+    private static void assertClose(long expected, long actual) {
+        Assert.assertTrue(expected + " ~ " + actual, Math.abs(actual - expected) <= expected * 0.0625);
+    }
+}
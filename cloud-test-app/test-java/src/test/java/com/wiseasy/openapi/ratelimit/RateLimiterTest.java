@@ -0,0 +1,178 @@
+package com.wiseasy.openapi.ratelimit;
+
+import com.wiseasy.openapi.OpenApiException;
+import com.wiseasy.openapi.utils.Constants;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class RateLimiterTest {
+
+    @Test
+    public void burstThenFailFast() throws Exception {
+        RateLimitConfig config = new RateLimitConfig();
+        config.setAppLimit(new RateLimit(10, 5));
+        config.setBlocking(false);
+        AtomicLong clock = new AtomicLong();
+        RateLimiter limiter = new RateLimiter(config, clock::get);
+        for (int i = 0; i < 5; i++) {
+            Assert.assertEquals(0, limiter.reserve("order.query", "M1"));
+        }
+        try {
+            limiter.reserve("order.query", "M1");
+            Assert.fail();
+        } catch (OpenApiException e) {
+            Assert.assertEquals(Constants.RATE_LIMITED, e.getErrCode());
+        }
+        Assert.assertEquals(5, limiter.getStats().get("order.query", RateLimitStats.PERMITTED));
+        Assert.assertEquals(1, limiter.getStats().get("order.query", RateLimitStats.REJECTED));
+
+        // One slot every 100ms
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        Assert.assertEquals(0, limiter.reserve("order.query", "M1"));
+        assertRejected(limiter, "order.query", "M1");
+    }
+
+    @Test
+    public void blockingSpacesRequests() throws Exception {
+        RateLimitConfig config = new RateLimitConfig();
+        config.setAppLimit(new RateLimit(100, 1));
+        AtomicLong clock = new AtomicLong();
+        RateLimiter limiter = new RateLimiter(config, clock::get);
+        // Requests arriving at once are given slots 10ms apart
+        for (int i = 0; i < 21; i++) {
+            Assert.assertEquals(TimeUnit.MILLISECONDS.toNanos(10 * i), limiter.reserve("order.query", null));
+        }
+        Assert.assertEquals(20, limiter.getStats().get("order.query", RateLimitStats.DELAYED));
+        Assert.assertTrue(limiter.getStats().toText().contains("openapi_rate_limit_permitted_total{method=\"order.query\"} 21"));
+
+        // Beyond the longest wait the request fails
+        config.setMaxWaitMillis(200);
+        assertRejected(limiter, "order.query", null);
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(10));
+        Assert.assertEquals(TimeUnit.MILLISECONDS.toNanos(200), limiter.reserve("order.query", null));
+
+        // acquire parks until the slot: the second one is at least 10ms after the first
+        RateLimiter blocking = new RateLimiter(config);
+        long start = System.nanoTime();
+        blocking.acquire("order.query", null);
+        blocking.acquire("order.query", null);
+        Assert.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(10));
+    }
+
+    @Test
+    public void merchantsAndMethodsAreSeparate() throws Exception {
+        RateLimitConfig config = new RateLimitConfig();
+        config.setMerchantLimit(new RateLimit(1, 2));
+        config.getMethodLimits().put("order.refund.submit", new RateLimit(1, 1));
+        config.setBlocking(false);
+        RateLimiter limiter = new RateLimiter(config);
+        limiter.reserve("order.query", "M1");
+        limiter.reserve("order.query", "M1");
+        assertRejected(limiter, "order.query", "M1");
+        limiter.reserve("order.query", "M2");
+
+        limiter.reserve("order.refund.submit", "M3");
+        assertRejected(limiter, "order.refund.submit", "M4");
+        // The refused request gave back the merchant slot it had taken
+        limiter.reserve("order.query", "M4");
+        limiter.reserve("order.query", "M4");
+    }
+
+    @Test
+    public void acquireWaitsOnTheClock() throws Exception {
+        RateLimitConfig config = new RateLimitConfig();
+        config.setAppLimit(new RateLimit(100, 1));
+        AtomicLong clock = new AtomicLong();
+        RateLimiter limiter = new RateLimiter(config, clock::get);
+        limiter.acquire("order.query", null);
+        Thread waiting = new Thread(() -> {
+            try {
+                limiter.acquire("order.query", null);
+            } catch (OpenApiException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        waiting.start();
+        // Real time passes, the clock of the limiter does not: the slot 10ms later is not reached
+        waiting.join(100);
+        Assert.assertTrue(waiting.isAlive());
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(10));
+        waiting.join(5000);
+        Assert.assertFalse(waiting.isAlive());
+    }
+
+    @Test
+    public void merchantsAreCapped() throws Exception {
+        RateLimitConfig config = new RateLimitConfig();
+        config.setMerchantLimit(new RateLimit(1, 1));
+        config.setMaxMerchants(10);
+        config.setBlocking(false);
+        AtomicLong clock = new AtomicLong();
+        RateLimiter limiter = new RateLimiter(config, clock::get);
+        for (int i = 0; i < 100; i++) {
+            limiter.reserve("order.query", "M" + i);
+            Assert.assertTrue(limiter.getMerchantCount() <= 10);
+        }
+
+        // Idle merchants are forgotten before a busy one
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        limiter.reserve("order.query", "busy");
+        for (int i = 0; i < 8; i++) {
+            limiter.reserve("order.query", "N" + i);
+        }
+        Assert.assertEquals(10, limiter.getMerchantCount());
+        assertRejected(limiter, "order.query", "busy");
+    }
+
+    @Test
+    public void concurrentRequestsNeverExceedLimit() throws Exception {
+        RateLimitConfig config = new RateLimitConfig();
+        config.setAppLimit(new RateLimit(1000, 100));
+        config.setBlocking(false);
+        final RateLimiter limiter = new RateLimiter(config);
+        final AtomicInteger permitted = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < 10000; i++) {
+                        try {
+                            limiter.reserve("order.query", null);
+                            permitted.incrementAndGet();
+                        } catch (OpenApiException ignore) {
+                            // over the limit
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + 1;
+            Assert.assertTrue(permitted.get() + " in " + elapsedMillis + "ms", permitted.get() <= 100 + elapsedMillis);
+            Assert.assertEquals(80000 - permitted.get(), limiter.getStats().get("order.query", RateLimitStats.REJECTED));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static void assertRejected(RateLimiter limiter, String method, String merchantNo) {
+        try {
+            limiter.reserve(method, merchantNo);
+            Assert.fail();
+        } catch (OpenApiException e) {
+            Assert.assertEquals(Constants.RATE_LIMITED, e.getErrCode());
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.wiseasy.openapi.request;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.ParameterizedType;
+
+/**
+ * The registry must return what the original per-call reflection computed
+ */
+public class RequestMetadataTest {
+
+    @Test
+    public void sameAsPerCallReflection() throws Exception {
+        for (Class<?> type : RequestSerializerTest.REQUEST_TYPES) {
+            OpenApiRequest<?> request = (OpenApiRequest<?>) type.newInstance();
+            Assert.assertEquals(legacyRequestMethod(type), request.getRequestMethod());
+            Assert.assertEquals(((ParameterizedType) type.getGenericSuperclass()).getActualTypeArguments()[0], request.getResponseClass());
+            Assert.assertSame(RequestMetadata.of(type), RequestMetadata.of(type));
+        }
+        Assert.assertEquals("wisehub.cloud.pay.order", new WisehubCloudPayOrderRequest().getRequestMethod());
+    }
+
+    /**
+     * The original OpenApiRequest.getRequestMethod
+     */
+    private static String legacyRequestMethod(Class<?> type) {
+        String className = type.getSimpleName();
+        className = className.replace("Request", "");
+        char[] chars = className.toCharArray();
+        String method = "";
+        for (char c : chars){
+            if("".equals(method)){
+                method += (String.valueOf(c)).toLowerCase();
+            }else{
+                if( c >='A' && c <= 'Z'){
+                    method += "." + (String.valueOf(c)).toLowerCase();
+                }else{
+                    method += String.valueOf(c);
+                }
+            }
+        }
+        return method;
+    }
+}
@@ -0,0 +1,100 @@
+package com.wiseasy.openapi.request;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.wiseasy.openapi.sign.CanonicalContent;
+import org.apache.http.entity.mime.content.FileBody;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Golden tests: the direct serializer must produce the parameters (and string to sign) of the
+ * original JSON write + parse, for every request type
+ */
+public class RequestSerializerTest {
+
+    static final Class<?>[] REQUEST_TYPES = {
+            AutoDebitCancelRequest.class, AutoDebitExtendRequest.class, AutoDebitPaySubmitRequest.class,
+            AutoDebitSignQueryRequest.class, AutoDebitSignRequest.class, BscancPaySubmitRequest.class,
+            CscanbPayGetqrcodeRequest.class, CustomsDeclarationQueryRequest.class, CustomsDeclarationRequest.class,
+            FileUploadRequest.class, MerchantOnboardingRequest.class, MerchantQueryRequest.class,
+            OrderQueryRequest.class, OrderRefundQueryRequest.class, OrderRefundSubmitRequest.class,
+            OrderRevokerRequest.class, PayBillDownloadRequest.class, PayEntrycodeRequest.class,
+            PayInappOrderRequest.class, PayMiniprogramOrderRequest.class, PayUnifiedorderRequest.class,
+            WisehubCloudMessageSendRequest.class, WisehubCloudPayOrderRequest.class
+    };
+
+    // Values whose JSON round trip is not the plain toString()
+    private static final double[] DOUBLES = {100.0, 0.1, 1.0E7, 1.0E-5, 9999999.99, 12.345678901234567, 1.0E21};
+
+    @Test
+    public void sameParamsAsJsonRoundTrip() throws Exception {
+        for (Class<?> type : REQUEST_TYPES) {
+            for (int variant = 0; variant < DOUBLES.length; variant++) {
+                OpenApiRequest<?> request = populate(type, variant);
+                assertSameParams(type.getSimpleName(), request);
+            }
+            // Only nulls
+            assertSameParams(type.getSimpleName(), (OpenApiRequest<?>) type.newInstance());
+        }
+    }
+
+    @Test
+    public void skipsNonSerializableFields() throws Exception {
+        FileUploadRequest request = new FileUploadRequest();
+        request.setInstitution_no("I001");
+        request.setFile_body(new FileBody(new File("pom.xml")));
+        JSONObject params = RequestSerializer.toParams(request);
+        Assert.assertEquals(1, params.size());
+        Assert.assertEquals("I001", params.get("institution_no"));
+    }
+
+    private static void assertSameParams(String name, OpenApiRequest<?> request) {
+        JSONObject expected = JSONObject.parseObject(JSON.toJSONString(request));
+        expected.remove("responseClass");
+        expected.remove("requestMethod");
+        JSONObject actual = RequestSerializer.toParams(request);
+
+        Assert.assertEquals(name, expected.keySet(), actual.keySet());
+        for (String key : expected.keySet()) {
+            Assert.assertEquals(name + "." + key, String.valueOf(expected.get(key)), String.valueOf(actual.get(key)));
+        }
+        Assert.assertEquals(name, CanonicalContent.of(expected).toString(), CanonicalContent.of(actual).toString());
+        Assert.assertEquals(name, JSON.parseObject(expected.toJSONString()), JSON.parseObject(actual.toJSONString()));
+    }
+
+    private static OpenApiRequest<?> populate(Class<?> type, int variant) throws Exception {
+        OpenApiRequest<?> request = (OpenApiRequest<?>) type.newInstance();
+        Set<String> seen = new HashSet<>();
+        int i = 0;
+        for (Field field : type.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers()) || !seen.add(field.getName())) {
+                continue;
+            }
+            field.setAccessible(true);
+            Class<?> fieldType = field.getType();
+            // Leave some fields empty
+            if ((i++ + variant) % 5 == 0) {
+                continue;
+            }
+            if (fieldType == String.class) {
+                field.set(request, variant % 2 == 0 ? field.getName() + "_" + variant : "中文 \"quoted\" & 😀 " + variant);
+            } else if (fieldType == Double.class) {
+                field.set(request, DOUBLES[(variant + i) % DOUBLES.length]);
+            } else if (fieldType == Integer.class) {
+                field.set(request, variant * 1000 + i);
+            } else if (fieldType == Boolean.class) {
+                field.set(request, variant % 2 == 0);
+            } else if (fieldType == FileBody.class) {
+                field.set(request, new FileBody(new File("pom.xml")));
+            }
+        }
+        return request;
+    }
+}
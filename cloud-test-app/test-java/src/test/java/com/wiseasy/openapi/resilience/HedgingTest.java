@@ -0,0 +1,156 @@
+package com.wiseasy.openapi.resilience;
+
+import com.wiseasy.openapi.OpenApiClient;
+import com.wiseasy.openapi.OpenApiException;
+import com.wiseasy.openapi.StubGateway;
+import com.wiseasy.openapi.request.OrderQueryRequest;
+import com.wiseasy.openapi.response.OrderQueryResponse;
+import com.wiseasy.openapi.utils.Constants;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class HedgingTest {
+
+    @Test
+    public void slowFirstAttemptIsHedged() throws Exception {
+        Hedging hedging = new Hedging(config());
+        List<CompletableFuture<String>> attempts = new CopyOnWriteArrayList<>();
+        CompletableFuture<String> result = hedging.executeAsync("order.query", hedge -> {
+            CompletableFuture<String> f = new CompletableFuture<>();
+            attempts.add(f);
+            return f;
+        });
+        waitFor(attempts, 2);
+        attempts.get(1).complete("hedge");
+        Assert.assertEquals("hedge", result.get(5, TimeUnit.SECONDS));
+        Assert.assertTrue(attempts.get(0).isCancelled());
+        Assert.assertEquals(1, hedging.getStats().get("order.query", HedgingStats.HEDGES));
+        Assert.assertEquals(1, hedging.getStats().get("order.query", HedgingStats.HEDGE_WINS));
+    }
+
+    @Test
+    public void fastFirstAttemptIsNotHedged() throws Exception {
+        Hedging hedging = new Hedging(config());
+        AtomicInteger attempts = new AtomicInteger();
+        CompletableFuture<String> result = hedging.executeAsync("order.query", hedge -> {
+            attempts.incrementAndGet();
+            return CompletableFuture.completedFuture("first");
+        });
+        Assert.assertEquals("first", result.get(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        Assert.assertEquals(1, attempts.get());
+        Assert.assertEquals(0, hedging.getStats().get("order.query", HedgingStats.HEDGES));
+    }
+
+    @Test
+    public void failedAttemptWaitsForTheOther() throws Exception {
+        Hedging hedging = new Hedging(config());
+        List<CompletableFuture<String>> attempts = new CopyOnWriteArrayList<>();
+        CompletableFuture<String> result = hedging.executeAsync("order.query", hedge -> {
+            CompletableFuture<String> f = new CompletableFuture<>();
+            attempts.add(f);
+            return f;
+        });
+        waitFor(attempts, 2);
+        attempts.get(1).completeExceptionally(new OpenApiException(Constants.VERIFY_SIGNATURE_FAILED, "Response data signature error"));
+        Thread.sleep(20);
+        Assert.assertFalse(result.isDone());
+        attempts.get(0).complete("first");
+        Assert.assertEquals("first", result.get(5, TimeUnit.SECONDS));
+        Assert.assertEquals(0, hedging.getStats().get("order.query", HedgingStats.HEDGE_WINS));
+    }
+
+    @Test
+    public void hedgesAreCapped() throws Exception {
+        HedgingConfig config = config();
+        config.setMaxHedgeRatio(0);
+        Hedging hedging = new Hedging(config);
+        AtomicInteger attempts = new AtomicInteger();
+        CompletableFuture<String> result = hedging.executeAsync("order.query", hedge -> {
+            attempts.incrementAndGet();
+            return new CompletableFuture<>();
+        });
+        Thread.sleep(100);
+        Assert.assertEquals(1, attempts.get());
+        Assert.assertEquals(1, hedging.getStats().get("order.query", HedgingStats.HEDGES_BUDGET_EXHAUSTED));
+        result.cancel(false);
+    }
+
+    @Test
+    public void delayFollowsPercentile() throws Exception {
+        HedgingConfig config = config();
+        config.setInitialDelayMillis(1000);
+        config.setMinSamples(20);
+        config.setDelayPercentile(50);
+        config.setMinDelayMillis(1);
+        Hedging hedging = new Hedging(config);
+        Assert.assertEquals(config.getInitialDelayMillis(), hedging.delayMillis("order.query"));
+        for (int i = 0; i < 20; i++) {
+            hedging.executeAsync("order.query", hedge -> CompletableFuture.supplyAsync(() -> {
+                try {
+                    Thread.sleep(30);
+                } catch (InterruptedException ignore) {
+                    // cancelled
+                }
+                return "ok";
+            })).get(5, TimeUnit.SECONDS);
+        }
+        long delay = hedging.delayMillis("order.query");
+        Assert.assertTrue(String.valueOf(delay), delay >= 30 && delay < config.getInitialDelayMillis());
+    }
+
+    @Test
+    public void clientReturnsFirstResponse() throws Exception {
+        AtomicInteger requests = new AtomicInteger();
+        StubGateway gateway = new StubGateway(4).context(Constants.API_ENTRY_URL, exchange -> {
+            try {
+                // The first request is stuck, the hedge is answered at once
+                if (requests.incrementAndGet() == 1) {
+                    Thread.sleep(3000);
+                }
+            } catch (InterruptedException ignore) {
+                // stopping
+            }
+            StubGateway.reply(exchange, "{\"code\":\"0\",\"msg\":\"success\",\"data\":{\"trans_no\":\"T1\"}}");
+        }).start();
+        try {
+            OpenApiClient client = gateway.newClient();
+            client.setHedging(config());
+
+            OrderQueryRequest request = new OrderQueryRequest();
+            request.setMerchant_no("M1");
+            request.setMerchant_order_no("O1");
+            long start = System.currentTimeMillis();
+            OrderQueryResponse resp = client.execute(request);
+            Assert.assertEquals("T1", resp.getTrans_no());
+            Assert.assertTrue(System.currentTimeMillis() - start < 2000);
+            Assert.assertEquals(2, requests.get());
+            Assert.assertEquals(1, client.getHedgingStats().get("order.query", HedgingStats.HEDGE_WINS));
+            client.close();
+        } finally {
+            gateway.close();
+        }
+    }
+
+    private static void waitFor(List<?> attempts, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (attempts.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        Assert.assertEquals(count, attempts.size());
+    }
+
+    private static HedgingConfig config() {
+        HedgingConfig config = new HedgingConfig();
+        config.setInitialDelayMillis(30);
+        // Every request may be hedged
+        config.setMaxHedgeRatio(1);
+        return config;
+    }
+}
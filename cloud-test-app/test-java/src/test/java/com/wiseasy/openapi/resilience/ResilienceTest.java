@@ -0,0 +1,239 @@
+package com.wiseasy.openapi.resilience;
+
+import com.wiseasy.openapi.OpenApiException;
+import com.wiseasy.openapi.utils.Constants;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ResilienceTest {
+
+    private static final OpenApiException FAILED = new OpenApiException(Constants.REQUEST_SERVER_FAILED, "Request to gateway fail");
+
+    @Test
+    public void retriesOnlyMethodsWithPolicy() throws Exception {
+        ResilienceConfig config = config();
+        config.setCircuitBreakerEnabled(false);
+        Resilience resilience = new Resilience(config);
+
+        AtomicInteger attempts = new AtomicInteger();
+        String result = resilience.execute("order.query", () -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw FAILED;
+            }
+            return "ok";
+        });
+        Assert.assertEquals("ok", result);
+        Assert.assertEquals(3, attempts.get());
+        Assert.assertEquals(2, resilience.getStats().get("order.query", ResilienceStats.RETRIES));
+
+        attempts.set(0);
+        try {
+            resilience.execute("order.refund.submit", () -> {
+                attempts.incrementAndGet();
+                throw FAILED;
+            });
+            Assert.fail();
+        } catch (OpenApiException e) {
+            Assert.assertEquals(Constants.REQUEST_SERVER_FAILED, e.getErrCode());
+        }
+        Assert.assertEquals(1, attempts.get());
+
+        // A response with an error code is not retried
+        attempts.set(0);
+        try {
+            resilience.execute("order.query", () -> {
+                attempts.incrementAndGet();
+                throw new OpenApiException(Constants.VERIFY_SIGNATURE_FAILED, "Response data signature error");
+            });
+            Assert.fail();
+        } catch (OpenApiException e) {
+            Assert.assertEquals(1, attempts.get());
+        }
+    }
+
+    @Test
+    public void budgetLimitsRetries() throws Exception {
+        ResilienceConfig config = config();
+        config.setCircuitBreakerEnabled(false);
+        config.setRetryBudgetRatio(0.5);
+        config.setMinRetriesPerSecond(0);
+        Resilience resilience = new Resilience(config);
+        // One retry every second request: every second request retries once, every retry that follows is refused
+        for (int i = 0; i < 10; i++) {
+            try {
+                resilience.execute("order.query", () -> {
+                    throw FAILED;
+                });
+            } catch (OpenApiException ignore) {
+                // expected
+            }
+        }
+        Assert.assertEquals(5, resilience.getStats().get("order.query", ResilienceStats.RETRIES));
+        Assert.assertEquals(10, resilience.getStats().get("order.query", ResilienceStats.RETRIES_BUDGET_EXHAUSTED));
+        Assert.assertEquals(0, resilience.getRetryBudget().available());
+    }
+
+    @Test
+    public void breakerOpensAndRecovers() throws Exception {
+        ResilienceConfig config = config();
+        config.setRetryPolicies(new HashMap<>());
+        config.setMinimumCalls(10);
+        config.setOpenMillis(100);
+        config.setHalfOpenCalls(2);
+        Resilience resilience = new Resilience(config);
+        CircuitBreaker breaker = resilience.getCircuitBreaker();
+
+        for (int i = 0; i < 10; i++) {
+            try {
+                resilience.execute("order.query", () -> {
+                    throw FAILED;
+                });
+            } catch (OpenApiException e) {
+                Assert.assertEquals(Constants.REQUEST_SERVER_FAILED, e.getErrCode());
+            }
+        }
+        Assert.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        try {
+            resilience.execute("order.query", () -> "ok");
+            Assert.fail();
+        } catch (OpenApiException e) {
+            Assert.assertEquals(Constants.CIRCUIT_OPEN, e.getErrCode());
+        }
+        Assert.assertEquals(1, resilience.getStats().get("order.query", ResilienceStats.REJECTED_CIRCUIT_OPEN));
+
+        // Half open: a failed trial opens it again
+        Thread.sleep(120);
+        try {
+            resilience.execute("order.query", () -> {
+                throw FAILED;
+            });
+        } catch (OpenApiException e) {
+            Assert.assertEquals(Constants.REQUEST_SERVER_FAILED, e.getErrCode());
+        }
+        Assert.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        Assert.assertEquals(2, breaker.getOpenCount());
+
+        // Successful trials close it
+        Thread.sleep(120);
+        Assert.assertEquals("ok", resilience.execute("order.query", () -> "ok"));
+        Assert.assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        Assert.assertEquals("ok", resilience.execute("order.query", () -> "ok"));
+        Assert.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        Assert.assertTrue(resilience.getStats().toText().contains("openapi_rejected_circuit_open_total{method=\"order.query\"} 1"));
+    }
+
+    @Test
+    public void unexpectedExceptionReleasesTheTrialCall() throws Exception {
+        ResilienceConfig config = config();
+        config.setRetryPolicies(new HashMap<>());
+        config.setMinimumCalls(1);
+        config.setOpenMillis(100);
+        config.setHalfOpenCalls(1);
+        Resilience resilience = new Resilience(config);
+        CircuitBreaker breaker = resilience.getCircuitBreaker();
+        try {
+            resilience.execute("order.query", () -> {
+                throw FAILED;
+            });
+        } catch (OpenApiException e) {
+            Assert.assertEquals(Constants.REQUEST_SERVER_FAILED, e.getErrCode());
+        }
+        Assert.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        // The trial call fails with something else than an OpenApiException, its result is still recorded
+        Thread.sleep(120);
+        try {
+            resilience.execute("order.query", () -> {
+                throw new IllegalStateException("bug in the call");
+            });
+            Assert.fail();
+        } catch (IllegalStateException expected) {
+            // not swallowed
+        }
+        Assert.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        Assert.assertEquals("ok", resilience.execute("order.query", () -> "ok"));
+    }
+
+    @Test
+    public void halfOpenOpensAgainWhenTrialResultsNeverArrive() throws Exception {
+        ResilienceConfig config = config();
+        config.setMinimumCalls(1);
+        config.setOpenMillis(100);
+        config.setHalfOpenCalls(1);
+        CircuitBreaker breaker = new CircuitBreaker(config);
+        breaker.onResult(true, 0);
+        Assert.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        Thread.sleep(120);
+        // Trial call acquired, its result is never recorded
+        Assert.assertTrue(breaker.tryAcquire());
+        Assert.assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        Assert.assertFalse(breaker.tryAcquire());
+
+        Thread.sleep(120);
+        Assert.assertFalse(breaker.tryAcquire());
+        Assert.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        Assert.assertEquals(2, breaker.getOpenCount());
+
+        Thread.sleep(120);
+        Assert.assertTrue(breaker.tryAcquire());
+        breaker.onResult(false, 0);
+        Assert.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void slowCallsOpenBreaker() throws Exception {
+        ResilienceConfig config = config();
+        config.setMinimumCalls(3);
+        config.setSlowCallMillis(0);
+        Resilience resilience = new Resilience(config);
+        for (int i = 0; i < 3; i++) {
+            resilience.execute("order.query", () -> "ok");
+        }
+        Assert.assertEquals(CircuitBreaker.State.OPEN, resilience.getCircuitBreaker().getState());
+    }
+
+    @Test
+    public void retriesAsync() throws Exception {
+        Resilience resilience = new Resilience(config());
+        AtomicInteger attempts = new AtomicInteger();
+        CompletableFuture<String> result = resilience.executeAsync("order.query", () -> {
+            CompletableFuture<String> f = new CompletableFuture<>();
+            if (attempts.incrementAndGet() < 3) {
+                f.completeExceptionally(FAILED);
+            } else {
+                f.complete("ok");
+            }
+            return f;
+        });
+        Assert.assertEquals("ok", result.get(5, TimeUnit.SECONDS));
+        Assert.assertEquals(3, attempts.get());
+
+        CompletableFuture<String> failed = resilience.executeAsync("order.refund.submit", () -> {
+            CompletableFuture<String> f = new CompletableFuture<>();
+            f.completeExceptionally(FAILED);
+            return f;
+        });
+        try {
+            failed.get(5, TimeUnit.SECONDS);
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertSame(FAILED, e.getCause());
+        }
+    }
+
+    private static ResilienceConfig config() {
+        ResilienceConfig config = new ResilienceConfig();
+        for (RetryPolicy policy : config.getRetryPolicies().values()) {
+            policy.setBackoffMillis(1);
+        }
+        return config;
+    }
+}
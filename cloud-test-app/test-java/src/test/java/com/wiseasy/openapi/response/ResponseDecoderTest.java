@@ -0,0 +1,87 @@
+package com.wiseasy.openapi.response;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.alibaba.fastjson.serializer.SerializerFeature;
+import com.wiseasy.openapi.OpenApiException;
+import com.wiseasy.openapi.sign.Base64;
+import com.wiseasy.openapi.sign.RSAKeyHolder;
+import com.wiseasy.openapi.sign.SignHandler;
+import com.wiseasy.openapi.utils.Constants;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+
+/**
+ * Golden tests: the single-pass decoder must produce the object of the original
+ * parse + merge 'data' + JSON.toJavaObject path, and verify the same signatures
+ */
+public class ResponseDecoderTest {
+
+    private static final String[] BODIES = {
+            "{\"code\":\"0\",\"msg\":\"success\",\"psn\":\"P1\",\"data\":{\"trans_no\":\"T1\",\"trans_status\":2,"
+                    + "\"trans_amount\":100.00,\"paid_amount\":\"99.5\",\"merchant_order_no\":\"中文😀\",\"unknown\":[1,2]}}",
+            "{\"code\":\"0\",\"msg\":\"from envelope\",\"data\":{\"msg\":\"from data\",\"trans_no\":\"T2\"}}",
+            "{\"code\":\"0\",\"data\":\"{\\\"trans_no\\\":\\\"T3\\\",\\\"trans_type\\\":\\\"3\\\"}\"}",
+            "{\"code\":\"GW001\",\"msg\":\"Parameter error\",\"psn\":\"P4\"}",
+            "{\"code\":\"0\",\"data\":{\"transNo\":\"SMART\",\"Trans-Status\":1}}",
+    };
+
+    @Test
+    public void sameObjectAsLegacy() throws Exception {
+        for (String body : BODIES) {
+            assertSame(body, OrderQueryResponse.class);
+        }
+        assertSame("{\"code\":\"0\",\"data\":{\"channel_original_message\":\"ok\",\"declaration_records\":["
+                + "{\"state\":\"SUCCESS\",\"sub_order_amount\":12.30,\"customs\":\"HK\"},{\"state\":\"FAIL\"}]}}",
+                CustomsDeclarationQueryResponse.class);
+        assertSame("{\"code\":\"0\",\"data\":{\"open_vat\":true,\"open_settle\":\"false\"}}", MerchantQueryResponse.class);
+    }
+
+    @Test
+    public void verifiesSignature() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair gateway = generator.generateKeyPair();
+        String gatewayPrivateKey = Base64.encode(gateway.getPrivate().getEncoded());
+        RSAKeyHolder keys = new RSAKeyHolder(null, Base64.encode(gateway.getPublic().getEncoded()));
+
+        JSONObject resultJson = JSON.parseObject(BODIES[0]);
+        resultJson.put(Constants.SIGN, SignHandler.sign(gatewayPrivateKey, resultJson));
+        String signed = resultJson.toJSONString();
+
+        OrderQueryResponse resp = ResponseDecoder.decode(signed, OrderQueryResponse.class, keys);
+        Assert.assertEquals("T1", resp.getTrans_no());
+        Assert.assertEquals(resultJson.getString(Constants.SIGN), resp.getSign());
+
+        try {
+            ResponseDecoder.decode(signed.replace("\"T1\"", "\"T9\""), OrderQueryResponse.class, keys);
+            Assert.fail("Tampered response must not verify");
+        } catch (OpenApiException e) {
+            Assert.assertEquals(Constants.VERIFY_SIGNATURE_FAILED, e.getErrCode());
+        }
+    }
+
+    private static <T extends OpenApiResponse> void assertSame(String body, Class<T> responseClass) {
+        T actual = ResponseDecoder.bind(JSON.parseObject(body), responseClass);
+        T expected = legacyDecode(body, responseClass);
+        Assert.assertEquals(body, JSON.toJSONString(expected, SerializerFeature.WriteMapNullValue),
+                JSON.toJSONString(actual, SerializerFeature.WriteMapNullValue));
+    }
+
+    /**
+     * The original conversion of OpenApiClient.execute
+     */
+    private static <T extends OpenApiResponse> T legacyDecode(String resultStr, Class<T> responseClass) {
+        JSONObject resultJson = JSONObject.parseObject(resultStr);
+        Object data = resultJson.get(Constants.DATA);
+        if (data != null) {
+            String dataStr = resultJson.getString(Constants.DATA);
+            resultJson.putAll(JSONObject.parseObject(dataStr));
+        }
+        resultJson.remove(Constants.DATA);
+        return JSON.toJavaObject(resultJson, responseClass);
+    }
+}
@@ -0,0 +1,124 @@
+package com.wiseasy.openapi.routing;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class GatewayRouterTest {
+
+    @Test
+    public void prefersFasterGateway() {
+        GatewayRouter router = new GatewayRouter(config("http://a", "http://b"));
+        GatewayEndpoint a = router.getEndpoints().get(0);
+        GatewayEndpoint b = router.getEndpoints().get(1);
+        for (int i = 0; i < 20; i++) {
+            a.inFlight.incrementAndGet();
+            router.onSuccess(a, 200);
+            b.inFlight.incrementAndGet();
+            router.onSuccess(b, 20);
+        }
+        Assert.assertTrue(a.getLatencyMillis() > b.getLatencyMillis());
+        for (int i = 0; i < 100; i++) {
+            GatewayEndpoint chosen = router.select();
+            Assert.assertSame(b, chosen);
+            router.onSuccess(chosen, 20);
+        }
+        Assert.assertEquals(0, a.getInFlight());
+        Assert.assertEquals(0, b.getInFlight());
+    }
+
+    @Test
+    public void ejectsAndReadmits() throws Exception {
+        GatewayRoutingConfig config = config("http://a", "http://b");
+        config.setEjectMillis(100);
+        GatewayRouter router = new GatewayRouter(config);
+        GatewayEndpoint a = router.getEndpoints().get(0);
+        GatewayEndpoint b = router.getEndpoints().get(1);
+
+        for (int i = 0; i < config.getEjectConsecutiveFailures(); i++) {
+            router.onFailure(router.select(b), 10);
+        }
+        Assert.assertTrue(a.isEjected());
+        for (int i = 0; i < 20; i++) {
+            GatewayEndpoint chosen = router.select();
+            Assert.assertSame(b, chosen);
+            router.onSuccess(chosen, 10);
+        }
+
+        // Re-admitted on probation: a single failure ejects it again, for twice as long
+        Thread.sleep(120);
+        Assert.assertFalse(a.isEjected());
+        Assert.assertEquals(0, a.getErrorRate(), 0.0);
+        router.onFailure(router.select(b), 10);
+        Assert.assertTrue(a.isEjected());
+        Thread.sleep(120);
+        Assert.assertTrue(a.isEjected());
+        Thread.sleep(100);
+        Assert.assertFalse(a.isEjected());
+    }
+
+    @Test
+    public void neverEjectsAllGateways() {
+        GatewayRouter router = new GatewayRouter(config("http://a", "http://b"));
+        for (int i = 0; i < 50; i++) {
+            router.onFailure(router.select(), 10);
+        }
+        int ejected = 0;
+        for (GatewayEndpoint endpoint : router.getEndpoints()) {
+            if (endpoint.isEjected()) {
+                ejected++;
+            }
+        }
+        Assert.assertEquals(1, ejected);
+        GatewayEndpoint chosen = router.select();
+        Assert.assertFalse(chosen.isEjected());
+        router.onCancelled(chosen);
+    }
+
+    @Test
+    public void firstLatencyIsNotAveragedWithZero() {
+        GatewayRoutingConfig config = config("http://a", "http://b");
+        config.setEjectConsecutiveFailures(100);
+        GatewayRouter router = new GatewayRouter(config);
+        GatewayEndpoint a = router.getEndpoints().get(0);
+        // A failure first: it seeds the error rate, not the latency
+        a.inFlight.incrementAndGet();
+        router.onFailure(a, 5000);
+        Assert.assertEquals(0, a.getLatencyMillis(), 0);
+        Assert.assertEquals(1, a.getErrorRate(), 0);
+
+        a.inFlight.incrementAndGet();
+        router.onSuccess(a, 200);
+        Assert.assertEquals(200, a.getLatencyMillis(), 0);
+        Assert.assertTrue(a.getErrorRate() < 1);
+    }
+
+    @Test
+    public void errorRateEjects() {
+        GatewayRoutingConfig config = config("http://a", "http://b", "http://c", "http://d");
+        config.setEjectConsecutiveFailures(100);
+        config.setMinSamples(10);
+        GatewayRouter router = new GatewayRouter(config);
+        GatewayEndpoint a = router.getEndpoints().get(0);
+        // Two requests in three fail: never many in a row, but the average error rate reaches the threshold
+        for (int i = 0; i < 40 && !a.isEjected(); i++) {
+            a.inFlight.incrementAndGet();
+            if (i % 3 == 0) {
+                router.onSuccess(a, 10);
+            } else {
+                router.onFailure(a, 10);
+            }
+        }
+        Assert.assertTrue(a.isEjected());
+    }
+
+    private static GatewayRoutingConfig config(String... urls) {
+        GatewayRoutingConfig config = new GatewayRoutingConfig();
+        List<String> list = Arrays.asList(urls);
+        config.setGatewayUrls(list);
+        config.setExplorationRatio(0);
+        return config;
+    }
+}
@@ -0,0 +1,141 @@
+package com.wiseasy.openapi.sign;
+
+import com.alibaba.fastjson.JSONObject;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.*;
+
+/**
+ * Golden tests: the streamed string to sign must be byte-identical to the original
+ * paraFilter + createLinkString implementation of SignHandler
+ */
+public class CanonicalContentTest {
+
+    @Test
+    public void golden() throws Exception {
+        Map<String, Object> params = new HashMap<>();
+        params.put("method", "order.query");
+        params.put("app_id", "wz6012822ca2f1as78");
+        params.put("sign", "ignored");
+        params.put("Sign_Type", "RSA2");
+        params.put("empty", "");
+        params.put("nothing", null);
+        params.put("order_amount", new BigDecimal("100.0"));
+        params.put("is_split", Boolean.TRUE);
+        params.put("trans_type", 1);
+        params.put("description", "苹果 iPhone");
+
+        String expected = "Sign_Type=RSA2&app_id=wz6012822ca2f1as78&description=苹果 iPhone&is_split=true"
+                + "&method=order.query&order_amount=100.0&trans_type=1";
+        Assert.assertEquals(expected, CanonicalContent.of(params).toString());
+        Assert.assertArrayEquals(expected.getBytes("UTF-8"), CanonicalContent.of(params).toByteArray());
+        Assert.assertEquals(legacyLinkString(params), CanonicalContent.of(params).toString());
+    }
+
+    @Test
+    public void sameBytesAsLegacy() throws Exception {
+        List<Map<String, Object>> cases = new ArrayList<>();
+        cases.add(new HashMap<String, Object>());
+
+        Map<String, Object> unicode = new HashMap<>();
+        unicode.put("emoji", "pay 😀 now");
+        unicode.put("unpaired_high", "a\uD83Db");
+        unicode.put("unpaired_low", "a\uDE00b");
+        unicode.put("trailing_high", "end\uD83D");
+        unicode.put("two_bytes", "éß߿");
+        unicode.put("three_bytes", "ࠀ￿中");
+        unicode.put("SIGN", "ignored");
+        cases.add(unicode);
+
+        Map<String, Object> nested = new HashMap<>();
+        JSONObject data = new JSONObject();
+        data.put("b", 1);
+        data.put("a", "x");
+        nested.put("data", data);
+        nested.put("code", "0");
+        nested.put("msg", "success");
+        nested.put("amount", 12.5d);
+        cases.add(nested);
+
+        // Longer than the internal buffer, with multi-byte characters straddling the buffer boundary
+        Map<String, Object> large = new HashMap<>();
+        StringBuilder sb = new StringBuilder();
+        Random random = new Random(42);
+        for (int i = 0; i < 3000; i++) {
+            sb.append((char) (random.nextBoolean() ? 'a' + random.nextInt(26) : 0x4e00 + random.nextInt(0x5000)));
+        }
+        for (int i = 0; i < 60; i++) {
+            large.put("field_" + i, i % 7 == 0 ? "" : sb.substring(i * 13, i * 13 + 1 + random.nextInt(400)));
+        }
+        cases.add(large);
+
+        // Compare the signed bytes, unpaired surrogates only survive in the legacy String, not in its UTF-8 bytes
+        for (Map<String, Object> params : cases) {
+            String legacy = legacyLinkString(params);
+            Assert.assertArrayEquals(legacy.getBytes("UTF-8"), CanonicalContent.of(params).toByteArray());
+        }
+    }
+
+    @Test
+    public void streamedSignatureMatchesLegacy() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair keyPair = generator.generateKeyPair();
+        String privateKey = Base64.encode(keyPair.getPrivate().getEncoded());
+        String publicKey = Base64.encode(keyPair.getPublic().getEncoded());
+        RSAKeyHolder keys = new RSAKeyHolder(privateKey, publicKey);
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("merchant_no", "312100000164");
+        params.put("merchant_order_no", "ORDER-é-😀");
+        params.put("order_amount", 100.0d);
+
+        // RSA PKCS#1 v1.5 signatures are deterministic
+        String legacy = RSA.sign(legacyLinkString(params), privateKey, "UTF-8");
+        String streamed = SignHandler.sign(keys, params);
+        Assert.assertEquals(legacy, streamed);
+
+        params.put("sign", streamed);
+        Assert.assertTrue(SignHandler.verifySign(keys, params));
+        Assert.assertTrue(SignHandler.verifySign(publicKey, params));
+        params.put("order_amount", 100.01d);
+        Assert.assertFalse(SignHandler.verifySign(keys, params));
+    }
+
+    /**
+     * The original SignHandler.paraFilter + createLinkString
+     */
+    private static String legacyLinkString(Map<String, Object> sArray) {
+        Map<String, Object> result = new HashMap<String, Object>();
+        if (sArray != null && sArray.size() > 0) {
+            JSONObject sJAray = new JSONObject(sArray);
+            for (String key : sJAray.keySet()) {
+                String value = sJAray.getString(key);
+                if (value == null || value.equals("") || key.equalsIgnoreCase("sign")) {
+                    continue;
+                }
+                result.put(key, value);
+            }
+        }
+        JSONObject jparams = new JSONObject(result);
+        List<String> keys = new ArrayList<String>(jparams.keySet());
+        Collections.sort(keys);
+
+        String prestr = "";
+        for (int i = 0; i < keys.size(); i++) {
+            String key = keys.get(i);
+            String value = jparams.getString(key);
+
+            if (i == keys.size() - 1) {
+                prestr = prestr + key + "=" + value;
+            } else {
+                prestr = prestr + key + "=" + value + "&";
+            }
+        }
+        return prestr;
+    }
+}
@@ -0,0 +1,110 @@
+package com.wiseasy.openapi.sign;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The pooled Signature objects of RSAKeyHolder must give the same signatures as signing with a fresh key
+ * every time, whatever the concurrency, and the pool must not grow past its cap
+ */
+public class RSAKeyHolderTest {
+
+    private static final int THREADS = 16;
+
+    private static final int ROUNDS = 50;
+
+    private static String privateKey;
+
+    private static String publicKey;
+
+    @BeforeClass
+    public static void generateKeys() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair pair = generator.generateKeyPair();
+        privateKey = Base64.encode(pair.getPrivate().getEncoded());
+        publicKey = Base64.encode(pair.getPublic().getEncoded());
+    }
+
+    @Test
+    public void concurrentSignAndVerifyMatchUnpooled() throws Exception {
+        RSAKeyHolder keys = new RSAKeyHolder(privateKey, publicKey);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                final int thread = t;
+                futures.add(executor.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() throws Exception {
+                        start.await();
+                        int checked = 0;
+                        for (int i = 0; i < ROUNDS; i++) {
+                            Map<String, Object> params = params(thread, i);
+                            String pooled = SignHandler.sign(keys, params);
+                            Assert.assertEquals(SignHandler.sign(privateKey, params), pooled);
+                            params.put("sign", pooled);
+                            Assert.assertTrue(SignHandler.verifySign(keys, params));
+                            params.put("merchant_order_no", "tampered");
+                            Assert.assertFalse(SignHandler.verifySign(keys, params));
+                            checked++;
+                        }
+                        return checked;
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<Integer> future : futures) {
+                Assert.assertEquals(ROUNDS, future.get(2, TimeUnit.MINUTES).intValue());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Assert.assertTrue(keys.getSigners().idleCount() <= THREADS);
+        Assert.assertTrue(keys.getVerifiers().idleCount() <= THREADS);
+    }
+
+    @Test
+    public void poolStaysWithinItsCap() {
+        RSAKeyHolder keys = new RSAKeyHolder(privateKey, publicKey);
+        RSAKeyHolder.SignaturePool signers = keys.getSigners();
+        List<Signature> borrowed = new ArrayList<>();
+        for (int i = 0; i < RSAKeyHolder.MAX_POOLED + 36; i++) {
+            borrowed.add(signers.borrow());
+        }
+        for (Signature signature : borrowed) {
+            signers.release(signature);
+        }
+        Assert.assertEquals(RSAKeyHolder.MAX_POOLED, signers.idleCount());
+
+        // Pooled objects are handed out again, not new ones
+        Assert.assertTrue(borrowed.contains(signers.borrow()));
+        Assert.assertEquals(RSAKeyHolder.MAX_POOLED - 1, signers.idleCount());
+    }
+
+    private static Map<String, Object> params(int thread, int round) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("app_id", "app1");
+        params.put("method", "order.query");
+        params.put("merchant_no", "M" + thread);
+        params.put("merchant_order_no", "O" + thread + "-" + round);
+        params.put("sign_type", "RSA2");
+        return params;
+    }
+}
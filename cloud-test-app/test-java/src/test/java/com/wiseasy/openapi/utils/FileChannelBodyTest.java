@@ -0,0 +1,65 @@
+package com.wiseasy.openapi.utils;
+
+import org.apache.http.entity.ContentType;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * FileChannelBody must write exactly the bytes of the file, or of its region, and announce that length
+ */
+public class FileChannelBodyTest {
+
+    private static final int SIZE = 1024 * 1024 + 4321;
+
+    private File file;
+
+    private byte[] content;
+
+    @Before
+    public void setUp() throws Exception {
+        content = new byte[SIZE];
+        new Random(7).nextBytes(content);
+        file = Files.createTempFile("file-channel-body", ".bin").toFile();
+        Files.write(file.toPath(), content);
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void writesTheWholeFile() throws Exception {
+        FileChannelBody body = new FileChannelBody(file, ContentType.DEFAULT_BINARY, null);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+        Assert.assertEquals(SIZE, body.getContentLength());
+        Assert.assertArrayEquals(content, out.toByteArray());
+        Assert.assertEquals(file.getName(), body.getFilename());
+    }
+
+    @Test
+    public void writesARegion() throws Exception {
+        int position = 100000;
+        int length = 300001;
+        FileChannelBody body = new FileChannelBody(file, position, length, ContentType.DEFAULT_BINARY, "part");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+        Assert.assertEquals(length, body.getContentLength());
+        Assert.assertArrayEquals(Arrays.copyOfRange(content, position, position + length), out.toByteArray());
+    }
+
+    @Test(expected = IOException.class)
+    public void failsWhenTheFileIsShorterThanTheRegion() throws Exception {
+        new FileChannelBody(file, SIZE - 10, 20, ContentType.DEFAULT_BINARY, "part").writeTo(new ByteArrayOutputStream());
+    }
+}
@@ -0,0 +1,60 @@
+package com.wiseasy.openapi.utils;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * md5Hex streams the file through a 64KB buffer, the digest must not depend on where the reads stop
+ */
+public class FileUtilTest {
+
+    // Several buffers plus a partial one
+    private static final int SIZE = 3 * 64 * 1024 + 1234;
+
+    private File file;
+
+    private byte[] content;
+
+    @Before
+    public void setUp() throws Exception {
+        content = new byte[SIZE];
+        new Random(42).nextBytes(content);
+        file = Files.createTempFile("file-util", ".bin").toFile();
+        Files.write(file.toPath(), content);
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void md5OfAFileLargerThanTheBuffer() throws Exception {
+        Assert.assertEquals(DigestUtils.md5Hex(content), FileUtil.md5Hex(file));
+    }
+
+    @Test
+    public void md5OfARegion() throws Exception {
+        int position = 64 * 1024 - 7;
+        int length = 2 * 64 * 1024 + 3;
+        Assert.assertEquals(DigestUtils.md5Hex(Arrays.copyOfRange(content, position, position + length)),
+                FileUtil.md5Hex(file, position, length));
+        // A region running past the end stops at the end of the file
+        Assert.assertEquals(DigestUtils.md5Hex(Arrays.copyOfRange(content, position, SIZE)),
+                FileUtil.md5Hex(file, position, SIZE));
+    }
+
+    @Test
+    public void md5OfAnEmptyFile() throws Exception {
+        Files.write(file.toPath(), new byte[0]);
+        Assert.assertEquals(DigestUtils.md5Hex(new byte[0]), FileUtil.md5Hex(file));
+    }
+}
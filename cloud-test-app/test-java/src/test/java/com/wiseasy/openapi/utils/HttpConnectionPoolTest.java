@@ -0,0 +1,231 @@
+package com.wiseasy.openapi.utils;
+
+import com.wiseasy.openapi.StubGateway;
+import org.apache.http.HttpVersion;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.message.BasicHttpResponse;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Connection reuse, keep-alive and idle eviction of the pool, and the pool as the only limit of a fan-out of blocking
+ * calls: callers beyond maxPerRoute wait for a connection for up to leaseTimeoutMillis, on platform or virtual threads
+ */
+public class HttpConnectionPoolTest {
+
+    private StubGateway gateway;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    private String url;
+
+    // Client port of every request, one port per connection
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+
+    private volatile String keepAlive;
+
+    @Before
+    public void setUp() throws Exception {
+        gateway = new StubGateway(0).context("/", exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            if (keepAlive != null) {
+                exchange.getResponseHeaders().set("Keep-Alive", keepAlive);
+            }
+            int current = inFlight.incrementAndGet();
+            maxInFlight.accumulateAndGet(current, Math::max);
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            inFlight.decrementAndGet();
+            StubGateway.reply(exchange, "ok");
+        }).start();
+        url = gateway.getUrl() + "/api/entry";
+    }
+
+    @After
+    public void tearDown() {
+        gateway.close();
+    }
+
+    @Test
+    public void reusesConnections() throws Exception {
+        try (HttpConnectionPool pool = new HttpConnectionPool()) {
+            for (int i = 0; i < 5; i++) {
+                Assert.assertEquals("ok", HttpClientUtil.doPost(pool, url, null, null));
+            }
+            Assert.assertEquals(1, clientPorts.size());
+            Assert.assertEquals(1, pool.getStats(url).getAvailable());
+            Assert.assertEquals(0, pool.getStats(url).getLeased());
+        }
+    }
+
+    @Test
+    public void honorsTheKeepAliveTimeoutOfTheServer() throws Exception {
+        BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+        Assert.assertEquals(60000, HttpConnectionPool.keepAliveStrategy(60000).getKeepAliveDuration(response, null));
+        response.setHeader("Keep-Alive", "timeout=5, max=100");
+        Assert.assertEquals(5000, HttpConnectionPool.keepAliveStrategy(60000).getKeepAliveDuration(response, null));
+
+        keepAlive = "timeout=1";
+        try (HttpConnectionPool pool = new HttpConnectionPool()) {
+            HttpClientUtil.doPost(pool, url, null, null);
+            HttpClientUtil.doPost(pool, url, null, null);
+            Assert.assertEquals(1, clientPorts.size());
+            // Past the timeout the server may have closed it, the connection is not leased again
+            Thread.sleep(1200);
+            HttpClientUtil.doPost(pool, url, null, null);
+            Assert.assertEquals(2, clientPorts.size());
+        }
+    }
+
+    @Test
+    public void appliesTheSettingsToTheConnectionManager() throws Exception {
+        HttpPoolConfig config = new HttpPoolConfig();
+        config.setMaxTotal(7);
+        config.setMaxPerRoute(5);
+        config.setValidateAfterInactivityMillis(1500);
+        config.setMaxIdleMillis(200);
+        try (HttpConnectionPool pool = new HttpConnectionPool(config)) {
+            PoolingHttpClientConnectionManager manager = pool.getConnectionManager();
+            Assert.assertEquals(7, manager.getMaxTotal());
+            Assert.assertEquals(5, manager.getDefaultMaxPerRoute());
+            Assert.assertEquals(1500, manager.getValidateAfterInactivity());
+
+            HttpClientUtil.doPost(pool, url, null, null);
+            Assert.assertEquals(1, pool.getTotalStats().getAvailable());
+            // The evictor closes the connection once idle for longer than maxIdleMillis
+            long deadline = System.currentTimeMillis() + 5000;
+            while (pool.getTotalStats().getAvailable() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            Assert.assertEquals(0, pool.getTotalStats().getAvailable());
+        }
+    }
+
+    @Test
+    public void fanOutIsLimitedByThePool() throws Exception {
+        HttpPoolConfig config = new HttpPoolConfig();
+        config.setMaxPerRoute(3);
+        ExecutorService executor = ExecutorFactory.newExecutor(20, "fan-out");
+        try (HttpConnectionPool pool = new HttpConnectionPool(config)) {
+            List<Future<String>> calls = new ArrayList<>();
+            for (int i = 0; i < 12; i++) {
+                calls.add(executor.submit(() -> HttpClientUtil.doPost(pool, url, null, null)));
+            }
+            for (Future<String> call : calls) {
+                Assert.assertEquals("ok", call.get());
+            }
+            Assert.assertEquals(3, maxInFlight.get());
+            Assert.assertEquals(0, pool.getTotalStats().getLeased());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void waitsForAConnectionUpToTheLeaseTimeout() throws Exception {
+        HttpPoolConfig config = new HttpPoolConfig();
+        config.setMaxPerRoute(1);
+        config.setLeaseTimeoutMillis(30);
+        ExecutorService executor = ExecutorFactory.newPlatformThreadExecutor(2, "lease");
+        try (HttpConnectionPool pool = new HttpConnectionPool(config)) {
+            Future<String> first = executor.submit(() -> HttpClientUtil.doPost(pool, url, null, null));
+            Thread.sleep(20);
+            Future<String> second = executor.submit(() -> HttpClientUtil.doPost(pool, url, null, null));
+            Assert.assertEquals("ok", first.get());
+            try {
+                second.get();
+                Assert.fail("No connection was free within the lease timeout");
+            } catch (ExecutionException e) {
+                Assert.assertTrue(e.getCause() instanceof ConnectionPoolTimeoutException);
+            }
+            // The failed wait gave nothing back that it did not take
+            Assert.assertEquals("ok", HttpClientUtil.doPost(pool, url, null, null));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void callersWaitingForAConnectionArePending() throws Exception {
+        HttpPoolConfig config = new HttpPoolConfig();
+        config.setMaxPerRoute(1);
+        ExecutorService executor = ExecutorFactory.newPlatformThreadExecutor(3, "pending");
+        try (HttpConnectionPool pool = new HttpConnectionPool(config)) {
+            List<Future<String>> calls = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                calls.add(executor.submit(() -> HttpClientUtil.doPost(pool, url, null, null)));
+            }
+            long deadline = System.currentTimeMillis() + 5000;
+            while (pool.getTotalStats().getPending() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(1);
+            }
+            Assert.assertTrue(pool.getTotalStats().getPending() > 0);
+            Assert.assertTrue(pool.getStats(url).getPending() > 0);
+            for (Future<String> call : calls) {
+                Assert.assertEquals("ok", call.get());
+            }
+            Assert.assertEquals(0, pool.getTotalStats().getPending());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void permitIsReleasedOnce() throws Exception {
+        HttpPoolConfig config = new HttpPoolConfig();
+        config.setMaxPerRoute(1);
+        try (HttpConnectionPool pool = new HttpConnectionPool(config)) {
+            URI uri = URI.create(url);
+            HttpConnectionPool.Permit permit = pool.acquire(uri, 10);
+            permit.release();
+            permit.release();
+            HttpConnectionPool.Permit next = pool.acquire(uri, 10);
+            try {
+                pool.acquire(uri, 10);
+                Assert.fail("A second release must not raise maxPerRoute");
+            } catch (ConnectionPoolTimeoutException expected) {
+                // limit kept
+            }
+            next.release();
+        }
+    }
+
+    @Test
+    public void virtualThreadsWhenAvailable() throws Exception {
+        boolean java21 = Integer.parseInt(System.getProperty("java.specification.version").replace("1.", "")) >= 21;
+        Assert.assertEquals(java21, ExecutorFactory.isVirtualThreadSupported());
+        if (!java21) {
+            try {
+                ExecutorFactory.newVirtualThreadExecutor("virtual");
+                Assert.fail("Virtual threads need Java 21");
+            } catch (UnsupportedOperationException expected) {
+                return;
+            }
+        }
+        ExecutorService executor = ExecutorFactory.newVirtualThreadExecutor("virtual");
+        Future<String> name = executor.submit(() -> Thread.currentThread().getName()
+                + (Boolean) Thread.class.getMethod("isVirtual").invoke(Thread.currentThread()));
+        Assert.assertEquals("virtual-0true", name.get());
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(1, TimeUnit.SECONDS));
+    }
+}